@@ -0,0 +1,160 @@
+package com.belvinard.libraryManagementSystem.benchmark;
+
+import com.belvinard.libraryManagementSystem.data.LibraryData;
+import com.belvinard.libraryManagementSystem.index.PrefixIndex;
+import com.belvinard.libraryManagementSystem.metrics.LatencyHistogram;
+import com.belvinard.libraryManagementSystem.model.Book;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Measures {@link PrefixIndex} autocompletion over a full catalog of 100,000 books: the time to index it,
+ * its heap footprint, the latency of top-10 lookups for prefixes of 1 to 4 letters, compared with scanning
+ * the catalog for the same books, and the cost it adds to updates. Before and after the updates, the
+ * answers of random prefixes are checked against a scan.
+ *
+ * Usage: {@code java -cp target/benchmarks.jar ...AutocompleteRun [lookups] [updates]}
+ */
+public class AutocompleteRun {
+
+    private static final int LIMIT = 10;
+
+    public static void main(String[] args) {
+        int lookups = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int updates = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        CatalogGenerator generator = new CatalogGenerator(42);
+        LibraryData libraryData = generator.library(CatalogGenerator.MAX_BOOKS);
+        List<String> prefixes = prefixes(generator);
+
+        PrefixIndex index = new PrefixIndex();
+        long start = System.nanoTime();
+        libraryData.attach(index);
+        System.out.printf("indexed %,d books in %,d ms: %,d entries, %,d bytes (%.1f bytes/book)%n",
+                libraryData.size(), (System.nanoTime() - start) / 1_000_000, index.size(), index.footprintBytes(),
+                index.footprintBytes() / (double) libraryData.size());
+        check(libraryData, index, prefixes);
+
+        for (int length = 1; length <= 4; length++) {
+            lookups(index, prefixes, length, lookups);
+        }
+        scans(libraryData, prefixes, Math.max(1, lookups / 1000));
+
+        String[] isbns = CatalogGenerator.isbnsOf(libraryData.getBookCollection());
+        LibraryData plain = generator.library(CatalogGenerator.MAX_BOOKS);
+        long without = updates(plain, generator, isbns, updates);
+        long with = updates(libraryData, generator, isbns, updates);
+        System.out.printf("updates: %,.2f us without the index, %,.2f us with it (%,d entries after)%n",
+                without / 1e3 / updates, with / 1e3 / updates, index.size());
+        check(libraryData, index, prefixes);
+    }
+
+    // Prefixes of 1 to 4 letters of random title and author words
+    private static List<String> prefixes(CatalogGenerator generator) {
+        List<String> prefixes = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            String[] words = (i % 2 == 0 ? generator.title() : generator.author()).split(" ");
+            String word = words[i % words.length].toLowerCase(Locale.ROOT);
+            prefixes.add(word.substring(0, Math.min(word.length(), 1 + i % 4)));
+        }
+        return prefixes;
+    }
+
+    private static void lookups(PrefixIndex index, List<String> prefixes, int length, int lookups) {
+        List<String> sized = new ArrayList<>();
+        for (String prefix : prefixes) {
+            if (prefix.length() == length) {
+                sized.add(prefix);
+            }
+        }
+        LatencyHistogram latency = new LatencyHistogram();
+        long found = 0;
+        for (int round = 0; round < 2; round++) {
+            latency.reset();
+            for (int i = 0; i < lookups; i++) {
+                long begin = System.nanoTime();
+                found += index.complete(sized.get(i % sized.size()), LIMIT).size();
+                latency.record(System.nanoTime() - begin);
+            }
+        }
+        LatencyHistogram.Snapshot snapshot = latency.snapshot();
+        System.out.printf("%d-letter prefixes: mean %,6.2f us, p50 %,6.2f us, p99 %,6.2f us (%,d books found)%n",
+                length, snapshot.getMean() / 1e3, snapshot.getPercentile(50) / 1e3,
+                snapshot.getPercentile(99) / 1e3, found);
+    }
+
+    private static void scans(LibraryData libraryData, List<String> prefixes, int scans) {
+        long begin = System.nanoTime();
+        long found = 0;
+        for (int i = 0; i < scans; i++) {
+            found += scan(libraryData, prefixes.get(i % prefixes.size())).size();
+        }
+        System.out.printf("scanning the catalog: %,.0f us per prefix (%,d books found)%n",
+                (System.nanoTime() - begin) / 1e3 / scans, found);
+    }
+
+    private static long updates(LibraryData libraryData, CatalogGenerator generator, String[] isbns, int updates) {
+        SplittableRandom random = new SplittableRandom(7);
+        long begin = System.nanoTime();
+        for (int i = 0; i < updates; i++) {
+            Book book = libraryData.getBookByISBN(isbns[random.nextInt(isbns.length)]);
+            Book changed = i % 2 == 0 ? book.withTitle(generator.title()) : book.withAuthor(generator.author());
+            libraryData.updateBook(book.getISBN(), changed);
+        }
+        return System.nanoTime() - begin;
+    }
+
+    // Compares the books found for each prefix with a scan, in full and as top 10
+    private static void check(LibraryData libraryData, PrefixIndex index, List<String> prefixes) {
+        for (String prefix : prefixes.subList(0, 100)) {
+            List<String> expected = scan(libraryData, prefix);
+            List<String> all = index.complete(prefix, Integer.MAX_VALUE);
+            if (all.size() != expected.size() || !new HashSet<>(all).equals(new HashSet<>(expected))) {
+                throw new IllegalStateException("Wrong books for '" + prefix + "': " + all.size()
+                        + " instead of " + expected.size());
+            }
+            if (!index.complete(prefix, LIMIT).equals(all.subList(0, Math.min(LIMIT, all.size())))) {
+                throw new IllegalStateException("The top books for '" + prefix + "' are not the first of all.");
+            }
+            String last = "";
+            for (String isbn : all) {
+                String key = firstKey(libraryData.getBookByISBN(isbn), prefix);
+                if (key.compareTo(last) < 0) {
+                    throw new IllegalStateException("Books for '" + prefix + "' are out of order at " + isbn);
+                }
+                last = key;
+            }
+        }
+        System.out.println("checked 100 prefixes against a scan");
+    }
+
+    private static List<String> scan(LibraryData libraryData, String prefix) {
+        List<String> isbns = new ArrayList<>();
+        for (Book book : libraryData.getBookCollection()) {
+            if (firstKey(book, prefix) != null) {
+                isbns.add(book.getISBN());
+            }
+        }
+        return isbns;
+    }
+
+    // The smallest text from a word start of the title or author to its end that starts with the prefix
+    private static String firstKey(Book book, String prefix) {
+        String first = null;
+        for (String value : new String[]{book.getTitle(), book.getAuthor()}) {
+            String lower = value.toLowerCase(Locale.ROOT);
+            for (int i = 0; i < lower.length(); i++) {
+                boolean wordStart = Character.isLetterOrDigit(lower.charAt(i))
+                        && (i == 0 || !Character.isLetterOrDigit(lower.charAt(i - 1)));
+                if (wordStart && lower.startsWith(prefix, i) && (first == null || lower.substring(i).compareTo(first) < 0)) {
+                    first = lower.substring(i);
+                }
+            }
+        }
+        return first;
+    }
+}
@@ -0,0 +1,209 @@
+package com.belvinard.libraryManagementSystem.benchmark;
+
+import com.belvinard.libraryManagementSystem.data.BatchReport;
+import com.belvinard.libraryManagementSystem.data.BookStore;
+import com.belvinard.libraryManagementSystem.data.ConcurrentBookStore;
+import com.belvinard.libraryManagementSystem.data.LibraryData;
+import com.belvinard.libraryManagementSystem.data.VersionedBookStore;
+import com.belvinard.libraryManagementSystem.metrics.MetricsRegistry;
+import com.belvinard.libraryManagementSystem.model.Book;
+import com.belvinard.libraryManagementSystem.persistence.CatalogPersistence;
+import com.belvinard.libraryManagementSystem.service.BookService;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Compares the batch writes of {@link BookService} with the same work done one call at a time,
+ * on a 50,000-book catalog with the search indexes attached: adding 50,000 books, upserting 50,000 books
+ * (half of them new, half changed), re-genring every book of 20 authors, and adding 10,000 books
+ * to a durable catalog that waits for an fsync per write. Reports items per second for each.
+ *
+ * Usage: {@code java -cp target/benchmarks.jar ...BatchWriteRun [batch size]}
+ */
+public class BatchWriteRun {
+
+    private static final int CATALOG = 50_000;
+    private static final int AUTHORS = 20;
+    private static final int DURABLE_WRITES = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        int batchSize = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+
+        System.out.printf("%-10s %-12s %14s %14s %9s%n", "store", "workload", "per-call/s", "batch/s", "speedup");
+        for (String name : new String[]{"concurrent", "versioned"}) {
+            Supplier<BookStore> store = name.equals("concurrent") ? ConcurrentBookStore::new : VersionedBookStore::new;
+            report(name, "add", measure(store, false, BatchWriteRun::addOneByOne),
+                    measure(store, false, service -> addInBatches(service, batchSize)));
+            report(name, "upsert", measure(store, false, BatchWriteRun::upsertOneByOne),
+                    measure(store, false, service -> upsertInBatches(service, batchSize)));
+            report(name, "re-genre", measure(store, false, BatchWriteRun::regenreOneByOne),
+                    measure(store, false, BatchWriteRun::regenreInBatches));
+        }
+        report("concurrent", "durable add", measure(ConcurrentBookStore::new, true, BatchWriteRun::durableOneByOne),
+                measure(ConcurrentBookStore::new, true, service -> durableInBatches(service, batchSize)));
+    }
+
+    private interface Workload {
+        // Runs the workload and returns the number of items written
+        int run(BookService service) throws Exception;
+    }
+
+    // Best of three runs on fresh catalogs, in items per second
+    private static double measure(Supplier<BookStore> store, boolean durable, Workload workload) throws Exception {
+        double best = 0;
+        for (int round = 0; round < 3; round++) {
+            LibraryData libraryData = new LibraryData(store.get());
+            Path directory = durable ? Files.createTempDirectory("batch-wal") : null;
+            CatalogPersistence persistence = durable ? CatalogPersistence.open(directory, libraryData, true) : null;
+            try {
+                libraryData.addBooks(booksFrom(42, 0, CATALOG));
+                BookService service = new BookService(libraryData, MetricsRegistry.disabled());
+                service.searchBooks("java", 1);
+                // Collect the previous catalogs now rather than during the measurement
+                System.gc();
+                long start = System.nanoTime();
+                int items = workload.run(service);
+                best = Math.max(best, items * 1e9 / (System.nanoTime() - start));
+            } finally {
+                if (persistence != null) {
+                    persistence.close();
+                    deleteRecursively(directory);
+                }
+            }
+        }
+        return best;
+    }
+
+    private static void report(String store, String workload, double perCall, double batch) {
+        System.out.printf("%-10s %-12s %14.0f %14.0f %8.1fx%n", store, workload, perCall, batch, batch / perCall);
+    }
+
+    // Books with the consecutive ISBNs first, first + 1, ...
+    private static List<Book> booksFrom(long seed, int first, int count) {
+        CatalogGenerator generator = new CatalogGenerator(seed);
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            books.add(generator.book(first + i));
+        }
+        return books;
+    }
+
+    // Books with ISBNs after the initial catalog
+    private static List<Book> newBooks(int count) {
+        return booksFrom(7, CATALOG, count);
+    }
+
+    // Half new books, half changed versions of stored books
+    private static List<Book> upserts() {
+        CatalogGenerator generator = new CatalogGenerator(9);
+        List<Book> books = new ArrayList<>(CATALOG);
+        for (int i = 0; i < CATALOG / 2; i++) {
+            books.add(generator.book(i * 2));
+            books.add(generator.book(CATALOG + i));
+        }
+        return books;
+    }
+
+    private static List<String> authors() {
+        CatalogGenerator generator = new CatalogGenerator(11);
+        List<String> authors = new ArrayList<>(AUTHORS);
+        for (int i = 0; i < AUTHORS; i++) {
+            authors.add(generator.author());
+        }
+        return authors;
+    }
+
+    private static int addOneByOne(BookService service) {
+        List<Book> books = newBooks(CATALOG);
+        for (Book book : books) {
+            service.addBook(book);
+        }
+        return books.size();
+    }
+
+    private static int addInBatches(BookService service, int batchSize) {
+        List<Book> books = newBooks(CATALOG);
+        int written = 0;
+        for (int i = 0; i < books.size(); i += batchSize) {
+            written += service.addAll(books.subList(i, Math.min(i + batchSize, books.size()))).getWritten();
+        }
+        return written;
+    }
+
+    private static int upsertOneByOne(BookService service) {
+        List<Book> books = upserts();
+        for (Book book : books) {
+            if (!service.updateBook(book.getISBN(), book)) {
+                service.addBook(book);
+            }
+        }
+        return books.size();
+    }
+
+    private static int upsertInBatches(BookService service, int batchSize) {
+        List<Book> books = upserts();
+        int written = 0;
+        for (int i = 0; i < books.size(); i += batchSize) {
+            written += service.upsertAll(books.subList(i, Math.min(i + batchSize, books.size()))).getWritten();
+        }
+        return written;
+    }
+
+    // What a caller without updateWhere does: scan the catalog, then update each matching book
+    private static int regenreOneByOne(BookService service) {
+        int written = 0;
+        for (String author : authors()) {
+            List<Book> matches = new ArrayList<>();
+            for (Book book : service.listBooks(0, Integer.MAX_VALUE)) {
+                if (book.getAuthor().equalsIgnoreCase(author)) {
+                    matches.add(book);
+                }
+            }
+            for (Book book : matches) {
+                service.updateBook(book.getISBN(), book.withGenre("History"));
+                written++;
+            }
+        }
+        return written;
+    }
+
+    private static int regenreInBatches(BookService service) {
+        int written = 0;
+        for (String author : authors()) {
+            BatchReport report = service.changeGenreOfAuthor(author, "History");
+            written += report.getWritten() + report.count(BatchReport.Outcome.UNCHANGED);
+        }
+        return written;
+    }
+
+    private static int durableOneByOne(BookService service) {
+        List<Book> books = newBooks(DURABLE_WRITES);
+        for (Book book : books) {
+            service.addBook(book);
+        }
+        return books.size();
+    }
+
+    private static int durableInBatches(BookService service, int batchSize) {
+        List<Book> books = newBooks(DURABLE_WRITES);
+        int written = 0;
+        for (int i = 0; i < books.size(); i += batchSize) {
+            written += service.addAll(books.subList(i, Math.min(i + batchSize, books.size()))).getWritten();
+        }
+        return written;
+    }
+
+    private static void deleteRecursively(Path directory) throws Exception {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toArray(Path[]::new)) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
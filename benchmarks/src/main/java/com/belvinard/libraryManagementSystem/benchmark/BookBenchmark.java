@@ -0,0 +1,68 @@
+package com.belvinard.libraryManagementSystem.benchmark;
+
+import com.belvinard.libraryManagementSystem.model.Book;
+import com.belvinard.libraryManagementSystem.model.BookValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Book construction and field validation.
+ * Run with {@code -prof gc} to see the allocation rate per constructed book.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    private final String[] titles = new String[SAMPLES];
+    private final String[] authors = new String[SAMPLES];
+    private final String[] genres = new String[SAMPLES];
+    private final String[] isbns = new String[SAMPLES];
+    private final int[] years = new int[SAMPLES];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        List<Book> books = new CatalogGenerator(42).books(SAMPLES);
+        for (int i = 0; i < SAMPLES; i++) {
+            Book book = books.get(i);
+            titles[i] = book.getTitle();
+            authors[i] = book.getAuthor();
+            genres[i] = book.getGenre();
+            isbns[i] = book.getISBN();
+            years[i] = book.getPublicationYear();
+        }
+    }
+
+    @Benchmark
+    public Book construct() {
+        int i = next++ & (SAMPLES - 1);
+        return new Book(titles[i], authors[i], genres[i], isbns[i], years[i]);
+    }
+
+    @Benchmark
+    public boolean validateAllFields() {
+        int i = next++ & (SAMPLES - 1);
+        return BookValidator.isValidTitle(titles[i])
+                & BookValidator.isValidAuthor(authors[i])
+                & BookValidator.isValidGenre(genres[i])
+                & BookValidator.isValidIsbn(isbns[i])
+                & BookValidator.isValidPublicationYear(years[i]);
+    }
+}
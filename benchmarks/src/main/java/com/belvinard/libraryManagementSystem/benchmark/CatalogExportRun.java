@@ -0,0 +1,120 @@
+package com.belvinard.libraryManagementSystem.benchmark;
+
+import com.belvinard.libraryManagementSystem.data.ConcurrentBookStore;
+import com.belvinard.libraryManagementSystem.data.LibraryData;
+import com.belvinard.libraryManagementSystem.data.ListBookStore;
+import com.belvinard.libraryManagementSystem.data.VersionedBookStore;
+import com.belvinard.libraryManagementSystem.io.CatalogExporter;
+import com.belvinard.libraryManagementSystem.io.CatalogFormat;
+import com.belvinard.libraryManagementSystem.io.ExportFilter;
+import com.belvinard.libraryManagementSystem.io.ExportReport;
+import com.belvinard.libraryManagementSystem.io.Json;
+import com.belvinard.libraryManagementSystem.model.Book;
+import com.belvinard.libraryManagementSystem.model.Genre;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Exports a 100,000-book catalog repeatedly into one file (100 passes, 10 million books, by default) and
+ * prints MB/s, books/s and the bytes allocated by the exporting thread: first the obvious way
+ * ({@code getBookCollection()}, one String per line, a BufferedWriter), then with {@link CatalogExporter}
+ * as CSV, as JSONL, and as CSV filtered to Java books from 1990 to 2005.
+ * Only 100,000 distinct 5-digit ISBNs exist, so a single catalog cannot hold 10 million books;
+ * each pass appends the whole catalog to the file again. The catalog is in a {@link VersionedBookStore}
+ * unless another store is given, since the exporter's block reads copy books with the other stores.
+ *
+ * Usage: {@code java -cp target/benchmarks.jar ...CatalogExportRun [passes] [directory] [versioned|list|concurrent]}
+ */
+public class CatalogExportRun {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws IOException {
+        int passes = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        Path directory = args.length > 1 ? Path.of(args[1]) : Path.of(System.getProperty("java.io.tmpdir"));
+        String store = args.length > 2 ? args[2] : "versioned";
+        LibraryData libraryData = new LibraryData(store.equals("list") ? new ListBookStore()
+                : store.equals("concurrent") ? new ConcurrentBookStore() : new VersionedBookStore());
+        libraryData.addBooks(new CatalogGenerator(42).books(CatalogGenerator.MAX_BOOKS));
+        CatalogExporter exporter = new CatalogExporter(libraryData);
+        Path file = Files.createTempFile(directory, "export", ".out");
+        try {
+            System.out.printf("%d books (%s store) x %d passes into %s%n%n", libraryData.size(), store, passes, file);
+            System.out.printf("%-28s %10s %10s %12s %14s %12s%n", "method", "MB", "MB/s", "books/s", "alloc MB", "alloc B/book");
+            for (int round = 0; round < 2; round++) {
+                // The first round warms up the JIT; only the second is printed
+                boolean print = round == 1;
+                measure(print, "strings + BufferedWriter csv", file, () -> naive(libraryData, file, passes, true));
+                measure(print, "strings + BufferedWriter jsonl", file, () -> naive(libraryData, file, passes, false));
+                measure(print, "exporter csv", file,
+                        () -> export(exporter, file, CatalogFormat.CSV, ExportFilter.ALL, passes));
+                measure(print, "exporter jsonl", file,
+                        () -> export(exporter, file, CatalogFormat.JSONL, ExportFilter.ALL, passes));
+                measure(print, "exporter csv, Java 1990-2005", file,
+                        () -> export(exporter, file, CatalogFormat.CSV, ExportFilter.of(Genre.JAVA, 1990, 2005), passes));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void measure(boolean print, String method, Path file, Export export) throws IOException {
+        System.gc();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        long books = export.run();
+        long elapsed = System.nanoTime() - start;
+        long allocated = THREADS.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        double megabytes = Files.size(file) / (double) (1 << 20);
+        if (print) {
+            System.out.printf("%-28s %10.0f %10.1f %12.0f %14.1f %12.1f%n", method, megabytes, megabytes * 1e9 / elapsed,
+                    books * 1e9 / elapsed, allocated / (double) (1 << 20), allocated / (double) Math.max(books, 1));
+        }
+    }
+
+    private static long naive(LibraryData libraryData, Path file, int passes, boolean csv) throws IOException {
+        long books = 0;
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            if (csv) {
+                out.write("title,author,genre,isbn,publicationYear\n");
+            }
+            for (int pass = 0; pass < passes; pass++) {
+                for (Book book : libraryData.getBookCollection()) {
+                    out.write(csv
+                            ? book.getTitle() + "," + book.getAuthor() + "," + book.getGenre() + "," + book.getISBN()
+                              + "," + book.getPublicationYear() + "\n"
+                            : Json.appendBook(new StringBuilder(), book).append('\n').toString());
+                    books++;
+                }
+            }
+        }
+        return books;
+    }
+
+    private static long export(CatalogExporter exporter, Path file, CatalogFormat format, ExportFilter filter,
+                               int passes) throws IOException {
+        long books = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (int pass = 0; pass < passes; pass++) {
+                // Each pass starts at cursor 0, so a CSV file repeats its header line once per pass
+                ExportReport report = exporter.export(channel, format, filter, 0, Integer.MAX_VALUE);
+                books += report.getBooksWritten();
+            }
+        }
+        return books;
+    }
+
+    private interface Export {
+        long run() throws IOException;
+    }
+}
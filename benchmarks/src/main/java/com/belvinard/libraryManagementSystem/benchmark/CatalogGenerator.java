@@ -0,0 +1,167 @@
+package com.belvinard.libraryManagementSystem.benchmark;
+
+import com.belvinard.libraryManagementSystem.data.LibraryData;
+import com.belvinard.libraryManagementSystem.model.Book;
+import com.belvinard.libraryManagementSystem.model.BookValidator;
+import com.belvinard.libraryManagementSystem.model.Genre;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Generates reproducible synthetic catalogs for the benchmarks.
+ * ISBNs are a random permutation of the 5-digit space, genres follow a skewed
+ * distribution (programming books dominate), authors repeat across many books
+ * and publication years lean towards recent decades.
+ */
+public final class CatalogGenerator {
+
+    /** Largest catalog possible: ISBNs are exactly 5 digits. */
+    public static final int MAX_BOOKS = 100_000;
+
+    private static final String[] TITLE_WORDS = {
+            "Effective", "Modern", "Practical", "Advanced", "Clean", "Concurrent", "Patterns",
+            "Systems", "Design", "Algorithms", "Programming", "Data", "Code", "Guide",
+            "Handbook", "Essentials", "Introduction", "History", "Life", "World", "Theory",
+            "Performance", "Architecture", "Engineering", "Structures", "Applications"
+    };
+
+    private static final String[] FIRST_NAMES = {
+            "James", "Mary", "Robert", "Linda", "Michael", "Barbara", "William", "Susan",
+            "David", "Jessica", "Joshua", "Brian", "Martin", "Ada", "Grace", "Donald",
+            "Niklaus", "Edsger", "Barbara", "Doug", "Brian", "Kent", "Rich", "Herb"
+    };
+
+    private static final String[] LAST_NAMES = {
+            "Smith", "Johnson", "Bloch", "Goetz", "Fowler", "Knuth", "Lovelace", "Hopper",
+            "Wirth", "Dijkstra", "Liskov", "Lea", "Kernighan", "Beck", "Hickey", "Sutter",
+            "Martin", "Evans", "Gamma", "Helm", "Johnson", "Vlissides", "Stroustrup"
+    };
+
+    // Relative weights of each Genre, in declaration order
+    private static final int[] GENRE_WEIGHTS = {10, 20, 25, 15, 12, 8, 5, 3, 2};
+
+    private final SplittableRandom random;
+    private final int currentYear = BookValidator.currentYear();
+
+    public CatalogGenerator(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Generates {@code count} books with distinct ISBNs.
+     */
+    public List<Book> books(int count) {
+        if (count < 0 || count > MAX_BOOKS) {
+            throw new IllegalArgumentException("Catalog size must be between 0 and " + MAX_BOOKS + ".");
+        }
+        int[] isbns = shuffledIsbns();
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            books.add(book(isbns[i]));
+        }
+        return books;
+    }
+
+    /**
+     * Generates a LibraryData filled with {@code count} books.
+     */
+    public LibraryData library(int count) {
+        return fill(new LibraryData(), count);
+    }
+
+    /**
+     * Adds {@code count} generated books to the given LibraryData.
+     */
+    public LibraryData fill(LibraryData libraryData, int count) {
+        for (Book book : books(count)) {
+            libraryData.addBook(book);
+        }
+        return libraryData;
+    }
+
+    /**
+     * Generates a single book with the given numeric ISBN.
+     */
+    public Book book(int isbn) {
+        return new Book(title(), author(), genre().getDisplayName(), isbn(isbn), year());
+    }
+
+    public String title() {
+        int words = 2 + random.nextInt(3);
+        StringBuilder title = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                title.append(' ');
+            }
+            title.append(TITLE_WORDS[random.nextInt(TITLE_WORDS.length)]);
+        }
+        return title.toString();
+    }
+
+    public String author() {
+        return FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+    }
+
+    public Genre genre() {
+        int total = 0;
+        for (int weight : GENRE_WEIGHTS) {
+            total += weight;
+        }
+        int pick = random.nextInt(total);
+        Genre[] genres = Genre.values();
+        for (int i = 0; i < genres.length; i++) {
+            pick -= GENRE_WEIGHTS[i];
+            if (pick < 0) {
+                return genres[i];
+            }
+        }
+        return genres[genres.length - 1];
+    }
+
+    public int year() {
+        // Three quarters of the books are from the last 30 years
+        if (random.nextInt(4) > 0) {
+            return currentYear - random.nextInt(30);
+        }
+        return 1900 + random.nextInt(currentYear - 1900 + 1);
+    }
+
+    /**
+     * Returns all 5-digit ISBNs as ints, in random order.
+     */
+    public int[] shuffledIsbns() {
+        int[] isbns = new int[MAX_BOOKS];
+        for (int i = 0; i < MAX_BOOKS; i++) {
+            isbns[i] = i;
+        }
+        for (int i = MAX_BOOKS - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = isbns[i];
+            isbns[i] = isbns[j];
+            isbns[j] = tmp;
+        }
+        return isbns;
+    }
+
+    public static String isbn(int value) {
+        char[] digits = new char[BookValidator.ISBN_LENGTH];
+        for (int i = digits.length - 1; i >= 0; i--) {
+            digits[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return new String(digits);
+    }
+
+    /**
+     * Collects the ISBNs of the given books, e.g. as lookup keys.
+     */
+    public static String[] isbnsOf(List<Book> books) {
+        String[] isbns = new String[books.size()];
+        for (int i = 0; i < isbns.length; i++) {
+            isbns[i] = books.get(i).getISBN();
+        }
+        return isbns;
+    }
+}
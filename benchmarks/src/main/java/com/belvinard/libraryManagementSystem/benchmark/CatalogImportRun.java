@@ -0,0 +1,66 @@
+package com.belvinard.libraryManagementSystem.benchmark;
+
+import com.belvinard.libraryManagementSystem.data.ConcurrentBookStore;
+import com.belvinard.libraryManagementSystem.data.LibraryData;
+import com.belvinard.libraryManagementSystem.io.ImportReport;
+import com.belvinard.libraryManagementSystem.model.Book;
+import com.belvinard.libraryManagementSystem.service.BookService;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+/**
+ * Generates a large catalog file and imports it through {@link BookService#importCatalog(Path)},
+ * printing records/sec and peak heap.
+ * Only 100,000 distinct 5-digit ISBNs exist, so rows beyond that repeat earlier ISBNs and
+ * end up in the reject file together with about 1% of deliberately malformed rows.
+ *
+ * Usage: {@code java -Xmx512m -cp target/benchmarks.jar ...CatalogImportRun [rows] [csv|jsonl]}
+ */
+public class CatalogImportRun {
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        String extension = args.length > 1 ? args[1] : "csv";
+        Path source = Files.createTempFile("catalog", "." + extension);
+        Path rejects = Files.createTempFile("catalog", ".rejects");
+        try {
+            write(source, rows, extension.equals("csv"));
+            System.out.printf("Generated %d rows (%d MB) in %s%n", rows, Files.size(source) >> 20, source);
+
+            BookService bookService = new BookService(new LibraryData(new ConcurrentBookStore()));
+            ImportReport report = bookService.importCatalog(source, rejects);
+            System.out.println(report);
+        } finally {
+            Files.deleteIfExists(source);
+            Files.deleteIfExists(rejects);
+        }
+    }
+
+    private static void write(Path file, int rows, boolean csv) throws IOException {
+        CatalogGenerator generator = new CatalogGenerator(7);
+        SplittableRandom random = new SplittableRandom(7);
+        int[] isbns = generator.shuffledIsbns();
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            if (csv) {
+                out.write("title,author,genre,isbn,publicationYear\n");
+            }
+            for (int i = 0; i < rows; i++) {
+                Book book = generator.book(isbns[i % isbns.length]);
+                String title = random.nextInt(100) == 0 ? "x!" : book.getTitle();
+                if (csv) {
+                    out.write(title + "," + book.getAuthor() + ",\"" + book.getGenre() + "\"," + book.getISBN()
+                            + "," + book.getPublicationYear() + "\n");
+                } else {
+                    out.write("{\"title\":\"" + title + "\",\"author\":\"" + book.getAuthor() + "\",\"genre\":\""
+                            + book.getGenre() + "\",\"isbn\":\"" + book.getISBN() + "\",\"publicationYear\":"
+                            + book.getPublicationYear() + "}\n");
+                }
+            }
+        }
+    }
+}
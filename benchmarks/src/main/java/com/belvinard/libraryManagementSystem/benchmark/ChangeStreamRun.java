@@ -0,0 +1,142 @@
+package com.belvinard.libraryManagementSystem.benchmark;
+
+import com.belvinard.libraryManagementSystem.data.ConcurrentBookStore;
+import com.belvinard.libraryManagementSystem.data.LibraryData;
+import com.belvinard.libraryManagementSystem.events.ChangeEvent;
+import com.belvinard.libraryManagementSystem.events.ChangeStream;
+import com.belvinard.libraryManagementSystem.events.ChangeSubscriber;
+import com.belvinard.libraryManagementSystem.events.OverflowPolicy;
+import com.belvinard.libraryManagementSystem.metrics.LatencyHistogram;
+import com.belvinard.libraryManagementSystem.model.Book;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what a {@link ChangeStream} costs the write path: one writer thread updates random books of a
+ * 100,000-book catalog for a fixed time, without a stream and with 0, 1 and 8 subscribers under each
+ * overflow policy, then with one slow subscriber (1 ms per batch). Reports writes/s, write latency
+ * percentiles, and the events delivered and dropped. Every subscriber checks that it sees consecutive
+ * sequence numbers apart from reported drops.
+ *
+ * Usage: {@code java -cp target/benchmarks.jar ...ChangeStreamRun [seconds]}
+ */
+public class ChangeStreamRun {
+
+    public static void main(String[] args) throws InterruptedException {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        List<Book> books = new CatalogGenerator(42).books(CatalogGenerator.MAX_BOOKS);
+
+        System.out.printf("%-16s %12s %9s %9s %10s %12s %10s %9s%n", "configuration", "writes/s",
+                "p50 ns", "p99 ns", "p99.9 ns", "delivered", "dropped", "failures");
+        run("no stream", books, -1, OverflowPolicy.DROP, 0, seconds);
+        run("0 subscribers", books, 0, OverflowPolicy.DROP, 0, seconds);
+        for (OverflowPolicy policy : OverflowPolicy.values()) {
+            for (int subscribers : new int[]{1, 8}) {
+                run(subscribers + " " + policy, books, subscribers, policy, 0, seconds);
+            }
+        }
+        for (OverflowPolicy policy : OverflowPolicy.values()) {
+            run("1 slow " + policy, books, 1, policy, 1, seconds);
+        }
+    }
+
+    private static void run(String name, List<Book> books, int subscribers, OverflowPolicy policy,
+                            long batchDelayMillis, int seconds) throws InterruptedException {
+        LibraryData libraryData = new LibraryData(new ConcurrentBookStore());
+        libraryData.addBooks(books);
+        ChangeStream stream = subscribers >= 0 ? new ChangeStream(libraryData) : null;
+        CheckingSubscriber[] checkers = new CheckingSubscriber[Math.max(subscribers, 0)];
+        ChangeStream.Subscription[] subscriptions = new ChangeStream.Subscription[checkers.length];
+        for (int i = 0; i < checkers.length; i++) {
+            checkers[i] = new CheckingSubscriber(batchDelayMillis);
+            subscriptions[i] = stream.subscribe("subscriber-" + i, checkers[i], policy, ChangeStream.DEFAULT_BATCH_SIZE);
+        }
+
+        LatencyHistogram latency = new LatencyHistogram();
+        SplittableRandom random = new SplittableRandom(1);
+        CatalogGenerator titles = new CatalogGenerator(2);
+        long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (System.nanoTime() < warmupEnd) {
+            update(libraryData, books, random, titles);
+        }
+        long writes = 0;
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        long now = start;
+        while (now < end) {
+            update(libraryData, books, random, titles);
+            long done = System.nanoTime();
+            latency.record(done - now);
+            now = done;
+            writes++;
+        }
+        double elapsed = (now - start) / 1e9;
+        long delivered = 0;
+        long dropped = 0;
+        long failures = 0;
+        if (stream != null) {
+            stream.close();
+        }
+        for (ChangeStream.Subscription subscription : subscriptions) {
+            failures += subscription.getFailures();
+        }
+        for (CheckingSubscriber checker : checkers) {
+            delivered += checker.delivered;
+            dropped += checker.dropped;
+            failures += checker.errors;
+        }
+
+        LatencyHistogram.Snapshot snapshot = latency.snapshot();
+        System.out.printf("%-16s %12.0f %9d %9d %10d %12d %10d %9d%n", name, writes / elapsed,
+                snapshot.getPercentile(50), snapshot.getPercentile(99), snapshot.getPercentile(99.9),
+                delivered, dropped, failures);
+    }
+
+    private static void update(LibraryData libraryData, List<Book> books, SplittableRandom random,
+                               CatalogGenerator titles) {
+        Book book = books.get(random.nextInt(books.size()));
+        libraryData.updateBook(book.getISBN(), libraryData.getBookByISBN(book.getISBN()).withTitle(titles.title()));
+    }
+
+    // Counts events and checks that sequence numbers are consecutive, apart from reported drops
+    private static final class CheckingSubscriber implements ChangeSubscriber {
+        private final long batchDelayMillis;
+        private long expected = -1;
+        private long delivered;
+        private long dropped;
+        private long errors;
+
+        CheckingSubscriber(long batchDelayMillis) {
+            this.batchDelayMillis = batchDelayMillis;
+        }
+
+        @Override
+        public void onEvents(List<ChangeEvent> events) {
+            for (ChangeEvent event : events) {
+                if (expected >= 0 && event.getSequence() != expected) {
+                    errors++;
+                }
+                expected = event.getSequence() + 1;
+            }
+            delivered += events.size();
+            if (batchDelayMillis > 0) {
+                try {
+                    Thread.sleep(batchDelayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void onDropped(long firstSequence, long count) {
+            if (expected >= 0 && firstSequence != expected) {
+                errors++;
+            }
+            expected = firstSequence + count;
+            dropped += count;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.belvinard.libraryManagementSystem.benchmark;
+
+import com.belvinard.libraryManagementSystem.data.ConcurrentBookStore;
+import com.belvinard.libraryManagementSystem.data.LibraryData;
+import com.belvinard.libraryManagementSystem.data.VersionedBookStore;
+import com.belvinard.libraryManagementSystem.model.Book;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Multi-threaded stress check for a LibraryData backed by a {@link ConcurrentBookStore}
+ * or a {@link VersionedBookStore}.
+ * Writer threads add disjoint ISBN ranges and update their own books while reader threads
+ * check that lookups and listings stay consistent. Exits with status 1 on the first violation.
+ *
+ * Usage: {@code java -cp target/benchmarks.jar ...ConcurrentCatalogStress [writers] [readers] [concurrent|versioned]}
+ */
+public class ConcurrentCatalogStress {
+
+    public static void main(String[] args) throws InterruptedException {
+        int writers = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int readers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        boolean versioned = args.length > 2 && args[2].equals("versioned");
+        int perWriter = CatalogGenerator.MAX_BOOKS / writers;
+
+        LibraryData libraryData = new LibraryData(versioned ? new VersionedBookStore() : new ConcurrentBookStore());
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicReference<String> failure = new AtomicReference<>();
+        AtomicLong reads = new AtomicLong();
+        CountDownLatch writersDone = new CountDownLatch(writers);
+
+        for (int w = 0; w < writers; w++) {
+            int first = w * perWriter;
+            new Thread(() -> {
+                CatalogGenerator generator = new CatalogGenerator(first);
+                for (int i = first; i < first + perWriter; i++) {
+                    libraryData.addBook(generator.book(i));
+                    // Rewrite an earlier book of this writer; the ISBN stays the same
+                    int earlier = first + (i - first) / 2;
+                    Book updated = generator.book(earlier);
+                    libraryData.updateBook(updated.getISBN(), updated);
+                }
+                writersDone.countDown();
+            }, "writer-" + w).start();
+        }
+
+        Thread[] readerThreads = new Thread[readers];
+        for (int r = 0; r < readers; r++) {
+            readerThreads[r] = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom();
+                int lastSize = 0;
+                while (writing.get() && failure.get() == null) {
+                    String isbn = CatalogGenerator.isbn(random.nextInt(CatalogGenerator.MAX_BOOKS));
+                    Book book = libraryData.getBookByISBN(isbn);
+                    if (book != null && !book.getISBN().equals(isbn)) {
+                        failure.compareAndSet(null, "getBookByISBN(" + isbn + ") returned " + book.getISBN());
+                    }
+                    if (book != null && !libraryData.bookExists(isbn)) {
+                        failure.compareAndSet(null, "Book " + isbn + " disappeared");
+                    }
+                    if (random.nextInt(10_000) == 0) {
+                        List<Book> snapshot = libraryData.getBookCollection();
+                        if (snapshot.size() < lastSize) {
+                            failure.compareAndSet(null, "Snapshot shrank from " + lastSize + " to " + snapshot.size());
+                        }
+                        lastSize = snapshot.size();
+                        Set<String> seen = new HashSet<>();
+                        for (Book listed : snapshot) {
+                            if (listed == null || !seen.add(listed.getISBN())) {
+                                failure.compareAndSet(null, "Snapshot holds a null or duplicate book");
+                            }
+                        }
+                    }
+                    reads.incrementAndGet();
+                }
+            }, "reader-" + r);
+            readerThreads[r].start();
+        }
+
+        long start = System.nanoTime();
+        writersDone.await();
+        writing.set(false);
+        for (Thread reader : readerThreads) {
+            reader.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        if (failure.get() == null && libraryData.size() != perWriter * writers) {
+            failure.set("Expected " + perWriter * writers + " books but found " + libraryData.size());
+        }
+        if (failure.get() != null) {
+            System.out.println("FAILED: " + failure.get());
+            System.exit(1);
+        }
+        System.out.printf("OK: %d writers, %d readers, %d books, %d reads in %.2f s%n",
+                writers, readers, libraryData.size(), reads.get(), seconds);
+    }
+}
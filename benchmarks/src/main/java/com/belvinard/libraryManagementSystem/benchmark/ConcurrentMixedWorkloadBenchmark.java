@@ -0,0 +1,58 @@
+package com.belvinard.libraryManagementSystem.benchmark;
+
+import com.belvinard.libraryManagementSystem.data.ConcurrentBookStore;
+import com.belvinard.libraryManagementSystem.data.LibraryData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+
+/**
+ * The mixed workload against a LibraryData backed by a {@link ConcurrentBookStore}, which allows
+ * reads concurrent with writes, on one thread and on all available cores.
+ * Running this class's main method measures throughput for 1, 2, 4, ... threads up to the core count.
+ */
+@State(Scope.Benchmark)
+public class ConcurrentMixedWorkloadBenchmark extends MixedWorkloadBenchmark {
+
+    @Override
+    protected LibraryData newLibraryData() {
+        return new LibraryData(new ConcurrentBookStore());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Object allCores(Client client) {
+        return operation(client);
+    }
+
+    // Thread count is left to the runner, see main
+    @Benchmark
+    public Object scaling(Client client) {
+        return operation(client);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%8s %8s %14s%n", "threads", "read%", "ops/us");
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            Options options = new OptionsBuilder()
+                    .include(ConcurrentMixedWorkloadBenchmark.class.getName() + ".scaling")
+                    .param("catalogSize", "100000")
+                    .threads(threads)
+                    .build();
+            Collection<RunResult> results = new Runner(options).run();
+            for (RunResult result : results) {
+                System.out.printf("%8d %8s %14.2f%n", threads, result.getParams().getParam("readPercent"),
+                        result.getPrimaryResult().getScore());
+            }
+        }
+    }
+}
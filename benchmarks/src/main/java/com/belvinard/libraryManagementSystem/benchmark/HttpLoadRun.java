@@ -0,0 +1,236 @@
+package com.belvinard.libraryManagementSystem.benchmark;
+
+import com.belvinard.libraryManagementSystem.data.ConcurrentBookStore;
+import com.belvinard.libraryManagementSystem.data.LibraryData;
+import com.belvinard.libraryManagementSystem.http.BookHttpServer;
+import com.belvinard.libraryManagementSystem.io.Json;
+import com.belvinard.libraryManagementSystem.metrics.LatencyHistogram;
+import com.belvinard.libraryManagementSystem.model.Book;
+import com.belvinard.libraryManagementSystem.service.BookService;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Closed-loop load test of the HTTP API: each keep-alive connection sends its next request as soon as
+ * the previous response arrives. The mix is 90% get, 5% exists, 4% list (20 books) and 1% update.
+ * Prints requests/sec and latency percentiles, measured after a warm-up.
+ *
+ * Usage: {@code java -cp target/benchmarks.jar ...HttpLoadRun [connections] [seconds] [baseUrl]}.
+ * Without a base URL an in-process server with a 100,000-book catalog is started; with one,
+ * the target is assumed to hold the catalog of {@code CatalogGenerator} seed 42.
+ */
+public class HttpLoadRun {
+
+    private static final long SEED = 42;
+
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        List<Book> books = new CatalogGenerator(SEED).books(CatalogGenerator.MAX_BOOKS);
+        BookHttpServer server = null;
+        URI baseUri;
+        if (args.length > 2) {
+            baseUri = URI.create(args[2]);
+        } else {
+            LibraryData libraryData = new LibraryData(new ConcurrentBookStore());
+            libraryData.addBooks(books);
+            server = new BookHttpServer(new BookService(libraryData), new InetSocketAddress("127.0.0.1", 0));
+            server.start();
+            baseUri = URI.create("http://127.0.0.1:" + server.getPort());
+        }
+
+        try {
+            Load load = new Load(baseUri, books, connections);
+            load.run(Math.min(5, Math.max(1, seconds / 4)), seconds);
+        } finally {
+            if (server != null) {
+                server.stop(0);
+            }
+        }
+    }
+
+    /**
+     * Drives all connections from one selector thread, so the client costs little next to the server
+     * (the JDK HttpClient needs several times more CPU per request than the server being measured).
+     */
+    private static final class Load {
+        private final InetSocketAddress address;
+        private final String host;
+        private final List<Book> books;
+        private final int connections;
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private long errors;
+        private boolean measuring;
+
+        private Load(URI baseUri, List<Book> books, int connections) {
+            this.address = new InetSocketAddress(baseUri.getHost(), baseUri.getPort() < 0 ? 80 : baseUri.getPort());
+            this.host = baseUri.getHost();
+            this.books = books;
+            this.connections = connections;
+        }
+
+        private void run(int warmupSeconds, int seconds) throws IOException {
+            try (Selector selector = Selector.open()) {
+                for (int c = 0; c < connections; c++) {
+                    SocketChannel channel = SocketChannel.open();
+                    channel.configureBlocking(false);
+                    channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                    channel.connect(address);
+                    channel.register(selector, SelectionKey.OP_CONNECT, new Connection(channel, new SplittableRandom(c)));
+                }
+
+                long now = System.nanoTime();
+                long measureFrom = now + warmupSeconds * 1_000_000_000L;
+                long measureTo = measureFrom + seconds * 1_000_000_000L;
+                while (now < measureTo) {
+                    if (!measuring && now >= measureFrom) {
+                        measuring = true;
+                    }
+                    selector.select(100);
+                    for (SelectionKey key : selector.selectedKeys()) {
+                        handle(key);
+                    }
+                    selector.selectedKeys().clear();
+                    now = System.nanoTime();
+                }
+                for (SelectionKey key : selector.keys()) {
+                    key.channel().close();
+                }
+            }
+
+            LatencyHistogram.Snapshot snapshot = latencies.snapshot();
+            long requests = snapshot.getCount();
+            System.out.printf("%d connections, %d s: %d requests, %d errors%n", connections, seconds, requests, errors);
+            System.out.printf("%.0f requests/s%n", requests / (double) seconds);
+            System.out.printf("latency p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, max %.2f ms%n",
+                    snapshot.getPercentile(50) / 1e6, snapshot.getPercentile(90) / 1e6,
+                    snapshot.getPercentile(99) / 1e6, snapshot.getPercentile(99.9) / 1e6,
+                    snapshot.getMax() / 1e6);
+        }
+
+        private void handle(SelectionKey key) throws IOException {
+            Connection connection = (Connection) key.attachment();
+            try {
+                if (key.isConnectable()) {
+                    connection.channel.finishConnect();
+                    send(key, connection);
+                } else if (key.isWritable()) {
+                    flush(key, connection);
+                } else if (key.isReadable()) {
+                    receive(key, connection);
+                }
+            } catch (IOException e) {
+                errors++;
+                key.cancel();
+                connection.channel.close();
+            }
+        }
+
+        private void send(SelectionKey key, Connection connection) throws IOException {
+            connection.out = ByteBuffer.wrap(request(connection.random));
+            connection.in.clear();
+            connection.sentAt = System.nanoTime();
+            flush(key, connection);
+        }
+
+        private void flush(SelectionKey key, Connection connection) throws IOException {
+            connection.channel.write(connection.out);
+            key.interestOps(connection.out.hasRemaining() ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+
+        private void receive(SelectionKey key, Connection connection) throws IOException {
+            ByteBuffer in = connection.in;
+            if (!in.hasRemaining()) {
+                connection.in = in = ByteBuffer.allocate(in.capacity() * 2).put(in.flip());
+            }
+            if (connection.channel.read(in) < 0) {
+                throw new IOException("Connection closed by the server.");
+            }
+            int status = completeResponseStatus(in);
+            if (status > 0) {
+                if (measuring) {
+                    latencies.record(System.nanoTime() - connection.sentAt);
+                    if (status >= 500) {
+                        errors++;
+                    }
+                }
+                send(key, connection);
+            }
+        }
+
+        // Returns the status code once the whole response is in the buffer, 0 while it is incomplete
+        private static int completeResponseStatus(ByteBuffer in) {
+            byte[] bytes = in.array();
+            int length = in.position();
+            int headerEnd = -1;
+            for (int i = 3; i < length; i++) {
+                if (bytes[i] == '\n' && bytes[i - 1] == '\r' && bytes[i - 2] == '\n' && bytes[i - 3] == '\r') {
+                    headerEnd = i + 1;
+                    break;
+                }
+            }
+            if (headerEnd < 0) {
+                return 0;
+            }
+            String headers = new String(bytes, 0, headerEnd, StandardCharsets.ISO_8859_1);
+            int contentLength = 0;
+            int at = headers.toLowerCase(Locale.ROOT).indexOf("\r\ncontent-length:");
+            if (at >= 0) {
+                int valueStart = at + 17;
+                int valueEnd = headers.indexOf('\r', valueStart);
+                contentLength = Integer.parseInt(headers.substring(valueStart, valueEnd).trim());
+            }
+            if (length < headerEnd + contentLength) {
+                return 0;
+            }
+            return Integer.parseInt(headers.substring(9, 12));
+        }
+
+        private byte[] request(SplittableRandom random) {
+            Book book = books.get(random.nextInt(books.size()));
+            int pick = random.nextInt(100);
+            String target;
+            String method = "GET";
+            String body = "";
+            if (pick < 90) {
+                target = "/books/" + book.getISBN();
+            } else if (pick < 95) {
+                target = "/books/" + book.getISBN() + "/exists";
+            } else if (pick < 99) {
+                target = "/books?offset=" + random.nextInt(books.size()) + "&limit=20";
+            } else {
+                method = "PUT";
+                target = "/books/" + book.getISBN();
+                body = Json.appendBook(new StringBuilder(128), book).toString();
+            }
+            String request = method + " " + target + " HTTP/1.1\r\nHost: " + host
+                    + "\r\nContent-Length: " + body.length() + "\r\n\r\n" + body;
+            return request.getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private static final class Connection {
+        private final SocketChannel channel;
+        private final SplittableRandom random;
+        private ByteBuffer in = ByteBuffer.allocate(8192);
+        private ByteBuffer out;
+        private long sentAt;
+
+        private Connection(SocketChannel channel, SplittableRandom random) {
+            this.channel = channel;
+            this.random = random;
+        }
+    }
+}
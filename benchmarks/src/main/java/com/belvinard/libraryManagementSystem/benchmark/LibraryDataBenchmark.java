@@ -0,0 +1,107 @@
+package com.belvinard.libraryManagementSystem.benchmark;
+
+import com.belvinard.libraryManagementSystem.data.LibraryData;
+import com.belvinard.libraryManagementSystem.model.Book;
+import com.belvinard.libraryManagementSystem.service.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-threaded latency of the data and service layer operations for growing catalogs.
+ * Lookups should stay flat as catalogSize grows.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LibraryDataBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int catalogSize;
+
+    private List<Book> books;
+    private String[] presentIsbns;
+    private String[] absentIsbns;
+    private Book[] replacements;
+    private LibraryData libraryData;
+    private BookService bookService;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        CatalogGenerator generator = new CatalogGenerator(42);
+        books = generator.books(catalogSize);
+        libraryData = new LibraryData();
+        for (Book book : books) {
+            libraryData.addBook(book);
+        }
+        bookService = new BookService(libraryData);
+
+        presentIsbns = CatalogGenerator.isbnsOf(books);
+        // Well-formed ISBNs that are not part of the catalog (a placeholder when the catalog is full)
+        List<String> absent = new ArrayList<>();
+        for (int i = 0; i < CatalogGenerator.MAX_BOOKS; i++) {
+            String isbn = CatalogGenerator.isbn(i);
+            if (!libraryData.bookExists(isbn)) {
+                absent.add(isbn);
+            }
+        }
+        absentIsbns = absent.isEmpty() ? new String[]{"none"} : absent.toArray(new String[0]);
+        replacements = new Book[1024];
+        for (int i = 0; i < replacements.length; i++) {
+            Book original = books.get(i % books.size());
+            replacements[i] = new Book(generator.title(), generator.author(), generator.genre().getDisplayName(),
+                    original.getISBN(), generator.year());
+        }
+    }
+
+    @Benchmark
+    public boolean bookExistsHit() {
+        return libraryData.bookExists(presentIsbns[(next++ & Integer.MAX_VALUE) % presentIsbns.length]);
+    }
+
+    @Benchmark
+    public boolean bookExistsMiss() {
+        return libraryData.bookExists(absentIsbns[(next++ & Integer.MAX_VALUE) % absentIsbns.length]);
+    }
+
+    @Benchmark
+    public Book getBookByISBN() {
+        return bookService.getBookByISBN(presentIsbns[(next++ & Integer.MAX_VALUE) % presentIsbns.length]);
+    }
+
+    @Benchmark
+    public void updateBook() {
+        Book replacement = replacements[next++ & (replacements.length - 1)];
+        libraryData.updateBook(replacement.getISBN(), replacement);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OperationsPerInvocation(1)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 10)
+    public LibraryData loadCatalog() {
+        LibraryData fresh = new LibraryData();
+        for (Book book : books) {
+            fresh.addBook(book);
+        }
+        return fresh;
+    }
+}
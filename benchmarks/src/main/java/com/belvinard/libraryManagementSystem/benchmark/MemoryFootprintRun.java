@@ -0,0 +1,62 @@
+package com.belvinard.libraryManagementSystem.benchmark;
+
+import com.belvinard.libraryManagementSystem.data.BookStore;
+import com.belvinard.libraryManagementSystem.data.CompactBookStore;
+import com.belvinard.libraryManagementSystem.data.ListBookStore;
+import com.belvinard.libraryManagementSystem.data.LibraryData;
+import com.belvinard.libraryManagementSystem.data.TieredBookStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Supplier;
+
+/**
+ * Prints the retained heap per book for the object-per-book {@link ListBookStore},
+ * the column-oriented {@link CompactBookStore} and a {@link TieredBookStore} caching 1,000 books,
+ * for a full catalog of 100,000 books.
+ *
+ * Usage: {@code java -cp target/benchmarks.jar ...MemoryFootprintRun}
+ */
+public class MemoryFootprintRun {
+
+    public static void main(String[] args) {
+        int books = args.length > 0 ? Integer.parseInt(args[0]) : CatalogGenerator.MAX_BOOKS;
+        measure("ListBookStore", ListBookStore::new, books);
+        measure("CompactBookStore", CompactBookStore::new, books);
+        measure("TieredBookStore", MemoryFootprintRun::tieredStore, books);
+    }
+
+    private static void measure(String name, Supplier<BookStore> store, int count) {
+        long before = usedHeap();
+        LibraryData libraryData = new LibraryData(store.get());
+        CatalogGenerator generator = new CatalogGenerator(42);
+        int[] isbns = generator.shuffledIsbns();
+        for (int i = 0; i < count; i++) {
+            libraryData.addBook(generator.book(isbns[i]));
+        }
+        isbns = null;
+        long after = usedHeap();
+        System.out.printf("%-18s %,12d bytes for %,d books = %6.1f bytes/book%n",
+                name, after - before, libraryData.size(), (after - before) / (double) libraryData.size());
+    }
+
+    private static BookStore tieredStore() {
+        try {
+            Path file = Files.createTempFile("footprint-", ".dat");
+            file.toFile().deleteOnExit();
+            return TieredBookStore.withMaxEntries(file, 1_000);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,86 @@
+package com.belvinard.libraryManagementSystem.benchmark;
+
+import com.belvinard.libraryManagementSystem.data.LibraryData;
+import com.belvinard.libraryManagementSystem.metrics.MetricsRegistry;
+import com.belvinard.libraryManagementSystem.model.Book;
+import com.belvinard.libraryManagementSystem.service.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the BookService operation metrics on a full catalog: the same calls with metrics disabled,
+ * with the default registry (writes timed 1 in 16, lookups timed and counted 1 in 256) and with every
+ * call timed. The lookups are the cheapest operations, so they show the largest relative overhead.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+
+    @Param({"disabled", "default", "every-call"})
+    public String metrics;
+
+    private BookService bookService;
+    private String[] isbns;
+    private Book[] replacements;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        CatalogGenerator generator = new CatalogGenerator(42);
+        List<Book> books = generator.books(CatalogGenerator.MAX_BOOKS);
+        LibraryData libraryData = new LibraryData();
+        libraryData.addBooks(books);
+        MetricsRegistry registry;
+        switch (metrics) {
+            case "disabled":
+                registry = MetricsRegistry.disabled();
+                break;
+            case "default":
+                registry = new MetricsRegistry();
+                break;
+            default:
+                registry = new MetricsRegistry(1);
+                break;
+        }
+        bookService = new BookService(libraryData, registry);
+        isbns = CatalogGenerator.isbnsOf(books);
+        replacements = new Book[1024];
+        for (int i = 0; i < replacements.length; i++) {
+            Book book = books.get(i);
+            replacements[i] = new Book(generator.title(), book.getAuthor(), book.getGenre(), book.getISBN(),
+                    book.getPublicationYear());
+        }
+    }
+
+    @Benchmark
+    public Book getBookByISBN() {
+        return bookService.getBookByISBN(isbns[(next++ & Integer.MAX_VALUE) % isbns.length]);
+    }
+
+    @Benchmark
+    public boolean bookExists() {
+        return bookService.bookExists(isbns[(next++ & Integer.MAX_VALUE) % isbns.length]);
+    }
+
+    @Benchmark
+    public boolean updateBook() {
+        Book replacement = replacements[(next++ & Integer.MAX_VALUE) % replacements.length];
+        return bookService.updateBook(replacement.getISBN(), replacement);
+    }
+}
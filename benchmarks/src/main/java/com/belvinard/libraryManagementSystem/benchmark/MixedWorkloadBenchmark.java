@@ -0,0 +1,93 @@
+package com.belvinard.libraryManagementSystem.benchmark;
+
+import com.belvinard.libraryManagementSystem.data.LibraryData;
+import com.belvinard.libraryManagementSystem.model.Book;
+import com.belvinard.libraryManagementSystem.service.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read/write mix against one catalog on one thread, with the default {@link LibraryData} store.
+ * Reads are bookExists and getBookByISBN; writes are updateBook calls that keep the ISBN.
+ * The default store does not allow reads concurrent with writes, so the multi-threaded runs are in
+ * {@link ConcurrentMixedWorkloadBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MixedWorkloadBenchmark {
+
+    @Param({"10000", "100000"})
+    public int catalogSize;
+
+    @Param({"100", "90", "50"})
+    public int readPercent;
+
+    LibraryData libraryData;
+    BookService bookService;
+    String[] isbns;
+    Book[] replacements;
+
+    @Setup
+    public void setUp() {
+        CatalogGenerator generator = new CatalogGenerator(42);
+        libraryData = newLibraryData();
+        List<Book> books = generator.books(catalogSize);
+        for (Book book : books) {
+            libraryData.addBook(book);
+        }
+        bookService = new BookService(libraryData);
+        isbns = CatalogGenerator.isbnsOf(books);
+        replacements = new Book[4096];
+        for (int i = 0; i < replacements.length; i++) {
+            replacements[i] = new Book(generator.title(), generator.author(), generator.genre().getDisplayName(),
+                    isbns[i % isbns.length], generator.year());
+        }
+    }
+
+    /**
+     * The catalog under test; overridden by benchmarks of other storage modes.
+     */
+    protected LibraryData newLibraryData() {
+        return new LibraryData();
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        final SplittableRandom random = new SplittableRandom(Thread.currentThread().getId());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object singleThread(Client client) {
+        return operation(client);
+    }
+
+    Object operation(Client client) {
+        SplittableRandom random = client.random;
+        if (random.nextInt(100) < readPercent) {
+            String isbn = isbns[random.nextInt(isbns.length)];
+            return random.nextBoolean() ? bookService.bookExists(isbn) : bookService.getBookByISBN(isbn);
+        }
+        Book replacement = replacements[random.nextInt(replacements.length)];
+        bookService.updateBook(replacement.getISBN(), replacement);
+        return replacement;
+    }
+}
@@ -0,0 +1,157 @@
+package com.belvinard.libraryManagementSystem.benchmark;
+
+import com.belvinard.libraryManagementSystem.data.BookStore;
+import com.belvinard.libraryManagementSystem.data.CompactBookStore;
+import com.belvinard.libraryManagementSystem.data.LibraryData;
+import com.belvinard.libraryManagementSystem.data.ListBookStore;
+import com.belvinard.libraryManagementSystem.data.OffHeapBookStore;
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the garbage collector's work for a large catalog kept on the heap and off it. Loads several
+ * full 100,000-book catalogs (ISBNs have five digits, so a larger catalog is made of several stores) into
+ * one kind of store, then reports the heap in use after a full collection, the native memory reserved, the pause of a full
+ * collection and, while lookups run alongside short-lived request garbage for the given time, the
+ * number, total and longest of the collection pauses and the lookups per second.
+ * Run each store in its own JVM with the same heap settings to compare them.
+ *
+ * Usage: {@code java -Xmx4g -cp target/benchmarks.jar ...OffHeapStoreRun <list|compact|offheap|mapped> [catalogs] [seconds]}
+ */
+public class OffHeapStoreRun {
+
+    private static final AtomicLong PAUSES = new AtomicLong();
+    private static final AtomicLong PAUSE_NANOS = new AtomicLong();
+    private static final AtomicLong MAX_PAUSE_NANOS = new AtomicLong();
+
+    public static void main(String[] args) throws IOException {
+        String kind = args.length > 0 ? args[0] : "offheap";
+        int catalogs = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        double seconds = args.length > 2 ? Double.parseDouble(args[2]) : 20;
+        listenToCollections();
+
+        long start = System.nanoTime();
+        LibraryData[] libraries = new LibraryData[catalogs];
+        BookStore[] stores = new BookStore[catalogs];
+        for (int i = 0; i < catalogs; i++) {
+            stores[i] = store(kind);
+            libraries[i] = new CatalogGenerator(i).fill(new LibraryData(stores[i]), CatalogGenerator.MAX_BOOKS);
+        }
+        double loadSeconds = (System.nanoTime() - start) / 1e9;
+        long books = (long) catalogs * CatalogGenerator.MAX_BOOKS;
+        System.out.printf("%s store, %,d books in %d catalogs, loaded in %.1f s%n", kind, books, catalogs, loadSeconds);
+        printPauses("load");
+
+        long fullGcStart = System.nanoTime();
+        System.gc();
+        double fullGcMillis = (System.nanoTime() - fullGcStart) / 1e6;
+        long heap = usedHeapAfterFullGc();
+        long nativeBytes = 0;
+        for (BookStore store : stores) {
+            if (store instanceof OffHeapBookStore) {
+                nativeBytes += ((OffHeapBookStore) store).nativeBytes();
+            }
+        }
+        System.out.printf("heap in use   %,14d bytes (%.1f bytes/book)%n", heap, heap / (double) books);
+        System.out.printf("native memory %,14d bytes (%.1f bytes/book)%n", nativeBytes, nativeBytes / (double) books);
+        System.out.printf("full GC       %14.1f ms%n", fullGcMillis);
+        takePauses();
+
+        String[] isbns = CatalogGenerator.isbnsOf(libraries[0].getBookCollection());
+        long lookups = 0;
+        long sink = 0;
+        // Keeps the latest request garbage reachable for a while, so it cannot be optimized away
+        Object[] recent = new Object[4096];
+        long end = System.nanoTime() + (long) (seconds * 1e9);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < end) {
+            for (int i = 0; i < 1000; i++) {
+                LibraryData libraryData = libraries[random.nextInt(catalogs)];
+                sink += libraryData.getBookByISBN(isbns[random.nextInt(isbns.length)]).getTitle().length();
+                // What handling a request leaves behind besides the Book
+                recent[(int) (lookups + i) & (recent.length - 1)] = new byte[64 + random.nextInt(512)];
+            }
+            lookups += 1000;
+        }
+        System.out.printf("lookups       %,14.0f per second%n", lookups / seconds);
+        printPauses("lookups");
+        if (sink == 42) {
+            System.out.print("");
+        }
+        for (BookStore store : stores) {
+            if (store instanceof OffHeapBookStore) {
+                ((OffHeapBookStore) store).close();
+            }
+        }
+    }
+
+    private static BookStore store(String kind) throws IOException {
+        switch (kind) {
+            case "list":
+                return new ListBookStore();
+            case "compact":
+                return new CompactBookStore();
+            case "offheap":
+                return OffHeapBookStore.inDirectMemory();
+            case "mapped":
+                return OffHeapBookStore.mappedIn(Files.createTempDirectory("offheap-"));
+            default:
+                throw new IllegalArgumentException("Store must be list, compact, offheap or mapped.");
+        }
+    }
+
+    private static void listenToCollections() {
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (!(collector instanceof NotificationEmitter)) {
+                continue;
+            }
+            ((NotificationEmitter) collector).addNotificationListener((notification, handback) -> {
+                if (!notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+                    return;
+                }
+                GarbageCollectionNotificationInfo info =
+                        GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                // ZGC and Shenandoah report their concurrent cycles apart from their pauses
+                if (info.getGcName().endsWith("Cycles")) {
+                    return;
+                }
+                long nanos = info.getGcInfo().getDuration() * 1_000_000L;
+                PAUSES.incrementAndGet();
+                PAUSE_NANOS.addAndGet(nanos);
+                MAX_PAUSE_NANOS.accumulateAndGet(nanos, Math::max);
+            }, null, null);
+        }
+    }
+
+    private static void printPauses(String phase) {
+        long[] pauses = takePauses();
+        System.out.printf("GC during %-8s %6d pauses, %8.1f ms in total, longest %6.1f ms%n",
+                phase, pauses[0], pauses[1] / 1e6, pauses[2] / 1e6);
+    }
+
+    private static long[] takePauses() {
+        // Notifications arrive on their own thread shortly after each collection
+        try {
+            Thread.sleep(200);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return new long[]{PAUSES.getAndSet(0), PAUSE_NANOS.getAndSet(0), MAX_PAUSE_NANOS.getAndSet(0)};
+    }
+
+    private static long usedHeapAfterFullGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,109 @@
+package com.belvinard.libraryManagementSystem.benchmark;
+
+import com.belvinard.libraryManagementSystem.data.BookStore;
+import com.belvinard.libraryManagementSystem.data.ConcurrentBookStore;
+import com.belvinard.libraryManagementSystem.data.LibraryData;
+import com.belvinard.libraryManagementSystem.data.PartitionedBookStore;
+import com.belvinard.libraryManagementSystem.data.VersionedBookStore;
+import com.belvinard.libraryManagementSystem.model.Book;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Measures full-catalog scans over 100,000 books: a plain loop over {@code getBookCollection()} on one thread,
+ * then {@link LibraryData#count} on a {@link ConcurrentBookStore}, a {@link VersionedBookStore} and
+ * a {@link PartitionedBookStore}, run in fork-join pools of 1, 2, 4, ... threads up to the number of cores.
+ * Also reports single-threaded ISBN lookups per second for each store.
+ *
+ * Usage: {@code java -cp target/benchmarks.jar ...ParallelScanRun [seconds per measurement]}
+ */
+public class ParallelScanRun {
+
+    // A filter with some work per book: a case-insensitive title match and a year range
+    private static final Predicate<Book> FILTER = book ->
+            book.getTitle().toLowerCase(Locale.ROOT).contains("data") && book.getPublicationYear() >= 1990;
+
+    public static void main(String[] args) throws Exception {
+        double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 2;
+        List<Book> books = new CatalogGenerator(42).books(CatalogGenerator.MAX_BOOKS);
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        LibraryData plain = new LibraryData(new ConcurrentBookStore());
+        plain.addBooks(books);
+        System.out.printf("%d cores, %d books%n%n", cores, books.size());
+        System.out.printf("%-24s %8s %12s %12s%n", "store", "threads", "scans/s", "ms/scan");
+        report("loop (one list)", 1, measure(seconds, () -> loop(plain.getBookCollection())));
+
+        String[] names = {"concurrent", "versioned", "partitioned"};
+        Supplier<?>[] stores = {ConcurrentBookStore::new, VersionedBookStore::new, PartitionedBookStore::new};
+        for (int s = 0; s < stores.length; s++) {
+            LibraryData libraryData = new LibraryData((BookStore) stores[s].get());
+            libraryData.addBooks(books);
+            for (int threads = 1; threads <= cores; threads *= 2) {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                try {
+                    report(names[s], threads, measure(seconds,
+                            () -> pool.submit(() -> libraryData.count(FILTER)).join()));
+                } finally {
+                    pool.shutdown();
+                }
+            }
+        }
+
+        System.out.printf("%n%-24s %14s%n", "store", "lookups/s");
+        String[] isbns = CatalogGenerator.isbnsOf(books);
+        for (int s = 0; s < stores.length; s++) {
+            LibraryData libraryData = new LibraryData((BookStore) stores[s].get());
+            libraryData.addBooks(books);
+            System.out.printf("%-24s %14.0f%n", names[s], measure(seconds, () -> {
+                long found = 0;
+                for (String isbn : isbns) {
+                    if (libraryData.getBookByISBN(isbn) != null) {
+                        found++;
+                    }
+                }
+                return found;
+            }) * isbns.length);
+        }
+    }
+
+    private static long loop(List<Book> books) {
+        long matches = 0;
+        for (Book book : books) {
+            if (FILTER.test(book)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    // Runs the task for a warm-up second, then for the given time; returns runs per second
+    private static double measure(double seconds, Supplier<Long> task) {
+        long warmupEnd = System.nanoTime() + 1_000_000_000L;
+        long sink = 0;
+        while (System.nanoTime() < warmupEnd) {
+            sink += task.get();
+        }
+        long runs = 0;
+        long start = System.nanoTime();
+        long end = start + (long) (seconds * 1e9);
+        long now = start;
+        while (now < end) {
+            sink += task.get();
+            runs++;
+            now = System.nanoTime();
+        }
+        if (sink == 42) {
+            System.out.print("");
+        }
+        return runs * 1e9 / (now - start);
+    }
+
+    private static void report(String store, int threads, double scansPerSecond) {
+        System.out.printf("%-24s %8d %12.1f %12.2f%n", store, threads, scansPerSecond, 1000 / scansPerSecond);
+    }
+}
@@ -0,0 +1,89 @@
+package com.belvinard.libraryManagementSystem.benchmark;
+
+import com.belvinard.libraryManagementSystem.data.ConcurrentBookStore;
+import com.belvinard.libraryManagementSystem.data.LibraryData;
+import com.belvinard.libraryManagementSystem.model.Book;
+import com.belvinard.libraryManagementSystem.persistence.CatalogPersistence;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Measures the durable catalog: write throughput with group-committed fsync for several
+ * writer thread counts, and recovery time from a snapshot plus a write-ahead log tail.
+ *
+ * Usage: {@code java -cp target/benchmarks.jar ...PersistenceRun [directory]} (defaults to a temp directory;
+ * point it at the disk you want to measure).
+ */
+public class PersistenceRun {
+
+    private static final int WRITES = 20_000;
+
+    public static void main(String[] args) throws Exception {
+        Path base = args.length > 0 ? Files.createDirectories(Path.of(args[0])) : Files.createTempDirectory("catalog-wal");
+        try {
+            System.out.printf("%8s %14s%n", "threads", "writes/s");
+            for (int threads : new int[]{1, 4, 16, 64}) {
+                System.out.printf("%8d %14.0f%n", threads, writeThroughput(base.resolve("write-" + threads), threads));
+            }
+            recovery(base.resolve("recovery"));
+        } finally {
+            deleteRecursively(base);
+        }
+    }
+
+    private static double writeThroughput(Path directory, int threads) throws Exception {
+        LibraryData libraryData = new LibraryData(new ConcurrentBookStore());
+        List<Book> books = new CatalogGenerator(threads).books(WRITES);
+        try (CatalogPersistence ignored = CatalogPersistence.open(directory, libraryData, true)) {
+            Thread[] writers = new Thread[threads];
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                int first = t;
+                writers[t] = new Thread(() -> {
+                    for (int i = first; i < books.size(); i += threads) {
+                        libraryData.addBook(books.get(i));
+                    }
+                });
+                writers[t].start();
+            }
+            for (Thread writer : writers) {
+                writer.join();
+            }
+            return WRITES * 1e9 / (System.nanoTime() - start);
+        }
+    }
+
+    private static void recovery(Path directory) throws IOException {
+        CatalogGenerator generator = new CatalogGenerator(1);
+        List<Book> books = generator.books(CatalogGenerator.MAX_BOOKS);
+        LibraryData original = new LibraryData();
+        try (CatalogPersistence persistence = CatalogPersistence.open(directory, original, false)) {
+            original.addBooks(books);
+            persistence.checkpoint();
+            // A log tail of updates on top of the snapshot
+            for (int i = 0; i < 50_000; i++) {
+                Book book = books.get(i);
+                original.updateBook(book.getISBN(), new Book(generator.title(), generator.author(),
+                        book.getGenre(), book.getISBN(), book.getPublicationYear()));
+            }
+        }
+
+        LibraryData recovered = new LibraryData();
+        try (CatalogPersistence persistence = CatalogPersistence.open(directory, recovered, false)) {
+            System.out.printf("Recovered %d books (%d from snapshot, %d log records) in %d ms%n", recovered.size(),
+                    persistence.getRecoveredFromSnapshot(), persistence.getReplayedRecords(),
+                    persistence.getRecoveryNanos() / 1_000_000);
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+}
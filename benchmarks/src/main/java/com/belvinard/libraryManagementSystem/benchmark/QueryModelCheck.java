@@ -0,0 +1,270 @@
+package com.belvinard.libraryManagementSystem.benchmark;
+
+import com.belvinard.libraryManagementSystem.data.LibraryData;
+import com.belvinard.libraryManagementSystem.model.Book;
+import com.belvinard.libraryManagementSystem.model.BookValidator;
+import com.belvinard.libraryManagementSystem.model.Genre;
+import com.belvinard.libraryManagementSystem.query.Query;
+import com.belvinard.libraryManagementSystem.query.QueryEngine;
+import com.belvinard.libraryManagementSystem.query.QueryPlan;
+import com.belvinard.libraryManagementSystem.query.SortKey;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.function.Predicate;
+
+/**
+ * Model check for the {@link QueryEngine} planner: random queries (ISBN, genre, year ranges including
+ * open-ended and empty ones, author prefixes in any case, plain predicates, every order, limits) run through
+ * the engine and through a naive filter, sort and limit over {@code getBookCollection()}, and their results
+ * are compared. Between queries, random updates and additions change genres, years, authors and ISBNs,
+ * so the indexes the planner reads are checked as they are maintained. Ordered results must be identical,
+ * since ties are broken by ISBN; unordered ones must hold matching books, as many as expected.
+ * Prints how often each access path and ordering was chosen; exits with status 1 on the first
+ * difference, or if an access path was never chosen.
+ *
+ * Usage: {@code java -cp target/benchmarks.jar ...QueryModelCheck [queries] [seed]}
+ */
+public class QueryModelCheck {
+
+    private static final int INITIAL_BOOKS = 20_000;
+    private static final Genre[] GENRES = Genre.values();
+    private static final SortKey[] SORT_KEYS = SortKey.values();
+    private static final int[] LIMITS = {0, 1, 5, 10, 50, 1000};
+
+    private final SplittableRandom random;
+    private final CatalogGenerator generator;
+    private final LibraryData libraryData = new LibraryData();
+    private final QueryEngine engine;
+    private final int currentYear = BookValidator.currentYear();
+
+    private QueryModelCheck(long seed) {
+        this.random = new SplittableRandom(seed);
+        this.generator = new CatalogGenerator(seed);
+        libraryData.addBooks(generator.books(INITIAL_BOOKS));
+        this.engine = new QueryEngine(libraryData);
+    }
+
+    public static void main(String[] args) {
+        int queries = args.length > 0 ? Integer.parseInt(args[0]) : 3_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+        QueryModelCheck check = new QueryModelCheck(seed);
+        Map<QueryPlan.AccessPath, Integer> paths = new EnumMap<>(QueryPlan.AccessPath.class);
+        Map<QueryPlan.Ordering, Integer> orderings = new EnumMap<>(QueryPlan.Ordering.class);
+        long start = System.nanoTime();
+        long matches = 0;
+        for (int i = 1; i <= queries; i++) {
+            Expected expected = check.randomQuery();
+            QueryPlan plan = check.engine.plan(expected.query);
+            paths.merge(plan.getAccessPath(), 1, Integer::sum);
+            orderings.merge(plan.getOrdering(), 1, Integer::sum);
+            List<Book> actual = check.engine.execute(plan);
+            String failure = check.compare(expected, actual);
+            if (failure != null) {
+                System.out.println("FAILED: query " + i + ", " + expected.query + ": " + failure);
+                System.out.println(plan.explain());
+                System.exit(1);
+            }
+            matches += actual.size();
+            check.randomWrites();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println("access paths: " + paths);
+        System.out.println("orderings:    " + orderings);
+        for (QueryPlan.AccessPath path : QueryPlan.AccessPath.values()) {
+            if (!paths.containsKey(path)) {
+                System.out.println("FAILED: the " + path + " path was never chosen");
+                System.exit(1);
+            }
+        }
+        System.out.printf("OK: %d queries, %d books returned, %d books in the catalog, in %.2f s%n",
+                queries, matches, check.libraryData.size(), seconds);
+    }
+
+    private Expected randomQuery() {
+        Query query = Query.all();
+        List<Predicate<Book>> filters = new ArrayList<>();
+        if (random.nextInt(100) < 8) {
+            String isbn = random.nextInt(10) < 7 ? randomBook().getISBN()
+                    : CatalogGenerator.isbn(random.nextInt(CatalogGenerator.MAX_BOOKS));
+            query = query.isbn(isbn);
+            filters.add(book -> book.getISBN().equals(isbn));
+        }
+        if (random.nextInt(100) < 45) {
+            Genre genre = GENRES[random.nextInt(GENRES.length)];
+            query = query.genre(genre);
+            filters.add(book -> book.getGenreType() == genre);
+        }
+        if (random.nextInt(100) < 45) {
+            int[] years = randomYears();
+            int first = years[0];
+            int last = years[1];
+            query = query.yearBetween(first, last);
+            filters.add(book -> book.getPublicationYear() >= first && book.getPublicationYear() <= last);
+        }
+        if (random.nextInt(100) < 30) {
+            String prefix = randomPrefix();
+            query = query.authorStartsWith(prefix);
+            String lower = prefix.toLowerCase(Locale.ROOT);
+            filters.add(book -> book.getAuthor().toLowerCase(Locale.ROOT).startsWith(lower));
+        }
+        if (random.nextInt(100) < 15) {
+            String word = randomBook().getTitle().split(" ")[0];
+            query = query.where("title contains '" + word + "'", book -> book.getTitle().contains(word));
+            filters.add(book -> book.getTitle().contains(word));
+        }
+        Comparator<Book> order = null;
+        if (random.nextInt(100) < 60) {
+            SortKey key = SORT_KEYS[random.nextInt(SORT_KEYS.length)];
+            boolean descending = random.nextBoolean();
+            query = query.orderBy(key, descending);
+            order = key.comparator(descending);
+        }
+        int limit = -1;
+        if (random.nextBoolean()) {
+            limit = LIMITS[random.nextInt(LIMITS.length)];
+            query = query.limit(limit);
+        }
+        return new Expected(query, filters, order, limit);
+    }
+
+    // Narrow, wide, open-ended, empty and overflowing year ranges
+    private int[] randomYears() {
+        int year = BookValidator.MIN_PUBLICATION_YEAR + random.nextInt(currentYear - BookValidator.MIN_PUBLICATION_YEAR + 1);
+        switch (random.nextInt(6)) {
+            case 0:
+                return new int[]{year, year + random.nextInt(3)};
+            case 1:
+                return new int[]{Math.min(year, 1950 + random.nextInt(70)), currentYear};
+            case 2:
+                return new int[]{Integer.MIN_VALUE, year};
+            case 3:
+                return new int[]{year, Integer.MAX_VALUE};
+            case 4:
+                return new int[]{currentYear + 1, currentYear + 1 + random.nextInt(100)};
+            default:
+                return new int[]{Integer.MIN_VALUE, Integer.MIN_VALUE + random.nextInt(100)};
+        }
+    }
+
+    // The start of a stored author name in random case, or two random letters
+    private String randomPrefix() {
+        if (random.nextInt(10) == 0) {
+            return "" + (char) ('a' + random.nextInt(26)) + (char) ('a' + random.nextInt(26));
+        }
+        String author = randomBook().getAuthor();
+        StringBuilder prefix = new StringBuilder();
+        int length = Math.min(author.length(), 1 + random.nextInt(6));
+        for (int i = 0; i < length; i++) {
+            char c = author.charAt(i);
+            prefix.append(random.nextBoolean() ? Character.toUpperCase(c) : Character.toLowerCase(c));
+        }
+        return prefix.toString();
+    }
+
+    // Up to three writes: new genre, year, author or title, a moved ISBN, or a new book
+    private void randomWrites() {
+        for (int writes = random.nextInt(4); writes > 0; writes--) {
+            Book book = randomBook();
+            Book updated;
+            switch (random.nextInt(6)) {
+                case 0:
+                    updated = book.withGenre(GENRES[random.nextInt(GENRES.length)].getDisplayName());
+                    break;
+                case 1:
+                    updated = book.withPublicationYear(generator.year());
+                    break;
+                case 2:
+                    updated = book.withAuthor(randomBook().getAuthor());
+                    break;
+                case 3:
+                    updated = book.withTitle(generator.title());
+                    break;
+                case 4:
+                    String isbn = CatalogGenerator.isbn(random.nextInt(CatalogGenerator.MAX_BOOKS));
+                    if (libraryData.bookExists(isbn)) {
+                        continue;
+                    }
+                    updated = book.withISBN(isbn);
+                    break;
+                default:
+                    Book added = generator.book(random.nextInt(CatalogGenerator.MAX_BOOKS));
+                    if (!libraryData.bookExists(added.getISBN())) {
+                        libraryData.addBook(added);
+                    }
+                    continue;
+            }
+            libraryData.updateBook(book.getISBN(), updated);
+        }
+    }
+
+    private Book randomBook() {
+        List<Book> books = libraryData.getBookCollection();
+        return books.get(random.nextInt(books.size()));
+    }
+
+    private String compare(Expected expected, List<Book> actual) {
+        List<Book> matching = new ArrayList<>();
+        for (Book book : libraryData.getBookCollection()) {
+            if (expected.matches(book)) {
+                matching.add(book);
+            }
+        }
+        if (expected.order != null) {
+            matching.sort(expected.order);
+        }
+        int count = expected.limit >= 0 ? Math.min(expected.limit, matching.size()) : matching.size();
+        if (actual.size() != count) {
+            return actual.size() + " books instead of " + count;
+        }
+        if (expected.order != null) {
+            for (int i = 0; i < count; i++) {
+                if (actual.get(i) != matching.get(i)) {
+                    return "book " + i + " is " + actual.get(i).getISBN() + " instead of " + matching.get(i).getISBN();
+                }
+            }
+            return null;
+        }
+        // Without an order any matching books will do, each once
+        Set<Book> seen = new HashSet<>();
+        for (Book book : actual) {
+            if (!expected.matches(book) || libraryData.getBookByISBN(book.getISBN()) != book) {
+                return "returned " + book.getISBN() + ", which does not match or is not the stored version";
+            }
+            if (!seen.add(book)) {
+                return "returned " + book.getISBN() + " twice";
+            }
+        }
+        return null;
+    }
+
+    private static final class Expected {
+        private final Query query;
+        private final List<Predicate<Book>> filters;
+        private final Comparator<Book> order;
+        private final int limit;
+
+        private Expected(Query query, List<Predicate<Book>> filters, Comparator<Book> order, int limit) {
+            this.query = query;
+            this.filters = filters;
+            this.order = order;
+            this.limit = limit;
+        }
+
+        private boolean matches(Book book) {
+            for (Predicate<Book> filter : filters) {
+                if (!filter.test(book)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
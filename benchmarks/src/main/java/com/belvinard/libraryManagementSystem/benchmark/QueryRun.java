@@ -0,0 +1,140 @@
+package com.belvinard.libraryManagementSystem.benchmark;
+
+import com.belvinard.libraryManagementSystem.data.LibraryData;
+import com.belvinard.libraryManagementSystem.model.Book;
+import com.belvinard.libraryManagementSystem.model.BookValidator;
+import com.belvinard.libraryManagementSystem.model.Genre;
+import com.belvinard.libraryManagementSystem.query.Query;
+import com.belvinard.libraryManagementSystem.query.QueryEngine;
+import com.belvinard.libraryManagementSystem.query.QueryPlan;
+import com.belvinard.libraryManagementSystem.query.SortKey;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Runs a set of query shapes over a 100,000-book catalog, each one through the {@link QueryEngine} and
+ * as the obvious stream over {@code getBookCollection()} (filter, sort, limit), and prints the plan the
+ * engine chose, its estimated cost and the microseconds per query of both.
+ * Every engine result is checked against the stream's first.
+ * With {@code explain}, also prints the full plan of each query.
+ *
+ * Usage: {@code java -cp target/benchmarks.jar ...QueryRun [seconds per measurement] [explain]}
+ */
+public class QueryRun {
+
+    public static void main(String[] args) {
+        double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 1;
+        boolean explain = args.length > 1 && args[1].equals("explain");
+        LibraryData libraryData = new LibraryData();
+        libraryData.addBooks(new CatalogGenerator(42).books(CatalogGenerator.MAX_BOOKS));
+        QueryEngine engine = new QueryEngine(libraryData);
+        int year = BookValidator.currentYear();
+        String isbn = libraryData.getBookCollection().get(12_345).getISBN();
+
+        Shape[] shapes = {
+                new Shape("isbn", Query.all().isbn(isbn), book -> book.getISBN().equals(isbn), null, -1),
+                new Shape("genre, years, author, top 10", Query.all().genre(Genre.JAVA).yearBetween(1990, 2005)
+                        .authorStartsWith("jo").orderBy(SortKey.YEAR, true).limit(10),
+                        book -> book.getGenreType() == Genre.JAVA && book.getPublicationYear() >= 1990
+                                && book.getPublicationYear() <= 2005 && startsWith(book.getAuthor(), "jo"),
+                        SortKey.YEAR.comparator(true), 10),
+                new Shape("author prefix, by title", Query.all().authorStartsWith("ada ").orderBy(SortKey.TITLE),
+                        book -> startsWith(book.getAuthor(), "ada "), SortKey.TITLE.comparator(false), -1),
+                new Shape("genre, first 20", Query.all().genre(Genre.HISTORY).limit(20),
+                        book -> book.getGenreType() == Genre.HISTORY, null, 20),
+                new Shape("genre, 2 years, by title", Query.all().genre(Genre.PYTHON).yearBetween(year - 1, year)
+                        .orderBy(SortKey.TITLE),
+                        book -> book.getGenreType() == Genre.PYTHON && book.getPublicationYear() >= year - 1,
+                        SortKey.TITLE.comparator(false), -1),
+                new Shape("recent years, top 10 by title", Query.all().yearBetween(year - 9, year)
+                        .orderBy(SortKey.TITLE).limit(10),
+                        book -> book.getPublicationYear() >= year - 9, SortKey.TITLE.comparator(false), 10),
+                new Shape("predicate only, top 10", Query.all().where("title contains 'Data'",
+                        book -> book.getTitle().contains("Data")).orderBy(SortKey.YEAR, true).limit(10),
+                        book -> book.getTitle().contains("Data"), SortKey.YEAR.comparator(true), 10),
+        };
+
+        System.out.printf("%d books%n%n", libraryData.size());
+        System.out.printf("%-32s %-24s %10s %8s %12s %12s %8s%n",
+                "query", "access path", "est. cost", "books", "engine us", "stream us", "speedup");
+        for (Shape shape : shapes) {
+            List<Book> expected = shape.stream(libraryData);
+            List<Book> actual = engine.execute(shape.query);
+            // Without an order any matching books will do
+            boolean same = shape.order != null ? expected.equals(actual)
+                    : actual.size() == expected.size() && libraryData.getBookCollection().stream()
+                      .filter(shape.filter).collect(Collectors.toSet()).containsAll(actual);
+            if (!same) {
+                throw new IllegalStateException("Engine and stream disagree on " + shape.query);
+            }
+            QueryPlan plan = engine.plan(shape.query);
+            double engineMicros = measure(seconds, () -> engine.execute(shape.query).size());
+            double streamMicros = measure(seconds, () -> shape.stream(libraryData).size());
+            System.out.printf("%-32s %-24s %10.0f %8d %12.1f %12.1f %7.1fx%n", shape.name, plan.getAccessPath(),
+                    plan.getCost(), actual.size(), engineMicros, streamMicros, streamMicros / engineMicros);
+            if (explain) {
+                System.out.println(plan.explain());
+            }
+        }
+    }
+
+    private static boolean startsWith(String author, String prefix) {
+        return author.toLowerCase(Locale.ROOT).startsWith(prefix);
+    }
+
+    // Runs the task for a warm-up second, then for the given time; returns microseconds per run
+    private static double measure(double seconds, Supplier<Integer> task) {
+        long warmupEnd = System.nanoTime() + 1_000_000_000L;
+        long sink = 0;
+        while (System.nanoTime() < warmupEnd) {
+            sink += task.get();
+        }
+        long runs = 0;
+        long start = System.nanoTime();
+        long end = start + (long) (seconds * 1e9);
+        long now = start;
+        while (now < end) {
+            sink += task.get();
+            runs++;
+            now = System.nanoTime();
+        }
+        if (sink == 42) {
+            System.out.print("");
+        }
+        return (now - start) / 1e3 / runs;
+    }
+
+    private static final class Shape {
+        private final String name;
+        private final Query query;
+        private final Predicate<Book> filter;
+        private final Comparator<Book> order;
+        private final int limit;
+
+        private Shape(String name, Query query, Predicate<Book> filter, Comparator<Book> order, int limit) {
+            this.name = name;
+            this.query = query;
+            this.filter = filter;
+            this.order = order;
+            this.limit = limit;
+        }
+
+        // The same query written as a stream
+        private List<Book> stream(LibraryData libraryData) {
+            Stream<Book> books = libraryData.getBookCollection().stream().filter(filter);
+            if (order != null) {
+                books = books.sorted(order);
+            }
+            if (limit >= 0) {
+                books = books.limit(limit);
+            }
+            return books.collect(Collectors.toList());
+        }
+    }
+}
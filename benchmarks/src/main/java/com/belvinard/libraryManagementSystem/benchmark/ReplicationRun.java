@@ -0,0 +1,214 @@
+package com.belvinard.libraryManagementSystem.benchmark;
+
+import com.belvinard.libraryManagementSystem.data.ConcurrentBookStore;
+import com.belvinard.libraryManagementSystem.data.LibraryData;
+import com.belvinard.libraryManagementSystem.metrics.LatencyHistogram;
+import com.belvinard.libraryManagementSystem.model.Book;
+import com.belvinard.libraryManagementSystem.replication.ReplicationFollower;
+import com.belvinard.libraryManagementSystem.replication.ReplicationPrimary;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replicates a 100,000-book catalog from a {@link ReplicationPrimary} to {@link ReplicationFollower}s while
+ * a writer updates random books at a fixed rate, and prints every second the writes, the frames and changes
+ * each follower applied, how many changes it is behind and its replication lag (from commit on the primary
+ * to apply on the follower, p50/p99/max per frame).
+ * <p>
+ * In the {@code local} role (the default) primary and followers run in this JVM; halfway through, every
+ * follower's connection is dropped to show it catching up from where it stopped, and at the end the
+ * followers' catalogs are compared with the primary's. The {@code primary} and {@code follower} roles run
+ * one node each, to put them in separate processes on one machine.
+ *
+ * Usage: {@code java -cp target/benchmarks.jar ...ReplicationRun [key=value ...]}, with
+ * <ul>
+ *     <li>{@code role=local}: {@code local}, {@code primary} or {@code follower}</li>
+ *     <li>{@code port=7070}: the port of the primary (a free one in the local role)</li>
+ *     <li>{@code primary=localhost:7070}: the primary a follower connects to</li>
+ *     <li>{@code followers=1}: followers in the local role</li>
+ *     <li>{@code rate=20000}: updates per second</li>
+ *     <li>{@code batch=1}: updates per write; more than one are written with {@code upsertAll}</li>
+ *     <li>{@code duration=20}: seconds to run</li>
+ * </ul>
+ */
+public class ReplicationRun {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        String role = options.getOrDefault("role", "local");
+        int port = Integer.parseInt(options.getOrDefault("port", role.equals("local") ? "0" : "7070"));
+        int followerCount = Integer.parseInt(options.getOrDefault("followers", "1"));
+        double rate = Double.parseDouble(options.getOrDefault("rate", "20000"));
+        int batch = Integer.parseInt(options.getOrDefault("batch", "1"));
+        long duration = Long.parseLong(options.getOrDefault("duration", "20"));
+        if (followerCount < 1 || rate <= 0 || batch < 1 || duration < 1) {
+            throw new IllegalArgumentException("Invalid options: " + options);
+        }
+
+        if (role.equals("follower")) {
+            String[] primary = options.getOrDefault("primary", "localhost:7070").split(":");
+            ReplicationFollower follower = new ReplicationFollower(
+                    new InetSocketAddress(primary[0], Integer.parseInt(primary[1])));
+            follower.start();
+            Report report = new Report(List.of(follower));
+            for (long second = 1; second <= duration; second++) {
+                Thread.sleep(1000);
+                report.print(second, -1, -1);
+            }
+            follower.close();
+            return;
+        }
+        if (!role.equals("local") && !role.equals("primary")) {
+            throw new IllegalArgumentException("Role must be local, primary or follower.");
+        }
+
+        LibraryData libraryData = new CatalogGenerator(42).fill(new LibraryData(new ConcurrentBookStore()),
+                CatalogGenerator.MAX_BOOKS);
+        ReplicationPrimary primary = new ReplicationPrimary(libraryData, new InetSocketAddress(port));
+        primary.start();
+        System.out.printf("primary on port %d, %,d books, %,.0f updates/s in writes of %d%n",
+                primary.getPort(), libraryData.size(), rate, batch);
+        List<ReplicationFollower> followers = new ArrayList<>();
+        if (role.equals("local")) {
+            for (int i = 0; i < followerCount; i++) {
+                ReplicationFollower follower = new ReplicationFollower(new InetSocketAddress("localhost", primary.getPort()));
+                follower.start();
+                followers.add(follower);
+            }
+        }
+
+        AtomicLong writes = new AtomicLong();
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> write(libraryData, rate, batch, writes, running), "writer");
+        writer.start();
+        Report report = new Report(followers);
+        long lastWrites = 0;
+        for (long second = 1; second <= duration; second++) {
+            Thread.sleep(1000);
+            long total = writes.get();
+            report.print(second, total - lastWrites, primary.getSequence());
+            lastWrites = total;
+            if (role.equals("primary")) {
+                for (ReplicationPrimary.Link link : primary.getLinks()) {
+                    System.out.printf("    %s: acked %,d, %,d behind, %,d frames, %,d snapshots%n", link.getAddress(),
+                            link.getAcked(), link.getLag(), link.getFrames(), link.getSnapshots());
+                }
+            }
+            if (second == duration / 2) {
+                for (ReplicationFollower follower : followers) {
+                    follower.disconnect();
+                }
+                System.out.println("    dropped the follower connections");
+            }
+        }
+        running.set(false);
+        writer.join();
+
+        for (ReplicationFollower follower : followers) {
+            if (!follower.awaitApplied(primary.getSequence(), Duration.ofSeconds(30))) {
+                throw new IllegalStateException("A follower did not catch up: " + follower.getLastFailure());
+            }
+            compare(libraryData, follower);
+            System.out.printf("follower matches the primary at change %,d: %d connects, %d snapshots%n",
+                    follower.getApplied(), follower.getConnects(), follower.getSnapshots());
+            follower.close();
+        }
+        primary.close();
+    }
+
+    // Updates random books at the given rate until stopped
+    private static void write(LibraryData libraryData, double rate, int batch, AtomicLong writes, AtomicBoolean running) {
+        SplittableRandom random = new SplittableRandom(1);
+        String[] isbns = CatalogGenerator.isbnsOf(libraryData.getBookCollection());
+        long start = System.nanoTime();
+        long done = 0;
+        List<Book> books = new ArrayList<>(batch);
+        while (running.get()) {
+            long due = (long) ((System.nanoTime() - start) / 1e9 * rate);
+            if (done >= due) {
+                LockSupport.parkNanos(50_000);
+                continue;
+            }
+            for (int i = 0; i < batch; i++) {
+                Book book = libraryData.getBookByISBN(isbns[random.nextInt(isbns.length)]);
+                books.add(book.withTitle("Revised edition " + (done + i)));
+            }
+            if (batch == 1) {
+                libraryData.updateBook(books.get(0).getISBN(), books.get(0));
+            } else {
+                libraryData.upsertAll(books);
+            }
+            books.clear();
+            done += batch;
+            writes.set(done);
+        }
+    }
+
+    private static void compare(LibraryData primary, ReplicationFollower follower) {
+        if (follower.size() != primary.size()) {
+            throw new IllegalStateException("The follower has " + follower.size() + " books, the primary " + primary.size());
+        }
+        for (Book book : primary.getBookCollection()) {
+            Book copy = follower.getBookByISBN(book.getISBN());
+            if (copy == null || !copy.getTitle().equals(book.getTitle()) || !copy.getAuthor().equals(book.getAuthor())
+                    || copy.getGenreType() != book.getGenreType() || copy.getPublicationYear() != book.getPublicationYear()) {
+                throw new IllegalStateException("The follower differs from the primary on ISBN " + book.getISBN());
+            }
+        }
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals <= 0) {
+                throw new IllegalArgumentException("Options are key=value pairs: " + arg);
+            }
+            options.put(arg.substring(0, equals), arg.substring(equals + 1));
+        }
+        return options;
+    }
+
+    // Per-second progress of each follower
+    private static final class Report {
+        private final List<ReplicationFollower> followers;
+        private final long[] frames;
+        private final long[] records;
+
+        private Report(List<ReplicationFollower> followers) {
+            this.followers = followers;
+            this.frames = new long[followers.size()];
+            this.records = new long[followers.size()];
+        }
+
+        private void print(long second, long writes, long sequence) {
+            StringBuilder line = new StringBuilder(String.format("%4d s", second));
+            if (writes >= 0) {
+                line.append(String.format("  %,8d writes/s, sequence %,10d", writes, sequence));
+            }
+            for (int i = 0; i < followers.size(); i++) {
+                ReplicationFollower follower = followers.get(i);
+                LatencyHistogram.Snapshot lag = follower.getLagHistogram().snapshot();
+                follower.getLagHistogram().reset();
+                long newFrames = follower.getFrames() - frames[i];
+                long newRecords = follower.getRecords() - records[i];
+                frames[i] = follower.getFrames();
+                records[i] = follower.getRecords();
+                line.append(String.format("%n    follower %d: %,7d frames/s, %,8d changes/s, %,6d behind, "
+                                + "lag p50 %,7.0f us, p99 %,7.0f us, max %,7.0f us",
+                        i + 1, newFrames, newRecords, follower.getLag(), lag.getPercentile(50) / 1e3,
+                        lag.getPercentile(99) / 1e3, lag.getMax() / 1e3));
+            }
+            System.out.println(line);
+        }
+    }
+}
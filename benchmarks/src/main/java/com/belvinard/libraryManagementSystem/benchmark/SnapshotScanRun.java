@@ -0,0 +1,115 @@
+package com.belvinard.libraryManagementSystem.benchmark;
+
+import com.belvinard.libraryManagementSystem.data.BookStore;
+import com.belvinard.libraryManagementSystem.data.CatalogSnapshot;
+import com.belvinard.libraryManagementSystem.data.ConcurrentBookStore;
+import com.belvinard.libraryManagementSystem.data.LibraryData;
+import com.belvinard.libraryManagementSystem.data.VersionedBookStore;
+import com.belvinard.libraryManagementSystem.metrics.LatencyHistogram;
+import com.belvinard.libraryManagementSystem.model.Book;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Runs full-catalog scans on {@link LibraryData#snapshot()} while writer threads update books as fast as they can,
+ * and reports write throughput, write latency (p99.9 and max), scans/s and the time taken by {@code snapshot()},
+ * during which a {@link ConcurrentBookStore} pauses writes to copy the catalog and a {@link VersionedBookStore}
+ * does nothing. Each scan also checks that its snapshot is consistent.
+ *
+ * Usage: {@code java -cp target/benchmarks.jar ...SnapshotScanRun [writers] [seconds]}
+ */
+public class SnapshotScanRun {
+
+    public static void main(String[] args) throws InterruptedException {
+        int writers = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        System.out.printf("%-12s %-8s %12s %10s %10s %10s %16s%n",
+                "store", "scanner", "writes/s", "p99.9 us", "max us", "scans/s", "snapshot p50 us");
+        for (String name : new String[]{"concurrent", "versioned"}) {
+            Supplier<BookStore> store = name.equals("concurrent") ? ConcurrentBookStore::new : VersionedBookStore::new;
+            for (boolean scanning : new boolean[]{false, true}) {
+                run(name, store.get(), writers, seconds, scanning);
+            }
+        }
+    }
+
+    private static void run(String name, BookStore store, int writers, int seconds, boolean scanning)
+            throws InterruptedException {
+        CatalogGenerator generator = new CatalogGenerator(42);
+        List<Book> books = generator.books(CatalogGenerator.MAX_BOOKS);
+        LibraryData libraryData = new LibraryData(store);
+        libraryData.addBooks(books);
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        LatencyHistogram writeLatency = new LatencyHistogram();
+        LatencyHistogram snapshotLatency = new LatencyHistogram();
+        long[] scans = new long[1];
+        Thread[] threads = new Thread[writers + (scanning ? 1 : 0)];
+        for (int w = 0; w < writers; w++) {
+            int seed = w;
+            threads[w] = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                CatalogGenerator titles = new CatalogGenerator(seed);
+                while (running.get()) {
+                    Book book = books.get(random.nextInt(books.size()));
+                    Book updated = book.withTitle(titles.title());
+                    long start = System.nanoTime();
+                    libraryData.updateBook(book.getISBN(), updated);
+                    writeLatency.record(System.nanoTime() - start);
+                }
+            }, "writer-" + w);
+        }
+        if (scanning) {
+            threads[writers] = new Thread(() -> {
+                while (running.get()) {
+                    long start = System.nanoTime();
+                    CatalogSnapshot snapshot = libraryData.snapshot();
+                    snapshotLatency.record(System.nanoTime() - start);
+                    scan(snapshot);
+                    scans[0]++;
+                }
+            }, "scanner");
+        }
+
+        // Warm up, then measure from a clean histogram
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        Thread.sleep(1000);
+        writeLatency.reset();
+        snapshotLatency.reset();
+        long scansBefore = scans[0];
+        long start = System.nanoTime();
+        Thread.sleep(seconds * 1000L);
+        LatencyHistogram.Snapshot writes = writeLatency.snapshot();
+        long scanned = scans[0] - scansBefore;
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        System.out.printf("%-12s %-8s %12.0f %10.1f %10.1f %10s %16s%n", name, scanning ? "yes" : "no",
+                writes.getCount() / elapsed, writes.getPercentile(99.9) / 1e3, writes.getMax() / 1e3,
+                scanning ? String.format("%.1f", scanned / elapsed) : "-",
+                scanning ? String.format("%.1f", snapshotLatency.snapshot().getPercentile(50) / 1e3) : "-");
+    }
+
+    // Reads every book of the snapshot and checks it against the snapshot's own ISBN lookup
+    private static void scan(CatalogSnapshot snapshot) {
+        int years = 0;
+        for (Book book : snapshot.books()) {
+            if (snapshot.get(book.getISBN()) != book) {
+                throw new IllegalStateException("Inconsistent snapshot at version " + snapshot.getVersion());
+            }
+            years += book.getPublicationYear();
+        }
+        if (years == 0 && snapshot.size() > 0) {
+            throw new IllegalStateException("Empty years");
+        }
+    }
+}
@@ -0,0 +1,479 @@
+package com.belvinard.libraryManagementSystem.benchmark;
+
+import com.belvinard.libraryManagementSystem.config.LibraryConfig;
+import com.belvinard.libraryManagementSystem.data.LibraryData;
+import com.belvinard.libraryManagementSystem.metrics.LatencyHistogram;
+import com.belvinard.libraryManagementSystem.model.Book;
+import com.belvinard.libraryManagementSystem.persistence.CatalogPersistence;
+import com.belvinard.libraryManagementSystem.service.BookService;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load generator and soak test for {@link BookService}: client threads run a weighted mix of
+ * {@code getBookByISBN}, {@code bookExists}, {@code addBook} and {@code updateBook} calls on Zipf-distributed
+ * ISBNs, for as long as asked, and a report line is printed every interval with the throughput,
+ * the p50/p99/p99.9/max latency, the GC pauses and the least heap in use after GC. The final summary compares the
+ * first and last quarter of the run, so throughput decay or memory growth over hours stands out.
+ * <p>
+ * In a closed loop (the default) each client sends its next call as soon as the last returns. With a
+ * {@code rate}, the loop is open: calls are due at fixed times whatever the service does, and latency is
+ * measured from the time a call was due, so a stall also counts against the calls queued behind it.
+ * <p>
+ * The keys are ranks of a Zipf distribution over all 100,000 ISBNs in a fixed random order; the catalog starts
+ * with the first {@code books} of them and adds take the following ones, so the hottest keys are books that
+ * exist and reads of the cold tail partly miss. Once every ISBN is taken, adds pick a taken one and
+ * are rejected as duplicates, which keeps the catalog at its maximum size for the rest of the soak.
+ * <p>
+ * The store is chosen like in the application, from {@code -Dlibrary.store} (concurrent by default here,
+ * since several threads share the catalog), {@code -Dlibrary.partitions} and {@code -Dlibrary.cache.*}.
+ *
+ * Usage: {@code java [-Dlibrary.store=versioned] -cp target/benchmarks.jar ...SoakRun [key=value ...]}, with
+ * <ul>
+ *     <li>{@code threads=8}: client threads</li>
+ *     <li>{@code virtual=false}: run the clients on virtual threads (Java 21 and later)</li>
+ *     <li>{@code rate=0}: calls per second over all clients for an open loop; 0 for a closed loop</li>
+ *     <li>{@code duration=60}: seconds to run, e.g. 14400 for a four-hour soak</li>
+ *     <li>{@code interval=10}: seconds between report lines</li>
+ *     <li>{@code mix=get:80,exists:10,add:5,update:5}: relative weights of the operations</li>
+ *     <li>{@code zipf=0.99}: Zipf exponent of the ISBN keys; 0 for uniform keys</li>
+ *     <li>{@code books=50000}: books in the initial catalog</li>
+ *     <li>{@code data=}: a directory to persist the catalog in, with a write-ahead log and checkpoints</li>
+ * </ul>
+ */
+public class SoakRun {
+
+    private enum Operation {
+        GET, EXISTS, ADD, UPDATE
+    }
+
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    // A parked thread wakes up to about 60 us late (the kernel's timer slack), which an open loop would count
+    // as latency; clients park until this long before a call is due and spin for the rest
+    private static final long PARK_SLACK_NANOS = 80_000;
+
+    // The ISBN space in the order keys are ranked and books are added
+    private static final int[] ISBNS = new CatalogGenerator(7).shuffledIsbns();
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        int threads = Integer.parseInt(options.getOrDefault("threads", "8"));
+        boolean virtual = Boolean.parseBoolean(options.getOrDefault("virtual", "false"));
+        double rate = Double.parseDouble(options.getOrDefault("rate", "0"));
+        long duration = Long.parseLong(options.getOrDefault("duration", "60"));
+        long interval = Long.parseLong(options.getOrDefault("interval", "10"));
+        int[] weights = mix(options.getOrDefault("mix", "get:80,exists:10,add:5,update:5"));
+        double zipf = Double.parseDouble(options.getOrDefault("zipf", "0.99"));
+        int books = Integer.parseInt(options.getOrDefault("books", "50000"));
+        if (threads < 1 || rate < 0 || duration < 1 || interval < 1 || zipf < 0
+                || books < 1 || books > CatalogGenerator.MAX_BOOKS) {
+            throw new IllegalArgumentException("Invalid options: " + options);
+        }
+
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addLast(new MapPropertySource("soak defaults",
+                Map.of(LibraryConfig.STORE_PROPERTY, "concurrent")));
+        LibraryData libraryData = new LibraryData(new LibraryConfig().bookStore(environment));
+        CatalogPersistence persistence = null;
+        if (options.containsKey("data")) {
+            persistence = CatalogPersistence.open(Path.of(options.get("data")), libraryData, true);
+            persistence.startPeriodicCheckpoints(Duration.ofMinutes(1));
+        }
+        Load load = new Load(new BookService(libraryData), weights, new Zipf(zipf));
+        if (libraryData.size() == 0) {
+            CatalogGenerator generator = new CatalogGenerator(42);
+            List<Book> initial = new ArrayList<>(books);
+            for (int i = 0; i < books; i++) {
+                initial.add(generator.book(ISBNS[i]));
+            }
+            libraryData.addBooks(initial);
+        }
+        load.nextAdd.set(libraryData.size());
+
+        System.out.printf("store %s, %d books, %d %s threads, %s, mix %s, zipf %.2f, %d s%n",
+                environment.getProperty(LibraryConfig.STORE_PROPERTY), libraryData.size(), threads,
+                virtual ? "virtual" : "platform", rate > 0 ? String.format("open loop at %.0f calls/s", rate) : "closed loop",
+                options.getOrDefault("mix", "get:80,exists:10,add:5,update:5"), zipf, duration);
+        GcMonitor gc = new GcMonitor();
+        gc.start();
+
+        ThreadFactory factory = virtual ? virtualThreads() : runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        };
+        long start = System.nanoTime();
+        long end = start + duration * 1_000_000_000L;
+        List<Thread> clients = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long seed = t;
+            // Each open-loop client owns an equal share of the rate, its calls due at fixed intervals
+            long period = rate > 0 ? (long) (1e9 * threads / rate) : 0;
+            Thread client = factory.newThread(() -> load.run(new SplittableRandom(seed), start, end, period));
+            client.start();
+            clients.add(client);
+        }
+
+        System.out.printf("%8s %10s %9s %9s %9s %9s %6s %9s %9s %10s %9s%n", "time s", "calls/s", "p50 us",
+                "p99 us", "p99.9 us", "max us", "gcs", "gc ms", "gc max ms", "live MB", "books");
+        List<double[]> lines = new ArrayList<>();
+        long nextReport = start;
+        long lastCalls = 0;
+        while (nextReport < end) {
+            nextReport = Math.min(nextReport + interval * 1_000_000_000L, end);
+            LockSupport.parkNanos(nextReport - System.nanoTime());
+            while (System.nanoTime() < nextReport) {
+                LockSupport.parkNanos(nextReport - System.nanoTime());
+            }
+            LatencyHistogram.Snapshot latency = load.interval.snapshot();
+            load.interval.reset();
+            long calls = load.calls.sum();
+            double seconds = (nextReport - start) / 1e9;
+            double callsPerSecond = (calls - lastCalls) / (double) interval;
+            lastCalls = calls;
+            GcMonitor.Interval pauses = gc.take();
+            double liveMegabytes = gc.liveBytes() / (double) (1 << 20);
+            lines.add(new double[]{callsPerSecond, liveMegabytes});
+            System.out.printf("%8.0f %10.0f %9.1f %9.1f %9.1f %9.1f %6d %9.1f %9.1f %10.1f %9d%n", seconds,
+                    callsPerSecond, latency.getPercentile(50) / 1e3, latency.getPercentile(99) / 1e3,
+                    latency.getPercentile(99.9) / 1e3, latency.getMax() / 1e3, pauses.count,
+                    pauses.totalNanos / 1e6, pauses.maxNanos / 1e6, liveMegabytes, libraryData.size());
+        }
+        load.stop.set(true);
+        for (Thread client : clients) {
+            client.join();
+        }
+        gc.stop();
+        if (persistence != null) {
+            persistence.close();
+        }
+        summary(load, lines, (System.nanoTime() - start) / 1e9);
+    }
+
+    private static void summary(Load load, List<double[]> lines, double seconds) {
+        System.out.printf("%n%-8s %12s %9s %9s %9s %9s%n", "call", "count", "p50 us", "p99 us", "p99.9 us", "max us");
+        for (Operation operation : OPERATIONS) {
+            LatencyHistogram.Snapshot latency = load.latencies[operation.ordinal()].snapshot();
+            if (latency.getCount() > 0) {
+                System.out.printf("%-8s %12d %9.1f %9.1f %9.1f %9.1f%n", operation.name().toLowerCase(Locale.ROOT),
+                        latency.getCount(), latency.getPercentile(50) / 1e3, latency.getPercentile(99) / 1e3,
+                        latency.getPercentile(99.9) / 1e3, latency.getMax() / 1e3);
+            }
+        }
+        System.out.printf("%n%d calls in %.0f s (%.0f/s): %d missed (no book with the ISBN), %d duplicate adds,"
+                        + " %d errors%n", load.calls.sum(), seconds, load.calls.sum() / seconds,
+                load.misses.sum(), load.duplicates.sum(), load.errors.sum());
+        // The first line includes the JIT warm-up, so the quarters are taken from the remaining lines
+        int quarter = (lines.size() - 1) / 4;
+        if (quarter > 0) {
+            double[] first = quarter(lines.subList(1, 1 + quarter));
+            double[] last = quarter(lines.subList(lines.size() - quarter, lines.size()));
+            System.out.printf("first vs last quarter: %.0f vs %.0f calls/s (%+.1f%%), live heap %.1f vs %.1f MB"
+                            + " (%+.1f%%)%n", first[0], last[0], 100 * (last[0] / first[0] - 1), first[1], last[1],
+                    100 * (last[1] / first[1] - 1));
+        }
+        if (load.firstError.get() != null) {
+            System.out.println("first error:");
+            load.firstError.get().printStackTrace(System.out);
+        }
+    }
+
+    // Mean throughput and lowest live heap of a run of report lines; the lowest heap after GC is the least noisy
+    private static double[] quarter(List<double[]> lines) {
+        double calls = 0;
+        double live = Double.MAX_VALUE;
+        for (double[] line : lines) {
+            calls += line[0];
+            live = Math.min(live, line[1]);
+        }
+        return new double[]{calls / lines.size(), live};
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals <= 0) {
+                throw new IllegalArgumentException("Options are key=value pairs: " + arg);
+            }
+            options.put(arg.substring(0, equals), arg.substring(equals + 1));
+        }
+        return options;
+    }
+
+    private static int[] mix(String text) {
+        int[] weights = new int[OPERATIONS.length];
+        for (String part : text.split(",")) {
+            String[] pair = part.split(":");
+            weights[Operation.valueOf(pair[0].trim().toUpperCase(Locale.ROOT)).ordinal()] = Integer.parseInt(pair[1].trim());
+        }
+        int total = 0;
+        for (int weight : weights) {
+            if (weight < 0) {
+                throw new IllegalArgumentException("Weights must not be negative: " + text);
+            }
+            total += weight;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("The mix has no operation: " + text);
+        }
+        return weights;
+    }
+
+    // Thread.ofVirtual() is only in Java 21 and later; this module compiles for Java 17
+    private static ThreadFactory virtualThreads() throws ReflectiveOperationException {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("Virtual threads need Java 21 or later; this is Java "
+                    + Runtime.version().feature() + ".");
+        }
+    }
+
+    /**
+     * The clients' shared state: the service, the mix, the key distribution and the counters.
+     */
+    private static final class Load {
+        private final BookService bookService;
+        private final int[] cumulativeWeights;
+        private final Zipf keys;
+        private final AtomicInteger nextAdd = new AtomicInteger();
+        private final AtomicBoolean stop = new AtomicBoolean();
+        private final LatencyHistogram interval = new LatencyHistogram();
+        private final LatencyHistogram[] latencies = new LatencyHistogram[OPERATIONS.length];
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder duplicates = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final AtomicReference<Throwable> firstError = new AtomicReference<>();
+
+        private Load(BookService bookService, int[] weights, Zipf keys) {
+            this.bookService = bookService;
+            this.keys = keys;
+            this.cumulativeWeights = new int[weights.length];
+            int total = 0;
+            for (int i = 0; i < weights.length; i++) {
+                total += weights[i];
+                cumulativeWeights[i] = total;
+                latencies[i] = new LatencyHistogram();
+            }
+        }
+
+        private void run(SplittableRandom random, long start, long end, long period) {
+            CatalogGenerator generator = new CatalogGenerator(random.nextLong());
+            // Spread the clients' first calls over one period, so an open loop does not start with a burst
+            long due = start + (period > 0 ? random.nextLong(period) : 0);
+            while (!stop.get()) {
+                long begin;
+                if (period > 0) {
+                    long wait = due - System.nanoTime();
+                    if (wait > PARK_SLACK_NANOS) {
+                        LockSupport.parkNanos(wait - PARK_SLACK_NANOS);
+                        continue;
+                    }
+                    if (wait > 0) {
+                        Thread.onSpinWait();
+                        continue;
+                    }
+                    begin = due;
+                    due += period;
+                } else {
+                    begin = System.nanoTime();
+                }
+                if (begin >= end) {
+                    return;
+                }
+                Operation operation = operation(random);
+                try {
+                    call(operation, random, generator);
+                } catch (RuntimeException e) {
+                    errors.increment();
+                    firstError.compareAndSet(null, e);
+                }
+                long latency = System.nanoTime() - begin;
+                interval.record(latency);
+                latencies[operation.ordinal()].record(latency);
+                calls.increment();
+            }
+        }
+
+        private void call(Operation operation, SplittableRandom random, CatalogGenerator generator) {
+            String isbn = CatalogGenerator.isbn(ISBNS[keys.next(random)]);
+            switch (operation) {
+                case GET:
+                    if (bookService.getBookByISBN(isbn) == null) {
+                        misses.increment();
+                    }
+                    break;
+                case EXISTS:
+                    if (!bookService.bookExists(isbn)) {
+                        misses.increment();
+                    }
+                    break;
+                case ADD:
+                    int next = nextAdd.getAndIncrement();
+                    Book book = generator.book(next < ISBNS.length ? ISBNS[next] : ISBNS[keys.next(random)]);
+                    try {
+                        bookService.addBook(book);
+                    } catch (IllegalArgumentException e) {
+                        duplicates.increment();
+                    }
+                    break;
+                case UPDATE:
+                    Book current = bookService.getBookByISBN(isbn);
+                    if (current == null) {
+                        misses.increment();
+                    } else {
+                        bookService.updateBook(isbn, current.withTitle(generator.title()));
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException();
+            }
+        }
+
+        private Operation operation(SplittableRandom random) {
+            int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            for (int i = 0; i < cumulativeWeights.length; i++) {
+                if (pick < cumulativeWeights[i]) {
+                    return OPERATIONS[i];
+                }
+            }
+            throw new IllegalStateException();
+        }
+    }
+
+    /**
+     * Zipf-distributed ranks in [0, 100,000): rank r is drawn with a probability proportional to
+     * 1 / (r + 1)^exponent, by a binary search of the cumulative distribution.
+     */
+    private static final class Zipf {
+        private final double[] cumulative = new double[CatalogGenerator.MAX_BOOKS];
+
+        private Zipf(double exponent) {
+            double total = 0;
+            for (int rank = 0; rank < cumulative.length; rank++) {
+                total += 1 / Math.pow(rank + 1, exponent);
+                cumulative[rank] = total;
+            }
+            for (int rank = 0; rank < cumulative.length; rank++) {
+                cumulative[rank] /= total;
+            }
+        }
+
+        private int next(SplittableRandom random) {
+            double u = random.nextDouble();
+            int low = 0;
+            int high = cumulative.length - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (cumulative[middle] < u) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * Collects the GC pauses from the collectors' notifications, and the least heap in use after a collection
+     * in each interval: as a lower bound of the live data, it is what grows when something leaks.
+     */
+    private static final class GcMonitor {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLong minUsedAfter = new AtomicLong(Long.MAX_VALUE);
+        private final Map<NotificationEmitter, NotificationListener> listeners = new HashMap<>();
+        private long liveBytes;
+
+        private static final class Interval {
+            private final long count;
+            private final long totalNanos;
+            private final long maxNanos;
+
+            private Interval(long count, long totalNanos, long maxNanos) {
+                this.count = count;
+                this.totalNanos = totalNanos;
+                this.maxNanos = maxNanos;
+            }
+        }
+
+        private void start() {
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                if (!(collector instanceof NotificationEmitter)) {
+                    continue;
+                }
+                NotificationListener listener = (notification, handback) -> {
+                    if (!notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+                        return;
+                    }
+                    GarbageCollectionNotificationInfo info =
+                            GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                    long used = 0;
+                    for (MemoryUsage usage : info.getGcInfo().getMemoryUsageAfterGc().values()) {
+                        used += usage.getUsed();
+                    }
+                    minUsedAfter.accumulateAndGet(used, Math::min);
+                    // ZGC and Shenandoah report their concurrent cycles apart from their pauses
+                    if (info.getGcName().endsWith("Cycles")) {
+                        return;
+                    }
+                    long nanos = info.getGcInfo().getDuration() * 1_000_000L;
+                    count.incrementAndGet();
+                    totalNanos.addAndGet(nanos);
+                    maxNanos.accumulateAndGet(nanos, Math::max);
+                };
+                ((NotificationEmitter) collector).addNotificationListener(listener, null, null);
+                listeners.put((NotificationEmitter) collector, listener);
+            }
+        }
+
+        private Interval take() {
+            return new Interval(count.getAndSet(0), totalNanos.getAndSet(0), maxNanos.getAndSet(0));
+        }
+
+        // The least heap in use after a collection since the last call, or the previous value without one
+        private long liveBytes() {
+            long used = minUsedAfter.getAndSet(Long.MAX_VALUE);
+            if (used != Long.MAX_VALUE) {
+                liveBytes = used;
+            }
+            return liveBytes;
+        }
+
+        private void stop() throws Exception {
+            for (Map.Entry<NotificationEmitter, NotificationListener> entry : listeners.entrySet()) {
+                entry.getKey().removeNotificationListener(entry.getValue());
+            }
+        }
+    }
+}
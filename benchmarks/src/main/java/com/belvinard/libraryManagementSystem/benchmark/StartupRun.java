@@ -0,0 +1,92 @@
+package com.belvinard.libraryManagementSystem.benchmark;
+
+import com.belvinard.libraryManagementSystem.LibraryManagementSystemApplication;
+import com.belvinard.libraryManagementSystem.model.Book;
+import com.belvinard.libraryManagementSystem.persistence.SnapshotFile;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Measures time-to-first-query: a fresh JVM runs the application in batch mode with a single {@code get}
+ * and exits, so the wall time covers JVM startup, the Spring context, loading the catalog and the query.
+ * Runs with an empty catalog, with a 100,000-book catalog image, with the image plus an
+ * application class-data-sharing archive (created by a training run of the same command),
+ * and with both plus {@code -XX:TieredStopAtLevel=1}, which suits short runs.
+ *
+ * Usage: {@code java -cp target/benchmarks.jar ...StartupRun [runs]} (the jar must include the application).
+ */
+public class StartupRun {
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+
+        Path directory = Files.createTempDirectory("startup");
+        try {
+            List<Book> books = new CatalogGenerator(42).books(CatalogGenerator.MAX_BOOKS);
+            Path image = directory.resolve("catalog.img");
+            SnapshotFile.writeFile(image, 0, books);
+            Path commands = Files.writeString(directory.resolve("commands.txt"),
+                    "get|" + books.get(books.size() / 2).getISBN() + "\n");
+            Path archive = directory.resolve("library.jsa");
+
+            // Training run: records the classes loaded on this path into a dynamic CDS archive
+            run(List.of("-Dlibrary.image=" + image, "-XX:ArchiveClassesAtExit=" + archive), commands);
+
+            System.out.printf("%-28s %12s %12s %10s%n", "configuration", "median ms", "min ms", "ready ms");
+            measure("empty catalog", List.of(), commands, runs);
+            measure("100K-book image", List.of("-Dlibrary.image=" + image), commands, runs);
+            measure("100K-book image + CDS", List.of("-Dlibrary.image=" + image,
+                    "-XX:SharedArchiveFile=" + archive), commands, runs);
+            measure("100K-book image + CDS + C1", List.of("-Dlibrary.image=" + image,
+                    "-XX:SharedArchiveFile=" + archive, "-XX:TieredStopAtLevel=1"), commands, runs);
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toArray(Path[]::new)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private static void measure(String name, List<String> jvmOptions, Path commands, int runs) throws Exception {
+        long[] wall = new long[runs];
+        long[] ready = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            ready[i] = run(jvmOptions, commands);
+            wall[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(wall);
+        Arrays.sort(ready);
+        System.out.printf("%-28s %12.0f %12.0f %10d%n", name, wall[runs / 2] / 1e6, wall[0] / 1e6, ready[runs / 2]);
+    }
+
+    // Runs the application once and returns the "Ready in N ms" it reports
+    private static long run(List<String> jvmOptions, Path commands) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(LibraryManagementSystemApplication.class.getName());
+        command.add("--batch");
+        command.add(commands.toString());
+
+        Process process = new ProcessBuilder(command).redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+        String errors = new String(process.getErrorStream().readAllBytes(), StandardCharsets.UTF_8);
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException("The application failed:\n" + errors);
+        }
+        int at = errors.indexOf("Ready in ");
+        return at < 0 ? -1 : Long.parseLong(errors.substring(at + 9, errors.indexOf(' ', at + 9)));
+    }
+}
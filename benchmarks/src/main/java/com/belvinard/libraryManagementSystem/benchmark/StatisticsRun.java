@@ -0,0 +1,215 @@
+package com.belvinard.libraryManagementSystem.benchmark;
+
+import com.belvinard.libraryManagementSystem.data.CatalogStatistics;
+import com.belvinard.libraryManagementSystem.data.ConcurrentBookStore;
+import com.belvinard.libraryManagementSystem.data.LibraryData;
+import com.belvinard.libraryManagementSystem.model.Book;
+import com.belvinard.libraryManagementSystem.model.Genre;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+/**
+ * Measures what the {@link CatalogStatistics} every {@link LibraryData} keeps cost and give, on a full
+ * catalog of 100,000 books: the time of bulk adds, single adds and updates (changing genre, year and
+ * author) with and without them, the time to read the counts against one pass over the books, and how
+ * close the sketched top authors are to exact counts when authors follow a Zipf distribution over 20,000 names.
+ * Each write test runs twice, the first as warm-up.
+ *
+ * Usage: {@code java -cp target/benchmarks.jar ...StatisticsRun [updates]}
+ */
+public class StatisticsRun {
+
+    private static final int AUTHORS = 20_000;
+    private static final int TOP = 10;
+
+    public static void main(String[] args) {
+        int updates = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        List<Book> books = new CatalogGenerator(42).books(CatalogGenerator.MAX_BOOKS);
+        Zipf authors = new Zipf(AUTHORS);
+
+        for (int round = 1; round <= 2; round++) {
+            System.out.println(round == 1 ? "warm-up" : "measured");
+            for (boolean statistics : new boolean[]{false, true}) {
+                String label = statistics ? "with statistics   " : "without statistics";
+                long bulk = System.nanoTime();
+                catalog(statistics).addBooks(books);
+                bulk = System.nanoTime() - bulk;
+
+                LibraryData libraryData = catalog(statistics);
+                long singles = System.nanoTime();
+                for (Book book : books) {
+                    libraryData.addBook(book);
+                }
+                singles = System.nanoTime() - singles;
+
+                long changes = System.nanoTime();
+                update(libraryData, authors, updates);
+                changes = System.nanoTime() - changes;
+                System.out.printf("  %s: addBooks %,6.0f ns/book, addBook %,6.0f ns, updateBook %,6.0f ns%n", label,
+                        bulk / (double) books.size(), singles / (double) books.size(), changes / (double) updates);
+            }
+        }
+
+        LibraryData libraryData = catalog(true);
+        libraryData.addBooks(books);
+        update(libraryData, authors, updates);
+        reads(libraryData);
+        accuracy(libraryData);
+    }
+
+    private static LibraryData catalog(boolean statistics) {
+        LibraryData libraryData = new LibraryData(new ConcurrentBookStore());
+        if (!statistics) {
+            libraryData.removeListener(libraryData.getStatistics());
+        }
+        return libraryData;
+    }
+
+    // Changes the author of random books to a Zipf-distributed one, and every other time the genre and year
+    private static void update(LibraryData libraryData, Zipf authors, int updates) {
+        SplittableRandom random = new SplittableRandom(7);
+        Genre[] genres = Genre.values();
+        String[] isbns = CatalogGenerator.isbnsOf(libraryData.getBookCollection());
+        for (int i = 0; i < updates; i++) {
+            Book book = libraryData.getBookByISBN(isbns[random.nextInt(isbns.length)]);
+            Book changed = book.withAuthor(authors.next(random));
+            if (i % 2 == 0) {
+                changed = changed.withGenre(genres[random.nextInt(genres.length)].getDisplayName())
+                        .withPublicationYear(1950 + random.nextInt(70));
+            }
+            libraryData.updateBook(book.getISBN(), changed);
+        }
+    }
+
+    // Times the counts against computing them in one pass over the books
+    private static void reads(LibraryData libraryData) {
+        CatalogStatistics statistics = libraryData.getStatistics();
+        int reads = 100_000;
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < reads; i++) {
+            sink += statistics.countGenre(Genre.JAVA) + statistics.countYear(2000 + i % 20)
+                    + statistics.countDecade(1990) + statistics.countAuthor("Writer Ab");
+        }
+        long counts = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < reads / 100; i++) {
+            sink += statistics.genreCounts().size() + statistics.decadeCounts().size()
+                    + statistics.topAuthors(TOP).size();
+        }
+        long report = System.nanoTime() - start;
+        int passes = 20;
+        start = System.nanoTime();
+        for (int i = 0; i < passes; i++) {
+            sink += exactReport(libraryData.getBookCollection());
+        }
+        long scan = System.nanoTime() - start;
+        System.out.printf("reads: 4 counts %,.0f ns, genres + decades + top %d authors %,.1f us, "
+                        + "one pass over the books %,.1f ms (%d)%n",
+                counts / (double) reads, TOP, report / 1e3 / (reads / 100), scan / 1e6 / passes, sink % 10);
+    }
+
+    private static long exactReport(List<Book> books) {
+        int[] genres = new int[Genre.values().length];
+        Map<Integer, Integer> decades = new TreeMap<>();
+        Map<String, Integer> authors = new HashMap<>();
+        for (Book book : books) {
+            genres[book.getGenreType().ordinal()]++;
+            decades.merge(book.getPublicationYear() / 10 * 10, 1, Integer::sum);
+            authors.merge(book.getAuthor(), 1, Integer::sum);
+        }
+        return genres[0] + decades.size() + topExact(authors).size();
+    }
+
+    // Compares the statistics with exact counts from the books
+    private static void accuracy(LibraryData libraryData) {
+        CatalogStatistics statistics = libraryData.getStatistics();
+        Map<String, Integer> exact = new HashMap<>();
+        int[] genres = new int[Genre.values().length];
+        Map<Integer, Integer> decades = new TreeMap<>();
+        for (Book book : libraryData.getBookCollection()) {
+            exact.merge(book.getAuthor(), 1, Integer::sum);
+            genres[book.getGenreType().ordinal()]++;
+            decades.merge(book.getPublicationYear() / 10 * 10, 1, Integer::sum);
+        }
+        for (Genre genre : Genre.values()) {
+            if (statistics.countGenre(genre) != genres[genre.ordinal()]) {
+                throw new IllegalStateException("Wrong count for genre " + genre);
+            }
+        }
+        if (!statistics.decadeCounts().equals(decades)) {
+            throw new IllegalStateException("Wrong decade counts: " + statistics.decadeCounts() + " instead of " + decades);
+        }
+
+        long totalError = 0;
+        int maxError = 0;
+        for (Map.Entry<String, Integer> author : exact.entrySet()) {
+            int error = statistics.countAuthor(author.getKey()) - author.getValue();
+            if (error < 0) {
+                throw new IllegalStateException("Underestimated " + author.getKey());
+            }
+            totalError += error;
+            maxError = Math.max(maxError, error);
+        }
+        List<String> top = topExact(exact);
+        Set<String> sketched = new HashSet<>();
+        for (CatalogStatistics.AuthorCount author : statistics.topAuthors(TOP)) {
+            sketched.add(author.getAuthor());
+        }
+        int found = 0;
+        for (String author : top) {
+            if (sketched.contains(author)) {
+                found++;
+            }
+        }
+        System.out.printf("accuracy: genre and decade counts exact; %,d authors, estimate error mean %.2f, max %d books;%n"
+                        + "  top %d authors found %d of %d: %s%n  exact: %s%n", exact.size(),
+                totalError / (double) exact.size(), maxError, TOP, found, TOP, statistics.topAuthors(TOP),
+                top.stream().map(author -> author + " (" + exact.get(author) + ")").toList());
+    }
+
+    private static List<String> topExact(Map<String, Integer> counts) {
+        List<String> authors = new ArrayList<>(counts.keySet());
+        authors.sort((a, b) -> counts.get(b).equals(counts.get(a)) ? a.compareTo(b) : counts.get(b) - counts.get(a));
+        return authors.subList(0, Math.min(TOP, authors.size()));
+    }
+
+    // Author names drawn with probability proportional to 1 / rank
+    private static final class Zipf {
+        private final String[] names;
+        private final double[] cumulative;
+
+        private Zipf(int count) {
+            names = new String[count];
+            cumulative = new double[count];
+            double total = 0;
+            for (int i = 0; i < count; i++) {
+                names[i] = "Writer " + letters(i);
+                total += 1.0 / (i + 1);
+                cumulative[i] = total;
+            }
+        }
+
+        private String next(SplittableRandom random) {
+            int slot = Arrays.binarySearch(cumulative, random.nextDouble() * cumulative[cumulative.length - 1]);
+            return names[slot >= 0 ? slot : Math.min(-slot - 1, names.length - 1)];
+        }
+
+        private static String letters(int value) {
+            StringBuilder name = new StringBuilder("A");
+            do {
+                name.append((char) ('a' + value % 26));
+                value /= 26;
+            } while (value > 0);
+            return name.toString();
+        }
+    }
+}
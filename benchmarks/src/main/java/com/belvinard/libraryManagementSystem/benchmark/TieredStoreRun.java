@@ -0,0 +1,69 @@
+package com.belvinard.libraryManagementSystem.benchmark;
+
+import com.belvinard.libraryManagementSystem.data.BookStore;
+import com.belvinard.libraryManagementSystem.data.ListBookStore;
+import com.belvinard.libraryManagementSystem.data.TieredBookStore;
+import com.belvinard.libraryManagementSystem.model.Book;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Measures {@link TieredBookStore} lookups on a full catalog for several cache sizes, with a skewed
+ * access pattern (90% of lookups go to 5% of the books), against the all-on-heap {@link ListBookStore}.
+ *
+ * Usage: {@code java -cp target/benchmarks.jar ...TieredStoreRun [directory]} (defaults to a temp directory;
+ * point it at the disk you want to measure).
+ */
+public class TieredStoreRun {
+
+    private static final int LOOKUPS = 2_000_000;
+
+    public static void main(String[] args) throws Exception {
+        Path directory = args.length > 0 ? Files.createDirectories(Path.of(args[0])) : Files.createTempDirectory("tiered");
+        List<Book> books = new CatalogGenerator(42).books(CatalogGenerator.MAX_BOOKS);
+        String[] isbns = CatalogGenerator.isbnsOf(books);
+
+        ListBookStore heap = new ListBookStore();
+        heap.addAll(books);
+        System.out.printf("%-24s %12s %10s %12s%n", "store", "lookups/s", "hit rate", "evictions");
+        System.out.printf("%-24s %12.0f %10s %12s%n", "ListBookStore", lookups(heap, isbns), "-", "-");
+
+        for (int cacheEntries : new int[]{1_000, 5_000, 20_000, 100_000}) {
+            Path file = directory.resolve("cold-" + cacheEntries + ".dat");
+            try (TieredBookStore tiered = TieredBookStore.withMaxEntries(file, cacheEntries)) {
+                tiered.addAll(books);
+                lookups(tiered, isbns);
+                long hits = tiered.getHits();
+                long misses = tiered.getMisses();
+                long evictions = tiered.getEvictions();
+                double rate = lookups(tiered, isbns);
+                long lookups = tiered.getHits() - hits + tiered.getMisses() - misses;
+                System.out.printf("%-24s %12.0f %9.1f%% %12d%n", "Tiered, " + cacheEntries + " cached", rate,
+                        100.0 * (tiered.getHits() - hits) / lookups, tiered.getEvictions() - evictions);
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    // Runs the skewed lookups (the first pass doubles as warm-up) and returns lookups per second
+    private static double lookups(BookStore store, String[] isbns) {
+        SplittableRandom random = new SplittableRandom(7);
+        int hotSet = isbns.length / 20;
+        long found = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            int index = random.nextInt(10) < 9 ? random.nextInt(hotSet) : random.nextInt(isbns.length);
+            if (store.get(isbns[index]) != null) {
+                found++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        if (found != LOOKUPS) {
+            throw new IllegalStateException("Missing books: " + (LOOKUPS - found));
+        }
+        return LOOKUPS * 1e9 / elapsed;
+    }
+}
@@ -0,0 +1,262 @@
+package com.belvinard.libraryManagementSystem.benchmark;
+
+import com.belvinard.libraryManagementSystem.data.CatalogSnapshot;
+import com.belvinard.libraryManagementSystem.data.VersionedBookStore;
+import com.belvinard.libraryManagementSystem.model.Book;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Model check for the chunk sharing of {@link VersionedBookStore}: random writes (adds, duplicate adds,
+ * in-place and ISBN-changing replacements, addAll and applyBatch) go both to the store and to a plain
+ * list, while up to {@value #KEPT_SNAPSHOTS} snapshots taken along the way are kept with a copy of the
+ * list. Every {@value #CHECK_INTERVAL} writes, the store and every kept snapshot are compared with their
+ * copy: books in order, lookups of every stored ISBN and of ISBNs that are not stored. A later write that
+ * leaked into a shared chunk shows up as a difference. Exits with status 1 on the first one.
+ *
+ * Usage: {@code java -cp target/benchmarks.jar ...VersionedStoreModelCheck [writes] [seed]}
+ */
+public class VersionedStoreModelCheck {
+
+    private static final int KEPT_SNAPSHOTS = 40;
+    private static final int SNAPSHOT_INTERVAL = 2_000;
+    private static final int CHECK_INTERVAL = 10_000;
+    private static final int ABSENT_PROBES = 1_000;
+
+    private final SplittableRandom random;
+    private final CatalogGenerator generator;
+    private final VersionedBookStore store = new VersionedBookStore();
+
+    // The model: books in insertion order and the position of each ISBN
+    private final List<Book> books = new ArrayList<>();
+    private final Map<String, Integer> positions = new HashMap<>();
+
+    private final List<CatalogSnapshot> snapshots = new ArrayList<>();
+    private final List<List<Book>> expected = new ArrayList<>();
+    private long checkedBooks;
+
+    private VersionedStoreModelCheck(long seed) {
+        this.random = new SplittableRandom(seed);
+        this.generator = new CatalogGenerator(seed);
+    }
+
+    public static void main(String[] args) {
+        int writes = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+        VersionedStoreModelCheck check = new VersionedStoreModelCheck(seed);
+        long start = System.nanoTime();
+        String failure = check.run(writes);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (failure != null) {
+            System.out.println("FAILED: " + failure);
+            System.exit(1);
+        }
+        System.out.printf("OK: %d writes, %d books, %d snapshots kept, %d books checked in %.2f s%n",
+                writes, check.books.size(), check.snapshots.size(), check.checkedBooks, seconds);
+    }
+
+    private String run(int writes) {
+        long lastVersion = store.snapshot().getVersion();
+        for (int write = 1; write <= writes; write++) {
+            String failure = write();
+            if (failure != null) {
+                return "write " + write + ": " + failure;
+            }
+            if (write % SNAPSHOT_INTERVAL == 0) {
+                CatalogSnapshot snapshot = store.snapshot();
+                if (snapshot.getVersion() < lastVersion) {
+                    return "version went back from " + lastVersion + " to " + snapshot.getVersion();
+                }
+                lastVersion = snapshot.getVersion();
+                keep(snapshot);
+            }
+            if (write % CHECK_INTERVAL == 0 || write == writes) {
+                failure = checkAll();
+                if (failure != null) {
+                    return "after write " + write + ": " + failure;
+                }
+            }
+        }
+        return null;
+    }
+
+    private String write() {
+        int kind = random.nextInt(100);
+        if (kind < 20 || books.isEmpty()) {
+            Book book = generator.book(random.nextInt(CatalogGenerator.MAX_BOOKS));
+            boolean added = store.add(book);
+            if (added != !positions.containsKey(book.getISBN())) {
+                return "add(" + book.getISBN() + ") returned " + added;
+            }
+            if (added) {
+                append(book);
+            }
+        } else if (kind < 55) {
+            // Same ISBN, new details
+            Book old = books.get(random.nextInt(books.size()));
+            Book book = old.withTitle(generator.title());
+            store.replace(old.getISBN(), book);
+            books.set(positions.get(old.getISBN()), book);
+        } else if (kind < 65) {
+            // Moves the book to a free ISBN, which frees the old one for later adds
+            Book old = books.get(random.nextInt(books.size()));
+            String isbn = freeIsbn();
+            if (isbn != null) {
+                Book book = old.withISBN(isbn);
+                store.replace(old.getISBN(), book);
+                int position = positions.remove(old.getISBN());
+                positions.put(isbn, position);
+                books.set(position, book);
+            }
+        } else if (kind < 80) {
+            return addAll();
+        } else {
+            applyBatch();
+        }
+        return null;
+    }
+
+    // A batch of 1 to 6 books, some of them duplicates of stored books or of each other
+    private String addAll() {
+        List<Book> batch = new ArrayList<>();
+        int count = 1 + random.nextInt(6);
+        for (int i = 0; i < count; i++) {
+            if (!batch.isEmpty() && random.nextInt(8) == 0) {
+                batch.add(batch.get(random.nextInt(batch.size())).withTitle(generator.title()));
+            } else if (!books.isEmpty() && random.nextInt(8) == 0) {
+                batch.add(books.get(random.nextInt(books.size())).withTitle(generator.title()));
+            } else {
+                batch.add(generator.book(random.nextInt(CatalogGenerator.MAX_BOOKS)));
+            }
+        }
+        List<Book> duplicates = store.addAll(batch);
+        List<Book> expectedDuplicates = new ArrayList<>();
+        for (Book book : batch) {
+            if (positions.containsKey(book.getISBN())) {
+                expectedDuplicates.add(book);
+            } else {
+                append(book);
+            }
+        }
+        if (!sameBooks(duplicates, expectedDuplicates)) {
+            return "addAll returned " + duplicates.size() + " duplicates instead of " + expectedDuplicates.size();
+        }
+        return null;
+    }
+
+    // Up to 4 new books and up to 4 replacements of distinct stored books, as one version
+    private void applyBatch() {
+        List<Book> additions = new ArrayList<>();
+        Set<String> taken = new HashSet<>();
+        for (int i = random.nextInt(5); i > 0; i--) {
+            String isbn = freeIsbn();
+            if (isbn != null && taken.add(isbn)) {
+                additions.add(generator.book(Integer.parseInt(isbn)));
+            }
+        }
+        List<Book> replacements = new ArrayList<>();
+        for (int i = random.nextInt(5); i > 0; i--) {
+            Book old = books.get(random.nextInt(books.size()));
+            if (taken.add(old.getISBN())) {
+                replacements.add(old.withTitle(generator.title()));
+            }
+        }
+        store.applyBatch(additions, replacements);
+        for (Book book : replacements) {
+            books.set(positions.get(book.getISBN()), book);
+        }
+        for (Book book : additions) {
+            append(book);
+        }
+    }
+
+    private void append(Book book) {
+        positions.put(book.getISBN(), books.size());
+        books.add(book);
+    }
+
+    // A random ISBN that is not stored, or null if a few tries find none
+    private String freeIsbn() {
+        for (int attempt = 0; attempt < 32; attempt++) {
+            String isbn = CatalogGenerator.isbn(random.nextInt(CatalogGenerator.MAX_BOOKS));
+            if (!positions.containsKey(isbn)) {
+                return isbn;
+            }
+        }
+        return null;
+    }
+
+    private void keep(CatalogSnapshot snapshot) {
+        if (snapshots.size() < KEPT_SNAPSHOTS) {
+            snapshots.add(snapshot);
+            expected.add(new ArrayList<>(books));
+        } else {
+            int replaced = random.nextInt(KEPT_SNAPSHOTS);
+            snapshots.set(replaced, snapshot);
+            expected.set(replaced, new ArrayList<>(books));
+        }
+    }
+
+    private String checkAll() {
+        String failure = check(store.snapshot(), books);
+        if (failure != null) {
+            return "current version: " + failure;
+        }
+        int from = books.isEmpty() ? 0 : random.nextInt(books.size());
+        if (!sameBooks(store.books(from, from + 50), books.subList(from, Math.min(from + 50, books.size())))) {
+            return "books(" + from + ", " + (from + 50) + ") differs";
+        }
+        for (int i = 0; i < snapshots.size(); i++) {
+            failure = check(snapshots.get(i), expected.get(i));
+            if (failure != null) {
+                return "snapshot version " + snapshots.get(i).getVersion() + ": " + failure;
+            }
+        }
+        return null;
+    }
+
+    private String check(CatalogSnapshot snapshot, List<Book> model) {
+        if (snapshot.size() != model.size()) {
+            return "size " + snapshot.size() + " instead of " + model.size();
+        }
+        List<Book> listed = snapshot.books();
+        boolean[] stored = new boolean[CatalogGenerator.MAX_BOOKS];
+        for (int position = 0; position < model.size(); position++) {
+            Book book = model.get(position);
+            if (listed.get(position) != book) {
+                return "position " + position + " holds " + listed.get(position) + " instead of " + book;
+            }
+            if (snapshot.get(book.getISBN()) != book) {
+                return "get(" + book.getISBN() + ") returned " + snapshot.get(book.getISBN());
+            }
+            stored[Integer.parseInt(book.getISBN())] = true;
+        }
+        for (int probe = 0; probe < ABSENT_PROBES; probe++) {
+            int isbn = random.nextInt(CatalogGenerator.MAX_BOOKS);
+            if (!stored[isbn] && snapshot.contains(CatalogGenerator.isbn(isbn))) {
+                return "contains(" + CatalogGenerator.isbn(isbn) + ") for a book added later or moved away";
+            }
+        }
+        checkedBooks += model.size();
+        return null;
+    }
+
+    // Same books, by identity, in the same order
+    private static boolean sameBooks(List<Book> actual, List<Book> expected) {
+        if (actual.size() != expected.size()) {
+            return false;
+        }
+        for (int i = 0; i < actual.size(); i++) {
+            if (actual.get(i) != expected.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,8 +1,36 @@
 package com.belvinard.libraryManagementSystem;
 
+import com.belvinard.libraryManagementSystem.config.LibraryConfig;
+import com.belvinard.libraryManagementSystem.console.BatchCommandRunner;
 import com.belvinard.libraryManagementSystem.console.ConsoleHandler;
 import com.belvinard.libraryManagementSystem.data.LibraryData;
+import com.belvinard.libraryManagementSystem.http.BookHttpServer;
+import com.belvinard.libraryManagementSystem.io.ImportReport;
+import com.belvinard.libraryManagementSystem.metrics.MetricsRegistry;
+import com.belvinard.libraryManagementSystem.persistence.CatalogPersistence;
+import com.belvinard.libraryManagementSystem.persistence.SnapshotFile;
+import com.belvinard.libraryManagementSystem.replication.ReplicationPrimary;
 import com.belvinard.libraryManagementSystem.service.BookService;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import javax.management.JMException;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Map;
 
 /**
  * The main entry point of the Library Management System application.
@@ -10,21 +38,208 @@ import com.belvinard.libraryManagementSystem.service.BookService;
  */
 public class LibraryManagementSystemApplication {
 
+    private static final int DEFAULT_HTTP_PORT = 8080;
+    private static final long DEFAULT_METRICS_INTERVAL_SECONDS = 60;
+
     /**
      * The main method where the application execution starts.
      * Initializes required services and starts the console-based interaction.
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        long start = System.nanoTime();
+
+        // Image mode: turn a CSV or JSONL catalog into a catalog image and exit
+        if (args.length > 0 && args[0].equals("--build-image")) {
+            if (args.length < 3) {
+                System.err.println("Usage: --build-image <catalog.csv|catalog.jsonl> <image>");
+                System.exit(2);
+            }
+            buildImage(Paths.get(args[1]), Paths.get(args[2]));
+            return;
+        }
+
+        boolean httpMode = args.length > 0 && args[0].equals("--http");
+        String dataDir = System.getProperty("library.data.dir");
+        String image = System.getProperty("library.image");
+
+        // One Spring context, without classpath scanning; its beans are created on first use below
+        GenericApplicationContext context = createContext(httpMode);
+
         // Initialize LibraryData to manage the book collection
-        LibraryData libraryData = new LibraryData();
+        LibraryData libraryData = context.getBean(LibraryData.class);
+
+        // Recover the catalog and keep it durable when a data directory is configured
+        if (dataDir != null) {
+            openPersistence(Paths.get(dataDir), libraryData);
+        }
+
+        // Start from the prebuilt catalog image unless the data directory already holds a catalog
+        if (image != null && libraryData.size() == 0) {
+            loadImage(Paths.get(image), libraryData);
+        }
+
+        // Ship every change to the followers that connect to this port
+        String replicationPort = System.getProperty("library.replication.port");
+        if (replicationPort != null) {
+            startReplication(libraryData, Integer.parseInt(replicationPort));
+        }
 
         // Create a BookService that interacts with the LibraryData
-        BookService bookService = new BookService(libraryData);
+        BookService bookService = context.getBean(BookService.class);
+        publishMetrics(bookService);
+        System.err.printf("Ready in %d ms.%n", (System.nanoTime() - start) / 1_000_000);
+
+        // Scripted mode: run the commands from a file (or stdin) and exit
+        if (args.length > 0 && args[0].equals("--batch")) {
+            runBatch(bookService, args.length > 1 ? Paths.get(args[1]) : null);
+            return;
+        }
+
+        // Server mode: serve the HTTP/JSON API until the process is stopped
+        if (httpMode) {
+            startHttpServer(bookService, args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_HTTP_PORT);
+            return;
+        }
 
         // Create a ConsoleHandler for handling user input and interacting with the system
-        ConsoleHandler consoleHandler = new ConsoleHandler(bookService);
+        ConsoleHandler consoleHandler = context.getBean(ConsoleHandler.class);
 
         // Start the console-based user interaction
         consoleHandler.start();
     }
-}
\ No newline at end of file
+
+    /**
+     * Creates the application context from {@link LibraryConfig} alone. The HTTP server needs a store
+     * that supports concurrent readers, so it is the default in that mode; system properties take precedence.
+     */
+    private static GenericApplicationContext createContext(boolean httpMode) {
+        GenericApplicationContext context = new GenericApplicationContext();
+        if (httpMode) {
+            context.getEnvironment().getPropertySources().addLast(
+                    new MapPropertySource("modeDefaults", Map.of(LibraryConfig.STORE_PROPERTY, "concurrent")));
+        }
+        new LibraryConfig().initialize(context);
+        context.refresh();
+        return context;
+    }
+
+    /**
+     * Loads a catalog image written by {@code --build-image}: the books are decoded straight from
+     * a memory-mapped file and added in one batch.
+     */
+    private static void loadImage(Path image, LibraryData libraryData) throws IOException {
+        long start = System.nanoTime();
+        libraryData.addBooks(SnapshotFile.read(image).getBooks());
+        System.err.println("Loaded " + libraryData.size() + " books from " + image
+                + " in " + (System.nanoTime() - start) / 1_000_000 + " ms.");
+    }
+
+    /**
+     * Imports a CSV or JSONL catalog (rejected records go to {@code <catalog>.rejects})
+     * and writes it as a catalog image, to be loaded with {@code -Dlibrary.image}.
+     */
+    private static void buildImage(Path catalog, Path image) throws IOException {
+        LibraryData libraryData = new LibraryData();
+        ImportReport report = new BookService(libraryData, MetricsRegistry.disabled()).importCatalog(catalog);
+        SnapshotFile.writeFile(image, 0, libraryData.getBookCollection());
+        System.err.println(report.getImported() + " books written to " + image + ", "
+                + report.getRejected() + " records rejected.");
+    }
+
+    /**
+     * Publishes the BookService metrics as JMX MBeans, from a background thread, and, when
+     * {@code library.metrics.file} is set, appends them to that file every {@code library.metrics.interval}
+     * seconds (60 by default).
+     */
+    private static void publishMetrics(BookService bookService) {
+        MetricsRegistry metrics = bookService.getMetrics();
+        // Starting the platform MBean server takes a few hundred milliseconds; keep it off the startup path
+        Thread publisher = new Thread(() -> {
+            try {
+                metrics.registerMBeans(ManagementFactory.getPlatformMBeanServer(), "BookService");
+            } catch (JMException e) {
+                System.err.println("Could not publish metrics over JMX: " + e.getMessage());
+            }
+        }, "metrics-publisher");
+        publisher.setDaemon(true);
+        publisher.start();
+        String metricsFile = System.getProperty("library.metrics.file");
+        if (metricsFile != null) {
+            long seconds = Long.getLong("library.metrics.interval", DEFAULT_METRICS_INTERVAL_SECONDS);
+            Closeable dump = metrics.startFileDump(Paths.get(metricsFile), Duration.ofSeconds(seconds));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    dump.close();
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Could not write the final metrics: " + e.getMessage());
+                }
+            }));
+        }
+    }
+
+    /**
+     * Loads the catalog stored in the data directory and persists every later change there.
+     * A snapshot is written every few minutes and when the application exits.
+     */
+    private static void openPersistence(Path dataDir, LibraryData libraryData) throws IOException {
+        CatalogPersistence persistence = CatalogPersistence.open(dataDir, libraryData, true);
+        System.err.println("Loaded " + libraryData.size() + " books from " + dataDir
+                + " in " + persistence.getRecoveryNanos() / 1_000_000 + " ms.");
+        persistence.startPeriodicCheckpoints(Duration.ofMinutes(5));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                persistence.checkpoint();
+                persistence.close();
+            } catch (IOException e) {
+                System.err.println("Could not save the catalog: " + e.getMessage());
+            }
+        }));
+    }
+
+    /**
+     * Replicates the catalog to the {@code ReplicationFollower}s that connect to the given port,
+     * until the process is stopped.
+     */
+    private static void startReplication(LibraryData libraryData, int port) throws IOException {
+        ReplicationPrimary primary = new ReplicationPrimary(libraryData, new InetSocketAddress(port));
+        primary.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                primary.close();
+            } catch (IOException e) {
+                System.err.println("Could not stop replication: " + e.getMessage());
+            }
+        }));
+        System.err.println("Replicating to followers on port " + primary.getPort() + ".");
+    }
+
+    /**
+     * Runs the batch commands read from a file, or from standard input when no file is given,
+     * writing one result line per command to standard output. See {@link BatchCommandRunner}.
+     */
+    private static void runBatch(BookService bookService, Path commandFile) throws IOException {
+        BatchCommandRunner runner = new BatchCommandRunner(bookService);
+        long start = System.nanoTime();
+        // Standard output is flushed by the runner but not closed
+        BufferedWriter out = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(FileDescriptor.out), StandardCharsets.UTF_8), 1 << 16);
+        try (BufferedReader in = commandFile != null
+                ? Files.newBufferedReader(commandFile, StandardCharsets.UTF_8)
+                : new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), 1 << 16)) {
+            runner.run(in, out);
+        }
+        System.err.printf("%d commands, %d errors in %d ms%n", runner.getCommands(), runner.getErrors(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Starts the HTTP/JSON API on the given port; it runs until the process is stopped.
+     * See {@link BookHttpServer} for the routes.
+     */
+    private static void startHttpServer(BookService bookService, int port) throws IOException {
+        BookHttpServer server = new BookHttpServer(bookService, new InetSocketAddress(port));
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(1)));
+        System.err.println("Listening on http://localhost:" + server.getPort() + "/books");
+    }
+}
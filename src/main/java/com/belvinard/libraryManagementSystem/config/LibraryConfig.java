@@ -1,36 +1,165 @@
 package com.belvinard.libraryManagementSystem.config;
 
+import com.belvinard.libraryManagementSystem.console.ConsoleHandler;
+import com.belvinard.libraryManagementSystem.data.BookStore;
+import com.belvinard.libraryManagementSystem.data.CompactBookStore;
+import com.belvinard.libraryManagementSystem.data.ConcurrentBookStore;
 import com.belvinard.libraryManagementSystem.data.LibraryData;
+import com.belvinard.libraryManagementSystem.data.ListBookStore;
+import com.belvinard.libraryManagementSystem.data.OffHeapBookStore;
+import com.belvinard.libraryManagementSystem.data.PartitionedBookStore;
+import com.belvinard.libraryManagementSystem.data.TieredBookStore;
+import com.belvinard.libraryManagementSystem.data.VersionedBookStore;
 import com.belvinard.libraryManagementSystem.service.BookService;
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.env.Environment;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
  * Configuration class for defining Spring beans in the application.
- * This class provides the beans for the data layer and service layer.
+ * It is the only configuration. Beans are registered programmatically: no classpath scanning,
+ * no annotation processing and no proxies at startup, which keeps the context refresh short
+ * and makes it fit a class-data-sharing archive. Every bean is lazy, created when first requested.
+ * <p>
+ * The storage is chosen from the environment (system properties, e.g. {@code -Dlibrary.store=concurrent}):
+ * {@value #STORE_PROPERTY} ({@code list}, {@code compact}, {@code concurrent}, {@code versioned}, {@code partitioned},
+ * with {@value #PARTITIONS_PROPERTY} partitions, or {@code offheap}), {@code library.cache.entries} or
+ * {@code library.cache.bytes} for a {@link TieredBookStore}, and {@code library.data.dir} for the files of
+ * a tiered or off-heap store.
  */
-@Configuration
-public class LibraryConfig {
+public class LibraryConfig implements ApplicationContextInitializer<GenericApplicationContext> {
+
+    /**
+     * The store to use: {@code list} (default, single-threaded), {@code compact} (single-threaded, packed columns),
+     * {@code concurrent}, {@code versioned}, {@code partitioned} or {@code offheap}.
+     */
+    public static final String STORE_PROPERTY = "library.store";
+
+    /** The number of partitions of a {@code partitioned} store; one per available processor by default. */
+    public static final String PARTITIONS_PROPERTY = "library.partitions";
+
+    private static final String COLD_TIER_FILE = "cold-books.dat";
+
+    /**
+     * Registers the beans: bookStore, libraryData, bookService and consoleHandler.
+     *
+     * @param context The context to register the beans in, before it is refreshed.
+     */
+    @Override
+    public void initialize(GenericApplicationContext context) {
+        Environment environment = context.getEnvironment();
+        // Not closed with the context: the shutdown hooks may still checkpoint the catalog from it
+        context.registerBean("bookStore", BookStore.class, () -> {
+            try {
+                return bookStore(environment);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, bean -> lazy(bean).setDestroyMethodName(""));
+        context.registerBean("libraryData", LibraryData.class,
+                () -> libraryData(context.getBean(BookStore.class)), LibraryConfig::lazy);
+        context.registerBean("bookService", BookService.class,
+                () -> bookService(context.getBean(LibraryData.class), context.getBean(BookStore.class)),
+                LibraryConfig::lazy);
+        context.registerBean("consoleHandler", ConsoleHandler.class,
+                () -> consoleHandler(context.getBean(BookService.class)), LibraryConfig::lazy);
+    }
+
+    /**
+     * Creates the store holding the books. Setting {@code library.cache.entries} or {@code library.cache.bytes}
+     * keeps the books on disk behind a cache of that size (in the data directory if there is one).
+     * An {@code offheap} store keeps them in files of the data directory mapped into memory, or in direct
+     * memory without one; the other stores keep them all on the heap.
+     *
+     * @param environment The settings.
+     * @return a new BookStore.
+     * @throws IOException if the files of a tiered or off-heap store cannot be created.
+     */
+    public BookStore bookStore(Environment environment) throws IOException {
+        String cacheEntries = environment.getProperty("library.cache.entries");
+        String cacheBytes = environment.getProperty("library.cache.bytes");
+        if (cacheEntries == null && cacheBytes == null) {
+            String store = environment.getProperty(STORE_PROPERTY, "list");
+            switch (store) {
+                case "list":
+                    return new ListBookStore();
+                case "compact":
+                    return new CompactBookStore();
+                case "concurrent":
+                    return new ConcurrentBookStore();
+                case "versioned":
+                    return new VersionedBookStore();
+                case "partitioned":
+                    return new PartitionedBookStore(environment.getProperty(PARTITIONS_PROPERTY, Integer.class,
+                            Runtime.getRuntime().availableProcessors()));
+                case "offheap":
+                    String directory = environment.getProperty("library.data.dir");
+                    return directory != null
+                            ? OffHeapBookStore.mappedIn(Paths.get(directory))
+                            : OffHeapBookStore.inDirectMemory();
+                default:
+                    throw new IllegalArgumentException("Invalid " + STORE_PROPERTY + ": " + store
+                            + ". It must be list, compact, concurrent, versioned, partitioned or offheap.");
+            }
+        }
+        String dataDir = environment.getProperty("library.data.dir");
+        Path coldFile = dataDir != null
+                ? Files.createDirectories(Paths.get(dataDir)).resolve(COLD_TIER_FILE)
+                : Files.createTempFile("library-", "-" + COLD_TIER_FILE);
+        // Deleted after the shutdown hooks have run
+        coldFile.toFile().deleteOnExit();
+        return cacheEntries != null
+                ? TieredBookStore.withMaxEntries(coldFile, Integer.parseInt(cacheEntries))
+                : TieredBookStore.withMaxBytes(coldFile, Long.parseLong(cacheBytes));
+    }
 
     /**
      * Creates a bean for the LibraryData class.
      * This bean is used as the data storage component for books in the library.
      *
+     * @param bookStore The store holding the books.
      * @return a new instance of LibraryData.
      */
-    @Bean
-    public LibraryData libraryData() {
-        return new LibraryData();
+    public LibraryData libraryData(BookStore bookStore) {
+        return new LibraryData(bookStore);
     }
 
     /**
      * Creates a bean for the BookService class.
      * This bean is used to manage book-related business logic in the library system.
+     * The cache counters of a {@link TieredBookStore} are published with the service's metrics.
      *
+     * @param libraryData The LibraryData bean.
+     * @param bookStore   The store behind it.
      * @return a new instance of BookService, injected with the LibraryData bean.
      */
-    @Bean
-    public BookService bookService() {
-        return new BookService(libraryData());
+    public BookService bookService(LibraryData libraryData, BookStore bookStore) {
+        BookService bookService = new BookService(libraryData);
+        if (bookStore instanceof TieredBookStore) {
+            ((TieredBookStore) bookStore).registerMetrics(bookService.getMetrics());
+        }
+        return bookService;
+    }
+
+    /**
+     * Creates a bean for the ConsoleHandler class, which runs the interactive menu.
+     *
+     * @param bookService The BookService bean.
+     * @return a new instance of ConsoleHandler.
+     */
+    public ConsoleHandler consoleHandler(BookService bookService) {
+        return new ConsoleHandler(bookService);
+    }
+
+    private static BeanDefinition lazy(BeanDefinition bean) {
+        bean.setLazyInit(true);
+        return bean;
     }
 }
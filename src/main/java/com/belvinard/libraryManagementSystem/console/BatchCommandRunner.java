@@ -0,0 +1,157 @@
+package com.belvinard.libraryManagementSystem.console;
+
+import com.belvinard.libraryManagementSystem.model.Book;
+import com.belvinard.libraryManagementSystem.service.BookService;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Runs a scripted stream of commands against the {@link BookService}, without menus or prompts.
+ * One command per line, fields separated by {@code |}; blank lines and lines starting with {@code #} are skipped:
+ * <pre>
+ * add|title|author|genre|isbn|year
+ * update|isbn|title|author|genre|newIsbn|year
+ * get|isbn
+ * exists|isbn
+ * </pre>
+ * Each command writes exactly one result line: {@code OK} (followed by the book for {@code get}),
+ * {@code NOT_FOUND}, {@code true}/{@code false} for {@code exists}, or {@code ERROR|message}.
+ * A command that fails, for whatever reason, does not stop the commands after it.
+ */
+public class BatchCommandRunner {
+
+    private static final char SEPARATOR = '|';
+    private static final int MAX_FIELDS = 7;
+
+    private final BookService bookService;
+
+    // Reused for every line to avoid allocating a field array per command
+    private final String[] fields = new String[MAX_FIELDS + 1];
+
+    private long commands;
+    private long errors;
+
+    public BatchCommandRunner(BookService bookService) {
+        if (bookService == null) {
+            throw new IllegalArgumentException("BookService cannot be null.");
+        }
+        this.bookService = bookService;
+    }
+
+    /**
+     * Runs every command read from {@code in} and writes one result line per command to {@code out}.
+     * The caller should pass buffered streams; {@code out} is flushed at the end.
+     *
+     * @throws IOException if reading or writing fails.
+     */
+    public void run(BufferedReader in, Writer out) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.isEmpty() || line.charAt(0) == '#' || line.isBlank()) {
+                continue;
+            }
+            commands++;
+            try {
+                execute(line, out);
+            } catch (IllegalArgumentException e) {
+                errors++;
+                out.write("ERROR|");
+                out.write(String.valueOf(e.getMessage()));
+            } catch (RuntimeException e) {
+                // Any other failure (a store or the write-ahead log) fails this command only, as in the HTTP server
+                errors++;
+                out.write("ERROR|Internal error: ");
+                out.write(e.toString());
+            }
+            out.write('\n');
+        }
+        out.flush();
+    }
+
+    /**
+     * @return the number of commands run so far.
+     */
+    public long getCommands() {
+        return commands;
+    }
+
+    /**
+     * @return the number of commands that failed so far.
+     */
+    public long getErrors() {
+        return errors;
+    }
+
+    private void execute(String line, Writer out) throws IOException {
+        int count = split(line);
+        String command = fields[0];
+        switch (command) {
+            case "add":
+                expectFields(command, count, 6);
+                bookService.addBook(new Book(fields[1], fields[2], fields[3], fields[4], parseYear(fields[5])));
+                out.write("OK");
+                break;
+            case "update":
+                expectFields(command, count, 7);
+                Book updated = new Book(fields[2], fields[3], fields[4], fields[5], parseYear(fields[6]));
+                out.write(bookService.updateBook(fields[1], updated) ? "OK" : "NOT_FOUND");
+                break;
+            case "get":
+                expectFields(command, count, 2);
+                Book book = bookService.getBookByISBN(fields[1]);
+                if (book == null) {
+                    out.write("NOT_FOUND");
+                } else {
+                    out.write("OK|");
+                    out.write(book.getTitle());
+                    out.write(SEPARATOR);
+                    out.write(book.getAuthor());
+                    out.write(SEPARATOR);
+                    out.write(book.getGenre());
+                    out.write(SEPARATOR);
+                    out.write(book.getISBN());
+                    out.write(SEPARATOR);
+                    out.write(Integer.toString(book.getPublicationYear()));
+                }
+                break;
+            case "exists":
+                expectFields(command, count, 2);
+                out.write(bookService.bookExists(fields[1]) ? "true" : "false");
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown command: " + command);
+        }
+    }
+
+    // Splits the line into the reusable fields array; returns the number of fields
+    private int split(String line) {
+        int count = 0;
+        int start = 0;
+        while (count < fields.length) {
+            int end = line.indexOf(SEPARATOR, start);
+            if (end < 0) {
+                fields[count++] = line.substring(start);
+                return count;
+            }
+            fields[count++] = line.substring(start, end);
+            start = end + 1;
+        }
+        return count + 1;
+    }
+
+    private static void expectFields(String command, int count, int expected) {
+        if (count != expected) {
+            throw new IllegalArgumentException("'" + command + "' expects " + (expected - 1) + " arguments.");
+        }
+    }
+
+    private static int parseYear(String year) {
+        try {
+            return Integer.parseInt(year.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid publication year: " + year);
+        }
+    }
+}
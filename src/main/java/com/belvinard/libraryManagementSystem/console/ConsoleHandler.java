@@ -1,10 +1,20 @@
 package com.belvinard.libraryManagementSystem.console;
 
+import com.belvinard.libraryManagementSystem.data.CatalogStatistics;
+import com.belvinard.libraryManagementSystem.io.ImportReport;
 import com.belvinard.libraryManagementSystem.model.Book;
+import com.belvinard.libraryManagementSystem.model.BookValidator;
+import com.belvinard.libraryManagementSystem.model.Genre;
 import com.belvinard.libraryManagementSystem.service.BookService;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.InputMismatchException;
+import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 import java.util.function.Predicate;
 
@@ -20,6 +30,15 @@ public class ConsoleHandler {
     // Scanner for reading user input from the console
     private final Scanner scanner;
 
+    // Maximum number of books listed by a search
+    private static final int SEARCH_RESULT_LIMIT = 20;
+
+    // Maximum number of books offered when finding a book by the start of its title or author
+    private static final int SUGGESTION_LIMIT = 10;
+
+    // Number of authors listed by the statistics screen
+    private static final int TOP_AUTHORS = 10;
+
     /**
      * Constructor for initializing ConsoleHandler with a BookService.
      *
@@ -44,7 +63,10 @@ public class ConsoleHandler {
         System.out.println("\n================== Library Management System ==================");
         System.out.println("1. Add Book");
         System.out.println("2. Update Book");
-        System.out.println("3. Exit");
+        System.out.println("3. Import Books");
+        System.out.println("4. Search Books");
+        System.out.println("5. Catalog Statistics");
+        System.out.println("6. Exit");
         System.out.print("Enter your choice: ");
     }
 
@@ -77,7 +99,17 @@ public class ConsoleHandler {
                     break;
                 case 2:
                     updateBook();
+                    break;
                 case 3:
+                    importBooks();
+                    break;
+                case 4:
+                    searchBooks();
+                    break;
+                case 5:
+                    showStatistics();
+                    break;
+                case 6:
                     running = false;  // Exit the loop and terminate the program
                     System.out.println("Exiting the system ...");
                     break;
@@ -114,24 +146,114 @@ public class ConsoleHandler {
         }
     }
 
+    /**
+     * Prompts for a CSV or JSONL file and imports all books it contains.
+     * Rejected records are written next to the file, see {@link BookService#importCatalog(Path)}.
+     */
+    private void importBooks() {
+        System.out.print("Enter path of the CSV or JSONL file to import: ");
+        Path source = Paths.get(scanner.nextLine().trim());
+        if (!Files.isRegularFile(source)) {
+            System.out.println("File not found: " + source);
+            return;
+        }
+        try {
+            ImportReport report = bookService.importCatalog(source);
+            System.out.println("Import finished: " + report);
+            if (report.getRejected() > 0) {
+                System.out.println("Rejected records were written to " + source + ".rejects");
+            }
+        } catch (IOException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Prompts for search words and lists the best matching books by title and author.
+     */
+    private void searchBooks() {
+        System.out.print("Enter words to search for (use OR to match any word): ");
+        String query = scanner.nextLine().trim();
+        List<Book> results = bookService.searchBooks(query, SEARCH_RESULT_LIMIT);
+        if (results.isEmpty()) {
+            System.out.println("No books found.");
+            return;
+        }
+        System.out.println("Found " + results.size() + " book(s):");
+        for (Book book : results) {
+            System.out.println(book.getISBN() + "  " + book.getTitle() + " by " + book.getAuthor()
+                    + " (" + book.getGenre() + ", " + book.getPublicationYear() + ")");
+        }
+    }
+
+    /**
+     * Shows the number of books per genre and per decade and the authors with the most books.
+     * The counts are kept up to date as books change, so this reads no books.
+     */
+    private void showStatistics() {
+        System.out.println("Books: " + bookService.countBooks());
+        System.out.println("\nBooks per genre:");
+        for (Map.Entry<Genre, Integer> genre : bookService.countBooksPerGenre().entrySet()) {
+            System.out.printf("  %-30s %7d%n", genre.getKey().getDisplayName(), genre.getValue());
+        }
+        System.out.println("\nBooks per decade:");
+        for (Map.Entry<Integer, Integer> decade : bookService.countBooksPerDecade().entrySet()) {
+            System.out.printf("  %-30s %7d%n", decade.getKey() + "s", decade.getValue());
+        }
+        System.out.println("\nTop authors (estimated book counts):");
+        List<CatalogStatistics.AuthorCount> authors = bookService.topAuthors(TOP_AUTHORS);
+        for (int i = 0; i < authors.size(); i++) {
+            System.out.printf("  %2d. %-26s %7d%n", i + 1, authors.get(i).getAuthor(), authors.get(i).getCount());
+        }
+    }
+
+    /**
+     * Lists the books whose title or author has a word starting with the prefix and lets the user pick one.
+     *
+     * @param prefix The start of a title or author word, e.g. "jav".
+     * @return the ISBN of the chosen book, or null if none matched or none was chosen.
+     */
+    private String findBook(String prefix) {
+        List<Book> matches = bookService.suggestBooks(prefix, SUGGESTION_LIMIT);
+        if (matches.isEmpty()) {
+            System.out.println("No books found.");
+            return null;
+        }
+        for (int i = 0; i < matches.size(); i++) {
+            Book book = matches.get(i);
+            System.out.println((i + 1) + ". " + book.getISBN() + "  " + book.getTitle() + " by " + book.getAuthor()
+                    + " (" + book.getGenre() + ", " + book.getPublicationYear() + ")");
+        }
+        String choice = getValidInput("Choose a book (1-" + matches.size() + ", 0 to cancel): ",
+                input -> input.matches("\\d{1,3}") && Integer.parseInt(input) <= matches.size());
+        int index = Integer.parseInt(choice);
+        return index == 0 ? null : matches.get(index - 1).getISBN();
+    }
+
     public void updateBook() {
-        System.out.print("Enter ISBN of the book to update: ");
+        System.out.print("Enter ISBN of the book to update, or the start of its title or author to find it: ");
         String isbn = scanner.nextLine().trim();
-
-        // Validate ISBN input
-        if (isbn.isEmpty() || !isbn.matches("\\d{5}")) {  // Assuming 5-digit ISBN format
-            System.out.println("Invalid ISBN format. ISBN must be 5 digits.");
+        if (isbn.isEmpty()) {
+            System.out.println("Invalid input. Please enter an ISBN, title or author.");
             return;
         }
 
+        // Anything but an ISBN is completed to the matching books, one of which is picked
+        if (!BookValidator.isValidIsbn(isbn)) {
+            isbn = findBook(isbn);
+            if (isbn == null) {
+                return;
+            }
+        }
+
         // Check if the book exists
         if (!bookService.bookExists(isbn)) {
             System.out.println("No book found with the provided ISBN.");
             return;
         }
 
-        // Retrieve the existing book to update specific fields
-        Book existingBook = bookService.getBookByISBN(isbn);
+        // Books are immutable: each change makes a new version, saved in one update at the end
+        Book updatedBook = bookService.getBookByISBN(isbn);
 
         boolean updating = true;
         while (updating) {
@@ -154,23 +276,22 @@ public class ConsoleHandler {
             switch (choice) {
                 case 1:
                     // Update title
-                    String title = getValidInput("Enter new title (at least 3 characters): ", input -> input.length() >= 3);
-                    existingBook.setTitle(title);
+                    String title = getValidInput("Enter new title (at least 3 characters): ", BookValidator::isValidTitle);
+                    updatedBook = updatedBook.withTitle(title);
                     System.out.println("Title updated.");
                     break;
 
                 case 2:
                     // Update author
-                    String author = getValidInput("Enter new author (only letters and spaces): ", input -> input.matches("^[a-zA-Z\\s]+$"));
-                    existingBook.setAuthor(author);
+                    String author = getValidInput("Enter new author (only letters and spaces): ", BookValidator::isValidAuthor);
+                    updatedBook = updatedBook.withAuthor(author);
                     System.out.println("Author updated.");
                     break;
 
                 case 3:
                     // Update genre
-                    String genre = getValidInput("Enter new genre (Data Structures, Software Development, Java, Python, JavaScript, Databases, Software Architecture & Design, Biography, History): ",
-                            input -> input.matches("Data Structures|Software Development|Java|Python|JavaScript|Databases|Software Architecture & Design|Biography|History"));
-                    existingBook.setGenre(genre);
+                    String genre = getValidInput("Enter new genre (" + Genre.allowedNames() + "): ", BookValidator::isValidGenre);
+                    updatedBook = updatedBook.withGenre(genre);
                     System.out.println("Genre updated.");
                     break;
 
@@ -181,11 +302,10 @@ public class ConsoleHandler {
                         System.out.print("Enter new publication year (between 1000 and current year): ");
                         try {
                             year = Integer.parseInt(scanner.nextLine().trim());
-                            int currentYear = java.time.Year.now().getValue();
-                            if (year < 1000 || year > currentYear) {
+                            if (!BookValidator.isValidPublicationYear(year)) {
                                 System.out.println("Invalid year. Must be between 1000 and the current year.");
                             } else {
-                                existingBook.setPublicationYear(year);
+                                updatedBook = updatedBook.withPublicationYear(year);
                                 System.out.println("Publication year updated.");
                                 break;
                             }
@@ -206,7 +326,7 @@ public class ConsoleHandler {
             }
 
             // Display the updated book information after each update
-            displayUpdatedBookInfo(existingBook);
+            displayUpdatedBookInfo(updatedBook);
 
             // Prompt the user if they want to continue updating or return to the menu
             System.out.println("Do you want to continue updating the book?");
@@ -222,15 +342,18 @@ public class ConsoleHandler {
             }
 
             if (continueChoice == 2) {
-                // User chooses to return to the main menu
+                // User chooses to return to the main menu, after saving the changes
                 System.out.println("Returning to main menu...");
-                return;  // Exit the updateBook method and return to the main menu
+                updating = false;
             }
         }
 
         // Save the updated book details
-        bookService.updateBook(isbn, existingBook);
-        System.out.println("Book updated successfully.");
+        if (bookService.updateBook(isbn, updatedBook)) {
+            System.out.println("Book updated successfully.");
+        } else {
+            System.out.println("No book found with the provided ISBN.");
+        }
     }
 
 
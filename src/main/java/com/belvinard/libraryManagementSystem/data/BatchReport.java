@@ -0,0 +1,108 @@
+package com.belvinard.libraryManagementSystem.data;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-item outcome of a batch write: for each item, the ISBN it concerned, what happened to it
+ * and, for rejected items, why. Items are reported in the order of the batch
+ * (in catalog order for {@link LibraryData#updateWhere}).
+ */
+public class BatchReport {
+
+    /**
+     * What happened to one item of a batch.
+     */
+    public enum Outcome {
+        /** The book was added. */
+        ADDED,
+        /** The stored book was replaced by the new version. */
+        UPDATED,
+        /** The new version had the same details as the stored book, so nothing was written. */
+        UNCHANGED,
+        /** The ISBN was already taken, by the catalog or earlier in the batch; the book was skipped. */
+        DUPLICATE,
+        /** The item was rejected, e.g. a null book or an invalid change. */
+        INVALID
+    }
+
+    private final List<String> isbns;
+    private final List<Outcome> outcomes;
+    // Reasons of rejected items, by item index
+    private final Map<Integer, String> messages = new HashMap<>();
+    private final Map<Outcome, Integer> counts = new EnumMap<>(Outcome.class);
+
+    BatchReport(int expectedItems) {
+        isbns = new ArrayList<>(expectedItems);
+        outcomes = new ArrayList<>(expectedItems);
+    }
+
+    void record(String isbn, Outcome outcome) {
+        record(isbn, outcome, null);
+    }
+
+    void record(String isbn, Outcome outcome, String message) {
+        if (message != null) {
+            messages.put(outcomes.size(), message);
+        }
+        isbns.add(isbn);
+        outcomes.add(outcome);
+        counts.merge(outcome, 1, Integer::sum);
+    }
+
+    /**
+     * @return the number of items reported.
+     */
+    public int size() {
+        return outcomes.size();
+    }
+
+    /**
+     * @param index The item index.
+     * @return the ISBN of the item, or null for a null book.
+     */
+    public String getIsbn(int index) {
+        return isbns.get(index);
+    }
+
+    /**
+     * @param index The item index.
+     * @return what happened to the item.
+     */
+    public Outcome getOutcome(int index) {
+        return outcomes.get(index);
+    }
+
+    /**
+     * @param index The item index.
+     * @return why the item was skipped or rejected, or null if it was not.
+     */
+    public String getMessage(int index) {
+        return messages.get(index);
+    }
+
+    /**
+     * @param outcome An outcome.
+     * @return the number of items with that outcome.
+     */
+    public int count(Outcome outcome) {
+        return counts.getOrDefault(outcome, 0);
+    }
+
+    /**
+     * @return the number of items that added or replaced a book.
+     */
+    public int getWritten() {
+        return count(Outcome.ADDED) + count(Outcome.UPDATED);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d items: %d added, %d updated, %d unchanged, %d duplicate, %d invalid",
+                size(), count(Outcome.ADDED), count(Outcome.UPDATED), count(Outcome.UNCHANGED),
+                count(Outcome.DUPLICATE), count(Outcome.INVALID));
+    }
+}
@@ -0,0 +1,122 @@
+package com.belvinard.libraryManagementSystem.data;
+
+import com.belvinard.libraryManagementSystem.model.Book;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Storage behind {@link LibraryData}: keeps books in insertion order and indexes them by ISBN.
+ * LibraryData serializes all writes, so an implementation only has to cope with one writer at a time;
+ * the exception is {@link PartitionedBookStore}, which gets one writer per partition.
+ * Whether reads may run concurrently with that writer depends on the implementation.
+ */
+public interface BookStore {
+
+    /**
+     * Adds a book.
+     *
+     * @param book The book to store.
+     * @return false if a book with the same ISBN is already stored.
+     */
+    boolean add(Book book);
+
+    /**
+     * Adds several books at once. Implementations that lock should do so once for the whole list.
+     *
+     * @param books The books to store.
+     * @return the books that were not added because their ISBN is already stored.
+     */
+    default List<Book> addAll(List<Book> books) {
+        List<Book> duplicates = new ArrayList<>();
+        for (Book book : books) {
+            if (!add(book)) {
+                duplicates.add(book);
+            }
+        }
+        return duplicates;
+    }
+
+    /**
+     * @param isbn The ISBN to look up.
+     * @return the stored book, or null if none is stored under that ISBN.
+     */
+    Book get(String isbn);
+
+    /**
+     * @param isbn The ISBN to look up.
+     * @return true if a book is stored under that ISBN.
+     */
+    boolean contains(String isbn);
+
+    /**
+     * Replaces the book stored under {@code isbn} with {@code book}, keeping its position.
+     * The new book may carry a different ISBN, in which case the index is moved.
+     *
+     * @param isbn The ISBN the book is currently stored under.
+     * @param book The new version of the book.
+     */
+    void replace(String isbn, Book book);
+
+    /**
+     * Applies one batch: adds books with new ISBNs and replaces books under their own ISBNs.
+     * Stores that publish versions make the whole batch visible at once; others should lock once for it.
+     *
+     * @param additions    Books whose ISBNs are not stored yet, all distinct.
+     * @param replacements New versions of stored books, at most one per ISBN.
+     */
+    default void applyBatch(List<Book> additions, List<Book> replacements) {
+        addAll(additions);
+        for (Book book : replacements) {
+            replace(book.getISBN(), book);
+        }
+    }
+
+    /**
+     * @return the number of stored books.
+     */
+    int size();
+
+    /**
+     * @return a read-only list of the stored books in insertion order.
+     */
+    List<Book> books();
+
+    /**
+     * Returns a copy of one range of the books, e.g. a page of a listing, without copying the rest.
+     *
+     * @param from The position of the first book, from 0.
+     * @param to   The position after the last book; ranges past the end stop at the last book.
+     * @return an immutable list of the books in the range, empty if {@code from} is past the end.
+     */
+    default List<Book> books(int from, int to) {
+        List<Book> books = books();
+        int end = Math.min(to, books.size());
+        return from < end
+                ? Collections.unmodifiableList(Arrays.asList(books.subList(from, end).toArray(new Book[0])))
+                : List.of();
+    }
+
+    /**
+     * Returns a copy of the books that later writes do not change, e.g. for parallel scans.
+     * {@link LibraryData#scan} calls this with writes paused.
+     *
+     * @return an immutable list of the stored books in insertion order.
+     */
+    default List<Book> copy() {
+        return List.copyOf(books());
+    }
+
+    /**
+     * Returns the current version of a store that keeps immutable versions, such as {@link VersionedBookStore}.
+     * Such a snapshot is taken without locking and may be read concurrently with writes.
+     *
+     * @return the current version, or null if the store does not keep versions
+     *         (then {@link LibraryData#snapshot()} copies the books instead).
+     */
+    default CatalogSnapshot snapshot() {
+        return null;
+    }
+}
@@ -0,0 +1,64 @@
+package com.belvinard.libraryManagementSystem.data;
+
+import com.belvinard.libraryManagementSystem.model.Book;
+
+import java.util.List;
+
+/**
+ * Receives every change made through {@link LibraryData}.
+ * The change callbacks run on the writing thread while LibraryData holds its write lock,
+ * so they see changes one at a time and in order; they should be quick.
+ * With a {@link PartitionedBookStore} each partition has its own write lock: callbacks for writes to
+ * different partitions may run at the same time on different threads, so a listener of such a catalog
+ * must be thread-safe. Changes to one ISBN, and batches, still reach it one at a time and in order.
+ */
+public interface CatalogListener {
+
+    /**
+     * Called after a book has been added.
+     *
+     * @param book The added book.
+     */
+    void bookAdded(Book book);
+
+    /**
+     * Called after several books have been added in one batch.
+     * By default this is reported as one {@link #bookAdded(Book)} call per book.
+     *
+     * @param books The added books, in insertion order.
+     */
+    default void booksAdded(List<Book> books) {
+        for (Book book : books) {
+            bookAdded(book);
+        }
+    }
+
+    /**
+     * Called after a book has been replaced by a new version.
+     *
+     * @param isbn   The ISBN the book was stored under before the update.
+     * @param before The previous version of the book.
+     * @param after  The new version of the book; its ISBN may differ from {@code isbn}.
+     */
+    void bookUpdated(String isbn, Book before, Book after);
+
+    /**
+     * Called after several books have been replaced in one batch, each under its own ISBN.
+     * By default this is reported as one {@link #bookUpdated(String, Book, Book)} call per book.
+     *
+     * @param before The previous versions of the books.
+     * @param after  The new versions, in the same order; each has the ISBN of its previous version.
+     */
+    default void booksUpdated(List<Book> before, List<Book> after) {
+        for (int i = 0; i < after.size(); i++) {
+            bookUpdated(before.get(i).getISBN(), before.get(i), after.get(i));
+        }
+    }
+
+    /**
+     * Called on the writing thread once the write lock has been released.
+     * A listener may block here, e.g. until the change it just saw is durable.
+     */
+    default void afterWrite() {
+    }
+}
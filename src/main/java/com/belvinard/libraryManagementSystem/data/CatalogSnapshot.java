@@ -0,0 +1,136 @@
+package com.belvinard.libraryManagementSystem.data;
+
+import com.belvinard.libraryManagementSystem.model.Book;
+import com.belvinard.libraryManagementSystem.model.BookValidator;
+import com.belvinard.libraryManagementSystem.model.Isbn;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Immutable point-in-time view of a catalog: its books in insertion order and an ISBN lookup,
+ * as of one version. Reading a snapshot never locks and never sees a later write, so scans,
+ * exports and reports can take as long as they need while writers carry on.
+ * <p>
+ * Books are held in chunks of 1024 references and looked up through chunks of positions indexed
+ * by numeric ISBN. {@link VersionedBookStore} shares the chunks between successive versions and
+ * copies only the chunks a write changes.
+ */
+public final class CatalogSnapshot {
+
+    static final int CHUNK_SHIFT = 10;
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    static final int CHUNKS = (Isbn.CAPACITY + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+    private final long version;
+    private final int size;
+
+    // Books in insertion order: position p is books[p >> CHUNK_SHIFT][p & CHUNK_MASK]
+    private final Book[][] books;
+
+    // Position + 1 of each numeric ISBN, 0 if absent; a null chunk holds no ISBN
+    private final int[][] positions;
+
+    CatalogSnapshot(long version, int size, Book[][] books, int[][] positions) {
+        this.version = version;
+        this.size = size;
+        this.books = books;
+        this.positions = positions;
+    }
+
+    /**
+     * Copies a list of books into a snapshot, e.g. the books of a store that does not keep versions.
+     *
+     * @param version The version of the catalog the books were read from.
+     * @param books   The books in insertion order, with distinct ISBNs.
+     * @return a snapshot holding the books.
+     */
+    public static CatalogSnapshot copyOf(long version, List<Book> books) {
+        Book[][] chunks = new Book[CHUNKS][];
+        int[][] positions = new int[CHUNKS][];
+        int position = 0;
+        for (Book book : books) {
+            int chunk = position >>> CHUNK_SHIFT;
+            if (chunks[chunk] == null) {
+                chunks[chunk] = new Book[CHUNK_SIZE];
+            }
+            chunks[chunk][position & CHUNK_MASK] = book;
+            int isbn = Isbn.toInt(book.getISBN());
+            if (positions[isbn >>> CHUNK_SHIFT] == null) {
+                positions[isbn >>> CHUNK_SHIFT] = new int[CHUNK_SIZE];
+            }
+            positions[isbn >>> CHUNK_SHIFT][isbn & CHUNK_MASK] = ++position;
+        }
+        return new CatalogSnapshot(version, position, chunks, positions);
+    }
+
+    /**
+     * @return the catalog version this snapshot shows; it grows with every write.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the number of books.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param isbn The ISBN to look up.
+     * @return the book stored under that ISBN in this version, or null if there was none.
+     */
+    public Book get(String isbn) {
+        int position = positionOf(isbn);
+        return position < 0 ? null : books[position >>> CHUNK_SHIFT][position & CHUNK_MASK];
+    }
+
+    /**
+     * @param isbn The ISBN to look up.
+     * @return true if a book was stored under that ISBN in this version.
+     */
+    public boolean contains(String isbn) {
+        return positionOf(isbn) >= 0;
+    }
+
+    /**
+     * @return the books in insertion order, as a read-only random-access list.
+     */
+    public List<Book> books() {
+        return new BookList();
+    }
+
+    // Position of the ISBN in this version, or -1
+    int positionOf(String isbn) {
+        if (!BookValidator.isValidIsbn(isbn)) {
+            return -1;
+        }
+        return positionOf(Isbn.toInt(isbn));
+    }
+
+    int positionOf(int isbn) {
+        int[] chunk = positions[isbn >>> CHUNK_SHIFT];
+        // Later versions may have filled the slot in place; their positions are past this size
+        int position = chunk == null ? -1 : chunk[isbn & CHUNK_MASK] - 1;
+        return position < size ? position : -1;
+    }
+
+    private final class BookList extends AbstractList<Book> implements RandomAccess {
+        @Override
+        public Book get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+            }
+            return books[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
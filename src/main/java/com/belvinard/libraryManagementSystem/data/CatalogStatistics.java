@@ -0,0 +1,386 @@
+package com.belvinard.libraryManagementSystem.data;
+
+import com.belvinard.libraryManagementSystem.model.Book;
+import com.belvinard.libraryManagementSystem.model.BookValidator;
+import com.belvinard.libraryManagementSystem.model.Genre;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Aggregates of a catalog kept up to date with every change, so reports need no pass over the books:
+ * the number of books, per genre, per publication year and per decade, and the authors with the most books.
+ * An update that changes a book's genre, year or author moves it from one count to the other.
+ * <p>
+ * Authors are counted in a Count-Min sketch of {@value #SKETCH_DEPTH} rows of {@value #SKETCH_WIDTH}
+ * counters: each author adds to one counter per row and its count is estimated as the smallest of
+ * them, which is never below the true count and rarely far above it. Unlike exact counts, the sketch
+ * takes the same memory however many authors there are; unlike most heavy-hitter summaries, it also
+ * supports the decrements updates need. The {@value #CANDIDATES} authors with the highest estimates
+ * are kept as candidates for the top authors; an author enters when its estimate passes the lowest of them.
+ * <p>
+ * Every {@link LibraryData} maintains one, see {@link LibraryData#getStatistics()}.
+ * Counts are read in constant time, and reads may run concurrently with updates.
+ */
+public class CatalogStatistics implements CatalogListener {
+
+    private static final Genre[] GENRES = Genre.values();
+
+    static final int SKETCH_DEPTH = 4;
+    private static final int SKETCH_BITS = 14;
+    static final int SKETCH_WIDTH = 1 << SKETCH_BITS;
+    static final int CANDIDATES = 64;
+
+    // Odd constants of the 64-bit author hash: a start value and the multiplier applied after each character
+    private static final long HASH_SEED = 0x9E3779B97F4A7C15L;
+    private static final long HASH_MULTIPLIER = 0xC2B2AE3D27D4EB4FL;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int count;
+    private final int[] genreCounts = new int[GENRES.length];
+
+    // Books per year and per decade, offset by MIN_PUBLICATION_YEAR and its decade; grown as needed
+    private int[] yearCounts = new int[0];
+    private int[] decadeCounts = new int[0];
+
+    private final int[][] sketch = new int[SKETCH_DEPTH][SKETCH_WIDTH];
+
+    // Candidate top authors with their estimated counts; floor is at most the lowest of them, and an
+    // author counted above it is checked against the candidates
+    private final Map<String, Integer> candidates = new HashMap<>();
+    private int floor;
+
+    @Override
+    public void bookAdded(Book book) {
+        lock.writeLock().lock();
+        try {
+            add(book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void booksAdded(List<Book> books) {
+        lock.writeLock().lock();
+        try {
+            for (Book book : books) {
+                add(book);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void bookUpdated(String isbn, Book before, Book after) {
+        lock.writeLock().lock();
+        try {
+            move(before, after);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void booksUpdated(List<Book> before, List<Book> after) {
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < after.size(); i++) {
+                move(before.get(i), after.get(i));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of books.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of books of the given genre.
+     */
+    public int countGenre(Genre genre) {
+        lock.readLock().lock();
+        try {
+            return genreCounts[genre.ordinal()];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of books published in the given year.
+     */
+    public int countYear(int year) {
+        lock.readLock().lock();
+        try {
+            int slot = year - BookValidator.MIN_PUBLICATION_YEAR;
+            return slot >= 0 && slot < yearCounts.length ? yearCounts[slot] : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param decade The first year of the decade, e.g. 1990 for 1990 to 1999.
+     * @return the number of books published in that decade.
+     */
+    public int countDecade(int decade) {
+        lock.readLock().lock();
+        try {
+            int slot = decadeSlot(decade);
+            return slot >= 0 && slot < decadeCounts.length ? decadeCounts[slot] : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of books per genre, in genre order, including empty genres.
+     */
+    public Map<Genre, Integer> genreCounts() {
+        lock.readLock().lock();
+        try {
+            Map<Genre, Integer> counts = new EnumMap<>(Genre.class);
+            for (Genre genre : GENRES) {
+                counts.put(genre, genreCounts[genre.ordinal()]);
+            }
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of books per publication year, for the years that have books.
+     */
+    public SortedMap<Integer, Integer> yearCounts() {
+        lock.readLock().lock();
+        try {
+            return histogram(yearCounts, 1);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of books per decade, keyed by the decade's first year, for the decades that have books.
+     */
+    public SortedMap<Integer, Integer> decadeCounts() {
+        lock.readLock().lock();
+        try {
+            return histogram(decadeCounts, 10);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the estimated number of books by the author (exact spelling): never less than the true
+     * number, and with high probability at most a few books more.
+     */
+    public int countAuthor(String author) {
+        lock.readLock().lock();
+        try {
+            return estimate(author);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lists the authors with the most books, most books first.
+     *
+     * @param limit The number of authors to return, at most {@value #CANDIDATES}.
+     * @return the top authors with their estimated numbers of books.
+     */
+    public List<AuthorCount> topAuthors(int limit) {
+        if (limit < 1 || limit > CANDIDATES) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + CANDIDATES + ".");
+        }
+        List<AuthorCount> top = new ArrayList<>(CANDIDATES);
+        lock.readLock().lock();
+        try {
+            for (Map.Entry<String, Integer> candidate : candidates.entrySet()) {
+                top.add(new AuthorCount(candidate.getKey(), candidate.getValue()));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        top.sort((a, b) -> a.count != b.count ? Integer.compare(b.count, a.count) : a.author.compareTo(b.author));
+        return top.subList(0, Math.min(limit, top.size()));
+    }
+
+    private void add(Book book) {
+        count++;
+        genreCounts[book.getGenreType().ordinal()]++;
+        countYearOf(book, 1);
+        countAuthorOf(book.getAuthor(), 1);
+    }
+
+    private void move(Book before, Book after) {
+        if (before.getGenreType() != after.getGenreType()) {
+            genreCounts[before.getGenreType().ordinal()]--;
+            genreCounts[after.getGenreType().ordinal()]++;
+        }
+        if (before.getPublicationYear() != after.getPublicationYear()) {
+            countYearOf(before, -1);
+            countYearOf(after, 1);
+        }
+        if (!before.getAuthor().equals(after.getAuthor())) {
+            countAuthorOf(before.getAuthor(), -1);
+            countAuthorOf(after.getAuthor(), 1);
+        }
+    }
+
+    private void countYearOf(Book book, int delta) {
+        int year = book.getPublicationYear();
+        int slot = year - BookValidator.MIN_PUBLICATION_YEAR;
+        if (slot >= yearCounts.length) {
+            int years = Math.max(slot + 1, BookValidator.currentYear() - BookValidator.MIN_PUBLICATION_YEAR + 1);
+            yearCounts = Arrays.copyOf(yearCounts, years);
+            decadeCounts = Arrays.copyOf(decadeCounts, decadeSlot(BookValidator.MIN_PUBLICATION_YEAR + years - 1) + 1);
+        }
+        yearCounts[slot] += delta;
+        decadeCounts[decadeSlot(year)] += delta;
+    }
+
+    private void countAuthorOf(String author, int delta) {
+        long hash = hash(author);
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < SKETCH_DEPTH; row++) {
+            int column = column(hash, row);
+            sketch[row][column] += delta;
+            estimate = Math.min(estimate, sketch[row][column]);
+        }
+        if (candidates.containsKey(author)) {
+            if (estimate == 0) {
+                candidates.remove(author);
+            } else {
+                candidates.put(author, estimate);
+            }
+            floor = Math.min(floor, estimate);
+        } else if (delta > 0 && (candidates.size() < CANDIDATES || estimate > floor)) {
+            admit(author, estimate);
+        }
+    }
+
+    // Adds the author to the candidates, replacing the lowest one if they are full, and updates the floor
+    private void admit(String author, int estimate) {
+        if (candidates.size() >= CANDIDATES) {
+            String lowest = lowestCandidate();
+            if (candidates.get(lowest) >= estimate) {
+                floor = candidates.get(lowest);
+                return;
+            }
+            candidates.remove(lowest);
+        }
+        candidates.put(author, estimate);
+        floor = candidates.size() < CANDIDATES ? 0 : candidates.get(lowestCandidate());
+    }
+
+    private String lowestCandidate() {
+        String lowest = null;
+        int lowestCount = Integer.MAX_VALUE;
+        for (Map.Entry<String, Integer> candidate : candidates.entrySet()) {
+            if (candidate.getValue() < lowestCount) {
+                lowest = candidate.getKey();
+                lowestCount = candidate.getValue();
+            }
+        }
+        return lowest;
+    }
+
+    private int estimate(String author) {
+        long hash = hash(author);
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < SKETCH_DEPTH; row++) {
+            estimate = Math.min(estimate, sketch[row][column(hash, row)]);
+        }
+        return estimate;
+    }
+
+    // A 64-bit hash of the characters. String.hashCode has only 32 bits and collides on purpose-built
+    // pairs such as "Aa" and "BB"; every row derived from it would put such authors in the same counter.
+    private static long hash(String author) {
+        long hash = HASH_SEED;
+        for (int i = 0; i < author.length(); i++) {
+            hash = (hash ^ author.charAt(i)) * HASH_MULTIPLIER;
+        }
+        // Final mix of MurmurHash3, so every bit of the result depends on every character
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        return hash ^ hash >>> 33;
+    }
+
+    // The counter of the author in a row, from the low and high halves of the hash (low + row * high):
+    // two authors share a counter in every row only if their whole 64-bit hashes are equal
+    private static int column(long hash, int row) {
+        int low = (int) hash;
+        int high = (int) (hash >>> 32) | 1;
+        return (low + row * high) >>> (32 - SKETCH_BITS);
+    }
+
+    private static int decadeSlot(int year) {
+        return Math.floorDiv(year, 10) - BookValidator.MIN_PUBLICATION_YEAR / 10;
+    }
+
+    private static SortedMap<Integer, Integer> histogram(int[] counts, int step) {
+        SortedMap<Integer, Integer> histogram = new TreeMap<>();
+        for (int slot = 0; slot < counts.length; slot++) {
+            if (counts[slot] > 0) {
+                histogram.put(BookValidator.MIN_PUBLICATION_YEAR + slot * step, counts[slot]);
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * An author and the estimated number of their books.
+     */
+    public static final class AuthorCount {
+        private final String author;
+        private final int count;
+
+        private AuthorCount(String author, int count) {
+            this.author = author;
+            this.count = count;
+        }
+
+        public String getAuthor() {
+            return author;
+        }
+
+        /**
+         * @return the estimated number of books, never less than the true number.
+         */
+        public int getCount() {
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            return author + " (" + count + ")";
+        }
+    }
+}
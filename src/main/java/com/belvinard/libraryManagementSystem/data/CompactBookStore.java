@@ -0,0 +1,205 @@
+package com.belvinard.libraryManagementSystem.data;
+
+import com.belvinard.libraryManagementSystem.model.Book;
+import com.belvinard.libraryManagementSystem.model.BookValidator;
+import com.belvinard.libraryManagementSystem.model.Genre;
+import com.belvinard.libraryManagementSystem.model.Isbn;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Memory-compact store for very large catalogs. Books are not kept as objects but as columns
+ * indexed by insertion slot: the ISBN as an int, the genre as a byte code, the publication year
+ * as a short, the author as an id into a dictionary of distinct names, and the title as a range
+ * of a shared byte arena (validated titles are plain ASCII). The ISBN index is a plain int array
+ * addressed by the numeric ISBN. {@link Book} objects are created on demand when read, so changing
+ * a returned Book has no effect until it is saved through {@link LibraryData#updateBook}.
+ * Like {@link ListBookStore}, reads must not run concurrently with writes.
+ */
+public class CompactBookStore implements BookStore {
+
+    private static final Genre[] GENRES = Genre.values();
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int NO_SLOT = -1;
+
+    // ISBN (as int) -> slot
+    private final int[] slotByIsbn = new int[Isbn.CAPACITY];
+
+    // Columns, indexed by slot
+    private int[] isbns = new int[INITIAL_CAPACITY];
+    private short[] years = new short[INITIAL_CAPACITY];
+    private byte[] genres = new byte[INITIAL_CAPACITY];
+    private int[] authorIds = new int[INITIAL_CAPACITY];
+    private int[] titleOffsets = new int[INITIAL_CAPACITY];
+    private int[] titleLengths = new int[INITIAL_CAPACITY];
+    private int size;
+
+    // Shared title bytes; replaced titles leave garbage that is compacted away once it dominates
+    private byte[] titleArena = new byte[INITIAL_CAPACITY * 16];
+    private int arenaUsed;
+    private int arenaGarbage;
+
+    // Dictionary of distinct author names
+    private final Map<String, Integer> authorIdsByName = new HashMap<>();
+    private final List<String> authorNames = new ArrayList<>();
+
+    public CompactBookStore() {
+        Arrays.fill(slotByIsbn, NO_SLOT);
+    }
+
+    @Override
+    public boolean add(Book book) {
+        int isbn = Isbn.toInt(book.getISBN());
+        if (slotByIsbn[isbn] != NO_SLOT) {
+            return false;
+        }
+        if (size == isbns.length) {
+            grow();
+        }
+        write(size, isbn, book);
+        slotByIsbn[isbn] = size++;
+        return true;
+    }
+
+    @Override
+    public Book get(String isbn) {
+        int slot = slotOf(isbn);
+        return slot == NO_SLOT ? null : materialize(slot);
+    }
+
+    @Override
+    public boolean contains(String isbn) {
+        return slotOf(isbn) != NO_SLOT;
+    }
+
+    @Override
+    public void replace(String isbn, Book book) {
+        int slot = slotOf(isbn);
+        if (slot == NO_SLOT) {
+            throw new IllegalArgumentException("No book found with ISBN " + isbn + ".");
+        }
+        int oldIsbn = Isbn.toInt(isbn);
+        arenaGarbage += titleLengths[slot];
+        int newIsbn = Isbn.toInt(book.getISBN());
+        write(slot, newIsbn, book);
+        if (newIsbn != oldIsbn) {
+            slotByIsbn[oldIsbn] = NO_SLOT;
+            slotByIsbn[newIsbn] = slot;
+        }
+        if (arenaGarbage > arenaUsed / 2) {
+            compactArena();
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return a read-only view that creates each Book when it is accessed.
+     */
+    @Override
+    public List<Book> books() {
+        return new AbstractList<Book>() {
+            @Override
+            public Book get(int index) {
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+                }
+                return materialize(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * @return the approximate number of heap bytes used by the columns, arena and dictionary.
+     */
+    public long footprintBytes() {
+        long bytes = 4L * slotByIsbn.length;
+        bytes += (long) isbns.length * (4 + 2 + 1 + 4 + 4 + 4);
+        bytes += titleArena.length;
+        for (String author : authorNames) {
+            // String object, its byte array and the dictionary entry
+            bytes += 24 + 16 + author.length() + 48;
+        }
+        return bytes;
+    }
+
+    // Slot of the book stored under the ISBN, or NO_SLOT; a string that is not a valid ISBN
+    // has no key of its own (Isbn.toInt would map "1234a" or "123456" onto another book)
+    private int slotOf(String isbn) {
+        return BookValidator.isValidIsbn(isbn) ? slotByIsbn[Isbn.toInt(isbn)] : NO_SLOT;
+    }
+
+    private void write(int slot, int isbn, Book book) {
+        isbns[slot] = isbn;
+        years[slot] = (short) book.getPublicationYear();
+        genres[slot] = (byte) book.getGenreType().ordinal();
+        authorIds[slot] = authorId(book.getAuthor());
+        String title = book.getTitle();
+        ensureArena(title.length());
+        titleOffsets[slot] = arenaUsed;
+        titleLengths[slot] = title.length();
+        for (int i = 0; i < title.length(); i++) {
+            titleArena[arenaUsed++] = (byte) title.charAt(i);
+        }
+    }
+
+    private Book materialize(int slot) {
+        String title = new String(titleArena, titleOffsets[slot], titleLengths[slot], StandardCharsets.ISO_8859_1);
+        return new Book(title, authorNames.get(authorIds[slot]), GENRES[genres[slot]].getDisplayName(),
+                Isbn.toString(isbns[slot]), years[slot]);
+    }
+
+    private int authorId(String author) {
+        Integer id = authorIdsByName.get(author);
+        if (id == null) {
+            id = authorNames.size();
+            authorNames.add(author);
+            authorIdsByName.put(author, id);
+        }
+        return id;
+    }
+
+    private void grow() {
+        int capacity = isbns.length * 2;
+        isbns = Arrays.copyOf(isbns, capacity);
+        years = Arrays.copyOf(years, capacity);
+        genres = Arrays.copyOf(genres, capacity);
+        authorIds = Arrays.copyOf(authorIds, capacity);
+        titleOffsets = Arrays.copyOf(titleOffsets, capacity);
+        titleLengths = Arrays.copyOf(titleLengths, capacity);
+    }
+
+    private void ensureArena(int bytes) {
+        if (arenaUsed + bytes > titleArena.length) {
+            titleArena = Arrays.copyOf(titleArena, Math.max(titleArena.length * 2, arenaUsed + bytes));
+        }
+    }
+
+    // Rewrites the arena with only the live titles, in slot order
+    private void compactArena() {
+        byte[] compacted = new byte[Math.max(INITIAL_CAPACITY, arenaUsed - arenaGarbage)];
+        int used = 0;
+        for (int slot = 0; slot < size; slot++) {
+            System.arraycopy(titleArena, titleOffsets[slot], compacted, used, titleLengths[slot]);
+            titleOffsets[slot] = used;
+            used += titleLengths[slot];
+        }
+        titleArena = compacted;
+        arenaUsed = used;
+        arenaGarbage = 0;
+    }
+}
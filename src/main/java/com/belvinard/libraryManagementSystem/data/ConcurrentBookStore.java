@@ -0,0 +1,200 @@
+package com.belvinard.libraryManagementSystem.data;
+
+import com.belvinard.libraryManagementSystem.model.Book;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Store for a catalog shared by many threads.
+ * ISBN lookups go through a ConcurrentHashMap and never block, so they scale with the number of cores.
+ * Listing copies the insertion-ordered array under an optimistic StampedLock read and only falls
+ * back to a read lock if a writer got in the way. Writes take the write lock, so each write is atomic.
+ */
+public class ConcurrentBookStore implements BookStore {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final StampedLock lock = new StampedLock();
+
+    // Lock-free primary index: ISBN -> Book
+    private final ConcurrentHashMap<String, Book> isbnIndex = new ConcurrentHashMap<>();
+
+    // Insertion-ordered books and each ISBN's position, both guarded by lock
+    private Book[] books = new Book[INITIAL_CAPACITY];
+    private int size;
+    private final Map<String, Integer> positions = new HashMap<>();
+
+    @Override
+    public boolean add(Book book) {
+        long stamp = lock.writeLock();
+        try {
+            if (isbnIndex.putIfAbsent(book.getISBN(), book) != null) {
+                return false;
+            }
+            if (size == books.length) {
+                books = Arrays.copyOf(books, size * 2);
+            }
+            positions.put(book.getISBN(), size);
+            books[size++] = book;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public List<Book> addAll(List<Book> newBooks) {
+        long stamp = lock.writeLock();
+        try {
+            return append(newBooks);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Applies the batch under a single write-lock acquisition.
+     */
+    @Override
+    public void applyBatch(List<Book> additions, List<Book> replacements) {
+        long stamp = lock.writeLock();
+        try {
+            append(additions);
+            for (Book book : replacements) {
+                store(book.getISBN(), book);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Book get(String isbn) {
+        return isbnIndex.get(isbn);
+    }
+
+    @Override
+    public boolean contains(String isbn) {
+        return isbnIndex.containsKey(isbn);
+    }
+
+    @Override
+    public void replace(String isbn, Book book) {
+        long stamp = lock.writeLock();
+        try {
+            store(isbn, book);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public int size() {
+        long stamp = lock.tryOptimisticRead();
+        int currentSize = size;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                currentSize = size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return currentSize;
+    }
+
+    /**
+     * @return an immutable point-in-time copy of the books in insertion order.
+     */
+    @Override
+    public List<Book> books() {
+        long stamp = lock.tryOptimisticRead();
+        Book[] copy = Arrays.copyOf(books, size);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                copy = Arrays.copyOf(books, size);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return Collections.unmodifiableList(Arrays.asList(copy));
+    }
+
+    /**
+     * Copies only the range, under the same optimistic read as {@link #books()}.
+     */
+    @Override
+    public List<Book> books(int from, int to) {
+        if (from < 0) {
+            throw new IndexOutOfBoundsException("From: " + from);
+        }
+        long stamp = lock.tryOptimisticRead();
+        Book[] copy = copyRange(books, size, from, to);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                copy = copyRange(books, size, from, to);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return Collections.unmodifiableList(Arrays.asList(copy));
+    }
+
+    /**
+     * @return the copy made by {@link #books()}.
+     */
+    @Override
+    public List<Book> copy() {
+        return books();
+    }
+
+    // Bounded by the array too, since an optimistic read may see a size that belongs to a newer array
+    private static Book[] copyRange(Book[] array, int size, int from, int to) {
+        int end = Math.min(Math.min(to, size), array.length);
+        return from < end ? Arrays.copyOfRange(array, from, end) : new Book[0];
+    }
+
+    // Appends the books whose ISBN is free and returns the others; the caller holds the write lock
+    private List<Book> append(List<Book> newBooks) {
+        List<Book> duplicates = new ArrayList<>();
+        if (size + newBooks.size() > books.length) {
+            books = Arrays.copyOf(books, Math.max(size + newBooks.size(), size * 2));
+        }
+        for (Book book : newBooks) {
+            if (isbnIndex.putIfAbsent(book.getISBN(), book) != null) {
+                duplicates.add(book);
+                continue;
+            }
+            positions.put(book.getISBN(), size);
+            books[size++] = book;
+        }
+        return duplicates;
+    }
+
+    // Replaces the book stored under isbn; the caller holds the write lock
+    private void store(String isbn, Book book) {
+        Integer position = positions.get(isbn);
+        if (position == null) {
+            throw new IllegalArgumentException("No book found with ISBN " + isbn + ".");
+        }
+        books[position] = book;
+        if (!isbn.equals(book.getISBN())) {
+            positions.remove(isbn);
+            positions.put(book.getISBN(), position);
+            // Publish the new key before dropping the old one, so the book never looks absent
+            isbnIndex.put(book.getISBN(), book);
+            isbnIndex.remove(isbn);
+        } else {
+            isbnIndex.put(isbn, book);
+        }
+    }
+}
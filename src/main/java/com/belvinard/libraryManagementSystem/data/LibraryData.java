@@ -4,32 +4,469 @@ import com.belvinard.libraryManagementSystem.model.Book;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
 /**
  * Data access class for managing the book collection.
  * Acts as a simple in-memory storage for books in the library.
+ * Books are kept in insertion order and indexed by ISBN by a {@link BookStore},
+ * so existence checks, lookups and updates do not scan the whole collection.
+ * Writes are serialized, except with a {@link PartitionedBookStore}: there each partition has its own
+ * write lock, so single-book writes to different partitions run concurrently, while batches, snapshots
+ * and pauses lock every partition. Whether reads may run concurrently with writes depends on the store.
+ * Every change is reported to the registered {@link CatalogListener}s, the first of which keeps
+ * the catalog's {@link CatalogStatistics}.
  */
 @Component
 public class LibraryData {
 
-    // List to store Book objects as an in-memory collection
-    private final ArrayList<Book> bookCollection = new ArrayList<>();
+    // Catalogs at least this large are scanned in parallel, in segments of at most SEGMENT_SIZE books
+    private static final int PARALLEL_THRESHOLD = 8192;
+    private static final int SEGMENT_SIZE = 4096;
+
+    // Storage for the books (single-threaded list by default)
+    private final BookStore bookStore;
+
+    // Serialize writes so that check-then-act sequences such as updateBook are atomic: one lock,
+    // or one per partition of a PartitionedBookStore, always taken in index order
+    private final ReentrantLock[] writeLocks;
+
+    // The store again when it is partitioned, which picks the lock of an ISBN; null otherwise
+    private final PartitionedBookStore partitionedStore;
+
+    // Notified of every change, in registration order
+    private final List<CatalogListener> listeners = new CopyOnWriteArrayList<>();
+
+    // Counts per genre, year and author, always registered as the first listener
+    private final CatalogStatistics statistics = new CatalogStatistics();
+
+    // Number of writes so far, the version of copied snapshots; changed under a write lock
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Creates a LibraryData backed by the default single-threaded store.
+     */
+    public LibraryData() {
+        this(new ListBookStore());
+    }
+
+    /**
+     * Creates a LibraryData backed by the given store, e.g. a {@link ConcurrentBookStore}
+     * for a catalog shared by several threads.
+     *
+     * @param bookStore The store holding the books.
+     */
+    public LibraryData(BookStore bookStore) {
+        if (bookStore == null) {
+            throw new IllegalArgumentException("BookStore cannot be null.");
+        }
+        this.bookStore = bookStore;
+        this.partitionedStore = bookStore instanceof PartitionedBookStore ? (PartitionedBookStore) bookStore : null;
+        this.writeLocks = new ReentrantLock[partitionedStore != null ? partitionedStore.getPartitionCount() : 1];
+        for (int i = 0; i < writeLocks.length; i++) {
+            writeLocks[i] = new ReentrantLock();
+        }
+        if (bookStore.size() > 0) {
+            statistics.booksAdded(bookStore.books());
+        }
+        listeners.add(statistics);
+    }
+
+    /**
+     * @return the counts per genre, year and author of this catalog, kept up to date with every change.
+     */
+    public CatalogStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Registers a listener that is notified of every later change.
+     *
+     * @param listener The listener to add.
+     */
+    public void addListener(CatalogListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null.");
+        }
+        listeners.add(listener);
+    }
+
+    /**
+     * Registers a listener and first reports the books already stored to it, as one
+     * {@link CatalogListener#booksAdded(List)} call. Writes are paused meanwhile, so the
+     * listener sees every book exactly once. Used by indexes built over an existing catalog.
+     *
+     * @param listener The listener to attach.
+     */
+    public void attach(CatalogListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null.");
+        }
+        lockAll();
+        try {
+            List<Book> existing = bookStore.books();
+            if (!existing.isEmpty()) {
+                listener.booksAdded(existing);
+            }
+            listeners.add(listener);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * @param listener The listener to remove.
+     */
+    public void removeListener(CatalogListener listener) {
+        listeners.remove(listener);
+    }
 
     /**
      * Adds a new book to the book collection.
      *
      * @param book The Book object to add to the collection.
+     * @throws IllegalArgumentException if a book with the same ISBN already exists.
      */
     public void addBook(Book book) {
-        // bookCollection.add(book);  // Add book to in-memory collection
-        if (book != null) {
-            bookCollection.add(book);
+        if (book != null && !addBookIfAbsent(book)) {
+            throw new IllegalArgumentException("A book with ISBN " + book.getISBN() + " already exists.");
         }
     }
 
-    // Update a book
-    public void updateBook(String isbn, Book updatedBook){
+    /**
+     * Adds a book unless its ISBN is already taken. The check and the addition are one atomic write,
+     * so of several threads adding the same ISBN exactly one succeeds.
+     *
+     * @param book The Book object to add to the collection.
+     * @return false if a book with the same ISBN already exists.
+     */
+    public boolean addBookIfAbsent(Book book) {
+        if (book == null) {
+            throw new IllegalArgumentException("Book cannot be null.");
+        }
+        ReentrantLock lock = writeLocks[lockIndex(book.getISBN())];
+        lock.lock();
+        try {
+            if (!bookStore.add(book)) {
+                return false;
+            }
+            version.incrementAndGet();
+            for (CatalogListener listener : listeners) {
+                listener.bookAdded(book);
+            }
+        } finally {
+            lock.unlock();
+        }
+        afterWrite();
+        return true;
+    }
+
+    /**
+     * Adds several books with a single lock acquisition, e.g. one batch of a bulk import.
+     * Books whose ISBN is already taken (by the catalog or earlier in the list) are skipped.
+     *
+     * @param books The books to add; null elements are ignored.
+     * @return the books that were skipped because their ISBN already exists.
+     */
+    public List<Book> addBooks(List<Book> books) {
+        if (books == null || books.isEmpty()) {
+            return List.of();
+        }
+        List<Book> nonNull = new ArrayList<>(books.size());
+        for (Book book : books) {
+            if (book != null) {
+                nonNull.add(book);
+            }
+        }
+        List<Book> duplicates;
+        lockAll();
+        try {
+            duplicates = bookStore.addAll(nonNull);
+            if (duplicates.size() < nonNull.size()) {
+                version.incrementAndGet();
+            }
+            if (!listeners.isEmpty()) {
+                List<Book> added = withoutDuplicates(nonNull, duplicates);
+                for (CatalogListener listener : listeners) {
+                    listener.booksAdded(added);
+                }
+            }
+        } finally {
+            unlockAll();
+        }
+        afterWrite();
+        return duplicates;
+    }
+
+    /**
+     * Adds a batch of books atomically: the store, the listeners and the log each see one write.
+     * Null books and books whose ISBN is already taken (by the catalog or earlier in the batch) are skipped.
+     *
+     * @param books The books to add.
+     * @return the outcome of each book, in order.
+     */
+    public BatchReport addAll(List<Book> books) {
+        if (books == null) {
+            throw new IllegalArgumentException("Books cannot be null.");
+        }
+        BatchReport report = new BatchReport(books.size());
+        List<Book> additions = new ArrayList<>(books.size());
+        lockAll();
+        try {
+            Set<String> batchIsbns = new HashSet<>();
+            for (Book book : books) {
+                if (book == null) {
+                    report.record(null, BatchReport.Outcome.INVALID, "Book cannot be null.");
+                } else if (bookStore.contains(book.getISBN()) || !batchIsbns.add(book.getISBN())) {
+                    report.record(book.getISBN(), BatchReport.Outcome.DUPLICATE,
+                            "A book with ISBN " + book.getISBN() + " already exists.");
+                } else {
+                    additions.add(book);
+                    report.record(book.getISBN(), BatchReport.Outcome.ADDED);
+                }
+            }
+            applyBatch(additions, List.of(), List.of());
+        } finally {
+            unlockAll();
+        }
+        afterWrite();
+        return report;
+    }
+
+    /**
+     * Adds or replaces a batch of books keyed by ISBN, atomically: books with a new ISBN are added,
+     * the others replace the stored book with that ISBN, as if the batch were applied in order.
+     * Books identical to the stored version are not written again. Listeners receive one
+     * {@link CatalogListener#booksAdded} and one {@link CatalogListener#booksUpdated} call per batch.
+     *
+     * @param books The books to store.
+     * @return the outcome of each book, in order.
+     */
+    public BatchReport upsertAll(List<Book> books) {
+        if (books == null) {
+            throw new IllegalArgumentException("Books cannot be null.");
+        }
+        BatchReport report = new BatchReport(books.size());
+        List<Book> additions = new ArrayList<>();
+        List<Book> before = new ArrayList<>();
+        List<Book> after = new ArrayList<>();
+        // Where each ISBN written earlier in the batch sits in additions or after
+        Map<String, Integer> added = new HashMap<>();
+        Map<String, Integer> replaced = new HashMap<>();
+        lockAll();
+        try {
+            for (Book book : books) {
+                if (book == null) {
+                    report.record(null, BatchReport.Outcome.INVALID, "Book cannot be null.");
+                    continue;
+                }
+                String isbn = book.getISBN();
+                Integer position = added.get(isbn);
+                List<Book> pending = additions;
+                if (position == null) {
+                    position = replaced.get(isbn);
+                    pending = after;
+                }
+                Book current = position != null ? pending.get(position) : bookStore.get(isbn);
+                if (current == null) {
+                    added.put(isbn, additions.size());
+                    additions.add(book);
+                    report.record(isbn, BatchReport.Outcome.ADDED);
+                } else if (sameDetails(current, book)) {
+                    report.record(isbn, BatchReport.Outcome.UNCHANGED);
+                } else {
+                    if (position != null) {
+                        pending.set(position, book);
+                    } else {
+                        replaced.put(isbn, after.size());
+                        before.add(current);
+                        after.add(book);
+                    }
+                    report.record(isbn, BatchReport.Outcome.UPDATED);
+                }
+            }
+            applyBatch(additions, before, after);
+        } finally {
+            unlockAll();
+        }
+        afterWrite();
+        return report;
+    }
+
+    /**
+     * Changes every book that matches a filter, atomically, e.g. to re-genre all the books of an author.
+     * The filter and the change run in a {@link #scan} without blocking writers, in parallel for large catalogs
+     * on several cores, so both must be safe to call from several threads. Only the resulting replacements
+     * are applied under the write lock, as one batch. Selected books written meanwhile are filtered and
+     * changed again under the lock; books added after the scan started are not considered.
+     * Changes may not alter the ISBN; a change throwing IllegalArgumentException rejects only its book.
+     *
+     * @param filter Selects the books to change.
+     * @param change Returns the new version of a selected book, e.g. {@code book -> book.withGenre("Fiction")}.
+     * @return the outcome of each selected book, in catalog order.
+     */
+    public BatchReport updateWhere(Predicate<Book> filter, UnaryOperator<Book> change) {
+        if (filter == null || change == null) {
+            throw new IllegalArgumentException("Filter and change cannot be null.");
+        }
+        List<Change> changes = scan(segment -> {
+            List<Change> selected = new ArrayList<>();
+            for (Book book : segment) {
+                if (filter.test(book)) {
+                    selected.add(new Change(book, change));
+                }
+            }
+            return selected;
+        }, LibraryData::concat);
+
+        BatchReport report = new BatchReport(changes.size());
+        List<Book> before = new ArrayList<>();
+        List<Book> after = new ArrayList<>();
+        lockAll();
+        try {
+            for (Change selected : changes) {
+                Book current = bookStore.get(selected.original.getISBN());
+                if (current == null) {
+                    // Moved to another ISBN since the scan
+                    continue;
+                }
+                if (!sameDetails(current, selected.original)) {
+                    // Written since the scan: decide again on the stored version
+                    if (!filter.test(current)) {
+                        continue;
+                    }
+                    selected = new Change(current, change);
+                }
+                if (selected.error != null) {
+                    report.record(current.getISBN(), BatchReport.Outcome.INVALID, selected.error);
+                } else if (sameDetails(current, selected.result)) {
+                    report.record(current.getISBN(), BatchReport.Outcome.UNCHANGED);
+                } else {
+                    before.add(current);
+                    after.add(selected.result);
+                    report.record(current.getISBN(), BatchReport.Outcome.UPDATED);
+                }
+            }
+            applyBatch(List.of(), before, after);
+        } finally {
+            unlockAll();
+        }
+        afterWrite();
+        return report;
+    }
+
+    /**
+     * Runs a full-catalog scan over a consistent copy of the books. The copy is split into segments of
+     * at most 4096 books in insertion order; for large catalogs on several cores, the segments are scanned
+     * by fork-join tasks in parallel and their results combined pairwise. Writes are paused only while the
+     * copy is taken, and not at all with a {@link VersionedBookStore}.
+     *
+     * @param scanner  Computes the result of one segment; must be safe to call from several threads.
+     * @param combiner Combines the results of two adjacent groups of segments, earlier segments first.
+     * @return the combined result of all segments.
+     */
+    public <R> R scan(Function<List<Book>, R> scanner, BinaryOperator<R> combiner) {
+        if (scanner == null || combiner == null) {
+            throw new IllegalArgumentException("Scanner and combiner cannot be null.");
+        }
+        CatalogSnapshot snapshot = bookStore.snapshot();
+        List<Book> books;
+        if (snapshot != null) {
+            books = snapshot.books();
+        } else {
+            lockAll();
+            try {
+                books = bookStore.copy();
+            } finally {
+                unlockAll();
+            }
+        }
+        if (books.isEmpty()) {
+            return scanner.apply(books);
+        }
+        List<List<Book>> segments = new ArrayList<>();
+        for (int from = 0; from < books.size(); from += SEGMENT_SIZE) {
+            segments.add(books.subList(from, Math.min(from + SEGMENT_SIZE, books.size())));
+        }
+        if (books.size() < PARALLEL_THRESHOLD || parallelism() < 2) {
+            R result = scanner.apply(segments.get(0));
+            for (int i = 1; i < segments.size(); i++) {
+                result = combiner.apply(result, scanner.apply(segments.get(i)));
+            }
+            return result;
+        }
+        return new ScanTask<>(segments, 0, segments.size(), scanner, combiner).invoke();
+    }
+
+    /**
+     * Finds every book matching a filter with a {@link #scan}.
+     *
+     * @param filter Selects the books; must be safe to call from several threads.
+     * @return the matching books in insertion order.
+     */
+    public List<Book> filter(Predicate<Book> filter) {
+        if (filter == null) {
+            throw new IllegalArgumentException("Filter cannot be null.");
+        }
+        return scan(segment -> {
+            List<Book> matches = new ArrayList<>();
+            for (Book book : segment) {
+                if (filter.test(book)) {
+                    matches.add(book);
+                }
+            }
+            return matches;
+        }, LibraryData::concat);
+    }
+
+    /**
+     * Counts the books matching a filter with a {@link #scan}.
+     *
+     * @param filter Selects the books; must be safe to call from several threads.
+     * @return the number of matching books.
+     */
+    public long count(Predicate<Book> filter) {
+        if (filter == null) {
+            throw new IllegalArgumentException("Filter cannot be null.");
+        }
+        return scan(segment -> {
+            long matches = 0;
+            for (Book book : segment) {
+                if (filter.test(book)) {
+                    matches++;
+                }
+            }
+            return matches;
+        }, Long::sum);
+    }
+
+    /**
+     * Replaces the book stored under the given ISBN with a new version of it.
+     * Books are immutable, so the new version is stored as is and readers see either
+     * the old or the new book, never a mix. If the ISBN itself changes, the index is moved to the new ISBN.
+     *
+     * @param isbn        The ISBN of the book to update.
+     * @param updatedBook The Book holding the new details.
+     * @return true if the book was updated, false if no book is stored under {@code isbn}.
+     * @throws IllegalArgumentException if the arguments are invalid or the new ISBN is already taken.
+     */
+    public boolean updateBook(String isbn, Book updatedBook){
         // Check if the updated book is null
         if(updatedBook == null){
             throw new IllegalArgumentException("Updated book cannot be null.");
@@ -40,42 +477,254 @@ public class LibraryData {
             throw new IllegalArgumentException("ISBN must not be null or empty.");
         }
 
+        // The old and the new ISBN's locks, in index order, so a concurrent write to either waits
+        int first = lockIndex(isbn);
+        int second = lockIndex(updatedBook.getISBN());
+        if (first > second) {
+            int swap = first;
+            first = second;
+            second = swap;
+        }
+        writeLocks[first].lock();
+        if (second != first) {
+            writeLocks[second].lock();
+        }
+        try {
+            Book currentBook = bookStore.get(isbn);
+            if (currentBook == null) {
+                // No matching book is found
+                return false;
+            }
+
+            // Reject an ISBN change that would collide with another book
+            String newIsbn = updatedBook.getISBN();
+            if (!newIsbn.equals(isbn) && bookStore.contains(newIsbn)) {
+                throw new IllegalArgumentException("A book with ISBN " + newIsbn + " already exists.");
+            }
+
+            bookStore.replace(isbn, updatedBook);
+            version.incrementAndGet();
+            for (CatalogListener listener : listeners) {
+                listener.bookUpdated(isbn, currentBook, updatedBook);
+            }
+        } finally {
+            if (second != first) {
+                writeLocks[second].unlock();
+            }
+            writeLocks[first].unlock();
+        }
+        afterWrite();
+        return true;
+    }
+
+    // Method to check if a book exists by ISBN
+    public boolean bookExists(String isbn) {
+        return isbn != null && bookStore.contains(isbn);
+    }
+
+    /**
+     * Retrieves a book by its ISBN.
+     *
+     * @param isbn The ISBN of the book.
+     * @return the matching Book, or null if none is stored under that ISBN.
+     */
+    public Book getBookByISBN(String isbn) {
+        return isbn == null ? null : bookStore.get(isbn);
+    }
+
+    /**
+     * @return the number of books in the collection.
+     */
+    public int size() {
+        return bookStore.size();
+    }
+
+    /**
+     * Returns the books in insertion order. The list is read-only: a live view for the
+     * default store, or a point-in-time snapshot for a {@link ConcurrentBookStore} or {@link VersionedBookStore}.
+     *
+     * @return a read-only list of the books.
+     */
+    public List<Book> getBookCollection() {
+        return bookStore.books();
+    }
+
+    /**
+     * Returns a copy of one range of the books in insertion order, copying only that range.
+     *
+     * @param from The position of the first book, from 0.
+     * @param to   The position after the last book; ranges past the end stop at the last book.
+     * @return an immutable list of the books in the range, empty if {@code from} is past the end.
+     */
+    public List<Book> getBooks(int from, int to) {
+        return bookStore.books(from, to);
+    }
+
+    /**
+     * Returns a consistent, immutable view of the whole catalog as of the last completed write.
+     * With a {@link VersionedBookStore} this is free: no lock, no copy, and writers are never blocked.
+     * Other stores are copied while writes are paused, which takes time proportional to the catalog.
+     *
+     * @return the current snapshot.
+     */
+    public CatalogSnapshot snapshot() {
+        CatalogSnapshot snapshot = bookStore.snapshot();
+        if (snapshot != null) {
+            return snapshot;
+        }
+        lockAll();
+        try {
+            return CatalogSnapshot.copyOf(version.get(), bookStore.books());
+        } finally {
+            unlockAll();
+        }
+    }
 
-        // Iterate through the collection to find the book by ISBN
-        for (int i = 0; i < bookCollection.size(); i++) {
-            Book currentBook = bookCollection.get(i);
+    /**
+     * Runs an action while writes are blocked, handing it the books as they are at that moment.
+     * Used to take consistent checkpoints; the action should copy what it needs and return quickly.
+     *
+     * @param action The action to run.
+     * @return the action's result.
+     */
+    public <T> T withWritesPaused(Function<List<Book>, T> action) {
+        lockAll();
+        try {
+            return action.apply(bookStore.books());
+        } finally {
+            unlockAll();
+        }
+    }
 
-            // Check if the ISBN matches the one we're looking for
-            if(currentBook.getISBN().equals(isbn)){
-                //update the nook properties
-                currentBook.setTitle(updatedBook.getTitle());
-                currentBook.setGenre(updatedBook.getGenre());
-                currentBook.setPublicationYear(updatedBook.getPublicationYear());
-                currentBook.setISBN(updatedBook.getISBN());
-                currentBook.setISBN(updatedBook.getISBN());
+    // Applies one batch to the store and reports it to the listeners; the caller holds every write lock
+    private void applyBatch(List<Book> additions, List<Book> before, List<Book> after) {
+        if (additions.isEmpty() && after.isEmpty()) {
+            return;
+        }
+        bookStore.applyBatch(additions, after);
+        version.incrementAndGet();
+        for (CatalogListener listener : listeners) {
+            if (!additions.isEmpty()) {
+                listener.booksAdded(additions);
             }
+            if (!after.isEmpty()) {
+                listener.booksUpdated(before, after);
+            }
+        }
+    }
+
+    // Index of the write lock guarding an ISBN: its partition, or the only lock
+    private int lockIndex(String isbn) {
+        return partitionedStore != null ? partitionedStore.partitionIndex(isbn) : 0;
+    }
+
+    // Blocks every write: takes all the write locks in index order, like updateBook
+    private void lockAll() {
+        for (ReentrantLock lock : writeLocks) {
+            lock.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = writeLocks.length - 1; i >= 0; i--) {
+            writeLocks[i].unlock();
+        }
+    }
 
-            System.out.println("Book updated successfully.");
-            return;  // Exit after updating
+    // Threads available to the pool a scan would fork into
+    private static int parallelism() {
+        return ForkJoinTask.inForkJoinPool()
+                ? ForkJoinTask.getPool().getParallelism()
+                : ForkJoinPool.getCommonPoolParallelism();
+    }
 
+    private static <T> List<T> concat(List<T> first, List<T> second) {
+        if (first.isEmpty()) {
+            return second;
         }
+        first.addAll(second);
+        return first;
+    }
 
-        // If no matching book is found
-        System.out.println("No book found with the provided ISBN.");
+    private static boolean sameDetails(Book a, Book b) {
+        return a == b || (a.getISBN().equals(b.getISBN()) && a.getTitle().equals(b.getTitle())
+                && a.getAuthor().equals(b.getAuthor()) && a.getGenreType() == b.getGenreType()
+                && a.getPublicationYear() == b.getPublicationYear());
     }
 
-    // Method to check if a book exists by ISBN
-    public boolean bookExists(String isbn) {
-        for (Book book : bookCollection) {
-            if (book.getISBN().equals(isbn)) {
-                return true;
+    private void afterWrite() {
+        for (CatalogListener listener : listeners) {
+            listener.afterWrite();
+        }
+    }
+
+    // A selected book and the result of the change on it: the new version, or why the change was rejected
+    private static final class Change {
+        private final Book original;
+        private final Book result;
+        private final String error;
+
+        private Change(Book original, UnaryOperator<Book> change) {
+            Book changed = null;
+            String rejection;
+            try {
+                changed = change.apply(original);
+                rejection = changed == null ? "The change returned no book."
+                        : !changed.getISBN().equals(original.getISBN()) ? "A batch update cannot change the ISBN."
+                        : null;
+            } catch (IllegalArgumentException e) {
+                rejection = e.getMessage() != null ? e.getMessage() : "Invalid change.";
             }
+            this.original = original;
+            this.result = rejection == null ? changed : null;
+            this.error = rejection;
         }
-        return false;
     }
 
+    // Scans segments [from, to): halves are forked until one segment is left
+    private static final class ScanTask<R> extends RecursiveTask<R> {
+        private static final long serialVersionUID = 1L;
 
-    public List<Book> getBookCollection() {
-        return bookCollection;
+        private final List<List<Book>> segments;
+        private final int from;
+        private final int to;
+        private final Function<List<Book>, R> scanner;
+        private final BinaryOperator<R> combiner;
+
+        private ScanTask(List<List<Book>> segments, int from, int to,
+                         Function<List<Book>, R> scanner, BinaryOperator<R> combiner) {
+            this.segments = segments;
+            this.from = from;
+            this.to = to;
+            this.scanner = scanner;
+            this.combiner = combiner;
+        }
+
+        @Override
+        protected R compute() {
+            if (to - from == 1) {
+                return scanner.apply(segments.get(from));
+            }
+            int middle = (from + to) >>> 1;
+            ScanTask<R> right = new ScanTask<>(segments, middle, to, scanner, combiner);
+            right.fork();
+            R left = new ScanTask<>(segments, from, middle, scanner, combiner).compute();
+            return combiner.apply(left, right.join());
+        }
+    }
+
+    private static List<Book> withoutDuplicates(List<Book> books, List<Book> duplicates) {
+        if (duplicates.isEmpty()) {
+            return books;
+        }
+        Set<Book> skipped = Collections.newSetFromMap(new IdentityHashMap<>());
+        skipped.addAll(duplicates);
+        List<Book> added = new ArrayList<>(books.size() - duplicates.size());
+        for (Book book : books) {
+            if (!skipped.contains(book)) {
+                added.add(book);
+            }
+        }
+        return added;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,65 @@
+package com.belvinard.libraryManagementSystem.data;
+
+import com.belvinard.libraryManagementSystem.model.Book;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Default single-threaded store: an ArrayList in insertion order plus a HashMap from ISBN to list position.
+ * Reads must not run concurrently with writes; use {@link ConcurrentBookStore} for shared catalogs.
+ */
+public class ListBookStore implements BookStore {
+
+    // List to store Book objects as an in-memory collection
+    private final ArrayList<Book> bookCollection = new ArrayList<>();
+
+    // Primary index: ISBN -> position in bookCollection
+    private final Map<String, Integer> isbnIndex = new HashMap<>();
+
+    @Override
+    public boolean add(Book book) {
+        if (isbnIndex.putIfAbsent(book.getISBN(), bookCollection.size()) != null) {
+            return false;
+        }
+        bookCollection.add(book);
+        return true;
+    }
+
+    @Override
+    public Book get(String isbn) {
+        Integer position = isbnIndex.get(isbn);
+        return position == null ? null : bookCollection.get(position);
+    }
+
+    @Override
+    public boolean contains(String isbn) {
+        return isbnIndex.containsKey(isbn);
+    }
+
+    @Override
+    public void replace(String isbn, Book book) {
+        Integer position = isbnIndex.get(isbn);
+        if (position == null) {
+            throw new IllegalArgumentException("No book found with ISBN " + isbn + ".");
+        }
+        bookCollection.set(position, book);
+        if (!isbn.equals(book.getISBN())) {
+            isbnIndex.remove(isbn);
+            isbnIndex.put(book.getISBN(), position);
+        }
+    }
+
+    @Override
+    public int size() {
+        return bookCollection.size();
+    }
+
+    @Override
+    public List<Book> books() {
+        return Collections.unmodifiableList(bookCollection);
+    }
+}
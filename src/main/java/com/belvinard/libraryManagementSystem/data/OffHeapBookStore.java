@@ -0,0 +1,522 @@
+package com.belvinard.libraryManagementSystem.data;
+
+import com.belvinard.libraryManagementSystem.model.Book;
+import com.belvinard.libraryManagementSystem.model.BookValidator;
+import com.belvinard.libraryManagementSystem.model.Genre;
+import com.belvinard.libraryManagementSystem.model.Isbn;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Store that keeps the catalog outside the Java heap, so that the garbage collector has nothing to
+ * trace or copy however large the catalog grows. Every book is a fixed-layout 32-byte record:
+ * <pre>
+ *  0  int   ISBN            8  long  title offset    24  int  title length
+ *  4  short year           16  long  author offset   28  int  author length
+ *  6  byte  genre code
+ * </pre>
+ * Titles and author names are appended to a string arena (validated fields are plain ASCII, one byte
+ * per character). Records and arena live in native memory segments of {@value #SEGMENT_BYTES} bytes:
+ * direct buffers by default, or regions of files mapped into memory, which are not limited by
+ * {@code -XX:MaxDirectMemorySize} and are paged in and out by the operating system.
+ * The ISBN index is an open-addressing hash table, also off-heap, mapping ISBNs to record slots.
+ * <p>
+ * The heap only holds the segment tables, so {@link Book} objects exist only while the caller uses
+ * them: they are created on each read, and changing one has no effect until it is saved through
+ * {@link LibraryData#updateBook}. Replaced strings leave garbage in the arena that is compacted away
+ * in place once it dominates. The files are scratch space, recreated on open and deleted on
+ * {@link #close()}; durability comes from {@code CatalogPersistence}.
+ * Like {@link ListBookStore}, reads must not run concurrently with writes.
+ */
+public class OffHeapBookStore implements BookStore, Closeable {
+
+    /** Size of a native memory segment; a title or author name must fit in one. */
+    public static final int SEGMENT_BYTES = 1 << 20;
+
+    private static final int SEGMENT_SHIFT = 20;
+    private static final int RECORD_BYTES = 32;
+    private static final int RECORD_SHIFT = 5;
+
+    private static final int ISBN = 0;
+    private static final int YEAR = 4;
+    private static final int GENRE = 6;
+    private static final int TITLE_OFFSET = 8;
+    private static final int AUTHOR_OFFSET = 16;
+    private static final int TITLE_LENGTH = 24;
+    private static final int AUTHOR_LENGTH = 28;
+
+    private static final Genre[] GENRES = Genre.values();
+    private static final int NO_SLOT = -1;
+
+    private final Region records;
+    private final Region strings;
+    private final IsbnIndex index = new IsbnIndex();
+    private int size;
+
+    private long arenaUsed;
+    private long arenaGarbage;
+
+    private OffHeapBookStore(Path directory) throws IOException {
+        if (directory == null) {
+            records = new Region(null);
+            strings = new Region(null);
+        } else {
+            Files.createDirectories(directory);
+            records = new Region(directory.resolve("offheap-records.dat"));
+            strings = new Region(directory.resolve("offheap-strings.dat"));
+        }
+    }
+
+    /**
+     * Creates a store in direct memory, which counts against {@code -XX:MaxDirectMemorySize}.
+     */
+    public static OffHeapBookStore inDirectMemory() {
+        try {
+            return new OffHeapBookStore(null);
+        } catch (IOException e) {
+            throw new IllegalStateException("Direct memory needs no files.", e);
+        }
+    }
+
+    /**
+     * Creates a store whose records and arena are files mapped into memory.
+     *
+     * @param directory The directory for the files; existing ones are truncated.
+     * @throws IOException if the files cannot be created.
+     */
+    public static OffHeapBookStore mappedIn(Path directory) throws IOException {
+        if (directory == null) {
+            throw new IllegalArgumentException("Directory cannot be null.");
+        }
+        return new OffHeapBookStore(directory);
+    }
+
+    @Override
+    public boolean add(Book book) {
+        int isbn = Isbn.toInt(book.getISBN());
+        if (index.get(isbn) != NO_SLOT) {
+            return false;
+        }
+        write(size, isbn, book);
+        index.put(isbn, size++);
+        return true;
+    }
+
+    @Override
+    public Book get(String isbn) {
+        int slot = slotOf(isbn);
+        return slot == NO_SLOT ? null : materialize(slot);
+    }
+
+    @Override
+    public boolean contains(String isbn) {
+        return slotOf(isbn) != NO_SLOT;
+    }
+
+    @Override
+    public void replace(String isbn, Book book) {
+        int slot = slotOf(isbn);
+        if (slot == NO_SLOT) {
+            throw new IllegalArgumentException("No book found with ISBN " + isbn + ".");
+        }
+        int oldIsbn = Isbn.toInt(isbn);
+        long record = recordAddress(slot);
+        arenaGarbage += records.getInt(record + TITLE_LENGTH) + records.getInt(record + AUTHOR_LENGTH);
+        int newIsbn = Isbn.toInt(book.getISBN());
+        write(slot, newIsbn, book);
+        if (newIsbn != oldIsbn) {
+            index.remove(oldIsbn);
+            index.put(newIsbn, slot);
+        }
+        if (arenaGarbage > arenaUsed / 2) {
+            compactArena();
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return a read-only view that creates each Book when it is accessed.
+     */
+    @Override
+    public List<Book> books() {
+        return new AbstractList<Book>() {
+            @Override
+            public Book get(int index) {
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+                }
+                return materialize(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * @return the number of native bytes reserved for records, arena and ISBN index.
+     */
+    public long nativeBytes() {
+        return records.capacity() + strings.capacity() + index.capacity();
+    }
+
+    /**
+     * @return the number of arena bytes in use, including garbage not yet compacted.
+     */
+    public long arenaBytes() {
+        return arenaUsed;
+    }
+
+    /**
+     * Releases the segments and deletes the files of a mapped store. Direct and mapped memory is
+     * returned to the operating system once the collector has found the buffers unreachable.
+     */
+    @Override
+    public void close() throws IOException {
+        records.close();
+        strings.close();
+        index.clear();
+        size = 0;
+        arenaUsed = 0;
+        arenaGarbage = 0;
+    }
+
+    private static long recordAddress(int slot) {
+        return (long) slot << RECORD_SHIFT;
+    }
+
+    // Slot of the book stored under the ISBN, or NO_SLOT; a string that is not a valid ISBN
+    // has no key of its own (Isbn.toInt would map "1234a" or "123456" onto another book)
+    private int slotOf(String isbn) {
+        return BookValidator.isValidIsbn(isbn) ? index.get(Isbn.toInt(isbn)) : NO_SLOT;
+    }
+
+    private void write(int slot, int isbn, Book book) {
+        byte[] title = book.getTitle().getBytes(StandardCharsets.ISO_8859_1);
+        byte[] author = book.getAuthor().getBytes(StandardCharsets.ISO_8859_1);
+        if (title.length > SEGMENT_BYTES || author.length > SEGMENT_BYTES) {
+            throw new IllegalArgumentException("Title and author must not be longer than "
+                    + SEGMENT_BYTES + " characters.");
+        }
+        long titleOffset = append(title);
+        long authorOffset = append(author);
+        long record = recordAddress(slot);
+        records.ensure(record + RECORD_BYTES);
+        records.putInt(record + ISBN, isbn);
+        records.putShort(record + YEAR, (short) book.getPublicationYear());
+        records.put(record + GENRE, (byte) book.getGenreType().ordinal());
+        records.putLong(record + TITLE_OFFSET, titleOffset);
+        records.putLong(record + AUTHOR_OFFSET, authorOffset);
+        records.putInt(record + TITLE_LENGTH, title.length);
+        records.putInt(record + AUTHOR_LENGTH, author.length);
+    }
+
+    private Book materialize(int slot) {
+        long record = recordAddress(slot);
+        String title = strings.getString(records.getLong(record + TITLE_OFFSET), records.getInt(record + TITLE_LENGTH));
+        String author = strings.getString(records.getLong(record + AUTHOR_OFFSET), records.getInt(record + AUTHOR_LENGTH));
+        return new Book(title, author, GENRES[records.get(record + GENRE)].getDisplayName(),
+                Isbn.toString(records.getInt(record + ISBN)), records.getShort(record + YEAR));
+    }
+
+    // Appends the bytes to the arena, starting a new segment if they would cross into the next one
+    private long append(byte[] bytes) {
+        long offset = fit(arenaUsed, bytes.length);
+        strings.ensure(offset + bytes.length);
+        strings.put(offset, bytes);
+        arenaGarbage += offset - arenaUsed;
+        arenaUsed = offset + bytes.length;
+        return offset;
+    }
+
+    // The first offset from which a string of the given length stays within one segment
+    private static long fit(long offset, int length) {
+        long segmentEnd = ((offset >>> SEGMENT_SHIFT) + 1) << SEGMENT_SHIFT;
+        return offset + length > segmentEnd ? segmentEnd : offset;
+    }
+
+    /*
+     * Slides the live strings down over the garbage, in arena order. A string never moves up: the
+     * strings before it take no more room than they did, so it cannot overwrite one not yet moved.
+     */
+    private void compactArena() {
+        // Arena offset and kind of every non-empty string; the low bit tells an author name from a title
+        long[] keys = new long[2 * size];
+        int count = 0;
+        for (int slot = 0; slot < size; slot++) {
+            long record = recordAddress(slot);
+            if (records.getInt(record + TITLE_LENGTH) > 0) {
+                keys[count++] = records.getLong(record + TITLE_OFFSET) << 1;
+            }
+            if (records.getInt(record + AUTHOR_LENGTH) > 0) {
+                keys[count++] = records.getLong(record + AUTHOR_OFFSET) << 1 | 1;
+            }
+        }
+        Arrays.sort(keys, 0, count);
+        int[] owners = new int[count];
+        for (int slot = 0; slot < size; slot++) {
+            long record = recordAddress(slot);
+            if (records.getInt(record + TITLE_LENGTH) > 0) {
+                owners[Arrays.binarySearch(keys, 0, count, records.getLong(record + TITLE_OFFSET) << 1)] = slot;
+            }
+            if (records.getInt(record + AUTHOR_LENGTH) > 0) {
+                owners[Arrays.binarySearch(keys, 0, count, records.getLong(record + AUTHOR_OFFSET) << 1 | 1)] = slot;
+            }
+        }
+        byte[] buffer = new byte[256];
+        long used = 0;
+        for (int i = 0; i < count; i++) {
+            long record = recordAddress(owners[i]);
+            boolean author = (keys[i] & 1) != 0;
+            long from = keys[i] >>> 1;
+            int length = records.getInt(record + (author ? AUTHOR_LENGTH : TITLE_LENGTH));
+            long to = fit(used, length);
+            if (to != from) {
+                if (buffer.length < length) {
+                    buffer = new byte[Math.max(length, buffer.length * 2)];
+                }
+                strings.get(from, buffer, length);
+                strings.put(to, buffer, length);
+                records.putLong(record + (author ? AUTHOR_OFFSET : TITLE_OFFSET), to);
+            }
+            used = to + length;
+        }
+        arenaUsed = used;
+        arenaGarbage = 0;
+    }
+
+    /**
+     * A growable run of native memory, addressed by a long offset and split into segments.
+     * Values never straddle two segments: records divide a segment evenly, and the arena starts
+     * a new segment for a string that would not fit.
+     */
+    private static final class Region {
+        private final Path file;
+        private FileChannel channel;
+        private ByteBuffer[] segments = new ByteBuffer[4];
+        private int count;
+
+        private Region(Path file) throws IOException {
+            this.file = file;
+            if (file != null) {
+                channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            }
+        }
+
+        // Makes room for the bytes before the given offset
+        private void ensure(long end) {
+            while ((long) count << SEGMENT_SHIFT < end) {
+                if (count == segments.length) {
+                    segments = Arrays.copyOf(segments, count * 2);
+                }
+                segments[count] = allocate(count);
+                count++;
+            }
+        }
+
+        private ByteBuffer allocate(int segment) {
+            if (channel == null) {
+                return ByteBuffer.allocateDirect(SEGMENT_BYTES);
+            }
+            try {
+                // Mapping past the end of the file extends it
+                return channel.map(FileChannel.MapMode.READ_WRITE, (long) segment << SEGMENT_SHIFT, SEGMENT_BYTES);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot map " + file + ": " + e.getMessage(), e);
+            }
+        }
+
+        private ByteBuffer segment(long offset) {
+            return segments[(int) (offset >>> SEGMENT_SHIFT)];
+        }
+
+        private static int position(long offset) {
+            return (int) offset & (SEGMENT_BYTES - 1);
+        }
+
+        private byte get(long offset) {
+            return segment(offset).get(position(offset));
+        }
+
+        private short getShort(long offset) {
+            return segment(offset).getShort(position(offset));
+        }
+
+        private int getInt(long offset) {
+            return segment(offset).getInt(position(offset));
+        }
+
+        private long getLong(long offset) {
+            return segment(offset).getLong(position(offset));
+        }
+
+        private void put(long offset, byte value) {
+            segment(offset).put(position(offset), value);
+        }
+
+        private void putShort(long offset, short value) {
+            segment(offset).putShort(position(offset), value);
+        }
+
+        private void putInt(long offset, int value) {
+            segment(offset).putInt(position(offset), value);
+        }
+
+        private void putLong(long offset, long value) {
+            segment(offset).putLong(position(offset), value);
+        }
+
+        private void put(long offset, byte[] bytes) {
+            put(offset, bytes, bytes.length);
+        }
+
+        private void put(long offset, byte[] bytes, int length) {
+            segment(offset).put(position(offset), bytes, 0, length);
+        }
+
+        private void get(long offset, byte[] bytes, int length) {
+            segment(offset).get(position(offset), bytes, 0, length);
+        }
+
+        private String getString(long offset, int length) {
+            byte[] bytes = new byte[length];
+            get(offset, bytes, length);
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+
+        private long capacity() {
+            return (long) count << SEGMENT_SHIFT;
+        }
+
+        private void close() throws IOException {
+            segments = new ByteBuffer[4];
+            count = 0;
+            if (channel != null) {
+                channel.close();
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Open-addressing hash table from ISBN to slot, in a direct buffer of 8-byte entries: the ISBN
+     * plus one (zero marks a free entry), then the slot. Linear probing, at most half full; removal
+     * shifts the following entries back so lookups never need tombstones.
+     */
+    private static final class IsbnIndex {
+        private static final int INITIAL_ENTRIES = 1024;
+
+        private ByteBuffer table;
+        private int mask;
+        private int shift;
+        private int count;
+
+        private IsbnIndex() {
+            clear();
+        }
+
+        // Fibonacci hashing: the top bits of the product spread consecutive ISBNs over the table
+        private int home(int key) {
+            return key * 0x9E3779B9 >>> shift;
+        }
+
+        private int get(int isbn) {
+            int key = isbn + 1;
+            for (int entry = home(key); ; entry = (entry + 1) & mask) {
+                int found = table.getInt(entry << 3);
+                if (found == key) {
+                    return table.getInt((entry << 3) + 4);
+                }
+                if (found == 0) {
+                    return NO_SLOT;
+                }
+            }
+        }
+
+        // The ISBN must not be in the table yet
+        private void put(int isbn, int slot) {
+            if (2 * (count + 1) > mask + 1) {
+                resize((mask + 1) * 2);
+            }
+            insert(isbn + 1, slot);
+            count++;
+        }
+
+        private void insert(int key, int slot) {
+            int entry = home(key);
+            while (table.getInt(entry << 3) != 0) {
+                entry = (entry + 1) & mask;
+            }
+            table.putInt(entry << 3, key);
+            table.putInt((entry << 3) + 4, slot);
+        }
+
+        private void remove(int isbn) {
+            int key = isbn + 1;
+            int entry = home(key);
+            while (table.getInt(entry << 3) != key) {
+                entry = (entry + 1) & mask;
+            }
+            // Move back any later entry of the cluster whose home is not between the hole and itself
+            int hole = entry;
+            for (int next = (hole + 1) & mask; ; next = (next + 1) & mask) {
+                int moved = table.getInt(next << 3);
+                if (moved == 0) {
+                    break;
+                }
+                int home = home(moved);
+                boolean stays = hole <= next ? hole < home && home <= next : hole < home || home <= next;
+                if (!stays) {
+                    table.putInt(hole << 3, moved);
+                    table.putInt((hole << 3) + 4, table.getInt((next << 3) + 4));
+                    hole = next;
+                }
+            }
+            table.putInt(hole << 3, 0);
+            count--;
+        }
+
+        private void resize(int entries) {
+            ByteBuffer old = table;
+            allocate(entries);
+            for (int position = 0; position < old.capacity(); position += 8) {
+                int key = old.getInt(position);
+                if (key != 0) {
+                    insert(key, old.getInt(position + 4));
+                }
+            }
+        }
+
+        private long capacity() {
+            return table.capacity();
+        }
+
+        private void clear() {
+            allocate(INITIAL_ENTRIES);
+            count = 0;
+        }
+
+        private void allocate(int entries) {
+            table = ByteBuffer.allocateDirect(entries * 8);
+            mask = entries - 1;
+            shift = Integer.numberOfLeadingZeros(entries) + 1;
+        }
+    }
+}
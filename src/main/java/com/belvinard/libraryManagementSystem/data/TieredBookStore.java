@@ -0,0 +1,515 @@
+package com.belvinard.libraryManagementSystem.data;
+
+import com.belvinard.libraryManagementSystem.metrics.MetricsRegistry;
+import com.belvinard.libraryManagementSystem.model.Book;
+import com.belvinard.libraryManagementSystem.model.BookValidator;
+import com.belvinard.libraryManagementSystem.model.Isbn;
+import com.belvinard.libraryManagementSystem.persistence.BookCodec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Two-tier store for catalogs that should not live on the heap in full. Every book is appended to a
+ * local file (the cold tier) and only a bounded set of recently read books is kept as objects in an
+ * LRU cache (the hot tier), limited either by entry count or by estimated heap bytes.
+ * The ISBN index is an array of file offsets, so {@link #contains(String)} never touches the disk.
+ * Updates append the new version and replace or drop the cached entry; the file is compacted once
+ * superseded records outweigh live ones. Full scans through {@link #books()} read the file without
+ * filling the cache, so they do not evict the hot set.
+ * <p>
+ * The file is scratch space, recreated on open and deleted on {@link #close()}; durability comes from
+ * {@code CatalogPersistence}. Operations are serialized by an internal lock, so readers may run
+ * concurrently with the writer.
+ */
+public class TieredBookStore implements BookStore, Closeable {
+
+    private static final long NO_OFFSET = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int RECORD_HEADER = 4;
+    private static final int WRITE_BUFFER_BYTES = 64 * 1024;
+    private static final long MIN_COMPACTION_BYTES = 1 << 20;
+
+    // Heap bytes of a cached Book beyond its title and author characters: the Book,
+    // its three Strings and their arrays, the ISBN characters and the cache entry with its key
+    private static final int BOOK_OVERHEAD_BYTES = 24 + 3 * (24 + 16) + 5 + 40 + 16;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Path file;
+    private FileChannel channel;
+
+    // ISBN (as int) -> offset and length of its current record in the file
+    private final long[] offsetByIsbn = new long[Isbn.CAPACITY];
+    private final int[] lengthByIsbn = new int[Isbn.CAPACITY];
+
+    // Insertion order: slot -> ISBN (as int), and back
+    private final int[] slotByIsbn = new int[Isbn.CAPACITY];
+    private int[] isbnBySlot = new int[INITIAL_CAPACITY];
+    private int size;
+
+    // Appended records not yet written to the file, starting at offset fileEnd
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES);
+    private long fileEnd;
+    private long liveBytes;
+
+    // Hot tier, least recently used first
+    private final Map<Integer, Book> cache = new LinkedHashMap<>(256, 0.75f, true);
+    private final long maxCacheWeight;
+    private final boolean weighBytes;
+    private long cacheWeight;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    private TieredBookStore(Path file, long maxCacheWeight, boolean weighBytes) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("File cannot be null.");
+        }
+        if (maxCacheWeight < 0) {
+            throw new IllegalArgumentException("Cache size must not be negative.");
+        }
+        this.file = file;
+        this.maxCacheWeight = maxCacheWeight;
+        this.weighBytes = weighBytes;
+        this.channel = open(file);
+        Arrays.fill(offsetByIsbn, NO_OFFSET);
+    }
+
+    /**
+     * Creates a store whose cache holds at most {@code maxEntries} books.
+     *
+     * @param file       The file for the cold tier; it is truncated.
+     * @param maxEntries The maximum number of cached books.
+     * @throws IOException if the file cannot be created.
+     */
+    public static TieredBookStore withMaxEntries(Path file, int maxEntries) throws IOException {
+        return new TieredBookStore(file, maxEntries, false);
+    }
+
+    /**
+     * Creates a store whose cached books take at most about {@code maxBytes} of heap.
+     *
+     * @param file     The file for the cold tier; it is truncated.
+     * @param maxBytes The maximum estimated heap size of the cached books.
+     * @throws IOException if the file cannot be created.
+     */
+    public static TieredBookStore withMaxBytes(Path file, long maxBytes) throws IOException {
+        return new TieredBookStore(file, maxBytes, true);
+    }
+
+    @Override
+    public boolean add(Book book) {
+        lock.lock();
+        try {
+            return append(book);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Book> addAll(List<Book> books) {
+        lock.lock();
+        try {
+            return BookStore.super.addAll(books);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Book get(String isbn) {
+        // Not a key of its own: Isbn.toInt would map "1234a" or "123456" onto another book
+        if (!BookValidator.isValidIsbn(isbn)) {
+            return null;
+        }
+        int key = Isbn.toInt(isbn);
+        lock.lock();
+        try {
+            Book book = cache.get(key);
+            if (book != null) {
+                hits++;
+                return book;
+            }
+            if (offsetByIsbn[key] == NO_OFFSET) {
+                return null;
+            }
+            misses++;
+            book = read(key);
+            cache(key, book);
+            return book;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(String isbn) {
+        if (!BookValidator.isValidIsbn(isbn)) {
+            return false;
+        }
+        int key = Isbn.toInt(isbn);
+        lock.lock();
+        try {
+            return offsetByIsbn[key] != NO_OFFSET;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void replace(String isbn, Book book) {
+        if (!BookValidator.isValidIsbn(isbn)) {
+            throw new IllegalArgumentException("No book found with ISBN " + isbn + ".");
+        }
+        int oldKey = Isbn.toInt(isbn);
+        int newKey = Isbn.toInt(book.getISBN());
+        lock.lock();
+        try {
+            if (offsetByIsbn[oldKey] == NO_OFFSET) {
+                throw new IllegalArgumentException("No book found with ISBN " + isbn + ".");
+            }
+            boolean wasCached = uncache(oldKey);
+            liveBytes -= lengthByIsbn[oldKey];
+            int slot = slotByIsbn[oldKey];
+            offsetByIsbn[oldKey] = NO_OFFSET;
+            write(newKey, book);
+            slotByIsbn[newKey] = slot;
+            isbnBySlot[slot] = newKey;
+            if (wasCached) {
+                cache(newKey, book);
+            }
+            if (fileEnd + writeBuffer.position() - liveBytes > Math.max(liveBytes, MIN_COMPACTION_BYTES)) {
+                compact();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return a read-only view that reads each Book from the file when it is accessed,
+     * without touching the cache or its counters.
+     */
+    @Override
+    public List<Book> books() {
+        return new AbstractList<Book>() {
+            @Override
+            public Book get(int index) {
+                lock.lock();
+                try {
+                    if (index < 0 || index >= size) {
+                        throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+                    }
+                    return read(isbnBySlot[index]);
+                } finally {
+                    lock.unlock();
+                }
+            }
+
+            @Override
+            public int size() {
+                return TieredBookStore.this.size();
+            }
+        };
+    }
+
+    /**
+     * Reads the range from the file under one lock acquisition, without touching the cache or its counters.
+     */
+    @Override
+    public List<Book> books(int from, int to) {
+        if (from < 0) {
+            throw new IndexOutOfBoundsException("From: " + from);
+        }
+        lock.lock();
+        try {
+            int end = Math.min(to, size);
+            List<Book> range = new ArrayList<>(Math.max(0, end - from));
+            for (int slot = from; slot < end; slot++) {
+                range.add(read(isbnBySlot[slot]));
+            }
+            return Collections.unmodifiableList(range);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Publishes the cache counters as gauges: cacheHits, cacheMisses, cacheEvictions and cachedBooks.
+     *
+     * @param metrics The registry to add them to, e.g. the one of the BookService in front of this store.
+     */
+    public void registerMetrics(MetricsRegistry metrics) {
+        metrics.gauge("cacheHits", this::getHits);
+        metrics.gauge("cacheMisses", this::getMisses);
+        metrics.gauge("cacheEvictions", this::getEvictions);
+        metrics.gauge("cachedBooks", this::getCachedBooks);
+    }
+
+    /**
+     * @return the number of lookups answered by the cache.
+     */
+    public long getHits() {
+        lock.lock();
+        try {
+            return hits;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of lookups of stored books that had to read the file.
+     */
+    public long getMisses() {
+        lock.lock();
+        try {
+            return misses;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of books dropped from the cache to respect its size.
+     */
+    public long getEvictions() {
+        lock.lock();
+        try {
+            return evictions;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of books currently cached.
+     */
+    public int getCachedBooks() {
+        lock.lock();
+        try {
+            return cache.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the size of the cold tier in bytes, including superseded records not yet compacted.
+     */
+    public long getFileBytes() {
+        lock.lock();
+        try {
+            return fileEnd + writeBuffer.position();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes and deletes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            channel.close();
+            Files.deleteIfExists(file);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean append(Book book) {
+        int key = Isbn.toInt(book.getISBN());
+        if (offsetByIsbn[key] != NO_OFFSET) {
+            return false;
+        }
+        if (size == isbnBySlot.length) {
+            isbnBySlot = Arrays.copyOf(isbnBySlot, size * 2);
+        }
+        write(key, book);
+        slotByIsbn[key] = size;
+        isbnBySlot[size++] = key;
+        return true;
+    }
+
+    // Appends a record for the book and points its ISBN at it
+    private void write(int key, Book book) {
+        int length = RECORD_HEADER + BookCodec.encodedSize(book);
+        if (length > writeBuffer.remaining()) {
+            flush();
+        }
+        long offset = fileEnd + writeBuffer.position();
+        if (length > writeBuffer.capacity()) {
+            ByteBuffer large = ByteBuffer.allocate(length);
+            encode(book, length, large);
+            fileEnd += write(large.flip(), fileEnd);
+        } else {
+            encode(book, length, writeBuffer);
+        }
+        offsetByIsbn[key] = offset;
+        lengthByIsbn[key] = length;
+        liveBytes += length;
+    }
+
+    private static void encode(Book book, int length, ByteBuffer out) {
+        out.putInt(length);
+        BookCodec.encode(book, out);
+    }
+
+    private Book read(int key) {
+        ByteBuffer record = readRecord(key);
+        record.position(RECORD_HEADER);
+        return BookCodec.decode(record);
+    }
+
+    // Returns the whole record of the ISBN, header included
+    private ByteBuffer readRecord(int key) {
+        long offset = offsetByIsbn[key];
+        int length = lengthByIsbn[key];
+        if (offset >= fileEnd) {
+            // Still in the write buffer
+            int start = (int) (offset - fileEnd);
+            return writeBuffer.duplicate().limit(start + length).position(start).slice();
+        }
+        ByteBuffer record = ByteBuffer.allocate(length);
+        try {
+            while (record.hasRemaining()) {
+                if (channel.read(record, offset + record.position()) < 0) {
+                    throw new IOException("Unexpected end of " + file + ".");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read ISBN " + Isbn.toString(key) + " from " + file + ".", e);
+        }
+        return record.flip();
+    }
+
+    private void flush() {
+        writeBuffer.flip();
+        fileEnd += write(writeBuffer, fileEnd);
+        writeBuffer.clear();
+    }
+
+    private int write(ByteBuffer buffer, long position) {
+        try {
+            return writeFully(channel, buffer, position);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write to " + file + ".", e);
+        }
+    }
+
+    // Writes the remaining bytes of the buffer at the given position; returns how many were written
+    private static int writeFully(FileChannel out, ByteBuffer buffer, long position) throws IOException {
+        int bytes = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            out.write(buffer, position + bytes - buffer.remaining());
+        }
+        return bytes;
+    }
+
+    private void cache(int key, Book book) {
+        if (maxCacheWeight == 0) {
+            return;
+        }
+        Book previous = cache.put(key, book);
+        if (previous != null) {
+            cacheWeight -= weight(previous);
+        }
+        cacheWeight += weight(book);
+        Iterator<Book> eldest = cache.values().iterator();
+        while (cacheWeight > maxCacheWeight && eldest.hasNext()) {
+            cacheWeight -= weight(eldest.next());
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    private boolean uncache(int key) {
+        Book removed = cache.remove(key);
+        if (removed == null) {
+            return false;
+        }
+        cacheWeight -= weight(removed);
+        return true;
+    }
+
+    private long weight(Book book) {
+        return weighBytes ? BOOK_OVERHEAD_BYTES + book.getTitle().length() + book.getAuthor().length() : 1;
+    }
+
+    // Rewrites the file with only the current records, in insertion order
+    private void compact() {
+        flush();
+        Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+        long[] offsetBySlot = new long[size];
+        long position = 0;
+        try (FileChannel out = open(compacted)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES);
+            for (int slot = 0; slot < size; slot++) {
+                ByteBuffer record = readRecord(isbnBySlot[slot]);
+                if (record.remaining() > buffer.remaining()) {
+                    buffer.flip();
+                    position += writeFully(out, buffer, position);
+                    buffer.clear();
+                }
+                offsetBySlot[slot] = position + buffer.position();
+                if (record.remaining() > buffer.capacity()) {
+                    position += writeFully(out, record, position);
+                } else {
+                    buffer.put(record);
+                }
+            }
+            buffer.flip();
+            position += writeFully(out, buffer, position);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not compact " + file + ".", e);
+        }
+        try {
+            channel.close();
+            Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not replace " + file + " with its compacted copy.", e);
+        }
+        for (int slot = 0; slot < size; slot++) {
+            offsetByIsbn[isbnBySlot[slot]] = offsetBySlot[slot];
+        }
+        fileEnd = position;
+        liveBytes = position;
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+}
@@ -0,0 +1,184 @@
+package com.belvinard.libraryManagementSystem.data;
+
+import com.belvinard.libraryManagementSystem.model.Book;
+import com.belvinard.libraryManagementSystem.model.Isbn;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.belvinard.libraryManagementSystem.data.CatalogSnapshot.CHUNKS;
+import static com.belvinard.libraryManagementSystem.data.CatalogSnapshot.CHUNK_MASK;
+import static com.belvinard.libraryManagementSystem.data.CatalogSnapshot.CHUNK_SHIFT;
+import static com.belvinard.libraryManagementSystem.data.CatalogSnapshot.CHUNK_SIZE;
+
+/**
+ * Multi-version store: every write publishes a new immutable {@link CatalogSnapshot} through a volatile field.
+ * Reads, {@link #books()} and {@link #snapshot()} just take the current version, so they never lock,
+ * never copy the catalog and always see whole writes. Long scans run on their version while writers carry on.
+ * <p>
+ * Versions share their chunks. An add fills slots past the end of every published version in place;
+ * a replace copies the 1024-book chunk it changes (and the ISBN chunks, if the ISBN changes),
+ * about 5 KB per update. Relies on {@link LibraryData} for a single writer at a time.
+ */
+public class VersionedBookStore implements BookStore {
+
+    // Newest version's arrays; the writer fills free slots in place and copies chunks before changing them
+    private Book[][] books = new Book[CHUNKS][];
+    private int[][] positions = new int[CHUNKS][];
+    private int size;
+    private long version;
+
+    private volatile CatalogSnapshot current;
+
+    public VersionedBookStore() {
+        // Readers of older versions read these chunks while new ISBNs are filled in, so they exist from the start
+        for (int i = 0; i < CHUNKS; i++) {
+            positions[i] = new int[CHUNK_SIZE];
+        }
+        current = new CatalogSnapshot(0, 0, books, positions);
+    }
+
+    @Override
+    public boolean add(Book book) {
+        if (!append(book)) {
+            return false;
+        }
+        publish();
+        return true;
+    }
+
+    @Override
+    public List<Book> addAll(List<Book> newBooks) {
+        List<Book> duplicates = new ArrayList<>();
+        for (Book book : newBooks) {
+            if (!append(book)) {
+                duplicates.add(book);
+            }
+        }
+        // The whole list becomes visible at once, as one version
+        if (duplicates.size() < newBooks.size()) {
+            publish();
+        }
+        return duplicates;
+    }
+
+    @Override
+    public Book get(String isbn) {
+        return current.get(isbn);
+    }
+
+    @Override
+    public boolean contains(String isbn) {
+        return current.contains(isbn);
+    }
+
+    @Override
+    public void replace(String isbn, Book book) {
+        int position = current.positionOf(isbn);
+        if (position < 0) {
+            throw new IllegalArgumentException("No book found with ISBN " + isbn + ".");
+        }
+        Book[][] newBooks = books.clone();
+        int chunk = position >>> CHUNK_SHIFT;
+        newBooks[chunk] = newBooks[chunk].clone();
+        newBooks[chunk][position & CHUNK_MASK] = book;
+        books = newBooks;
+
+        if (!isbn.equals(book.getISBN())) {
+            int oldIsbn = Isbn.toInt(isbn);
+            int newIsbn = Isbn.toInt(book.getISBN());
+            int[][] newPositions = positions.clone();
+            newPositions[oldIsbn >>> CHUNK_SHIFT] = newPositions[oldIsbn >>> CHUNK_SHIFT].clone();
+            if (newIsbn >>> CHUNK_SHIFT != oldIsbn >>> CHUNK_SHIFT) {
+                newPositions[newIsbn >>> CHUNK_SHIFT] = newPositions[newIsbn >>> CHUNK_SHIFT].clone();
+            }
+            newPositions[oldIsbn >>> CHUNK_SHIFT][oldIsbn & CHUNK_MASK] = 0;
+            newPositions[newIsbn >>> CHUNK_SHIFT][newIsbn & CHUNK_MASK] = position + 1;
+            positions = newPositions;
+        }
+        publish();
+    }
+
+    /**
+     * Applies the batch as one version: each changed chunk is copied once, however many of its books change.
+     */
+    @Override
+    public void applyBatch(List<Book> additions, List<Book> replacements) {
+        if (additions.isEmpty() && replacements.isEmpty()) {
+            return;
+        }
+        for (Book book : additions) {
+            append(book);
+        }
+        if (!replacements.isEmpty()) {
+            CatalogSnapshot published = current;
+            Book[][] newBooks = books.clone();
+            boolean[] copied = new boolean[CHUNKS];
+            for (Book book : replacements) {
+                int position = published.positionOf(book.getISBN());
+                if (position < 0) {
+                    throw new IllegalArgumentException("No book found with ISBN " + book.getISBN() + ".");
+                }
+                int chunk = position >>> CHUNK_SHIFT;
+                if (!copied[chunk]) {
+                    newBooks[chunk] = newBooks[chunk].clone();
+                    copied[chunk] = true;
+                }
+                newBooks[chunk][position & CHUNK_MASK] = book;
+            }
+            books = newBooks;
+        }
+        publish();
+    }
+
+    @Override
+    public int size() {
+        return current.size();
+    }
+
+    /**
+     * @return the books of the current version; an immutable list that later writes do not change.
+     */
+    @Override
+    public List<Book> books() {
+        return current.books();
+    }
+
+    /**
+     * @return a view of the range in the current version, which later writes do not change, so nothing is copied.
+     */
+    @Override
+    public List<Book> books(int from, int to) {
+        List<Book> books = current.books();
+        int end = Math.min(to, books.size());
+        return from < end ? books.subList(from, end) : List.of();
+    }
+
+    /**
+     * @return the current version, without locking or copying.
+     */
+    @Override
+    public CatalogSnapshot snapshot() {
+        return current;
+    }
+
+    // Fills the next free slot; published versions never read past their own size, so no copy is needed
+    private boolean append(Book book) {
+        int isbn = Isbn.toInt(book.getISBN());
+        int[] isbnChunk = positions[isbn >>> CHUNK_SHIFT];
+        if (isbnChunk[isbn & CHUNK_MASK] != 0) {
+            return false;
+        }
+        int chunk = size >>> CHUNK_SHIFT;
+        if (books[chunk] == null) {
+            books[chunk] = new Book[CHUNK_SIZE];
+        }
+        books[chunk][size & CHUNK_MASK] = book;
+        isbnChunk[isbn & CHUNK_MASK] = ++size;
+        return true;
+    }
+
+    private void publish() {
+        current = new CatalogSnapshot(++version, size, books, positions);
+    }
+}
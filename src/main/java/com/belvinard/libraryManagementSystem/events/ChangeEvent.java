@@ -0,0 +1,78 @@
+package com.belvinard.libraryManagementSystem.events;
+
+import com.belvinard.libraryManagementSystem.model.Book;
+
+/**
+ * One change of the catalog: a book added or replaced, with its values before and after,
+ * the sequence number it was published under and when. Events are immutable.
+ */
+public final class ChangeEvent {
+
+    /**
+     * The kind of change.
+     */
+    public enum Type {
+        ADDED,
+        UPDATED
+    }
+
+    private final long sequence;
+    private final Type type;
+    private final String isbn;
+    private final Book before;
+    private final Book after;
+    private final long publishedNanos;
+
+    ChangeEvent(long sequence, Type type, String isbn, Book before, Book after, long publishedNanos) {
+        this.sequence = sequence;
+        this.type = type;
+        this.isbn = isbn;
+        this.before = before;
+        this.after = after;
+        this.publishedNanos = publishedNanos;
+    }
+
+    /**
+     * @return the position of the change in the stream; 1 for the first change, one more for each later one.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return the ISBN the book was stored under before the change (its ISBN, for an added book).
+     */
+    public String getIsbn() {
+        return isbn;
+    }
+
+    /**
+     * @return the previous version of the book, or null for an added book.
+     */
+    public Book getBefore() {
+        return before;
+    }
+
+    /**
+     * @return the book after the change; its ISBN may differ from {@link #getIsbn()}.
+     */
+    public Book getAfter() {
+        return after;
+    }
+
+    /**
+     * @return the {@link System#nanoTime()} at which the change was published, during the write that made it.
+     */
+    public long getPublishedNanos() {
+        return publishedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "#" + sequence + " " + type + " " + isbn;
+    }
+}
@@ -0,0 +1,446 @@
+package com.belvinard.libraryManagementSystem.events;
+
+import com.belvinard.libraryManagementSystem.data.CatalogListener;
+import com.belvinard.libraryManagementSystem.data.LibraryData;
+import com.belvinard.libraryManagementSystem.model.Book;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process change data capture: every add and update made through a {@link LibraryData} is published
+ * as a {@link ChangeEvent} with the next sequence number, and delivered in batches to each subscriber
+ * on its own thread.
+ * <p>
+ * Events go into a bounded ring buffer with a single producer at a time: publishing is two ordered stores
+ * (the slot, then the cursor) with no CAS, under a lock that is only contended when writes to different
+ * partitions of a {@link com.belvinard.libraryManagementSystem.data.PartitionedBookStore} run concurrently.
+ * Each subscription follows the cursor at its own pace and parks when it has caught up. The writer
+ * wakes a parked subscription only once a full batch is waiting for it (or fewer events, if it subscribed
+ * so); otherwise the subscription wakes up by itself within a millisecond, so writers rarely pay for a thread wake-up.
+ * A subscription that falls a whole buffer behind either loses the overwritten events
+ * ({@link OverflowPolicy#DROP}, the default, which never slows writers) or makes writers wait for it
+ * ({@link OverflowPolicy#BLOCK}).
+ * <p>
+ * Sequence numbers start at 1 for each stream and are not persisted.
+ */
+public class ChangeStream implements CatalogListener, Closeable {
+
+    public static final int DEFAULT_CAPACITY = 8192;
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    // An idle subscription spins this many times before parking, and parks at most MAX_PARK_NANOS at a time:
+    // the writer only wakes it for a full batch by default, so a trickle of events waits up to that long
+    private static final int SPINS = 100;
+    private static final long MAX_PARK_NANOS = 1_000_000;
+
+    private final LibraryData libraryData;
+    private final AtomicReferenceArray<ChangeEvent> ring;
+    private final int capacity;
+    private final int mask;
+
+    // Sequence of the last published event, 0 before the first; only the writer holding publishLock sets it
+    private final AtomicLong cursor = new AtomicLong();
+
+    // Makes writers publish one at a time; LibraryData only serializes the writes of one partition
+    private final ReentrantLock publishLock = new ReentrantLock();
+
+    // Replaced as a whole under the stream's monitor, read without locking by the writer
+    private volatile Subscription[] subscriptions = new Subscription[0];
+
+    /**
+     * Creates a stream of the changes of {@code libraryData} with a buffer of {@value #DEFAULT_CAPACITY} events.
+     *
+     * @param libraryData The catalog to follow; the stream registers itself as its listener.
+     */
+    public ChangeStream(LibraryData libraryData) {
+        this(libraryData, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a stream of the changes of {@code libraryData}.
+     *
+     * @param libraryData The catalog to follow; the stream registers itself as its listener.
+     * @param capacity    The number of events buffered, a power of two; a subscription more than
+     *                    this many events behind drops or blocks.
+     */
+    public ChangeStream(LibraryData libraryData, int capacity) {
+        if (libraryData == null) {
+            throw new IllegalArgumentException("LibraryData cannot be null.");
+        }
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two.");
+        }
+        this.libraryData = libraryData;
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        libraryData.addListener(this);
+    }
+
+    /**
+     * Subscribes with {@link OverflowPolicy#DROP} and batches of up to {@value #DEFAULT_BATCH_SIZE} events.
+     */
+    public Subscription subscribe(String name, ChangeSubscriber subscriber) {
+        return subscribe(name, subscriber, OverflowPolicy.DROP, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Starts delivering the events published from now on to a subscriber, on a new daemon thread.
+     *
+     * @param name       Names the subscription and its thread.
+     * @param subscriber Receives the events.
+     * @param policy     What to do when the subscriber is a whole buffer behind.
+     * @param batchSize  The maximum number of events per {@link ChangeSubscriber#onEvents(List)} call.
+     * @return the subscription, which reports its progress and stops delivery when closed.
+     */
+    public synchronized Subscription subscribe(String name, ChangeSubscriber subscriber,
+                                               OverflowPolicy policy, int batchSize) {
+        return subscribe(name, subscriber, policy, batchSize, cursor.get(), batchSize);
+    }
+
+    /**
+     * Starts delivering the events published after a given one to a subscriber, on a new daemon thread,
+     * e.g. to resume where a previous subscription stopped. Events older than {@link #getOldestAvailable()}
+     * have been overwritten: a subscriber starting before it is told through
+     * {@link ChangeSubscriber#onDropped(long, long)}, whatever the policy.
+     *
+     * @param after     The sequence number of the last event the subscriber has already seen, 0 for all of them.
+     * @param wakeAfter The number of waiting events at which a writer wakes the subscription when it is parked,
+     *                  between 1 and the batch size; with 1 every write is delivered as soon as it is made,
+     *                  at the cost of a thread wake-up per write when the subscription is idle.
+     * @see #subscribe(String, ChangeSubscriber, OverflowPolicy, int)
+     */
+    public synchronized Subscription subscribe(String name, ChangeSubscriber subscriber, OverflowPolicy policy,
+                                               int batchSize, long after, int wakeAfter) {
+        if (name == null || subscriber == null || policy == null) {
+            throw new IllegalArgumentException("Name, subscriber and policy cannot be null.");
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive.");
+        }
+        if (wakeAfter < 1 || wakeAfter > batchSize) {
+            throw new IllegalArgumentException("Wake threshold must be between 1 and the batch size.");
+        }
+        if (after < 0 || after > cursor.get()) {
+            throw new IllegalArgumentException("Cannot subscribe after event " + after + ", the last one is "
+                    + cursor.get() + ".");
+        }
+        Subscription subscription = new Subscription(name, subscriber, policy, batchSize, after, wakeAfter);
+        Subscription[] updated = Arrays.copyOf(subscriptions, subscriptions.length + 1);
+        updated[updated.length - 1] = subscription;
+        subscriptions = updated;
+        subscription.thread.start();
+        return subscription;
+    }
+
+    /**
+     * @return the current subscriptions.
+     */
+    public List<Subscription> getSubscriptions() {
+        return List.of(subscriptions);
+    }
+
+    /**
+     * @return the sequence number of the last published event, or 0 if there was none.
+     */
+    public long getSequence() {
+        return cursor.get();
+    }
+
+    /**
+     * @return the sequence number of the oldest event still in the buffer, 1 until it has wrapped around.
+     */
+    public long getOldestAvailable() {
+        return Math.max(1, cursor.get() - capacity + 1);
+    }
+
+    @Override
+    public void bookAdded(Book book) {
+        publishLock.lock();
+        try {
+            publish(ChangeEvent.Type.ADDED, book.getISBN(), null, book, System.nanoTime());
+        } finally {
+            publishLock.unlock();
+        }
+        signal();
+    }
+
+    @Override
+    public void booksAdded(List<Book> books) {
+        long nanos = System.nanoTime();
+        publishLock.lock();
+        try {
+            for (Book book : books) {
+                publish(ChangeEvent.Type.ADDED, book.getISBN(), null, book, nanos);
+            }
+        } finally {
+            publishLock.unlock();
+        }
+        signal();
+    }
+
+    @Override
+    public void bookUpdated(String isbn, Book before, Book after) {
+        publishLock.lock();
+        try {
+            publish(ChangeEvent.Type.UPDATED, isbn, before, after, System.nanoTime());
+        } finally {
+            publishLock.unlock();
+        }
+        signal();
+    }
+
+    @Override
+    public void booksUpdated(List<Book> before, List<Book> after) {
+        long nanos = System.nanoTime();
+        publishLock.lock();
+        try {
+            for (int i = 0; i < after.size(); i++) {
+                publish(ChangeEvent.Type.UPDATED, before.get(i).getISBN(), before.get(i), after.get(i), nanos);
+            }
+        } finally {
+            publishLock.unlock();
+        }
+        signal();
+    }
+
+    /**
+     * Stops following the catalog and closes every subscription, once it has received the events already published.
+     */
+    @Override
+    public void close() {
+        libraryData.removeListener(this);
+        for (Subscription subscription : subscriptions) {
+            subscription.close();
+        }
+    }
+
+    // Called with publishLock held: fills the next slot, then moves the cursor past it
+    private void publish(ChangeEvent.Type type, String isbn, Book before, Book after, long nanos) {
+        long sequence = cursor.get() + 1;
+        for (Subscription subscription : subscriptions) {
+            if (subscription.policy == OverflowPolicy.BLOCK) {
+                subscription.awaitRoom(sequence);
+            }
+        }
+        ring.lazySet((int) sequence & mask, new ChangeEvent(sequence, type, isbn, before, after, nanos));
+        cursor.set(sequence);
+    }
+
+    // Wakes the parked subscriptions that have enough events waiting (a full batch by default);
+    // the others wake up on their own
+    private void signal() {
+        long sequence = cursor.get();
+        for (Subscription subscription : subscriptions) {
+            if (sequence - subscription.consumed.get() >= subscription.wakeAfter) {
+                subscription.wake();
+            }
+        }
+    }
+
+    private synchronized void remove(Subscription subscription) {
+        List<Subscription> remaining = new ArrayList<>(List.of(subscriptions));
+        remaining.remove(subscription);
+        subscriptions = remaining.toArray(new Subscription[0]);
+    }
+
+    /**
+     * One subscriber's position in the stream and its delivery thread.
+     */
+    public final class Subscription implements Closeable {
+
+        private final String name;
+        private final ChangeSubscriber subscriber;
+        private final OverflowPolicy policy;
+        private final int batchSize;
+        private final int wakeAfter;
+        private final Thread thread;
+
+        // Sequence of the last event handed to the subscriber; read by writers waiting for room
+        private final AtomicLong consumed;
+        private final AtomicBoolean parked = new AtomicBoolean();
+        // Delivery stops after this sequence; set by close
+        private volatile long stopAfter = Long.MAX_VALUE;
+
+        // Written by the delivery thread only
+        private volatile long delivered;
+        private volatile long batches;
+        private volatile long dropped;
+        private volatile long failures;
+        private volatile RuntimeException lastFailure;
+
+        private Subscription(String name, ChangeSubscriber subscriber, OverflowPolicy policy, int batchSize, long start,
+                             int wakeAfter) {
+            this.name = name;
+            this.subscriber = subscriber;
+            this.policy = policy;
+            this.batchSize = batchSize;
+            this.wakeAfter = wakeAfter;
+            this.consumed = new AtomicLong(start);
+            this.thread = new Thread(this::run, "change-stream-" + name);
+            this.thread.setDaemon(true);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public OverflowPolicy getPolicy() {
+            return policy;
+        }
+
+        /**
+         * @return the number of events handed to the subscriber.
+         */
+        public long getDelivered() {
+            return delivered;
+        }
+
+        /**
+         * @return the number of {@link ChangeSubscriber#onEvents(List)} calls.
+         */
+        public long getBatches() {
+            return batches;
+        }
+
+        /**
+         * @return the number of events lost because they were overwritten before being read.
+         */
+        public long getDropped() {
+            return dropped;
+        }
+
+        /**
+         * @return the number of batches for which the subscriber threw an exception; their events count as delivered.
+         */
+        public long getFailures() {
+            return failures;
+        }
+
+        /**
+         * @return the last exception thrown by the subscriber, or null.
+         */
+        public RuntimeException getLastFailure() {
+            return lastFailure;
+        }
+
+        /**
+         * @return the number of published events not yet handed to the subscriber.
+         */
+        public long getLag() {
+            return cursor.get() - consumed.get();
+        }
+
+        /**
+         * Stops delivery once the events published so far have been handed to the subscriber,
+         * and waits for the delivery thread to finish.
+         */
+        @Override
+        public void close() {
+            remove(this);
+            stopAfter = cursor.get();
+            LockSupport.unpark(thread);
+            if (Thread.currentThread() != thread) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private void run() {
+            List<ChangeEvent> batch = new ArrayList<>(batchSize);
+            long next = consumed.get() + 1;
+            int idle = 0;
+            while (next <= stopAfter) {
+                long available = Math.min(cursor.get(), stopAfter);
+                if (available < next) {
+                    if (++idle < SPINS) {
+                        Thread.onSpinWait();
+                    } else {
+                        parked.set(true);
+                        // Re-check after announcing the park, so a write made meanwhile is not missed
+                        if (cursor.get() < next && next <= stopAfter) {
+                            LockSupport.parkNanos(this, MAX_PARK_NANOS);
+                        }
+                        parked.set(false);
+                    }
+                    continue;
+                }
+                idle = 0;
+                long last = Math.min(available, next + batchSize - 1);
+                boolean lapped = false;
+                for (long sequence = next; sequence <= last; sequence++) {
+                    ChangeEvent event = ring.get((int) sequence & mask);
+                    if (event.getSequence() != sequence) {
+                        // The writer has wrapped around and overwritten this slot
+                        lapped = true;
+                        break;
+                    }
+                    batch.add(event);
+                }
+                if (!batch.isEmpty()) {
+                    deliver(batch);
+                    next += batch.size();
+                    consumed.set(next - 1);
+                    batch.clear();
+                }
+                if (lapped) {
+                    long oldest = cursor.get() - capacity + 1;
+                    long lost = oldest - next;
+                    dropped += lost;
+                    try {
+                        subscriber.onDropped(next, lost);
+                    } catch (RuntimeException e) {
+                        failed(e);
+                    }
+                    next = oldest;
+                    consumed.set(next - 1);
+                }
+            }
+        }
+
+        private void deliver(List<ChangeEvent> batch) {
+            try {
+                subscriber.onEvents(batch);
+            } catch (RuntimeException e) {
+                failed(e);
+            }
+            delivered += batch.size();
+            batches++;
+        }
+
+        private void failed(RuntimeException e) {
+            failures++;
+            lastFailure = e;
+        }
+
+        // Called by the writer before it reuses the slot of sequence - capacity
+        private void awaitRoom(long sequence) {
+            int spins = 0;
+            while (sequence - consumed.get() > capacity && thread.isAlive()) {
+                wake();
+                if (++spins < SPINS) {
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+        }
+
+        private void wake() {
+            if (parked.get() && parked.compareAndSet(true, false)) {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+}
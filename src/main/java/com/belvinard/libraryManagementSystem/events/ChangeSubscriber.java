@@ -0,0 +1,27 @@
+package com.belvinard.libraryManagementSystem.events;
+
+import java.util.List;
+
+/**
+ * Receives the changes published by a {@link ChangeStream}, in sequence order, on the subscription's own thread.
+ */
+public interface ChangeSubscriber {
+
+    /**
+     * Called with the next events, at most the subscription's batch size at a time.
+     * The list is only valid during the call; copy it to keep it.
+     *
+     * @param events Consecutive events, oldest first.
+     */
+    void onEvents(List<ChangeEvent> events);
+
+    /**
+     * Called when a subscriber with {@link OverflowPolicy#DROP} fell so far behind that
+     * events were overwritten before it read them. Delivery resumes with the oldest event still available.
+     *
+     * @param firstSequence The sequence number of the first lost event.
+     * @param count         The number of consecutive events lost.
+     */
+    default void onDropped(long firstSequence, long count) {
+    }
+}
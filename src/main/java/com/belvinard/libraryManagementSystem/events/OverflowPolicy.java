@@ -0,0 +1,19 @@
+package com.belvinard.libraryManagementSystem.events;
+
+/**
+ * What happens when a subscriber is a whole ring buffer behind the writers.
+ */
+public enum OverflowPolicy {
+
+    /**
+     * Writers never wait for the subscriber: the oldest events are overwritten and the subscriber
+     * is told how many it missed through {@link ChangeSubscriber#onDropped(long, long)}.
+     */
+    DROP,
+
+    /**
+     * Writers wait until the subscriber has made room, so it sees every event;
+     * a slow subscriber then limits the write throughput of the whole catalog.
+     */
+    BLOCK
+}
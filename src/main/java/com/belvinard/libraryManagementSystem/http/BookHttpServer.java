@@ -0,0 +1,265 @@
+package com.belvinard.libraryManagementSystem.http;
+
+import com.belvinard.libraryManagementSystem.io.CatalogFormat;
+import com.belvinard.libraryManagementSystem.io.Json;
+import com.belvinard.libraryManagementSystem.model.Book;
+import com.belvinard.libraryManagementSystem.service.BookService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Embedded HTTP/JSON front end for the {@link BookService}, built on the JDK's HTTP server.
+ * Each request runs on its own virtual thread when the runtime has them (Java 21+),
+ * otherwise on a cached pool of platform threads.
+ * <pre>
+ * POST /books                  add a book (JSON body)        201, 400, 409
+ * GET  /books?offset=0&amp;limit=50 list books, in insertion order 200
+ * GET  /books/{isbn}           get a book                    200, 404
+ * PUT  /books/{isbn}           update a book (JSON body)     200, 400, 404
+ * GET  /books/{isbn}/exists    check that a book exists      200
+ * </pre>
+ * Books use the same JSON layout as JSONL catalog files; errors are returned as {@code {"error":"..."}}.
+ */
+public class BookHttpServer {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private static final String BOOKS_PATH = "/books";
+    private static final String EXISTS_SUFFIX = "/exists";
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final int BACKLOG = 4096;
+    private static final int MAX_IDLE_CONNECTIONS = 10_000;
+
+    private final BookService bookService;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Creates a server bound to the given address; call {@link #start()} to accept requests.
+     *
+     * @param bookService The service the routes delegate to.
+     * @param address     The address to bind, e.g. port 0 for any free port.
+     * @throws IOException if the address cannot be bound.
+     */
+    public BookHttpServer(BookService bookService, InetSocketAddress address) throws IOException {
+        if (bookService == null) {
+            throw new IllegalArgumentException("BookService cannot be null.");
+        }
+        // Responses are written as headers then body; without nodelay, Nagle's algorithm delays the body.
+        // The JDK server also closes keep-alive connections beyond 200 idle ones unless told otherwise.
+        // Both settings are read once, when the first server is created; explicit -D values win.
+        defaultProperty("sun.net.httpserver.nodelay", "true");
+        defaultProperty("sun.net.httpserver.maxIdleConnections", String.valueOf(MAX_IDLE_CONNECTIONS));
+        this.bookService = bookService;
+        this.server = HttpServer.create(address, BACKLOG);
+        this.executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext(BOOKS_PATH, this::handle);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests and waits up to {@code delaySeconds} for the running ones to finish.
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(delaySeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return the port the server is bound to.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            route(exchange);
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (RuntimeException e) {
+            sendError(exchange, 500, "Internal error.");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getRawPath();
+        if (path.equals(BOOKS_PATH) || path.equals(BOOKS_PATH + "/")) {
+            if (method.equals("GET")) {
+                listBooks(exchange);
+            } else if (method.equals("POST")) {
+                addBook(exchange);
+            } else {
+                sendError(exchange, 405, "Method not allowed.");
+            }
+            return;
+        }
+        if (!path.startsWith(BOOKS_PATH + "/")) {
+            sendError(exchange, 404, "Not found.");
+            return;
+        }
+
+        String isbn = path.substring(BOOKS_PATH.length() + 1);
+        boolean exists = isbn.endsWith(EXISTS_SUFFIX);
+        if (exists) {
+            isbn = isbn.substring(0, isbn.length() - EXISTS_SUFFIX.length());
+        }
+        if (isbn.isEmpty() || isbn.indexOf('/') >= 0) {
+            sendError(exchange, 404, "Not found.");
+        } else if (exists && method.equals("GET")) {
+            send(exchange, 200, "{\"exists\":" + bookService.bookExists(isbn) + "}");
+        } else if (!exists && method.equals("GET")) {
+            getBook(exchange, isbn);
+        } else if (!exists && method.equals("PUT")) {
+            updateBook(exchange, isbn);
+        } else {
+            sendError(exchange, 405, "Method not allowed.");
+        }
+    }
+
+    private void addBook(HttpExchange exchange) throws IOException {
+        Book book = readBook(exchange);
+        if (bookService.addBookIfAbsent(book)) {
+            send(exchange, 201, Json.appendBook(new StringBuilder(128), book).toString());
+        } else {
+            sendError(exchange, 409, "A book with ISBN " + book.getISBN() + " already exists.");
+        }
+    }
+
+    private void updateBook(HttpExchange exchange, String isbn) throws IOException {
+        Book book = readBook(exchange);
+        if (bookService.updateBook(isbn, book)) {
+            send(exchange, 200, Json.appendBook(new StringBuilder(128), book).toString());
+        } else {
+            sendError(exchange, 404, "No book found with ISBN " + isbn + ".");
+        }
+    }
+
+    private void getBook(HttpExchange exchange, String isbn) throws IOException {
+        Book book = bookService.getBookByISBN(isbn);
+        if (book == null) {
+            sendError(exchange, 404, "No book found with ISBN " + isbn + ".");
+        } else {
+            send(exchange, 200, Json.appendBook(new StringBuilder(128), book).toString());
+        }
+    }
+
+    private void listBooks(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getRawQuery();
+        int offset = intParameter(query, "offset", 0);
+        int limit = Math.min(intParameter(query, "limit", DEFAULT_PAGE_SIZE), MAX_PAGE_SIZE);
+        int total = bookService.countBooks();
+        List<Book> books = bookService.listBooks(offset, limit);
+
+        StringBuilder json = new StringBuilder(64 + books.size() * 128);
+        json.append("{\"total\":").append(total)
+                .append(",\"offset\":").append(offset)
+                .append(",\"limit\":").append(limit)
+                .append(",\"books\":[");
+        for (int i = 0; i < books.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            Json.appendBook(json, books.get(i));
+        }
+        send(exchange, 200, json.append("]}").toString());
+    }
+
+    private static Book readBook(HttpExchange exchange) throws IOException {
+        byte[] body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = in.readNBytes(MAX_BODY_BYTES + 1);
+        }
+        if (body.length > MAX_BODY_BYTES) {
+            throw new IllegalArgumentException("Request body is too large.");
+        }
+        return CatalogFormat.JSONL.parse(new String(body, StandardCharsets.UTF_8));
+    }
+
+    // Looks up one parameter of a raw query string such as "offset=100&limit=50"
+    private static int intParameter(String query, String name, int defaultValue) {
+        if (query == null) {
+            return defaultValue;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8).equals(name)) {
+                String value = URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+                try {
+                    int parsed = Integer.parseInt(value);
+                    if (parsed < 0) {
+                        throw new IllegalArgumentException("Parameter " + name + " must not be negative.");
+                    }
+                    return parsed;
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid " + name + ": " + value);
+                }
+            }
+        }
+        return defaultValue;
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        StringBuilder json = new StringBuilder("{\"error\":");
+        Json.appendString(json, message == null ? "" : message);
+        send(exchange, status, json.append('}').toString());
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void defaultProperty(String name, String value) {
+        if (System.getProperty(name) == null) {
+            System.setProperty(name, value);
+        }
+    }
+
+    // One virtual thread per request on Java 21+, looked up reflectively so the code still builds for Java 17
+    private static ExecutorService newRequestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            ThreadFactory threads = runnable -> {
+                Thread thread = new Thread(runnable, "http-worker-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            return Executors.newCachedThreadPool(threads);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.belvinard.libraryManagementSystem.index;
+
+import com.belvinard.libraryManagementSystem.data.CatalogListener;
+import com.belvinard.libraryManagementSystem.model.Book;
+import com.belvinard.libraryManagementSystem.model.Isbn;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Sorted index of author names, for "author starts with" lookups.
+ * Each lowercase author name maps to a {@link PostingList} of numeric ISBNs, and the names are kept in a
+ * sorted map, so the authors starting with a prefix are one contiguous range of it.
+ * Like the other indexes, it remembers what it indexed per book and is maintained as a {@link CatalogListener}.
+ */
+public class AuthorIndex implements CatalogListener {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, PostingList> byAuthor = new TreeMap<>();
+
+    // What was indexed for each book, by numeric ISBN
+    private final String[] indexedAuthors = new String[Isbn.CAPACITY];
+
+    @Override
+    public void bookAdded(Book book) {
+        lock.writeLock().lock();
+        try {
+            index(Isbn.toInt(book.getISBN()), book.getAuthor());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void booksAdded(List<Book> books) {
+        lock.writeLock().lock();
+        try {
+            for (Book book : books) {
+                index(Isbn.toInt(book.getISBN()), book.getAuthor());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void bookUpdated(String isbn, Book before, Book after) {
+        lock.writeLock().lock();
+        try {
+            reindex(isbn, after);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void booksUpdated(List<Book> before, List<Book> after) {
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < after.size(); i++) {
+                reindex(before.get(i).getISBN(), after.get(i));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the books whose author name starts with a prefix, ignoring case.
+     *
+     * @param prefix The start of the author name, e.g. "jo" for "John Smith".
+     * @return a new bitmap of the numeric ISBNs of the matching books.
+     */
+    public BitSet matchPrefix(String prefix) {
+        lock.readLock().lock();
+        try {
+            BitSet result = new BitSet(Isbn.CAPACITY);
+            for (PostingList list : range(prefix).values()) {
+                for (int id : list.toArray()) {
+                    result.set(id);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of books whose author name starts with the prefix, ignoring case.
+     */
+    public int countPrefix(String prefix) {
+        lock.readLock().lock();
+        try {
+            int books = 0;
+            for (PostingList list : range(prefix).values()) {
+                books += list.size();
+            }
+            return books;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of distinct author names starting with the prefix, ignoring case.
+     */
+    public int countAuthors(String prefix) {
+        lock.readLock().lock();
+        try {
+            return range(prefix).size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // The authors starting with the prefix: every name from the prefix up to the prefix followed by the last char
+    private NavigableMap<String, PostingList> range(String prefix) {
+        String from = normalize(prefix);
+        return byAuthor.subMap(from, true, from + Character.MAX_VALUE, false);
+    }
+
+    private void index(int id, String author) {
+        indexedAuthors[id] = author;
+        byAuthor.computeIfAbsent(normalize(author), key -> new PostingList()).add(id);
+    }
+
+    // Changes that keep the ISBN and author leave the postings as they are
+    private void reindex(String isbn, Book after) {
+        int id = Isbn.toInt(isbn);
+        if (isbn.equals(after.getISBN()) && after.getAuthor().equals(indexedAuthors[id])) {
+            return;
+        }
+        unindex(id);
+        index(Isbn.toInt(after.getISBN()), after.getAuthor());
+    }
+
+    private void unindex(int id) {
+        String author = indexedAuthors[id];
+        if (author == null) {
+            return;
+        }
+        String key = normalize(author);
+        PostingList list = byAuthor.get(key);
+        if (list != null) {
+            list.remove(id);
+            if (list.isEmpty()) {
+                byAuthor.remove(key);
+            }
+        }
+        indexedAuthors[id] = null;
+    }
+
+    static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+}
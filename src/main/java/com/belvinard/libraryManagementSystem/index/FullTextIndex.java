@@ -0,0 +1,326 @@
+package com.belvinard.libraryManagementSystem.index;
+
+import com.belvinard.libraryManagementSystem.data.CatalogListener;
+import com.belvinard.libraryManagementSystem.model.Book;
+import com.belvinard.libraryManagementSystem.model.Isbn;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted word index over book titles and authors.
+ * Each lowercase word maps to a compressed {@link PostingList} of numeric ISBNs, one index per field.
+ * The index remembers the title and author it indexed for every book, so an update removes
+ * exactly the old words even if the caller already changed the Book object in place.
+ * It is kept up to date as a {@link CatalogListener}; searches may run concurrently with updates.
+ */
+public class FullTextIndex implements CatalogListener {
+
+    // Score contributed by a query word found in the title and in the author name
+    private static final int TITLE_WEIGHT = 2;
+    private static final int AUTHOR_WEIGHT = 1;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, PostingList> titleIndex = new HashMap<>();
+    private final Map<String, PostingList> authorIndex = new HashMap<>();
+
+    // What was indexed for each book, by numeric ISBN
+    private final String[] indexedTitles = new String[Isbn.CAPACITY];
+    private final String[] indexedAuthors = new String[Isbn.CAPACITY];
+
+    /**
+     * A search result: the ISBN of a matching book and its relevance score.
+     */
+    public static final class Hit {
+        private final String isbn;
+        private final int score;
+
+        Hit(String isbn, int score) {
+            this.isbn = isbn;
+            this.score = score;
+        }
+
+        public String getIsbn() {
+            return isbn;
+        }
+
+        public int getScore() {
+            return score;
+        }
+    }
+
+    @Override
+    public void bookAdded(Book book) {
+        lock.writeLock().lock();
+        try {
+            index(Isbn.toInt(book.getISBN()), book.getTitle(), book.getAuthor());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void booksAdded(List<Book> books) {
+        lock.writeLock().lock();
+        try {
+            for (Book book : books) {
+                index(Isbn.toInt(book.getISBN()), book.getTitle(), book.getAuthor());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void bookUpdated(String isbn, Book before, Book after) {
+        lock.writeLock().lock();
+        try {
+            reindex(isbn, after);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void booksUpdated(List<Book> before, List<Book> after) {
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < after.size(); i++) {
+                reindex(before.get(i).getISBN(), after.get(i));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Searches titles and authors. Words are combined with AND; if the query contains the
+     * word {@code OR} (upper case), the other words are combined with OR instead.
+     * A word found in the title scores 2 and one found in the author name scores 1.
+     *
+     * @param query The words to look for, e.g. "java concurrency" or "python OR java".
+     * @param limit The maximum number of results.
+     * @return the best matches, highest score first (ties by ISBN).
+     */
+    public List<Hit> search(String query, int limit) {
+        if (query == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+        boolean matchAny = false;
+        Set<String> words = new LinkedHashSet<>();
+        for (String token : query.trim().split("\\s+")) {
+            if (token.equals("OR")) {
+                matchAny = true;
+            } else if (!token.isEmpty()) {
+                words.add(normalize(token));
+            }
+        }
+        if (words.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<int[]> titleHits = new ArrayList<>(words.size());
+            List<int[]> authorHits = new ArrayList<>(words.size());
+            List<int[]> perWord = new ArrayList<>(words.size());
+            for (String word : words) {
+                int[] inTitle = ids(titleIndex.get(word));
+                int[] inAuthor = ids(authorIndex.get(word));
+                titleHits.add(inTitle);
+                authorHits.add(inAuthor);
+                perWord.add(union(inTitle, inAuthor));
+            }
+            int[] candidates = matchAny ? unionAll(perWord) : intersectAll(perWord);
+            return topK(candidates, titleHits, authorHits, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of distinct words indexed across titles and authors.
+     */
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return titleIndex.size() + authorIndex.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of bytes used by the compressed posting lists.
+     */
+    public long postingBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (PostingList list : titleIndex.values()) {
+                bytes += list.encodedBytes();
+            }
+            for (PostingList list : authorIndex.values()) {
+                bytes += list.encodedBytes();
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void index(int id, String title, String author) {
+        indexedTitles[id] = title;
+        indexedAuthors[id] = author;
+        for (String word : words(title)) {
+            titleIndex.computeIfAbsent(word, key -> new PostingList()).add(id);
+        }
+        for (String word : words(author)) {
+            authorIndex.computeIfAbsent(word, key -> new PostingList()).add(id);
+        }
+    }
+
+    // Changes that keep the ISBN, title and author (e.g. a new genre) leave the postings as they are
+    private void reindex(String isbn, Book after) {
+        int id = Isbn.toInt(isbn);
+        if (isbn.equals(after.getISBN()) && after.getTitle().equals(indexedTitles[id])
+                && after.getAuthor().equals(indexedAuthors[id])) {
+            return;
+        }
+        unindex(id);
+        index(Isbn.toInt(after.getISBN()), after.getTitle(), after.getAuthor());
+    }
+
+    private void unindex(int id) {
+        removeWords(titleIndex, indexedTitles[id], id);
+        removeWords(authorIndex, indexedAuthors[id], id);
+        indexedTitles[id] = null;
+        indexedAuthors[id] = null;
+    }
+
+    private static void removeWords(Map<String, PostingList> index, String text, int id) {
+        if (text == null) {
+            return;
+        }
+        for (String word : words(text)) {
+            PostingList list = index.get(word);
+            if (list != null) {
+                list.remove(id);
+                if (list.isEmpty()) {
+                    index.remove(word);
+                }
+            }
+        }
+    }
+
+    // Distinct lowercase words of a title or author
+    private static Set<String> words(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        for (String token : text.trim().split("\\s+")) {
+            if (!token.isEmpty()) {
+                words.add(normalize(token));
+            }
+        }
+        return words;
+    }
+
+    private static String normalize(String word) {
+        return word.toLowerCase(Locale.ROOT);
+    }
+
+    private static int[] ids(PostingList list) {
+        return list == null ? new int[0] : list.toArray();
+    }
+
+    private static List<Hit> topK(int[] candidates, List<int[]> titleHits, List<int[]> authorHits, int limit) {
+        // Min-heap of the best hits so far: lowest score (then highest ISBN) on top
+        PriorityQueue<int[]> best = new PriorityQueue<>(limit + 1,
+                (a, b) -> a[1] != b[1] ? Integer.compare(a[1], b[1]) : Integer.compare(b[0], a[0]));
+        for (int id : candidates) {
+            int score = 0;
+            for (int i = 0; i < titleHits.size(); i++) {
+                if (Arrays.binarySearch(titleHits.get(i), id) >= 0) {
+                    score += TITLE_WEIGHT;
+                }
+                if (Arrays.binarySearch(authorHits.get(i), id) >= 0) {
+                    score += AUTHOR_WEIGHT;
+                }
+            }
+            best.add(new int[]{id, score});
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        Hit[] hits = new Hit[best.size()];
+        for (int i = hits.length - 1; i >= 0; i--) {
+            int[] hit = best.poll();
+            hits[i] = new Hit(Isbn.toString(hit[0]), hit[1]);
+        }
+        return Arrays.asList(hits);
+    }
+
+    private static int[] intersectAll(List<int[]> lists) {
+        List<int[]> bySize = new ArrayList<>(lists);
+        bySize.sort((a, b) -> Integer.compare(a.length, b.length));
+        int[] result = bySize.get(0);
+        for (int i = 1; i < bySize.size() && result.length > 0; i++) {
+            result = intersect(result, bySize.get(i));
+        }
+        return result;
+    }
+
+    private static int[] unionAll(List<int[]> lists) {
+        int[] result = new int[0];
+        for (int[] list : lists) {
+            result = union(result, list);
+        }
+        return result;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        int[] result = new int[a.length + b.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length || j < b.length) {
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                result[count++] = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                result[count++] = b[j++];
+            } else {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+}
@@ -0,0 +1,240 @@
+package com.belvinard.libraryManagementSystem.index;
+
+import com.belvinard.libraryManagementSystem.data.CatalogListener;
+import com.belvinard.libraryManagementSystem.model.Book;
+import com.belvinard.libraryManagementSystem.model.BookValidator;
+import com.belvinard.libraryManagementSystem.model.Genre;
+import com.belvinard.libraryManagementSystem.model.Isbn;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Secondary indexes on genre and publication year.
+ * Each genre, and each publication year that occurs, has a bitmap with one bit per numeric ISBN.
+ * A query ORs the bitmaps of the requested years and ANDs the result with the genre bitmap,
+ * so it never looks at books outside the answer.
+ * It also counts the books of each genre and year, which query planning uses as cardinality statistics.
+ * Like {@link FullTextIndex}, it remembers what it indexed per book and is maintained as a {@link CatalogListener}.
+ */
+public class GenreYearIndex implements CatalogListener {
+
+    private static final Genre[] GENRES = Genre.values();
+    private static final byte NO_GENRE = -1;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final BitSet[] byGenre = new BitSet[GENRES.length];
+
+    // Bitmaps by publication year, offset by MIN_PUBLICATION_YEAR; created when a year first occurs
+    private BitSet[] byYear = new BitSet[0];
+
+    // Books per genre and per year slot, kept with the bitmaps so that counting costs no bitmap pass
+    private final int[] genreCounts = new int[GENRES.length];
+    private int[] yearCounts = new int[0];
+    private int count;
+
+    // What was indexed for each book, by numeric ISBN
+    private final byte[] indexedGenres = new byte[Isbn.CAPACITY];
+    private final short[] indexedYears = new short[Isbn.CAPACITY];
+
+    public GenreYearIndex() {
+        for (int i = 0; i < byGenre.length; i++) {
+            byGenre[i] = new BitSet(Isbn.CAPACITY);
+        }
+        Arrays.fill(indexedGenres, NO_GENRE);
+    }
+
+    @Override
+    public void bookAdded(Book book) {
+        lock.writeLock().lock();
+        try {
+            index(book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void booksAdded(List<Book> books) {
+        lock.writeLock().lock();
+        try {
+            for (Book book : books) {
+                index(book);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void bookUpdated(String isbn, Book before, Book after) {
+        lock.writeLock().lock();
+        try {
+            unindex(Isbn.toInt(isbn));
+            index(after);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void booksUpdated(List<Book> before, List<Book> after) {
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < after.size(); i++) {
+                unindex(Isbn.toInt(before.get(i).getISBN()));
+                index(after.get(i));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the books of a genre published within a year range.
+     *
+     * @param genre    The genre, or null for any genre.
+     * @param fromYear The first publication year, inclusive.
+     * @param toYear   The last publication year, inclusive.
+     * @return a new bitmap of the numeric ISBNs of the matching books.
+     */
+    public BitSet match(Genre genre, int fromYear, int toYear) {
+        lock.readLock().lock();
+        try {
+            BitSet result = new BitSet(Isbn.CAPACITY);
+            int first = Math.max(fromYear, BookValidator.MIN_PUBLICATION_YEAR) - BookValidator.MIN_PUBLICATION_YEAR;
+            int last = lastSlot(toYear, byYear.length);
+            for (int i = first; i <= last; i++) {
+                if (byYear[i] != null) {
+                    result.or(byYear[i]);
+                }
+            }
+            if (genre != null) {
+                result.and(byGenre[genre.ordinal()]);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return a new bitmap of the numeric ISBNs of the books of the given genre.
+     */
+    public BitSet match(Genre genre) {
+        lock.readLock().lock();
+        try {
+            return (BitSet) byGenre[genre.ordinal()].clone();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of books of the given genre.
+     */
+    public int countGenre(Genre genre) {
+        lock.readLock().lock();
+        try {
+            return genreCounts[genre.ordinal()];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of books published within the year range (inclusive).
+     */
+    public int countYears(int fromYear, int toYear) {
+        lock.readLock().lock();
+        try {
+            int first = Math.max(fromYear, BookValidator.MIN_PUBLICATION_YEAR) - BookValidator.MIN_PUBLICATION_YEAR;
+            int last = lastSlot(toYear, yearCounts.length);
+            int books = 0;
+            for (int i = first; i <= last; i++) {
+                books += yearCounts[i];
+            }
+            return books;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of year bitmaps a {@link #match(Genre, int, int)} over the range combines.
+     */
+    public int yearBitmaps(int fromYear, int toYear) {
+        lock.readLock().lock();
+        try {
+            int first = Math.max(fromYear, BookValidator.MIN_PUBLICATION_YEAR) - BookValidator.MIN_PUBLICATION_YEAR;
+            int last = lastSlot(toYear, byYear.length);
+            int bitmaps = 0;
+            for (int i = first; i <= last; i++) {
+                if (byYear[i] != null) {
+                    bitmaps++;
+                }
+            }
+            return bitmaps;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of indexed books.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void index(Book book) {
+        int id = Isbn.toInt(book.getISBN());
+        int genre = book.getGenreType().ordinal();
+        int year = book.getPublicationYear();
+        byGenre[genre].set(id);
+        yearBitmap(year).set(id);
+        genreCounts[genre]++;
+        yearCounts[year - BookValidator.MIN_PUBLICATION_YEAR]++;
+        count++;
+        indexedGenres[id] = (byte) genre;
+        indexedYears[id] = (short) year;
+    }
+
+    private void unindex(int id) {
+        if (indexedGenres[id] == NO_GENRE) {
+            return;
+        }
+        byGenre[indexedGenres[id]].clear(id);
+        byYear[indexedYears[id] - BookValidator.MIN_PUBLICATION_YEAR].clear(id);
+        genreCounts[indexedGenres[id]]--;
+        yearCounts[indexedYears[id] - BookValidator.MIN_PUBLICATION_YEAR]--;
+        count--;
+        indexedGenres[id] = NO_GENRE;
+    }
+
+    // The last year slot of a range ending at toYear, below 0 when the range ends before MIN_PUBLICATION_YEAR;
+    // computed in long so that a toYear near Integer.MIN_VALUE does not wrap around to a large slot
+    private static int lastSlot(int toYear, int slots) {
+        return (int) Math.max(-1, Math.min((long) toYear - BookValidator.MIN_PUBLICATION_YEAR, slots - 1));
+    }
+
+    private BitSet yearBitmap(int year) {
+        int slot = year - BookValidator.MIN_PUBLICATION_YEAR;
+        if (slot >= byYear.length) {
+            byYear = Arrays.copyOf(byYear, Math.max(slot + 1, BookValidator.currentYear() - BookValidator.MIN_PUBLICATION_YEAR + 1));
+            yearCounts = Arrays.copyOf(yearCounts, byYear.length);
+        }
+        if (byYear[slot] == null) {
+            byYear[slot] = new BitSet();
+        }
+        return byYear[slot];
+    }
+}
@@ -0,0 +1,160 @@
+package com.belvinard.libraryManagementSystem.index;
+
+import java.util.Arrays;
+
+/**
+ * Sorted set of document ids (numeric ISBNs) for one term.
+ * The ids are stored delta-encoded as variable-length bytes, so a dense list costs about one byte per id.
+ * Changes are appended to pending add/remove buffers and merged into the encoded form in bulk,
+ * once the buffers reach an eighth of the list, so each change costs amortized constant time.
+ * Callers only add ids that are absent and remove ids that are present, so an id's membership is
+ * its encoded presence plus its pending adds minus its pending removes.
+ * Not thread-safe; the indexes that use it guard it.
+ */
+final class PostingList {
+
+    private static final byte[] NO_BYTES = new byte[0];
+    private static final int[] NO_IDS = new int[0];
+    private static final int MIN_MERGE_THRESHOLD = 32;
+
+    private byte[] encoded = NO_BYTES;
+    private int encodedCount;
+
+    // Pending changes, in arrival order
+    private int[] added = NO_IDS;
+    private int addedCount;
+    private int[] removed = NO_IDS;
+    private int removedCount;
+
+    /**
+     * Adds an id that is not in the list.
+     */
+    void add(int id) {
+        if (addedCount == added.length) {
+            added = Arrays.copyOf(added, Math.max(4, addedCount * 2));
+        }
+        added[addedCount++] = id;
+        mergeIfNeeded();
+    }
+
+    /**
+     * Removes an id that is in the list.
+     */
+    void remove(int id) {
+        if (removedCount == removed.length) {
+            removed = Arrays.copyOf(removed, Math.max(4, removedCount * 2));
+        }
+        removed[removedCount++] = id;
+        mergeIfNeeded();
+    }
+
+    int size() {
+        return encodedCount + addedCount - removedCount;
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * @return the ids in ascending order.
+     */
+    int[] toArray() {
+        int[] base = decode();
+        if (addedCount == 0 && removedCount == 0) {
+            return base;
+        }
+        int[] adds = Arrays.copyOf(added, addedCount);
+        int[] removes = Arrays.copyOf(removed, removedCount);
+        Arrays.sort(adds);
+        Arrays.sort(removes);
+
+        // Three-way merge: an id is present if encoded + adds - removes > 0
+        int[] ids = new int[size()];
+        int count = 0;
+        int b = 0;
+        int a = 0;
+        int r = 0;
+        while (b < base.length || a < adds.length) {
+            int id = Math.min(b < base.length ? base[b] : Integer.MAX_VALUE, a < adds.length ? adds[a] : Integer.MAX_VALUE);
+            int net = 0;
+            while (b < base.length && base[b] == id) {
+                net++;
+                b++;
+            }
+            while (a < adds.length && adds[a] == id) {
+                net++;
+                a++;
+            }
+            while (r < removes.length && removes[r] < id) {
+                r++;
+            }
+            while (r < removes.length && removes[r] == id) {
+                net--;
+                r++;
+            }
+            if (net > 0) {
+                ids[count++] = id;
+            }
+        }
+        return count == ids.length ? ids : Arrays.copyOf(ids, count);
+    }
+
+    /**
+     * @return the number of bytes used by the encoded ids.
+     */
+    int encodedBytes() {
+        return encoded.length;
+    }
+
+    private void mergeIfNeeded() {
+        if (addedCount + removedCount >= Math.max(MIN_MERGE_THRESHOLD, encodedCount >>> 3)) {
+            merge();
+        }
+    }
+
+    private int[] decode() {
+        int[] ids = new int[encodedCount];
+        int position = 0;
+        int previous = 0;
+        for (int i = 0; i < encodedCount; i++) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = encoded[position++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            previous += delta;
+            ids[i] = previous;
+        }
+        return ids;
+    }
+
+    private void merge() {
+        int[] ids = toArray();
+        byte[] bytes = new byte[ids.length * 5];
+        int length = 0;
+        int previous = 0;
+        for (int id : ids) {
+            int delta = id - previous;
+            previous = id;
+            while ((delta & ~0x7F) != 0) {
+                bytes[length++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            bytes[length++] = (byte) delta;
+        }
+        encoded = Arrays.copyOf(bytes, length);
+        encodedCount = ids.length;
+        addedCount = 0;
+        removedCount = 0;
+        if (added.length > MIN_MERGE_THRESHOLD) {
+            added = NO_IDS;
+        }
+        if (removed.length > MIN_MERGE_THRESHOLD) {
+            removed = NO_IDS;
+        }
+    }
+}
@@ -0,0 +1,467 @@
+package com.belvinard.libraryManagementSystem.index;
+
+import com.belvinard.libraryManagementSystem.data.CatalogListener;
+import com.belvinard.libraryManagementSystem.model.Book;
+import com.belvinard.libraryManagementSystem.model.Isbn;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Autocomplete index over book titles and authors: finds the books with a word of the title or author
+ * name starting with a prefix, ignoring case, in alphabetical order of the matching text.
+ * <p>
+ * The lowercase titles and author names are appended to one ISO-8859-1 byte arena, compared unsigned.
+ * Every word start of a value is an entry, whose key runs from there to the end of the value, so
+ * "jav" finds "Advanced Java" through the key "java". The entries are kept sorted as plain int arrays,
+ * so the books matching a prefix are one contiguous range, found by binary search and read in order
+ * until enough books are found. New entries go into a small sorted delta that is merged into the
+ * base array once it holds a sixteenth of it; large batches rebuild the arrays in one sort.
+ * The entries of replaced values are skipped until the next merge drops them; their bytes stay in the
+ * arena until it is half garbage and gets rebuilt.
+ * <p>
+ * Like the other indexes, it is kept up to date as a {@link CatalogListener}; lookups may run concurrently with updates.
+ */
+public class PrefixIndex implements CatalogListener {
+
+    private static final int TITLE = 0;
+    private static final int AUTHOR = 1;
+    private static final int NO_VALUE = -1;
+
+    // Deltas up to this size are never merged; batches at least this large are indexed by a rebuild
+    private static final int MIN_DELTA = 1024;
+    private static final int BULK = 1024;
+
+    // Bytes of the key packed into the sort key of an entry, see sortedEntries
+    private static final int PACKED_BYTES = 4;
+    private static final int MAX_PACKED_ENTRIES = 1 << 24;
+    private static final int MIN_PACKED_RUN = 32;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Lowercase field values, appended in the order they were indexed
+    private byte[] arena = new byte[1 << 16];
+    private int arenaUsed;
+    private long garbage;
+
+    // Where the current title and author of each book are in the arena, by numeric ISBN
+    private final int[][] valueStarts = new int[2][Isbn.CAPACITY];
+    private final int[][] valueEnds = new int[2][Isbn.CAPACITY];
+
+    // Entries, by entry id: the key is arena[keyStart, keyEnd); ref is the numeric ISBN times 2 plus the field
+    private int[] keyStarts = new int[1024];
+    private int[] keyEnds = new int[1024];
+    private int[] refs = new int[1024];
+    private int entries;
+
+    // Entry ids in key order
+    private int[] base = new int[0];
+    private int[] delta = new int[MIN_DELTA];
+    private int deltaSize;
+
+    public PrefixIndex() {
+        Arrays.fill(valueStarts[TITLE], NO_VALUE);
+        Arrays.fill(valueStarts[AUTHOR], NO_VALUE);
+        Arrays.fill(valueEnds[TITLE], NO_VALUE);
+        Arrays.fill(valueEnds[AUTHOR], NO_VALUE);
+    }
+
+    @Override
+    public void bookAdded(Book book) {
+        lock.writeLock().lock();
+        try {
+            index(book, true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void booksAdded(List<Book> books) {
+        lock.writeLock().lock();
+        try {
+            boolean bulk = books.size() >= BULK;
+            for (Book book : books) {
+                index(book, !bulk);
+            }
+            if (bulk) {
+                rebuild();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void bookUpdated(String isbn, Book before, Book after) {
+        lock.writeLock().lock();
+        try {
+            reindex(isbn, after, true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void booksUpdated(List<Book> before, List<Book> after) {
+        lock.writeLock().lock();
+        try {
+            boolean bulk = after.size() >= BULK;
+            for (int i = 0; i < after.size(); i++) {
+                reindex(before.get(i).getISBN(), after.get(i), !bulk);
+            }
+            if (bulk) {
+                rebuild();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the books with a word of the title or author name starting with the prefix, ignoring case.
+     * Books come in the alphabetical order of their first matching text, each once.
+     *
+     * @param prefix The start of a word, e.g. "jav" for "Advanced Java"; it may span several words.
+     * @param limit  The maximum number of books to return.
+     * @return the ISBNs of the matching books.
+     */
+    public List<String> complete(String prefix, int limit) {
+        byte[] wanted = normalize(prefix).getBytes(StandardCharsets.ISO_8859_1);
+        lock.readLock().lock();
+        try {
+            Set<Integer> found = new LinkedHashSet<>();
+            int i = lowerBound(base, base.length, wanted);
+            int j = lowerBound(delta, deltaSize, wanted);
+            while (found.size() < limit) {
+                boolean inBase = i < base.length && startsWith(base[i], wanted);
+                boolean inDelta = j < deltaSize && startsWith(delta[j], wanted);
+                if (!inBase && !inDelta) {
+                    break;
+                }
+                int entry = !inDelta || inBase && compare(base[i], delta[j]) < 0 ? base[i++] : delta[j++];
+                if (isLive(entry)) {
+                    found.add(refs[entry] >>> 1);
+                }
+            }
+            List<String> isbns = new ArrayList<>(found.size());
+            for (int id : found) {
+                isbns.add(Isbn.toString(id));
+            }
+            return isbns;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of entries, one per word of every indexed title and author name.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            int live = 0;
+            for (int entry = 0; entry < entries; entry++) {
+                if (isLive(entry)) {
+                    live++;
+                }
+            }
+            return live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the approximate number of heap bytes used by the arena, entries and arrays.
+     */
+    public long footprintBytes() {
+        lock.readLock().lock();
+        try {
+            return arena.length + 4L * (keyStarts.length + keyEnds.length + refs.length + base.length + delta.length)
+                    + 4L * 4 * Isbn.CAPACITY;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void index(Book book, boolean insert) {
+        int id = Isbn.toInt(book.getISBN());
+        indexValue(id, TITLE, book.getTitle(), insert);
+        indexValue(id, AUTHOR, book.getAuthor(), insert);
+    }
+
+    // Changes that keep the ISBN and the lowercase value leave the entries as they are
+    private void reindex(String isbn, Book after, boolean insert) {
+        int oldId = Isbn.toInt(isbn);
+        int newId = Isbn.toInt(after.getISBN());
+        String[] values = {after.getTitle(), after.getAuthor()};
+        for (int field = TITLE; field <= AUTHOR; field++) {
+            byte[] value = normalize(values[field]).getBytes(StandardCharsets.ISO_8859_1);
+            if (oldId == newId && sameValue(oldId, field, value)) {
+                continue;
+            }
+            unindexValue(oldId, field);
+            indexValue(newId, field, value, insert);
+        }
+        if (insert && garbage > arenaUsed / 2) {
+            rebuild();
+        }
+    }
+
+    private void indexValue(int id, int field, String value, boolean insert) {
+        indexValue(id, field, normalize(value).getBytes(StandardCharsets.ISO_8859_1), insert);
+    }
+
+    private void indexValue(int id, int field, byte[] value, boolean insert) {
+        if (valueStarts[field][id] != NO_VALUE) {
+            unindexValue(id, field);
+        }
+        if (arenaUsed + value.length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaUsed + value.length));
+        }
+        int start = arenaUsed;
+        System.arraycopy(value, 0, arena, start, value.length);
+        arenaUsed += value.length;
+        valueStarts[field][id] = start;
+        valueEnds[field][id] = arenaUsed;
+        if (!insert) {
+            // Left to the rebuild that follows
+            return;
+        }
+        for (int position = 0; position < value.length; position++) {
+            if (isWordStart(value, position)) {
+                insert(addEntry(start + position, arenaUsed, id << 1 | field));
+            }
+        }
+    }
+
+    // The entries of the value stay in the arrays; they no longer match valueEnds, so lookups skip them
+    private void unindexValue(int id, int field) {
+        if (valueStarts[field][id] == NO_VALUE) {
+            return;
+        }
+        garbage += valueEnds[field][id] - valueStarts[field][id];
+        valueStarts[field][id] = NO_VALUE;
+        valueEnds[field][id] = NO_VALUE;
+    }
+
+    private boolean sameValue(int id, int field, byte[] value) {
+        int start = valueStarts[field][id];
+        return start != NO_VALUE && valueEnds[field][id] - start == value.length
+                && Arrays.equals(arena, start, start + value.length, value, 0, value.length);
+    }
+
+    private static boolean isWordStart(byte[] value, int position) {
+        return isWordStart(value, position, 0);
+    }
+
+    private int addEntry(int keyStart, int keyEnd, int ref) {
+        if (entries == keyStarts.length) {
+            keyStarts = Arrays.copyOf(keyStarts, entries * 2);
+            keyEnds = Arrays.copyOf(keyEnds, entries * 2);
+            refs = Arrays.copyOf(refs, entries * 2);
+        }
+        keyStarts[entries] = keyStart;
+        keyEnds[entries] = keyEnd;
+        refs[entries] = ref;
+        return entries++;
+    }
+
+    private boolean isLive(int entry) {
+        int ref = refs[entry];
+        return valueEnds[ref & 1][ref >>> 1] == keyEnds[entry];
+    }
+
+    // Inserts the entry into the sorted delta, merging the delta into the base once it is large
+    private void insert(int entry) {
+        int low = 0;
+        int high = deltaSize;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compare(delta[middle], entry) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        if (deltaSize == delta.length) {
+            delta = Arrays.copyOf(delta, deltaSize * 2);
+        }
+        System.arraycopy(delta, low, delta, low + 1, deltaSize - low);
+        delta[low] = entry;
+        deltaSize++;
+        if (deltaSize > Math.max(MIN_DELTA, base.length / 16)) {
+            merge();
+        }
+    }
+
+    // Merges the delta into the base, dropping the entries of replaced values
+    private void merge() {
+        int[] merged = new int[base.length + deltaSize];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < base.length || j < deltaSize) {
+            int entry = j == deltaSize || i < base.length && compare(base[i], delta[j]) < 0 ? base[i++] : delta[j++];
+            if (isLive(entry)) {
+                merged[size++] = entry;
+            }
+        }
+        base = Arrays.copyOf(merged, size);
+        deltaSize = 0;
+    }
+
+    // Rewrites the arena with only the current values, and the entries and base array from them
+    private void rebuild() {
+        byte[] compacted = new byte[Math.max(1 << 16, arenaUsed - (int) garbage)];
+        int used = 0;
+        entries = 0;
+        for (int id = 0; id < Isbn.CAPACITY; id++) {
+            for (int field = TITLE; field <= AUTHOR; field++) {
+                int start = valueStarts[field][id];
+                if (start == NO_VALUE) {
+                    continue;
+                }
+                int length = valueEnds[field][id] - start;
+                System.arraycopy(arena, start, compacted, used, length);
+                valueStarts[field][id] = used;
+                valueEnds[field][id] = used + length;
+                for (int position = 0; position < length; position++) {
+                    if (isWordStart(compacted, used + position, used)) {
+                        addEntry(used + position, used + length, id << 1 | field);
+                    }
+                }
+                used += length;
+            }
+        }
+        arena = compacted;
+        arenaUsed = used;
+        garbage = 0;
+        base = sortedEntries();
+        deltaSize = 0;
+    }
+
+    private static boolean isWordStart(byte[] bytes, int position, int valueStart) {
+        return Character.isLetterOrDigit(bytes[position] & 0xFF)
+                && (position == valueStart || !Character.isLetterOrDigit(bytes[position - 1] & 0xFF));
+    }
+
+    /*
+     * Sorts all entries by key, a few bytes at a time: each entry becomes a long holding PACKED_BYTES bytes
+     * of its key above its 24-bit id, so one primitive sort orders them by those bytes, then each run
+     * sharing them is sorted by the next bytes. Small runs are sorted by comparing whole keys.
+     */
+    private int[] sortedEntries() {
+        int[] sorted = new int[entries];
+        for (int entry = 0; entry < entries; entry++) {
+            sorted[entry] = entry;
+        }
+        if (entries < MAX_PACKED_ENTRIES) {
+            sortByBytes(sorted, 0, entries, 0);
+        } else {
+            sortRun(sorted, 0, entries);
+        }
+        return sorted;
+    }
+
+    // Sorts the entries by the bytes of their keys from the offset on
+    private void sortByBytes(int[] sorted, int from, int to, int offset) {
+        if (to - from < MIN_PACKED_RUN) {
+            sortRun(sorted, from, to);
+            return;
+        }
+        long[] packed = new long[to - from];
+        for (int i = 0; i < packed.length; i++) {
+            int entry = sorted[from + i];
+            long bytes = 0;
+            for (int k = 0; k < PACKED_BYTES; k++) {
+                int position = keyStarts[entry] + offset + k;
+                bytes = bytes << 8 | (position < keyEnds[entry] ? arena[position] & 0xFF : 0);
+            }
+            packed[i] = bytes << 24 | entry;
+        }
+        Arrays.sort(packed);
+        int runStart = 0;
+        for (int i = 0; i <= packed.length; i++) {
+            if (i < packed.length) {
+                sorted[from + i] = (int) (packed[i] & (MAX_PACKED_ENTRIES - 1));
+            }
+            if (i == packed.length || (packed[i] >>> 24) != (packed[runStart] >>> 24)) {
+                if ((packed[runStart] >>> 24 & 0xFF) == 0) {
+                    endedRun(sorted, from + runStart, from + i, offset + PACKED_BYTES);
+                } else {
+                    sortByBytes(sorted, from + runStart, from + i, offset + PACKED_BYTES);
+                }
+                runStart = i;
+            }
+        }
+    }
+
+    /*
+     * Entries are numbered in arena order when rebuilding, so a run whose keys all ended is already
+     * ordered by position; a run holding zero bytes in a key is sorted by comparing whole keys.
+     */
+    private void endedRun(int[] sorted, int from, int to, int offset) {
+        for (int i = from; i < to; i++) {
+            if (keyEnds[sorted[i]] - keyStarts[sorted[i]] > offset) {
+                sortRun(sorted, from, to);
+                return;
+            }
+        }
+    }
+
+    private void sortRun(int[] sorted, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        Integer[] run = new Integer[to - from];
+        for (int i = from; i < to; i++) {
+            run[i - from] = sorted[i];
+        }
+        Arrays.sort(run, this::compare);
+        for (int i = from; i < to; i++) {
+            sorted[i] = run[i - from];
+        }
+    }
+
+    // Orders entries by key, then by position in the arena, which is unique
+    private int compare(int first, int second) {
+        int a = keyStarts[first];
+        int b = keyStarts[second];
+        int order = Arrays.compareUnsigned(arena, a, keyEnds[first], arena, b, keyEnds[second]);
+        return order != 0 ? order : Integer.compare(a, b);
+    }
+
+    // The first position in the sorted ids whose key is not less than the prefix
+    private int lowerBound(int[] sorted, int size, byte[] prefix) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int entry = sorted[middle];
+            if (Arrays.compareUnsigned(arena, keyStarts[entry], keyEnds[entry], prefix, 0, prefix.length) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private boolean startsWith(int entry, byte[] prefix) {
+        int start = keyStarts[entry];
+        return keyEnds[entry] - start >= prefix.length
+                && Arrays.equals(arena, start, start + prefix.length, prefix, 0, prefix.length);
+    }
+
+    static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+}
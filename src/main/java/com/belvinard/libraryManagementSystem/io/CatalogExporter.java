@@ -0,0 +1,143 @@
+package com.belvinard.libraryManagementSystem.io;
+
+import com.belvinard.libraryManagementSystem.data.LibraryData;
+import com.belvinard.libraryManagementSystem.model.Book;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Streams the catalog out as CSV or JSONL. Books are read in blocks of {@value #BLOCK_SIZE} with
+ * {@link LibraryData#getBooks(int, int)}, which copies only that block (and nothing at all with a
+ * {@link com.belvinard.libraryManagementSystem.data.VersionedBookStore}), checked against an
+ * {@link ExportFilter} and encoded as UTF-8 straight into a direct buffer, which goes to the channel
+ * each time it fills up. No String is built per book, and the buffers are reused by later exports,
+ * so memory use depends on neither the catalog nor the file size.
+ * <p>
+ * Large outputs can be split into pages: each export stops after {@code limit} written books and
+ * reports the cursor the next page starts from, and costs time proportional to the books it scans,
+ * not to the catalog. A cursor is a position in insertion order, which later writes do not move, so
+ * pages can be taken one after the other while the catalog changes. Each block is read at one moment;
+ * a write between two blocks of the same page is seen by the later block, as between two pages.
+ */
+public class CatalogExporter {
+
+    public static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+
+    // Books read from the catalog at a time
+    static final int BLOCK_SIZE = 1024;
+
+    private final LibraryData libraryData;
+    private final int bufferSize;
+    // Direct buffers of finished exports; one per export running at the same time
+    private final ConcurrentLinkedQueue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+
+    public CatalogExporter(LibraryData libraryData) {
+        this(libraryData, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param libraryData The catalog to export.
+     * @param bufferSize  The size in bytes of each direct buffer; at least 64.
+     */
+    public CatalogExporter(LibraryData libraryData, int bufferSize) {
+        if (libraryData == null) {
+            throw new IllegalArgumentException("LibraryData cannot be null.");
+        }
+        if (bufferSize < 64) {
+            throw new IllegalArgumentException("Buffer size must be at least 64 bytes.");
+        }
+        this.libraryData = libraryData;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Exports every book matching the filter to a file, which is created or overwritten.
+     *
+     * @param target The file to write.
+     * @param format The output format; a CSV file starts with a header line.
+     * @param filter Selects the books to export.
+     * @return the export report.
+     * @throws IOException if the file cannot be written.
+     */
+    public ExportReport exportFile(Path target, CatalogFormat format, ExportFilter filter) throws IOException {
+        return exportFile(target, format, filter, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Exports one page to a file, which is created or overwritten.
+     *
+     * @see #export(WritableByteChannel, CatalogFormat, ExportFilter, int, int)
+     */
+    public ExportReport exportFile(Path target, CatalogFormat format, ExportFilter filter, int cursor, int limit)
+            throws IOException {
+        if (target == null) {
+            throw new IllegalArgumentException("Target cannot be null.");
+        }
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            return export(channel, format, filter, cursor, limit);
+        }
+    }
+
+    /**
+     * Exports one page: the books matching the filter from {@code cursor} on, up to {@code limit} of them.
+     * The CSV header is written with the first page only (cursor 0), so pages appended to one channel form
+     * a single valid file. The channel is not closed.
+     *
+     * @param channel Receives the output.
+     * @param format  The output format.
+     * @param filter  Selects the books to export.
+     * @param cursor  Where the page starts: 0 for the first page, then the previous report's next cursor.
+     * @param limit   The maximum number of books to write.
+     * @return the export report, with the cursor of the next page.
+     * @throws IOException if the channel cannot be written.
+     */
+    public ExportReport export(WritableByteChannel channel, CatalogFormat format, ExportFilter filter,
+                               int cursor, int limit) throws IOException {
+        if (channel == null || format == null || filter == null) {
+            throw new IllegalArgumentException("Channel, format and filter cannot be null.");
+        }
+        if (cursor < 0 || limit < 0) {
+            throw new IllegalArgumentException("Cursor and limit must not be negative.");
+        }
+        long start = System.nanoTime();
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(bufferSize);
+        }
+        try {
+            ChannelWriter out = new ChannelWriter(channel, buffer);
+            if (cursor == 0) {
+                format.writeHeader(out);
+            }
+            int position = cursor;
+            long written = 0;
+            boolean end = false;
+            while (written < limit && !end) {
+                List<Book> block = libraryData.getBooks(position, (int) Math.min((long) position + BLOCK_SIZE,
+                        Integer.MAX_VALUE));
+                end = block.size() < BLOCK_SIZE;
+                for (int i = 0; i < block.size() && written < limit; i++) {
+                    Book book = block.get(i);
+                    position++;
+                    if (filter.matches(book)) {
+                        format.write(book, out);
+                        written++;
+                    }
+                }
+            }
+            out.flush();
+            return new ExportReport(position - cursor, written, out.getBytesWritten(), System.nanoTime() - start,
+                    position < libraryData.size() ? position : -1);
+        } finally {
+            buffers.offer(buffer);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.belvinard.libraryManagementSystem.io;
+
+import com.belvinard.libraryManagementSystem.model.Book;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * File formats for catalog import and export, one book per line.
+ * CSV columns are title, author, genre, ISBN and publication year, with an optional header line.
+ * JSONL lines are flat objects with the keys title, author, genre, isbn and publicationYear.
+ */
+public enum CatalogFormat {
+    CSV {
+        @Override
+        public Book parse(String line) {
+            List<String> fields = splitCsv(line);
+            if (fields.size() != 5) {
+                throw new IllegalArgumentException("Expected 5 fields but found " + fields.size() + ".");
+            }
+            return new Book(fields.get(0), fields.get(1), fields.get(2), fields.get(3),
+                    parseYear(fields.get(4).trim()));
+        }
+
+        @Override
+        public boolean isHeader(String line) {
+            return line.regionMatches(true, 0, "title,", 0, 6) || line.regionMatches(true, 0, "\"title\",", 0, 8);
+        }
+
+        @Override
+        void writeHeader(ChannelWriter out) throws IOException {
+            out.putString("title,author,genre,isbn,publicationYear\n");
+        }
+
+        @Override
+        void write(Book book, ChannelWriter out) throws IOException {
+            putCsvField(out, book.getTitle());
+            out.put(',');
+            putCsvField(out, book.getAuthor());
+            out.put(',');
+            putCsvField(out, book.getGenre());
+            out.put(',');
+            putCsvField(out, book.getISBN());
+            out.put(',');
+            out.putInt(book.getPublicationYear());
+            out.put('\n');
+        }
+    },
+    JSONL {
+        @Override
+        public Book parse(String line) {
+            Map<String, String> fields = Json.parseFlatObject(line);
+            String isbn = fields.containsKey("isbn") ? fields.get("isbn") : fields.get("ISBN");
+            String year = fields.get("publicationYear");
+            if (year == null) {
+                throw new IllegalArgumentException("Missing publicationYear.");
+            }
+            return new Book(fields.get("title"), fields.get("author"), fields.get("genre"), isbn, parseYear(year));
+        }
+
+        @Override
+        public boolean isHeader(String line) {
+            return false;
+        }
+
+        @Override
+        void writeHeader(ChannelWriter out) {
+        }
+
+        // Same layout as Json.appendBook
+        @Override
+        void write(Book book, ChannelWriter out) throws IOException {
+            out.putString("{\"title\":");
+            putJsonString(out, book.getTitle());
+            out.putString(",\"author\":");
+            putJsonString(out, book.getAuthor());
+            out.putString(",\"genre\":");
+            putJsonString(out, book.getGenre());
+            out.putString(",\"isbn\":");
+            putJsonString(out, book.getISBN());
+            out.putString(",\"publicationYear\":");
+            out.putInt(book.getPublicationYear());
+            out.putString("}\n");
+        }
+    };
+
+    // Chars that make a CSV field quoted, chars a quoted field doubles, and chars a JSON string escapes
+    private static final boolean[] CSV_SPECIALS = stops(",\"\n\r", 0);
+    private static final boolean[] CSV_STOPS = stops("\"", 0);
+    private static final boolean[] JSON_STOPS = stops("\"\\", 0x20);
+
+    /**
+     * Parses one line into a validated Book.
+     *
+     * @throws IllegalArgumentException if the line is malformed or the book is invalid.
+     */
+    public abstract Book parse(String line);
+
+    /**
+     * @return true if the line is a header to skip rather than a record.
+     */
+    public abstract boolean isHeader(String line);
+
+    /**
+     * Writes the line that starts an exported file, if the format has one.
+     */
+    abstract void writeHeader(ChannelWriter out) throws IOException;
+
+    /**
+     * Writes one book as a line that {@link #parse(String)} reads back.
+     */
+    abstract void write(Book book, ChannelWriter out) throws IOException;
+
+    /**
+     * Picks the format from a file name: {@code .jsonl}/{@code .json} for JSONL, anything else for CSV.
+     */
+    public static CatalogFormat fromPath(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".jsonl") || name.endsWith(".json") ? JSONL : CSV;
+    }
+
+    private static int parseYear(String year) {
+        try {
+            return Integer.parseInt(year);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid publication year: " + year);
+        }
+    }
+
+    // Quotes a field only if it holds a comma, quote or line break, as RFC 4180 does
+    private static void putCsvField(ChannelWriter out, String value) throws IOException {
+        if (out.putIfNone(value, CSV_SPECIALS)) {
+            return;
+        }
+        out.put('"');
+        int i = out.putUntil(value, 0, value.length(), CSV_STOPS);
+        while (i < value.length()) {
+            out.put('"');
+            out.put('"');
+            i = out.putUntil(value, i + 1, value.length(), CSV_STOPS);
+        }
+        out.put('"');
+    }
+
+    // Escapes like Json.appendString, copying the runs between escaped characters as they are
+    private static void putJsonString(ChannelWriter out, String value) throws IOException {
+        out.put('"');
+        int i = out.putUntil(value, 0, value.length(), JSON_STOPS);
+        while (i < value.length()) {
+            char c = value.charAt(i);
+            out.put('\\');
+            switch (c) {
+                case '\n':
+                    out.put('n');
+                    break;
+                case '\r':
+                    out.put('r');
+                    break;
+                case '\t':
+                    out.put('t');
+                    break;
+                case '"':
+                case '\\':
+                    out.put(c);
+                    break;
+                default:
+                    out.putString("u00");
+                    out.put(Character.forDigit(c >> 4, 16));
+                    out.put(Character.forDigit(c & 0xF, 16));
+            }
+            i = out.putUntil(value, i + 1, value.length(), JSON_STOPS);
+        }
+        out.put('"');
+    }
+
+    private static boolean[] stops(String chars, int below) {
+        boolean[] stops = new boolean[128];
+        for (int c = 0; c < below; c++) {
+            stops[c] = true;
+        }
+        for (int i = 0; i < chars.length(); i++) {
+            stops[chars.charAt(i)] = true;
+        }
+        return stops;
+    }
+
+    // Splits one CSV line; fields may be quoted, with "" standing for a literal quote
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>(5);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field.");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,251 @@
+package com.belvinard.libraryManagementSystem.io;
+
+import com.belvinard.libraryManagementSystem.data.LibraryData;
+import com.belvinard.libraryManagementSystem.model.Book;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Streams a CSV or JSONL catalog file into {@link LibraryData}.
+ * Lines are read in fixed-size chunks. The chunks are parsed and validated in parallel,
+ * and only a bounded number of them is in flight at a time, so memory use does not
+ * depend on the file size. Each validated chunk is added with a single
+ * {@link LibraryData#addBooks(List)} call, in file order. Invalid and duplicate records
+ * are written to a reject file as {@code line<TAB>reason<TAB>record}; they do not stop the import.
+ */
+public class CatalogImporter {
+
+    public static final int DEFAULT_BATCH_SIZE = 4096;
+
+    private final LibraryData libraryData;
+    private final int batchSize;
+    private final int parallelism;
+
+    public CatalogImporter(LibraryData libraryData) {
+        this(libraryData, DEFAULT_BATCH_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param libraryData The catalog to import into.
+     * @param batchSize   Number of lines validated and inserted together.
+     * @param parallelism Number of validation threads.
+     */
+    public CatalogImporter(LibraryData libraryData, int batchSize, int parallelism) {
+        if (libraryData == null) {
+            throw new IllegalArgumentException("LibraryData cannot be null.");
+        }
+        if (batchSize < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("Batch size and parallelism must be positive.");
+        }
+        this.libraryData = libraryData;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Imports a catalog file. The format is chosen from the file extension, see {@link CatalogFormat#fromPath(Path)}.
+     *
+     * @param source     The CSV or JSONL file to read.
+     * @param rejectFile The file receiving rejected records (overwritten).
+     * @return the import report.
+     * @throws IOException if a file cannot be read or written.
+     */
+    public ImportReport importFile(Path source, Path rejectFile) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8);
+             BufferedWriter rejects = Files.newBufferedWriter(rejectFile, StandardCharsets.UTF_8)) {
+            return importLines(reader, CatalogFormat.fromPath(source), rejects);
+        }
+    }
+
+    /**
+     * Imports the records read from {@code reader}.
+     *
+     * @param reader  The source of records, one per line.
+     * @param format  The record format.
+     * @param rejects Where rejected records are written.
+     * @return the import report.
+     * @throws IOException if reading or writing fails.
+     */
+    public ImportReport importLines(BufferedReader reader, CatalogFormat format, Writer rejects) throws IOException {
+        List<MemoryPoolMXBean> heapPools = heapPools();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        long start = System.nanoTime();
+
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "catalog-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ArrayDeque<Future<Chunk>> inFlight = new ArrayDeque<>();
+        int maxInFlight = parallelism * 2;
+        Totals totals = new Totals();
+        try {
+            Chunk chunk = new Chunk(batchSize);
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || (lineNumber == 1 && format.isHeader(line))) {
+                    continue;
+                }
+                chunk.addLine(lineNumber, line);
+                if (chunk.isFull()) {
+                    submit(workers, inFlight, chunk, format);
+                    chunk = new Chunk(batchSize);
+                    if (inFlight.size() >= maxInFlight) {
+                        apply(await(inFlight.poll()), rejects, totals);
+                    }
+                }
+            }
+            if (chunk.size > 0) {
+                submit(workers, inFlight, chunk, format);
+            }
+            while (!inFlight.isEmpty()) {
+                apply(await(inFlight.poll()), rejects, totals);
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        rejects.flush();
+
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            peakHeap += pool.getPeakUsage().getUsed();
+        }
+        return new ImportReport(totals.read, totals.imported, totals.rejected, System.nanoTime() - start, peakHeap);
+    }
+
+    private static void submit(ExecutorService workers, ArrayDeque<Future<Chunk>> inFlight, Chunk chunk, CatalogFormat format) {
+        inFlight.add(workers.submit(() -> chunk.validate(format)));
+    }
+
+    private static Chunk await(Future<Chunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Catalog import interrupted.");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Catalog validation failed.", e.getCause());
+        }
+    }
+
+    // Inserts a validated chunk in one call and writes its rejects in line order
+    private void apply(Chunk chunk, Writer rejects, Totals totals) throws IOException {
+        List<Book> books = Arrays.asList(chunk.books).subList(0, chunk.bookCount);
+        List<Book> duplicates = libraryData.addBooks(books);
+        if (!duplicates.isEmpty()) {
+            Set<Book> duplicateSet = Collections.newSetFromMap(new IdentityHashMap<>());
+            duplicateSet.addAll(duplicates);
+            for (int i = 0; i < chunk.bookCount; i++) {
+                if (duplicateSet.contains(chunk.books[i])) {
+                    chunk.reject(chunk.bookLines[i], "A book with ISBN " + chunk.books[i].getISBN() + " already exists.");
+                }
+            }
+            chunk.rejections.sort(Comparator.comparingInt(rejection -> rejection.index));
+        }
+        for (Rejection rejection : chunk.rejections) {
+            rejects.write(Long.toString(chunk.lineNumbers[rejection.index]));
+            rejects.write('\t');
+            rejects.write(rejection.reason);
+            rejects.write('\t');
+            rejects.write(chunk.lines[rejection.index]);
+            rejects.write('\n');
+        }
+        totals.read += chunk.size;
+        totals.imported += chunk.bookCount - duplicates.size();
+        totals.rejected += chunk.rejections.size();
+    }
+
+    private static List<MemoryPoolMXBean> heapPools() {
+        List<MemoryPoolMXBean> pools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pools.add(pool);
+            }
+        }
+        return pools;
+    }
+
+    // A run of lines from the source, and the outcome of validating them
+    private static final class Chunk {
+        private final long[] lineNumbers;
+        private final String[] lines;
+        private int size;
+
+        private Book[] books;
+        private int[] bookLines;
+        private int bookCount;
+        private final List<Rejection> rejections = new ArrayList<>();
+
+        private Chunk(int capacity) {
+            this.lineNumbers = new long[capacity];
+            this.lines = new String[capacity];
+        }
+
+        private void addLine(long lineNumber, String line) {
+            lineNumbers[size] = lineNumber;
+            lines[size++] = line;
+        }
+
+        private boolean isFull() {
+            return size == lines.length;
+        }
+
+        private Chunk validate(CatalogFormat format) {
+            books = new Book[size];
+            bookLines = new int[size];
+            for (int i = 0; i < size; i++) {
+                try {
+                    books[bookCount] = format.parse(lines[i]);
+                    bookLines[bookCount++] = i;
+                } catch (IllegalArgumentException e) {
+                    reject(i, e.getMessage());
+                }
+            }
+            return this;
+        }
+
+        private void reject(int index, String reason) {
+            rejections.add(new Rejection(index, reason));
+        }
+    }
+
+    private static final class Rejection {
+        private final int index;
+        private final String reason;
+
+        private Rejection(int index, String reason) {
+            this.index = index;
+            this.reason = reason;
+        }
+    }
+
+    private static final class Totals {
+        private long read;
+        private long imported;
+        private long rejected;
+    }
+}
@@ -0,0 +1,194 @@
+package com.belvinard.libraryManagementSystem.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Encodes text as UTF-8 into a byte buffer and writes the buffer to a channel whenever it fills up,
+ * so records are never built as Strings first.
+ * <p>
+ * Text is encoded into a small heap array in call-free loops, and the array is copied into the (direct)
+ * buffer in bulk: putting bytes one by one into a direct buffer, with a capacity check per byte, measured
+ * half as fast as writing Strings through a BufferedWriter.
+ */
+final class ChannelWriter {
+
+    private static final int STAGING_SIZE = 8192;
+
+    /** Stops at no char. */
+    static final boolean[] NO_STOPS = new boolean[128];
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final byte[] staging;
+    private int staged;
+    // Digits of an int, written backwards
+    private final byte[] digits = new byte[11];
+    private long bytesWritten;
+
+    ChannelWriter(WritableByteChannel channel, ByteBuffer buffer) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.staging = new byte[Math.min(STAGING_SIZE, buffer.capacity())];
+        buffer.clear();
+    }
+
+    void put(char ascii) throws IOException {
+        if (staged == staging.length) {
+            spill();
+        }
+        staging[staged++] = (byte) ascii;
+    }
+
+    /**
+     * Writes a string as UTF-8; an unpaired surrogate becomes '?', as in {@link String#getBytes}.
+     */
+    void putString(String value) throws IOException {
+        putUntil(value, 0, value.length(), NO_STOPS);
+    }
+
+    /**
+     * Writes the chars of a string as UTF-8, from {@code from} up to {@code to} or to the first ASCII char
+     * marked in {@code stops}, whichever comes first; the formats use it to find the chars they escape.
+     *
+     * @return the index of the char stopped at, or {@code to}.
+     */
+    int putUntil(String value, int from, int to, boolean[] stops) throws IOException {
+        int i = from;
+        while (i < to) {
+            if (staged == staging.length) {
+                spill();
+            }
+            // A call-free loop over the run of plain ASCII chars that fits in the staging array
+            byte[] bytes = staging;
+            int start = staged;
+            int count = Math.min(to - i, bytes.length - start);
+            int k = 0;
+            while (k < count) {
+                char c = value.charAt(i + k);
+                if (c >= 0x80 || stops[c]) {
+                    break;
+                }
+                bytes[start + k] = (byte) c;
+                k++;
+            }
+            staged = start + k;
+            i += k;
+            if (k < count) {
+                if (value.charAt(i) < 0x80) {
+                    return i;
+                }
+                i = putNonAscii(value, i, to) + 1;
+            }
+        }
+        return to;
+    }
+
+    /**
+     * Writes a whole string as UTF-8 if it contains none of the ASCII chars marked in {@code stops},
+     * in a single pass over it.
+     *
+     * @return false, with nothing written, if the string contains one of them.
+     */
+    boolean putIfNone(String value, boolean[] stops) throws IOException {
+        int length = value.length();
+        if (length * 3 > staging.length) {
+            // Might not fit in the staging array at once, so it could not be taken back: check first
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c < 0x80 && stops[c]) {
+                    return false;
+                }
+            }
+            putString(value);
+            return true;
+        }
+        // With room for 3 bytes per char nothing is spilled, so stopping can simply rewind
+        if (staging.length - staged < length * 3) {
+            spill();
+        }
+        int start = staged;
+        if (putUntil(value, 0, length, stops) < length) {
+            staged = start;
+            return false;
+        }
+        return true;
+    }
+
+    void putInt(int value) throws IOException {
+        if (staging.length - staged < digits.length) {
+            spill();
+        }
+        long remaining = value;
+        if (remaining < 0) {
+            staging[staged++] = '-';
+            remaining = -remaining;
+        }
+        int count = 0;
+        do {
+            digits[count++] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        } while (remaining > 0);
+        while (count > 0) {
+            staging[staged++] = digits[--count];
+        }
+    }
+
+    /**
+     * Writes out whatever is buffered.
+     */
+    void flush() throws IOException {
+        spill();
+        drain();
+    }
+
+    /**
+     * @return the number of bytes written to the channel so far.
+     */
+    long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    // Encodes the char at i, or the surrogate pair starting there, and returns the index of its last char
+    private int putNonAscii(String value, int i, int to) throws IOException {
+        if (staging.length - staged < 4) {
+            spill();
+        }
+        char c = value.charAt(i);
+        if (c < 0x800) {
+            staging[staged++] = (byte) (0xC0 | c >> 6);
+            staging[staged++] = (byte) (0x80 | c & 0x3F);
+        } else if (!Character.isSurrogate(c)) {
+            staging[staged++] = (byte) (0xE0 | c >> 12);
+            staging[staged++] = (byte) (0x80 | c >> 6 & 0x3F);
+            staging[staged++] = (byte) (0x80 | c & 0x3F);
+        } else if (Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(value.charAt(i + 1))) {
+            int codePoint = Character.toCodePoint(c, value.charAt(++i));
+            staging[staged++] = (byte) (0xF0 | codePoint >> 18);
+            staging[staged++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+            staging[staged++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+            staging[staged++] = (byte) (0x80 | codePoint & 0x3F);
+        } else {
+            staging[staged++] = '?';
+        }
+        return i;
+    }
+
+    // Moves the staged bytes into the buffer, writing the buffer out first if they do not fit
+    private void spill() throws IOException {
+        if (buffer.remaining() < staged) {
+            drain();
+        }
+        buffer.put(staging, 0, staged);
+        staged = 0;
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,44 @@
+package com.belvinard.libraryManagementSystem.io;
+
+import com.belvinard.libraryManagementSystem.model.Book;
+import com.belvinard.libraryManagementSystem.model.Genre;
+
+/**
+ * Selects the books of an export by genre and publication year. It is checked on each book as the
+ * export streams past it, so no list of matching books is ever built.
+ */
+public final class ExportFilter {
+
+    /** Selects every book. */
+    public static final ExportFilter ALL = new ExportFilter(null, Integer.MIN_VALUE, Integer.MAX_VALUE);
+
+    private final Genre genre;
+    private final int fromYear;
+    private final int toYear;
+
+    private ExportFilter(Genre genre, int fromYear, int toYear) {
+        this.genre = genre;
+        this.fromYear = fromYear;
+        this.toYear = toYear;
+    }
+
+    /**
+     * @param genre    The genre to keep, or null for any genre.
+     * @param fromYear The first publication year, inclusive.
+     * @param toYear   The last publication year, inclusive.
+     */
+    public static ExportFilter of(Genre genre, int fromYear, int toYear) {
+        if (fromYear > toYear) {
+            throw new IllegalArgumentException("The first year must not be after the last year.");
+        }
+        return new ExportFilter(genre, fromYear, toYear);
+    }
+
+    /**
+     * @return true if the book belongs in the export.
+     */
+    public boolean matches(Book book) {
+        int year = book.getPublicationYear();
+        return (genre == null || book.getGenreType() == genre) && year >= fromYear && year <= toYear;
+    }
+}
@@ -0,0 +1,63 @@
+package com.belvinard.libraryManagementSystem.io;
+
+/**
+ * Outcome of a catalog export: how many books were read and written, the bytes written,
+ * how long it took, and where the next page starts.
+ */
+public class ExportReport {
+
+    private final long booksScanned;
+    private final long booksWritten;
+    private final long bytesWritten;
+    private final long elapsedNanos;
+    private final int nextCursor;
+
+    public ExportReport(long booksScanned, long booksWritten, long bytesWritten, long elapsedNanos, int nextCursor) {
+        this.booksScanned = booksScanned;
+        this.booksWritten = booksWritten;
+        this.bytesWritten = bytesWritten;
+        this.elapsedNanos = elapsedNanos;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * @return the number of books read from the catalog, matching the filter or not.
+     */
+    public long getBooksScanned() {
+        return booksScanned;
+    }
+
+    public long getBooksWritten() {
+        return booksWritten;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return the cursor to pass for the next page, or -1 if the export reached the end of the catalog.
+     */
+    public int getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor >= 0;
+    }
+
+    public double getMegabytesPerSecond() {
+        return elapsedNanos == 0 ? 0 : bytesWritten * 1_000_000_000.0 / elapsedNanos / (1 << 20);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d books scanned, %d written (%d KB) in %.2f s (%.1f MB/s)%s",
+                booksScanned, booksWritten, bytesWritten >> 10, elapsedNanos / 1e9, getMegabytesPerSecond(),
+                hasMore() ? ", next cursor " + nextCursor : "");
+    }
+}
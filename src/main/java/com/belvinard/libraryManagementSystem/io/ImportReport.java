@@ -0,0 +1,52 @@
+package com.belvinard.libraryManagementSystem.io;
+
+/**
+ * Outcome of a catalog import: how many records were read, imported and rejected,
+ * how long it took and the peak heap usage observed while it ran.
+ */
+public class ImportReport {
+
+    private final long recordsRead;
+    private final long imported;
+    private final long rejected;
+    private final long elapsedNanos;
+    private final long peakHeapBytes;
+
+    public ImportReport(long recordsRead, long imported, long rejected, long elapsedNanos, long peakHeapBytes) {
+        this.recordsRead = recordsRead;
+        this.imported = imported;
+        this.rejected = rejected;
+        this.elapsedNanos = elapsedNanos;
+        this.peakHeapBytes = peakHeapBytes;
+    }
+
+    public long getRecordsRead() {
+        return recordsRead;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public long getPeakHeapBytes() {
+        return peakHeapBytes;
+    }
+
+    public double getRecordsPerSecond() {
+        return elapsedNanos == 0 ? 0 : recordsRead * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d records read, %d imported, %d rejected in %.2f s (%.0f records/s, peak heap %d MB)",
+                recordsRead, imported, rejected, elapsedNanos / 1e9, getRecordsPerSecond(), peakHeapBytes >> 20);
+    }
+}
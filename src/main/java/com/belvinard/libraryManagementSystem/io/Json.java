@@ -0,0 +1,220 @@
+package com.belvinard.libraryManagementSystem.io;
+
+import com.belvinard.libraryManagementSystem.model.Book;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Minimal hand-written JSON support for the flat objects this application exchanges
+ * (one book per object, string and number values only). No reflection is involved.
+ */
+public final class Json {
+
+    private Json() {
+    }
+
+    /**
+     * Parses a flat JSON object such as {@code {"title":"Clean Code","publicationYear":2008}}.
+     * Nested objects and arrays are not supported.
+     *
+     * @param text The JSON text.
+     * @return the fields in document order; numbers, booleans and null are returned as their literal text.
+     * @throws IllegalArgumentException if the text is not a flat JSON object.
+     */
+    public static Map<String, String> parseFlatObject(CharSequence text) {
+        Parser parser = new Parser(text);
+        Map<String, String> fields = parser.object();
+        parser.skipWhitespace();
+        if (parser.pos != text.length()) {
+            throw parser.error("Unexpected trailing characters");
+        }
+        return fields;
+    }
+
+    /**
+     * Appends a book as a flat object with the keys title, author, genre, isbn and publicationYear,
+     * the same layout {@link CatalogFormat#JSONL} reads.
+     */
+    public static StringBuilder appendBook(StringBuilder out, Book book) {
+        out.append("{\"title\":");
+        appendString(out, book.getTitle());
+        out.append(",\"author\":");
+        appendString(out, book.getAuthor());
+        out.append(",\"genre\":");
+        appendString(out, book.getGenre());
+        out.append(",\"isbn\":");
+        appendString(out, book.getISBN());
+        return out.append(",\"publicationYear\":").append(book.getPublicationYear()).append('}');
+    }
+
+    /**
+     * Appends {@code value} as a quoted JSON string, escaping as needed.
+     */
+    public static StringBuilder appendString(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        return out.append('"');
+    }
+
+    private static final class Parser {
+        private final CharSequence text;
+        private int pos;
+
+        private Parser(CharSequence text) {
+            this.text = text;
+        }
+
+        private Map<String, String> object() {
+            skipWhitespace();
+            expect('{');
+            Map<String, String> fields = new LinkedHashMap<>();
+            skipWhitespace();
+            if (peek() == '}') {
+                pos++;
+                return fields;
+            }
+            while (true) {
+                skipWhitespace();
+                String key = string();
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+                fields.put(key, value());
+                skipWhitespace();
+                char c = next();
+                if (c == '}') {
+                    return fields;
+                }
+                if (c != ',') {
+                    pos--;
+                    throw error("Expected ',' or '}'");
+                }
+            }
+        }
+
+        private String value() {
+            char c = peek();
+            if (c == '"') {
+                return string();
+            }
+            if (c == '{' || c == '[') {
+                throw error("Nested values are not supported");
+            }
+            int start = pos;
+            while (pos < text.length() && "-+.eE0123456789truefalsn".indexOf(text.charAt(pos)) >= 0) {
+                pos++;
+            }
+            if (start == pos) {
+                throw error("Expected a value");
+            }
+            return text.subSequence(start, pos).toString();
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                char c = next();
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                char escaped = next();
+                switch (escaped) {
+                    case '"':
+                    case '\\':
+                    case '/':
+                        value.append(escaped);
+                        break;
+                    case 'b':
+                        value.append('\b');
+                        break;
+                    case 'f':
+                        value.append('\f');
+                        break;
+                    case 'n':
+                        value.append('\n');
+                        break;
+                    case 'r':
+                        value.append('\r');
+                        break;
+                    case 't':
+                        value.append('\t');
+                        break;
+                    case 'u':
+                        if (pos + 4 > text.length()) {
+                            throw error("Truncated unicode escape");
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(text.subSequence(pos, pos + 4).toString(), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("Invalid unicode escape");
+                        }
+                        pos += 4;
+                        break;
+                    default:
+                        throw error("Invalid escape");
+                }
+            }
+        }
+
+        private void skipWhitespace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private char peek() {
+            if (pos >= text.length()) {
+                throw error("Unexpected end of input");
+            }
+            return text.charAt(pos);
+        }
+
+        private char next() {
+            char c = peek();
+            pos++;
+            return c;
+        }
+
+        private void expect(char expected) {
+            if (next() != expected) {
+                pos--;
+                throw error("Expected '" + expected + "'");
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Invalid JSON: " + message + " at position " + pos + ".");
+        }
+    }
+}
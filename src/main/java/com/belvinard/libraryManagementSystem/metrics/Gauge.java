@@ -0,0 +1,34 @@
+package com.belvinard.libraryManagementSystem.metrics;
+
+import java.util.function.LongSupplier;
+
+/**
+ * A named value read from its owner whenever it is published, e.g. a counter a component already keeps.
+ * Unlike {@link OperationMetrics}, nothing is recorded on the owner's hot path.
+ */
+public final class Gauge implements GaugeMBean {
+
+    private final String name;
+    private final LongSupplier value;
+
+    Gauge(String name, LongSupplier value) {
+        this.name = name;
+        this.value = value;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getValue() {
+        return value.getAsLong();
+    }
+
+    /**
+     * Appends one line such as {@code cacheHits value=1200}.
+     */
+    public void appendSummary(StringBuilder out) {
+        out.append(name).append(" value=").append(getValue());
+    }
+}
@@ -0,0 +1,9 @@
+package com.belvinard.libraryManagementSystem.metrics;
+
+/**
+ * JMX view of one {@link Gauge}.
+ */
+public interface GaugeMBean {
+
+    long getValue();
+}
@@ -0,0 +1,228 @@
+package com.belvinard.libraryManagementSystem.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Named set of {@link OperationMetrics} and {@link Gauge}s, published as JMX MBeans and optionally dumped to a file.
+ */
+public final class MetricsRegistry {
+
+    public static final String JMX_DOMAIN = "com.belvinard.libraryManagementSystem";
+
+    /** By default one call in 16 is timed; every call is counted. */
+    public static final int DEFAULT_SAMPLE_INTERVAL = 16;
+
+    /**
+     * By default one lookup in 256 is timed and counted: lookups take tens of nanoseconds,
+     * less than the two clock reads of a timed call.
+     */
+    public static final int DEFAULT_LOOKUP_SAMPLE_INTERVAL = 256;
+
+    private final boolean enabled;
+    private final int sampleInterval;
+    private final int lookupSampleInterval;
+    private final Map<String, OperationMetrics> operations = new LinkedHashMap<>();
+    private final Map<String, Gauge> gauges = new LinkedHashMap<>();
+
+    /**
+     * Creates a registry whose operations time one call in {@value #DEFAULT_SAMPLE_INTERVAL}
+     * and whose lookups one in {@value #DEFAULT_LOOKUP_SAMPLE_INTERVAL}.
+     */
+    public MetricsRegistry() {
+        this(true, DEFAULT_SAMPLE_INTERVAL, DEFAULT_LOOKUP_SAMPLE_INTERVAL);
+    }
+
+    /**
+     * Creates a registry whose operations and lookups time one call in {@code sampleInterval}, picked at random.
+     *
+     * @param sampleInterval A power of two; 1 times and counts every call.
+     */
+    public MetricsRegistry(int sampleInterval) {
+        this(true, sampleInterval, sampleInterval);
+    }
+
+    private MetricsRegistry(boolean enabled, int sampleInterval, int lookupSampleInterval) {
+        if (sampleInterval < 1 || Integer.bitCount(sampleInterval) != 1) {
+            throw new IllegalArgumentException("Sample interval must be a power of two.");
+        }
+        this.enabled = enabled;
+        this.sampleInterval = sampleInterval;
+        this.lookupSampleInterval = lookupSampleInterval;
+    }
+
+    /**
+     * @return a registry whose operations record nothing, e.g. to measure the cost of instrumentation.
+     */
+    public static MetricsRegistry disabled() {
+        return new MetricsRegistry(false, 1, 1);
+    }
+
+    /**
+     * Returns the metrics of the named operation, creating them on first use. Every call is counted.
+     */
+    public synchronized OperationMetrics operation(String name) {
+        return operations.computeIfAbsent(name, key -> new OperationMetrics(key, enabled, sampleInterval, false));
+    }
+
+    /**
+     * Returns the metrics of the named lookup, creating them on first use: an operation so cheap and
+     * frequent that only the sampled calls are counted, each for the whole sample interval.
+     * Its count is then an estimate, with a standard error of {@code sqrt(interval / count)}: about 5% at
+     * 100,000 calls and 1.6% at a million with the default interval.
+     */
+    public synchronized OperationMetrics lookup(String name) {
+        return operations.computeIfAbsent(name, key -> new OperationMetrics(key, enabled, lookupSampleInterval,
+                lookupSampleInterval > 1));
+    }
+
+    /**
+     * @return the operations, in creation order.
+     */
+    public synchronized List<OperationMetrics> operations() {
+        return new ArrayList<>(operations.values());
+    }
+
+    /**
+     * Publishes a value its owner already keeps, read each time the metrics are published.
+     * Gauges are kept even in a disabled registry, since they cost nothing until read.
+     *
+     * @param name  The name of the value, unique among the operations and gauges.
+     * @param value Reads the current value; called from the publishing threads.
+     * @return the new gauge.
+     */
+    public synchronized Gauge gauge(String name, LongSupplier value) {
+        if (name == null || value == null || operations.containsKey(name) || gauges.containsKey(name)) {
+            throw new IllegalArgumentException("A gauge needs a value and a name not used yet: " + name);
+        }
+        Gauge gauge = new Gauge(name, value);
+        gauges.put(name, gauge);
+        return gauge;
+    }
+
+    /**
+     * @return the gauges, in creation order.
+     */
+    public synchronized List<Gauge> gauges() {
+        return new ArrayList<>(gauges.values());
+    }
+
+    /**
+     * Registers one MBean per operation and per gauge, named {@code com.belvinard.libraryManagementSystem:type=<type>,name=<operation or gauge>}.
+     *
+     * @param server The MBean server, usually {@code ManagementFactory.getPlatformMBeanServer()}.
+     * @param type   The component the operations belong to, e.g. "BookService".
+     * @throws JMException if an MBean cannot be registered, e.g. because the name is taken.
+     */
+    public void registerMBeans(MBeanServer server, String type) throws JMException {
+        for (OperationMetrics metrics : operations()) {
+            server.registerMBean(metrics, objectName(type, metrics.getName()));
+        }
+        for (Gauge gauge : gauges()) {
+            server.registerMBean(gauge, objectName(type, gauge.getName()));
+        }
+    }
+
+    /**
+     * Removes the MBeans registered by {@link #registerMBeans(MBeanServer, String)}.
+     */
+    public void unregisterMBeans(MBeanServer server, String type) throws JMException {
+        List<String> names = new ArrayList<>();
+        for (OperationMetrics metrics : operations()) {
+            names.add(metrics.getName());
+        }
+        for (Gauge gauge : gauges()) {
+            names.add(gauge.getName());
+        }
+        for (String metric : names) {
+            ObjectName name = objectName(type, metric);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        }
+    }
+
+    /**
+     * @return a timestamp line followed by one summary line per operation and per gauge.
+     */
+    public String summary() {
+        StringBuilder out = new StringBuilder(256);
+        out.append(Instant.now()).append('\n');
+        for (OperationMetrics metrics : operations()) {
+            metrics.appendSummary(out);
+            out.append('\n');
+        }
+        for (Gauge gauge : gauges()) {
+            gauge.appendSummary(out);
+            out.append('\n');
+        }
+        return out.toString();
+    }
+
+    /**
+     * Appends the {@link #summary()} to a file at a fixed interval, from a background thread.
+     *
+     * @param file     The file to append to; created if needed.
+     * @param interval The time between two dumps.
+     * @return a handle that stops the dumps, after writing a last one, when closed.
+     */
+    public Closeable startFileDump(Path file, Duration interval) {
+        if (file == null || interval == null || interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("A file and a positive interval are required.");
+        }
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = interval.toMillis();
+        scheduler.scheduleAtFixedRate(() -> {
+            // An exception would cancel the schedule; report it and try again next time
+            try {
+                dump(file);
+            } catch (UncheckedIOException e) {
+                System.err.println(e.getMessage());
+            }
+        }, millis, millis, TimeUnit.MILLISECONDS);
+        return () -> {
+            scheduler.shutdownNow();
+            try {
+                scheduler.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            dump(file);
+        };
+    }
+
+    private void dump(Path file) {
+        try {
+            Files.writeString(file, summary(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write metrics to " + file + ".", e);
+        }
+    }
+
+    private static ObjectName objectName(String type, String name) throws JMException {
+        return new ObjectName(JMX_DOMAIN + ":type=" + type + ",name=" + name);
+    }
+}
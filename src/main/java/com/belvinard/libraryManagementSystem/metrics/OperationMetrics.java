@@ -0,0 +1,179 @@
+package com.belvinard.libraryManagementSystem.metrics;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call count, error count and latency histogram of one operation.
+ * Callers bracket the operation with {@link #start()} and {@link #success(long)} or {@link #failure(long)}:
+ * <pre>
+ * long start = metrics.start();
+ * try {
+ *     ...
+ *     metrics.success(start);
+ * } catch (RuntimeException e) {
+ *     metrics.failure(start);
+ *     throw e;
+ * }
+ * </pre>
+ * Only a random sample of calls is timed (one in {@code sampleInterval}, see {@link MetricsRegistry}),
+ * because reading the clock twice can cost more than a lookup itself. Percentiles are therefore estimated
+ * from the sample. Writes count every call; lookups ({@link MetricsRegistry#lookup(String)}) only count
+ * the sampled calls, each for {@code sampleInterval} calls, so that the other calls touch no shared counter
+ * and their count is an estimate. Recording is lock-free and does not allocate.
+ * A disabled instance ({@link MetricsRegistry#disabled()}) records nothing.
+ */
+public final class OperationMetrics implements OperationMetricsMBean {
+
+    private static final double NANOS_PER_MICRO = 1000.0;
+
+    // Returned by start() for calls that are not timed
+    private static final long NOT_SAMPLED = Long.MIN_VALUE;
+
+    // Calls are counted in 8 stripes, one per 64-byte cache line, picked by the top bits of the
+    // random number that also decides sampling, so concurrent callers rarely share a counter
+    private static final int STRIPE_SHIFT = 29;
+    private static final int STRIPE_PADDING = 8;
+
+    private final String name;
+    private final boolean enabled;
+    private final int sampleMask;
+    // 1 when every call is counted, otherwise the number of calls each sampled call stands for
+    private final int callsPerCount;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final AtomicLongArray calls = new AtomicLongArray((1 << (32 - STRIPE_SHIFT)) * STRIPE_PADDING);
+    private final LongAdder errors = new LongAdder();
+
+    OperationMetrics(String name, boolean enabled, int sampleInterval, boolean countSampled) {
+        this.name = name;
+        this.enabled = enabled;
+        this.sampleMask = sampleInterval - 1;
+        this.callsPerCount = countSampled ? sampleInterval : 1;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Counts a call (or, for a lookup, a sampled call) and, if it is sampled, reads the clock.
+     *
+     * @return the start time to pass to {@link #success(long)} or {@link #failure(long)}.
+     */
+    public long start() {
+        if (!enabled) {
+            return NOT_SAMPLED;
+        }
+        int random = ThreadLocalRandom.current().nextInt();
+        int stripe = (random >>> STRIPE_SHIFT) * STRIPE_PADDING;
+        if ((random & sampleMask) != 0) {
+            if (callsPerCount == 1) {
+                calls.incrementAndGet(stripe);
+            }
+            return NOT_SAMPLED;
+        }
+        calls.addAndGet(stripe, callsPerCount);
+        return System.nanoTime();
+    }
+
+    /**
+     * Records a call that completed normally.
+     */
+    public void success(long start) {
+        if (start != NOT_SAMPLED) {
+            latencies.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records a call that failed with an exception.
+     */
+    public void failure(long start) {
+        if (enabled) {
+            errors.increment();
+            success(start);
+        }
+    }
+
+    /**
+     * @return the latencies of the timed calls, in nanoseconds.
+     */
+    public LatencyHistogram.Snapshot latencies() {
+        return latencies.snapshot();
+    }
+
+    @Override
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < calls.length(); i += STRIPE_PADDING) {
+            count += calls.get(i);
+        }
+        return count;
+    }
+
+    @Override
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return latencies.snapshot().getMean() / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return percentileMicros(50);
+    }
+
+    @Override
+    public double getP90Micros() {
+        return percentileMicros(90);
+    }
+
+    @Override
+    public double getP99Micros() {
+        return percentileMicros(99);
+    }
+
+    @Override
+    public double getP999Micros() {
+        return percentileMicros(99.9);
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return latencies.snapshot().getMax() / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public void reset() {
+        latencies.reset();
+        for (int i = 0; i < calls.length(); i += STRIPE_PADDING) {
+            calls.set(i, 0);
+        }
+        errors.reset();
+    }
+
+    /**
+     * Appends one line such as {@code getBookByISBN count=120 errors=0 mean=0.4us p50=0.3us ...}.
+     */
+    public void appendSummary(StringBuilder out) {
+        LatencyHistogram.Snapshot snapshot = latencies.snapshot();
+        out.append(name)
+                .append(" count=").append(getCount())
+                .append(" errors=").append(errors.sum())
+                .append(String.format(" mean=%.1fus p50=%.1fus p90=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus",
+                        snapshot.getMean() / NANOS_PER_MICRO,
+                        snapshot.getPercentile(50) / NANOS_PER_MICRO,
+                        snapshot.getPercentile(90) / NANOS_PER_MICRO,
+                        snapshot.getPercentile(99) / NANOS_PER_MICRO,
+                        snapshot.getPercentile(99.9) / NANOS_PER_MICRO,
+                        snapshot.getMax() / NANOS_PER_MICRO));
+    }
+
+    private double percentileMicros(double percentile) {
+        return latencies.snapshot().getPercentile(percentile) / NANOS_PER_MICRO;
+    }
+}
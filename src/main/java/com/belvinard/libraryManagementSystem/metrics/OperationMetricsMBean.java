@@ -0,0 +1,28 @@
+package com.belvinard.libraryManagementSystem.metrics;
+
+/**
+ * JMX view of one {@link OperationMetrics}. Latencies are in microseconds.
+ */
+public interface OperationMetricsMBean {
+
+    long getCount();
+
+    long getErrorCount();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP90Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    double getMaxMicros();
+
+    /**
+     * Clears the counts and latencies.
+     */
+    void reset();
+}
@@ -1,95 +1,109 @@
 package com.belvinard.libraryManagementSystem.model;
 
-import lombok.*;
-
-import java.util.List;
-import java.util.regex.Pattern;
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
-
-public class Book {
-    private String title;
-    private String author;
-    private String genre;
-    private String ISBN;
-    private int publicationYear;
-
-    // Constructor that will call setters with validation
+/**
+ * An immutable book. Every field is validated by the constructor; the {@code with...} methods
+ * return a validated copy with one field changed, so a stored book never changes under its readers.
+ */
+public final class Book {
+    private final String title;
+    private final String author;
+    private final Genre genre;
+    private final String ISBN;
+    private final int publicationYear;
+
+    // Constructor that validates every field
     public Book(String title, String author, String genre, String ISBN, int publicationYear) {
-        setTitle(title);
-        setAuthor(author);
-        setGenre(genre);
-        setISBN(ISBN);
-        setPublicationYear(publicationYear);
+        this(title, author, resolveGenre(genre), ISBN, publicationYear);
+    }
+
+    private Book(String title, String author, Genre genre, String ISBN, int publicationYear) {
+        this.title = validTitle(title);
+        this.author = validAuthor(author);
+        this.genre = validGenre(genre);
+        this.ISBN = validIsbn(ISBN);
+        this.publicationYear = validPublicationYear(publicationYear);
+    }
+
+    /**
+     * @return a copy of this book with another title.
+     */
+    public Book withTitle(String title) {
+        return new Book(title, author, genre, ISBN, publicationYear);
+    }
+
+    /**
+     * @return a copy of this book with another author.
+     */
+    public Book withAuthor(String author) {
+        return new Book(title, author, genre, ISBN, publicationYear);
+    }
+
+    /**
+     * @return a copy of this book with another genre, given by name (case-insensitive).
+     */
+    public Book withGenre(String genre) {
+        return new Book(title, author, resolveGenre(genre), ISBN, publicationYear);
+    }
+
+    /**
+     * @return a copy of this book with another ISBN.
+     */
+    public Book withISBN(String ISBN) {
+        return new Book(title, author, genre, ISBN, publicationYear);
+    }
+
+    /**
+     * @return a copy of this book with another publication year.
+     */
+    public Book withPublicationYear(int publicationYear) {
+        return new Book(title, author, genre, ISBN, publicationYear);
     }
 
     // Title Validation
-    public void setTitle(String title) {
-        if (title == null || title.trim().isEmpty() || title.length() < 3) {
+    private static String validTitle(String title) {
+        if (!BookValidator.hasValidTitleLength(title)) {
             throw new IllegalArgumentException("Invalid title. It must be at least 3 characters long and not empty.");
         }
-        if (!Pattern.matches("^[a-zA-Z0-9\\s]+$", title)) {
+        if (!BookValidator.hasValidTitleCharacters(title)) {
             throw new IllegalArgumentException("Invalid title format. Only alphabetic characters, numbers, and spaces are allowed.");
         }
-        this.title = title;
+        return title;
     }
 
     // Author Validation
-    public void setAuthor(String author) {
-        if (author == null || !Pattern.matches("^[a-zA-Z]+([\\s][a-zA-Z]+)*$", author)) {
+    private static String validAuthor(String author) {
+        if (!BookValidator.isValidAuthor(author)) {
             throw new IllegalArgumentException("Invalid author format. Only alphabetic characters and space are allowed.");
         }
-        this.author = author;
+        return author;
     }
 
     // ISBN Validation
-    public void setISBN(String ISBN) {
-        if (ISBN == null || !Pattern.matches("\\d{5}", ISBN)) {
+    private static String validIsbn(String ISBN) {
+        if (!BookValidator.isValidIsbn(ISBN)) {
             throw new IllegalArgumentException("Invalid ISBN format. Must be 5 digits.");
         }
-        this.ISBN = ISBN;
+        return ISBN;
     }
 
     // Publication Year Validation
-    public void setPublicationYear(int publicationYear) {
-        int currentYear = java.time.Year.now().getValue();
-        if (publicationYear < 1000 || publicationYear > currentYear) {
+    private static int validPublicationYear(int publicationYear) {
+        if (!BookValidator.isValidPublicationYear(publicationYear)) {
             throw new IllegalArgumentException("Invalid publication year. It must be between 1000 and the current year.");
         }
-        this.publicationYear = publicationYear;
-    }
-
-    /*public void setGenre(String genre) {
-        // Define the allowed genres in a list
-        List<String> allowedGenres = Arrays.asList(
-                "Data Structures", "Software Development", "Java", "Python",
-                "JavaScript", "Databases", "Software Architecture & Design",
-                "Biography", "History"
-        );
-
-        // Validate genre: Convert genre to lowercase for case-insensitive checking
-        if (genre == null || allowedGenres.stream()
-                .noneMatch(allowedGenre -> allowedGenre.equalsIgnoreCase(genre))) {
-            throw new IllegalArgumentException(
-                    "Invalid genre. It must be one of: " + String.join(", ", allowedGenres)
-            );
-        }
-        this.genre = genre;
-    }*/
-
+        return publicationYear;
+    }
 
+    // Genre Validation: the name is resolved to its canonical Genre, ignoring case
+    private static Genre resolveGenre(String genre) {
+        return validGenre(Genre.fromName(genre));
+    }
 
-    // Genre Validation
-    public void setGenre(String genre) {
-        Set<String> allowedGenres = new HashSet<>(Arrays.asList("Data Structures", "Software Development", "Java", "Python", "JavaScript", "Databases", "Software Architecture & Design", "Biography", "History"));
-        if (genre == null || allowedGenres.stream()
-                .noneMatch(allowedGenre -> allowedGenre.equalsIgnoreCase(genre))) {
-            throw new IllegalArgumentException(
-                    "Invalid genre. It must be one of: " + String.join(", ", allowedGenres)
-            );
+    private static Genre validGenre(Genre genre) {
+        if (genre == null) {
+            throw new IllegalArgumentException("Invalid genre. It must be one of: " + Genre.allowedNames());
         }
-        this.genre = genre;
+        return genre;
     }
 
     public String getISBN() {
@@ -100,7 +114,12 @@ public class Book {
         return title;
     }
 
+    // Returns the canonical display name of the genre
     public String getGenre() {
+        return genre.getDisplayName();
+    }
+
+    public Genre getGenreType() {
         return genre;
     }
 
@@ -111,4 +130,4 @@ public class Book {
     public String getAuthor() {
         return author;
     }
-}
\ No newline at end of file
+}
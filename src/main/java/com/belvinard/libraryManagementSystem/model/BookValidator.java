@@ -0,0 +1,181 @@
+package com.belvinard.libraryManagementSystem.model;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * Validation rules shared by {@link Book} and the console.
+ * The checks are hand-written character loops, so validating a field never
+ * compiles a regular expression or allocates.
+ */
+public final class BookValidator {
+
+    public static final int MIN_TITLE_LENGTH = 3;
+    public static final int ISBN_LENGTH = 5;
+    public static final int MIN_PUBLICATION_YEAR = 1000;
+
+    // Clock used to work out the current year, replaceable for tests and tools
+    private static volatile Clock clock = Clock.systemDefaultZone();
+
+    // Current year and the instant it ends, recomputed once the year rolls over
+    private static volatile YearWindow yearWindow;
+
+    private BookValidator() {
+    }
+
+    /**
+     * A title must be at least 3 characters long, not blank,
+     * and contain only letters, digits and whitespace.
+     */
+    public static boolean isValidTitle(String title) {
+        return hasValidTitleLength(title) && hasValidTitleCharacters(title);
+    }
+
+    /**
+     * Checks only the length part of the title rule (not null, not blank, at least 3 characters).
+     */
+    public static boolean hasValidTitleLength(String title) {
+        return title != null && title.length() >= MIN_TITLE_LENGTH && !isBlank(title);
+    }
+
+    /**
+     * Checks only the character part of the title rule (letters, digits and whitespace).
+     */
+    public static boolean hasValidTitleCharacters(String title) {
+        if (title == null || title.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < title.length(); i++) {
+            char c = title.charAt(i);
+            if (!isAsciiLetter(c) && !isAsciiDigit(c) && !isWhitespace(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * An author is one or more words of letters, separated by single whitespace characters.
+     */
+    public static boolean isValidAuthor(String author) {
+        if (author == null || author.isEmpty()) {
+            return false;
+        }
+        boolean previousWasLetter = false;
+        for (int i = 0; i < author.length(); i++) {
+            char c = author.charAt(i);
+            if (isAsciiLetter(c)) {
+                previousWasLetter = true;
+            } else if (isWhitespace(c) && previousWasLetter) {
+                previousWasLetter = false;
+            } else {
+                return false;
+            }
+        }
+        // Must not end with a separator
+        return previousWasLetter;
+    }
+
+    /**
+     * An ISBN is exactly 5 digits.
+     */
+    public static boolean isValidIsbn(String isbn) {
+        if (isbn == null || isbn.length() != ISBN_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < ISBN_LENGTH; i++) {
+            if (!isAsciiDigit(isbn.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A publication year lies between 1000 and the current year.
+     */
+    public static boolean isValidPublicationYear(int publicationYear) {
+        return publicationYear >= MIN_PUBLICATION_YEAR && publicationYear <= currentYear();
+    }
+
+    /**
+     * A genre is valid when it names one of the {@link Genre} values, ignoring case.
+     */
+    public static boolean isValidGenre(String genre) {
+        return Genre.fromName(genre) != null;
+    }
+
+    /**
+     * Returns the current year. The value is cached and only recomputed
+     * once the clock passes the end of the cached year.
+     *
+     * @return the current calendar year in the clock's time zone.
+     */
+    public static int currentYear() {
+        YearWindow window = yearWindow;
+        long now = clock.millis();
+        if (window == null || now >= window.endMillis || now < window.startMillis) {
+            window = YearWindow.containing(clock);
+            yearWindow = window;
+        }
+        return window.year;
+    }
+
+    /**
+     * Replaces the clock used for the current year, e.g. to simulate a year rollover.
+     *
+     * @param newClock The clock to use from now on.
+     */
+    public static void setClock(Clock newClock) {
+        if (newClock == null) {
+            throw new IllegalArgumentException("Clock cannot be null.");
+        }
+        clock = newClock;
+        yearWindow = null;
+    }
+
+    private static boolean isBlank(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (!isWhitespace(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // Same set of characters as the regex class \s
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    // Immutable holder so the year and its bounds are always read together
+    private static final class YearWindow {
+        private final int year;
+        private final long startMillis;
+        private final long endMillis;
+
+        private YearWindow(int year, long startMillis, long endMillis) {
+            this.year = year;
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+        }
+
+        private static YearWindow containing(Clock clock) {
+            ZoneId zone = clock.getZone();
+            ZonedDateTime now = ZonedDateTime.ofInstant(Instant.ofEpochMilli(clock.millis()), zone);
+            ZonedDateTime start = now.withDayOfYear(1).toLocalDate().atStartOfDay(zone);
+            ZonedDateTime end = start.plusYears(1);
+            return new YearWindow(now.getYear(), start.toInstant().toEpochMilli(), end.toInstant().toEpochMilli());
+        }
+    }
+}
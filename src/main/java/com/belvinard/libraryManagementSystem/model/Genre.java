@@ -0,0 +1,77 @@
+package com.belvinard.libraryManagementSystem.model;
+
+/**
+ * The fixed set of genres a book may belong to.
+ * Each genre is a canonical instance, so books share it instead of holding their own String.
+ */
+public enum Genre {
+    DATA_STRUCTURES("Data Structures"),
+    SOFTWARE_DEVELOPMENT("Software Development"),
+    JAVA("Java"),
+    PYTHON("Python"),
+    JAVASCRIPT("JavaScript"),
+    DATABASES("Databases"),
+    SOFTWARE_ARCHITECTURE_AND_DESIGN("Software Architecture & Design"),
+    BIOGRAPHY("Biography"),
+    HISTORY("History");
+
+    // Cached copy of values() so lookups do not clone the array on every call
+    private static final Genre[] VALUES = values();
+
+    // Comma separated list of display names, used in prompts and error messages
+    private static final String ALLOWED_NAMES = buildAllowedNames();
+
+    private final String displayName;
+
+    Genre(String displayName) {
+        this.displayName = displayName;
+    }
+
+    /**
+     * @return the human readable name of the genre, e.g. "Data Structures".
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Resolves a genre from its display name, ignoring case.
+     *
+     * @param name The name entered by the user.
+     * @return the matching Genre, or null if the name is not an allowed genre.
+     */
+    public static Genre fromName(String name) {
+        if (name == null) {
+            return null;
+        }
+        for (Genre genre : VALUES) {
+            if (genre.displayName.equalsIgnoreCase(name)) {
+                return genre;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the allowed genre names separated by commas.
+     */
+    public static String allowedNames() {
+        return ALLOWED_NAMES;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+
+    private static String buildAllowedNames() {
+        StringBuilder names = new StringBuilder();
+        for (Genre genre : values()) {
+            if (names.length() > 0) {
+                names.append(", ");
+            }
+            names.append(genre.displayName);
+        }
+        return names.toString();
+    }
+}
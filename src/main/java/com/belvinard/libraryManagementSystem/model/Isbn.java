@@ -0,0 +1,42 @@
+package com.belvinard.libraryManagementSystem.model;
+
+/**
+ * Conversions between the 5-digit ISBN strings used by {@link Book} and their numeric value,
+ * for storage formats that keep the ISBN as a primitive.
+ */
+public final class Isbn {
+
+    /** Number of distinct ISBNs, i.e. the largest possible catalog. */
+    public static final int CAPACITY = 100_000;
+
+    private Isbn() {
+    }
+
+    /**
+     * @param isbn A valid 5-digit ISBN, e.g. "01234".
+     * @return its numeric value, e.g. 1234.
+     */
+    public static int toInt(String isbn) {
+        int value = 0;
+        for (int i = 0; i < BookValidator.ISBN_LENGTH; i++) {
+            value = value * 10 + (isbn.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    /**
+     * @param value A number between 0 and 99999.
+     * @return the zero-padded 5-digit ISBN.
+     */
+    public static String toString(int value) {
+        if (value < 0 || value >= CAPACITY) {
+            throw new IllegalArgumentException("Invalid ISBN value: " + value);
+        }
+        char[] digits = new char[BookValidator.ISBN_LENGTH];
+        for (int i = digits.length - 1; i >= 0; i--) {
+            digits[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return new String(digits);
+    }
+}
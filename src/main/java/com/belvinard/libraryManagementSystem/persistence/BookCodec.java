@@ -0,0 +1,73 @@
+package com.belvinard.libraryManagementSystem.persistence;
+
+import com.belvinard.libraryManagementSystem.model.Book;
+import com.belvinard.libraryManagementSystem.model.Genre;
+import com.belvinard.libraryManagementSystem.model.Isbn;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary encoding of a {@link Book}, shared by the write-ahead log and snapshots.
+ * Layout: ISBN as an int, publication year as a short, genre ordinal as a byte, then
+ * title and author as a 2-byte length followed by their characters, one byte each
+ * (validated titles and authors are plain ASCII).
+ */
+public final class BookCodec {
+
+    private static final Genre[] GENRES = Genre.values();
+
+    private BookCodec() {
+    }
+
+    /**
+     * @return the number of bytes {@link #encode(Book, ByteBuffer)} writes for this book.
+     * @throws IllegalArgumentException if the title or author is too long to encode, so callers can
+     *                                  check a book before writing anything.
+     */
+    public static int encodedSize(Book book) {
+        return 4 + 2 + 1 + asciiSize(book.getTitle()) + asciiSize(book.getAuthor());
+    }
+
+    public static void encode(Book book, ByteBuffer out) {
+        out.putInt(Isbn.toInt(book.getISBN()));
+        out.putShort((short) book.getPublicationYear());
+        out.put((byte) book.getGenreType().ordinal());
+        putAscii(book.getTitle(), out);
+        putAscii(book.getAuthor(), out);
+    }
+
+    /**
+     * Decodes a book written by {@link #encode(Book, ByteBuffer)}; the book is validated again.
+     */
+    public static Book decode(ByteBuffer in) {
+        int isbn = in.getInt();
+        int year = in.getShort();
+        Genre genre = GENRES[in.get()];
+        String title = getAscii(in);
+        String author = getAscii(in);
+        return new Book(title, author, genre.getDisplayName(), Isbn.toString(isbn), year);
+    }
+
+    private static int asciiSize(String value) {
+        if (value.length() > Character.MAX_VALUE) {
+            throw new IllegalArgumentException("Value too long to persist: " + value.length() + " characters.");
+        }
+        return 2 + value.length();
+    }
+
+    private static void putAscii(String value, ByteBuffer out) {
+        asciiSize(value);
+        out.putChar((char) value.length());
+        for (int i = 0; i < value.length(); i++) {
+            out.put((byte) value.charAt(i));
+        }
+    }
+
+    private static String getAscii(ByteBuffer in) {
+        int length = in.getChar();
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,216 @@
+package com.belvinard.libraryManagementSystem.persistence;
+
+import com.belvinard.libraryManagementSystem.data.CatalogListener;
+import com.belvinard.libraryManagementSystem.data.CatalogSnapshot;
+import com.belvinard.libraryManagementSystem.data.LibraryData;
+import com.belvinard.libraryManagementSystem.model.Book;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Makes a {@link LibraryData} durable.
+ * On {@link #open} the newest snapshot is loaded and the write-ahead log tail replayed. After that,
+ * every add and update is appended to the log, and the write call returns only once
+ * the record is durable. Checkpoints write a fresh snapshot and drop the log segments it covers.
+ */
+public class CatalogPersistence implements CatalogListener, Closeable {
+
+    private final Path directory;
+    private final LibraryData libraryData;
+    private final WriteAheadLog wal;
+
+    // Sequence number of the last record appended by the current thread, waited on in afterWrite
+    private final ThreadLocal<long[]> lastAppended = ThreadLocal.withInitial(() -> new long[]{-1});
+
+    private ScheduledExecutorService checkpointer;
+
+    private final int recoveredFromSnapshot;
+    private final long replayedRecords;
+    private final long recoveryNanos;
+
+    private CatalogPersistence(Path directory, LibraryData libraryData, WriteAheadLog wal,
+                               int recoveredFromSnapshot, long replayedRecords, long recoveryNanos) {
+        this.directory = directory;
+        this.libraryData = libraryData;
+        this.wal = wal;
+        this.recoveredFromSnapshot = recoveredFromSnapshot;
+        this.replayedRecords = replayedRecords;
+        this.recoveryNanos = recoveryNanos;
+    }
+
+    /**
+     * Recovers the catalog stored in {@code directory} into an empty LibraryData and starts logging its changes.
+     *
+     * @param directory   The data directory; created if missing.
+     * @param libraryData The (empty) catalog to recover into.
+     * @param fsync       Whether each write waits for an fsync (group-committed) or only for the write to the OS.
+     * @return the persistence layer, registered as a listener of libraryData.
+     * @throws IOException if the stored catalog cannot be read.
+     */
+    public static CatalogPersistence open(Path directory, LibraryData libraryData, boolean fsync) throws IOException {
+        if (libraryData.size() != 0) {
+            throw new IllegalArgumentException("Recovery needs an empty LibraryData.");
+        }
+        long start = System.nanoTime();
+        Files.createDirectories(directory);
+
+        long fromSeq = 0;
+        int snapshotBooks = 0;
+        Path snapshotPath = SnapshotFile.latest(directory);
+        if (snapshotPath != null) {
+            SnapshotFile snapshot = SnapshotFile.read(snapshotPath);
+            libraryData.addBooks(snapshot.getBooks());
+            fromSeq = snapshot.getSeq();
+            snapshotBooks = snapshot.getBooks().size();
+        }
+
+        long nextSeq = WriteAheadLog.replay(directory, fromSeq, new WriteAheadLog.RecordHandler() {
+            @Override
+            public void added(Book book) {
+                libraryData.addBook(book);
+            }
+
+            @Override
+            public void updated(String isbn, Book book) {
+                libraryData.updateBook(isbn, book);
+            }
+        });
+
+        WriteAheadLog wal = new WriteAheadLog(directory, nextSeq, fsync);
+        CatalogPersistence persistence = new CatalogPersistence(directory, libraryData, wal,
+                snapshotBooks, nextSeq - fromSeq, System.nanoTime() - start);
+        libraryData.addListener(persistence);
+        return persistence;
+    }
+
+    @Override
+    public void bookAdded(Book book) {
+        lastAppended.get()[0] = wal.appendAdd(book);
+    }
+
+    @Override
+    public void booksAdded(List<Book> books) {
+        if (!books.isEmpty()) {
+            lastAppended.get()[0] = wal.appendAdds(books);
+        }
+    }
+
+    @Override
+    public void bookUpdated(String isbn, Book before, Book after) {
+        lastAppended.get()[0] = wal.appendUpdate(isbn, after);
+    }
+
+    @Override
+    public void booksUpdated(List<Book> before, List<Book> after) {
+        if (!after.isEmpty()) {
+            lastAppended.get()[0] = wal.appendUpdates(after);
+        }
+    }
+
+    @Override
+    public void afterWrite() {
+        long[] seq = lastAppended.get();
+        if (seq[0] >= 0) {
+            long waitFor = seq[0];
+            seq[0] = -1;
+            wal.awaitDurable(waitFor);
+        }
+    }
+
+    /**
+     * Writes a snapshot of the whole catalog and deletes the log segments and snapshots it supersedes.
+     * Writes are paused only while the log is rotated and the catalog snapshot is taken,
+     * which with a {@link com.belvinard.libraryManagementSystem.data.VersionedBookStore} copies nothing.
+     *
+     * @return the written snapshot file.
+     */
+    public synchronized Path checkpoint() throws IOException {
+        Checkpoint checkpoint = libraryData.withWritesPaused(books -> {
+            try {
+                return new Checkpoint(wal.rotate(), libraryData.snapshot());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        Path snapshot = SnapshotFile.write(directory, checkpoint.seq, checkpoint.catalog.books());
+        wal.deleteSegmentsBefore(checkpoint.seq);
+        SnapshotFile.deleteOlderThan(directory, checkpoint.seq);
+        return snapshot;
+    }
+
+    /**
+     * Takes a checkpoint at a fixed interval on a background thread.
+     *
+     * @param interval Time between checkpoints.
+     */
+    public synchronized void startPeriodicCheckpoints(Duration interval) {
+        if (checkpointer != null) {
+            throw new IllegalStateException("Periodic checkpoints are already running.");
+        }
+        checkpointer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalog-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = interval.toMillis();
+        checkpointer.scheduleWithFixedDelay(() -> {
+            try {
+                checkpoint();
+            } catch (IOException | UncheckedIOException e) {
+                System.err.println("Catalog checkpoint failed: " + e.getMessage());
+            }
+        }, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the number of books loaded from the snapshot during recovery.
+     */
+    public int getRecoveredFromSnapshot() {
+        return recoveredFromSnapshot;
+    }
+
+    /**
+     * @return the number of log records replayed during recovery.
+     */
+    public long getReplayedRecords() {
+        return replayedRecords;
+    }
+
+    /**
+     * @return how long recovery took.
+     */
+    public long getRecoveryNanos() {
+        return recoveryNanos;
+    }
+
+    /**
+     * Stops logging, flushes the log and stops periodic checkpoints. Later changes are not persisted.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (checkpointer != null) {
+            checkpointer.shutdownNow();
+        }
+        libraryData.removeListener(this);
+        wal.close();
+    }
+
+    private static final class Checkpoint {
+        private final long seq;
+        private final CatalogSnapshot catalog;
+
+        private Checkpoint(long seq, CatalogSnapshot catalog) {
+            this.seq = seq;
+            this.catalog = catalog;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.belvinard.libraryManagementSystem.persistence;
+
+import com.belvinard.libraryManagementSystem.model.Book;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * A compacted copy of the whole catalog, named after the first write-ahead log sequence number it does not cover.
+ * Layout: magic, version, sequence number and book count, the {@link BookCodec}-encoded books,
+ * and a CRC32 of the books. Snapshots are written to a temporary file and renamed into place,
+ * and read back through a memory-mapped buffer. The same format serves as a prebuilt catalog image.
+ */
+public final class SnapshotFile {
+
+    private static final int MAGIC = 0x4C425331; // "LBS1"
+    private static final int VERSION = 1;
+    private static final int HEADER = 4 + 4 + 8 + 4;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+    private static final int WRITE_BUFFER = 1 << 20;
+
+    private final long seq;
+    private final List<Book> books;
+
+    private SnapshotFile(long seq, List<Book> books) {
+        this.seq = seq;
+        this.books = books;
+    }
+
+    /**
+     * @return the first log sequence number not covered by this snapshot, i.e. where replay starts.
+     */
+    public long getSeq() {
+        return seq;
+    }
+
+    public List<Book> getBooks() {
+        return books;
+    }
+
+    /**
+     * Writes a snapshot atomically.
+     *
+     * @param directory The directory holding snapshots.
+     * @param seq       The first log sequence number not covered by {@code books}.
+     * @param books     The whole catalog at that point.
+     * @return the written file.
+     */
+    public static Path write(Path directory, long seq, List<Book> books) throws IOException {
+        Path target = path(directory, seq);
+        writeFile(target, seq, books);
+        return target;
+    }
+
+    /**
+     * Writes a snapshot atomically to the given file. With {@code seq} 0 this is a standalone catalog image,
+     * e.g. a prebuilt catalog that the application loads at startup with {@link #read(Path)}.
+     *
+     * @param target The file to write; replaced if it exists.
+     * @param seq    The first log sequence number not covered by {@code books}.
+     * @param books  The whole catalog.
+     */
+    public static void writeFile(Path target, long seq, List<Book> books) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(seq).putInt(books.size());
+            int bodyStart = buffer.position();
+            for (Book book : books) {
+                if (buffer.remaining() < BookCodec.encodedSize(book)) {
+                    bodyStart = drain(out, buffer, bodyStart, crc);
+                }
+                BookCodec.encode(book, buffer);
+            }
+            drain(out, buffer, bodyStart, crc);
+            buffer.putInt((int) crc.getValue()).flip();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory(directory);
+    }
+
+    /**
+     * Reads a snapshot through a memory-mapped buffer.
+     *
+     * @throws IOException if the file cannot be read or is corrupt.
+     */
+    public static SnapshotFile read(Path file) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            if (buffer.remaining() < HEADER + 4 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Not a catalog snapshot: " + file);
+            }
+            long seq = buffer.getLong();
+            int count = buffer.getInt();
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate().limit(buffer.limit() - 4));
+            if ((int) crc.getValue() != buffer.getInt(buffer.limit() - 4)) {
+                throw new IOException("Corrupt catalog snapshot: " + file);
+            }
+            List<Book> books = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                books.add(BookCodec.decode(buffer));
+            }
+            return new SnapshotFile(seq, books);
+        }
+    }
+
+    /**
+     * @return the newest snapshot in the directory, or null if there is none.
+     */
+    public static Path latest(Path directory) throws IOException {
+        List<Long> seqs = seqs(directory);
+        return seqs.isEmpty() ? null : path(directory, seqs.get(seqs.size() - 1));
+    }
+
+    /**
+     * Deletes the snapshots older than {@code seq} and any leftover temporary files.
+     */
+    public static void deleteOlderThan(Path directory, long seq) throws IOException {
+        for (long older : seqs(directory)) {
+            if (older < seq) {
+                Files.deleteIfExists(path(directory, older));
+            }
+        }
+        try (DirectoryStream<Path> temps = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX + ".tmp")) {
+            for (Path temp : temps) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    // Writes the buffered bytes and folds the book bytes into the checksum; returns the new body start (0)
+    private static int drain(FileChannel out, ByteBuffer buffer, int bodyStart, CRC32 crc) throws IOException {
+        buffer.flip();
+        crc.update(buffer.duplicate().position(bodyStart));
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+        return 0;
+    }
+
+    private static void syncDirectory(Path directory) {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // Not supported on every platform; the rename itself is already atomic
+        }
+    }
+
+    private static Path path(Path directory, long seq) {
+        return directory.resolve(String.format("%s%020d%s", PREFIX, seq, SUFFIX));
+    }
+
+    private static List<Long> seqs(Path directory) throws IOException {
+        List<Long> seqs = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                seqs.add(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+            }
+        }
+        Collections.sort(seqs);
+        return seqs;
+    }
+}
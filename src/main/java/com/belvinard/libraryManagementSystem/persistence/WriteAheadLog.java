@@ -0,0 +1,394 @@
+package com.belvinard.libraryManagementSystem.persistence;
+
+import com.belvinard.libraryManagementSystem.model.Book;
+import com.belvinard.libraryManagementSystem.model.Isbn;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary log of catalog changes, split into segment files named after their first sequence number.
+ * Each record is {@code [length][crc32][sequence][type][body]}, where the body is a
+ * {@link BookCodec}-encoded book, preceded by the old ISBN for updates.
+ *
+ * Appends only copy the record into a memory buffer. {@link #awaitDurable(long)} then
+ * group-commits: the first waiting thread writes and fsyncs everything appended so far,
+ * and threads that append meanwhile are covered by the next single fsync.
+ */
+public class WriteAheadLog implements Closeable {
+
+    static final byte ADD = 1;
+    static final byte UPDATE = 2;
+
+    private static final String PREFIX = "wal-";
+    private static final String SUFFIX = ".log";
+    private static final int RECORD_HEADER = 4 + 4;
+    private static final int INITIAL_BUFFER = 64 * 1024;
+
+    private final Path directory;
+    private final boolean fsync;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushed = lock.newCondition();
+    private final CRC32 crc = new CRC32();
+
+    private FileChannel channel;
+    private ByteBuffer pending = ByteBuffer.allocate(INITIAL_BUFFER);
+    private ByteBuffer flushing = ByteBuffer.allocate(INITIAL_BUFFER);
+    private long nextSeq;
+    private long durableSeq;
+    private boolean flushInProgress;
+    private IOException failure;
+
+    /**
+     * Opens a new segment whose first record will get sequence number {@code nextSeq}.
+     *
+     * @param directory The directory holding the segments.
+     * @param nextSeq   The sequence number of the next record, see {@link #replay(Path, long, RecordHandler)}.
+     * @param fsync     Whether commits wait for an fsync (true) or only for the write to the OS (false).
+     * @throws IOException if the segment cannot be created.
+     */
+    public WriteAheadLog(Path directory, long nextSeq, boolean fsync) throws IOException {
+        this.directory = directory;
+        this.fsync = fsync;
+        this.nextSeq = nextSeq;
+        this.durableSeq = nextSeq;
+        this.channel = openSegment(nextSeq);
+    }
+
+    /**
+     * Appends an add record.
+     *
+     * @return the record's sequence number.
+     */
+    public long appendAdd(Book book) {
+        lock.lock();
+        try {
+            return append(ADD, null, book);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends one add record per book under a single lock acquisition.
+     *
+     * @return the sequence number of the last record, or -1 if the list is empty.
+     */
+    public long appendAdds(List<Book> books) {
+        long last = -1;
+        lock.lock();
+        try {
+            for (Book book : books) {
+                last = append(ADD, null, book);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return last;
+    }
+
+    /**
+     * Appends an update record.
+     *
+     * @param isbn The ISBN the book was stored under before the update.
+     * @param book The new version of the book.
+     * @return the record's sequence number.
+     */
+    public long appendUpdate(String isbn, Book book) {
+        lock.lock();
+        try {
+            return append(UPDATE, isbn, book);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends one update record per book under a single lock acquisition; each book keeps its ISBN.
+     *
+     * @return the sequence number of the last record, or -1 if the list is empty.
+     */
+    public long appendUpdates(List<Book> books) {
+        long last = -1;
+        lock.lock();
+        try {
+            for (Book book : books) {
+                last = append(UPDATE, book.getISBN(), book);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return last;
+    }
+
+    /**
+     * Blocks until the record with the given sequence number, and every record before it, is durable.
+     *
+     * @throws UncheckedIOException if writing the log failed.
+     */
+    public void awaitDurable(long seq) {
+        lock.lock();
+        try {
+            while (durableSeq <= seq) {
+                if (failure != null) {
+                    throw new UncheckedIOException("Write-ahead log failed.", failure);
+                }
+                if (flushInProgress) {
+                    flushed.awaitUninterruptibly();
+                } else {
+                    flush();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Makes everything appended so far durable and starts a new segment.
+     * The caller must make sure nothing is appended concurrently, e.g. by pausing catalog writes.
+     *
+     * @return the sequence number the new segment starts with.
+     * @throws IOException if the current segment cannot be flushed or the new one created.
+     */
+    public long rotate() throws IOException {
+        lock.lock();
+        try {
+            while (flushInProgress) {
+                flushed.awaitUninterruptibly();
+            }
+            if (nextSeq > durableSeq) {
+                flush();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            channel.close();
+            channel = openSegment(nextSeq);
+            return nextSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the segments that only hold records older than {@code seq}, e.g. once a snapshot covers them.
+     */
+    public void deleteSegmentsBefore(long seq) throws IOException {
+        List<Long> starts = segmentStarts(directory);
+        for (int i = 0; i + 1 < starts.size(); i++) {
+            if (starts.get(i + 1) <= seq) {
+                Files.deleteIfExists(segmentPath(directory, starts.get(i)));
+            }
+        }
+    }
+
+    /**
+     * @return the sequence number the next appended record will get.
+     */
+    public long getNextSeq() {
+        lock.lock();
+        try {
+            return nextSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            while (flushInProgress) {
+                flushed.awaitUninterruptibly();
+            }
+            if (nextSeq > durableSeq && failure == null) {
+                flush();
+            }
+            channel.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Callback for {@link #replay(Path, long, RecordHandler)}.
+     */
+    public interface RecordHandler {
+        void added(Book book);
+
+        void updated(String isbn, Book book);
+    }
+
+    /**
+     * Replays all records with a sequence number of at least {@code fromSeq}, in order.
+     * A torn record at the end of the last segment (a crash in mid-write) is cut off.
+     *
+     * @return the sequence number following the last replayed record.
+     * @throws IOException if a segment cannot be read or a record other than the last one is corrupt.
+     */
+    public static long replay(Path directory, long fromSeq, RecordHandler handler) throws IOException {
+        List<Long> starts = segmentStarts(directory);
+        long expected = fromSeq;
+        CRC32 crc = new CRC32();
+        for (int i = 0; i < starts.size(); i++) {
+            boolean lastSegment = i == starts.size() - 1;
+            if (!lastSegment && starts.get(i + 1) <= fromSeq) {
+                continue;
+            }
+            Path segment = segmentPath(directory, starts.get(i));
+            try (FileChannel file = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer in = file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+                while (in.hasRemaining()) {
+                    int start = in.position();
+                    // In long, so a corrupt length near Integer.MAX_VALUE cannot wrap around and pass
+                    if (in.remaining() < RECORD_HEADER || in.getInt(start) < 9
+                            || in.remaining() < (long) RECORD_HEADER + in.getInt(start)) {
+                        truncateOrFail(file, start, lastSegment, segment);
+                        break;
+                    }
+                    int length = in.getInt();
+                    int checksum = in.getInt();
+                    ByteBuffer record = in.slice().limit(length);
+                    crc.reset();
+                    crc.update(record.duplicate());
+                    if ((int) crc.getValue() != checksum) {
+                        truncateOrFail(file, start, lastSegment, segment);
+                        break;
+                    }
+                    in.position(in.position() + length);
+                    long seq = record.getLong();
+                    if (seq < expected) {
+                        continue;
+                    }
+                    if (seq != expected) {
+                        throw new IOException("Write-ahead log gap in " + segment + ": expected " + expected + " but found " + seq + ".");
+                    }
+                    byte type = record.get();
+                    if (type == ADD) {
+                        handler.added(BookCodec.decode(record));
+                    } else if (type == UPDATE) {
+                        String isbn = Isbn.toString(record.getInt());
+                        handler.updated(isbn, BookCodec.decode(record));
+                    } else {
+                        throw new IOException("Unknown record type " + type + " in " + segment + ".");
+                    }
+                    expected++;
+                }
+            }
+        }
+        return expected;
+    }
+
+    // Encodes one record into the pending buffer; the caller holds the lock. A book that cannot be encoded
+    // throws before anything is written (encodedSize checks it), and a failed record is removed again,
+    // so the next commit never writes half a record in front of good ones.
+    private long append(byte type, String isbn, Book book) {
+        int bodySize = 8 + 1 + (type == UPDATE ? 4 : 0) + BookCodec.encodedSize(book);
+        ensureCapacity(RECORD_HEADER + bodySize);
+        long seq = nextSeq;
+        int start = pending.position();
+        try {
+            pending.putInt(bodySize);
+            pending.putInt(0);
+            pending.putLong(seq);
+            pending.put(type);
+            if (type == UPDATE) {
+                pending.putInt(Isbn.toInt(isbn));
+            }
+            BookCodec.encode(book, pending);
+        } catch (RuntimeException e) {
+            pending.position(start);
+            throw e;
+        }
+
+        crc.reset();
+        crc.update(pending.duplicate().position(start + RECORD_HEADER).limit(pending.position()));
+        pending.putInt(start + 4, (int) crc.getValue());
+        nextSeq++;
+        return seq;
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (pending.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + bytes));
+            pending.flip();
+            larger.put(pending);
+            pending = larger;
+        }
+    }
+
+    // Writes the pending buffer outside the lock, so other threads can keep appending; the caller holds the lock
+    private void flush() {
+        ByteBuffer toWrite = pending;
+        pending = flushing;
+        flushing = toWrite;
+        pending.clear();
+        long upTo = nextSeq;
+        flushInProgress = true;
+        lock.unlock();
+        IOException error = null;
+        try {
+            toWrite.flip();
+            while (toWrite.hasRemaining()) {
+                channel.write(toWrite);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            error = e;
+        } finally {
+            lock.lock();
+            flushInProgress = false;
+            if (error != null) {
+                failure = error;
+            } else {
+                durableSeq = upTo;
+            }
+            flushed.signalAll();
+        }
+    }
+
+    private FileChannel openSegment(long firstSeq) throws IOException {
+        return FileChannel.open(segmentPath(directory, firstSeq), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private static void truncateOrFail(FileChannel file, long position, boolean lastSegment, Path segment) throws IOException {
+        if (!lastSegment) {
+            throw new IOException("Corrupt write-ahead log record in " + segment + " at offset " + position + ".");
+        }
+        file.truncate(position);
+    }
+
+    private static Path segmentPath(Path directory, long firstSeq) {
+        return directory.resolve(String.format("%s%020d%s", PREFIX, firstSeq, SUFFIX));
+    }
+
+    private static List<Long> segmentStarts(Path directory) throws IOException {
+        List<Long> starts = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                starts.add(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+            }
+        }
+        starts.sort(null);
+        return starts;
+    }
+}
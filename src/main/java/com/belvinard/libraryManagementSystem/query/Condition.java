@@ -0,0 +1,38 @@
+package com.belvinard.libraryManagementSystem.query;
+
+import com.belvinard.libraryManagementSystem.model.Book;
+
+import java.util.function.Predicate;
+
+/**
+ * One condition of a {@link Query}: what kind it is, so the planner can look up its statistics,
+ * how it reads in a plan, and the test that checks it on a book.
+ */
+final class Condition {
+
+    enum Kind {
+        ISBN, GENRE, YEAR, AUTHOR_PREFIX, PREDICATE
+    }
+
+    private final Kind kind;
+    private final String description;
+    private final Predicate<Book> test;
+
+    Condition(Kind kind, String description, Predicate<Book> test) {
+        this.kind = kind;
+        this.description = description;
+        this.test = test;
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+
+    String getDescription() {
+        return description;
+    }
+
+    boolean test(Book book) {
+        return test.test(book);
+    }
+}
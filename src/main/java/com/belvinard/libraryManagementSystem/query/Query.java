@@ -0,0 +1,249 @@
+package com.belvinard.libraryManagementSystem.query;
+
+import com.belvinard.libraryManagementSystem.model.Book;
+import com.belvinard.libraryManagementSystem.model.BookValidator;
+import com.belvinard.libraryManagementSystem.model.Genre;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+
+/**
+ * An ad-hoc catalog query: conditions that must all hold, an optional order and an optional limit.
+ * Queries are immutable; each method returns a copy with one more condition, so a query reads like
+ * the request it stands for:
+ * <pre>
+ * Query.all().genre(Genre.JAVA).yearBetween(1990, 2005).authorStartsWith("jo")
+ *      .orderBy(SortKey.YEAR, true).limit(10)
+ * </pre>
+ * Setting the ISBN, genre, year range, author prefix, order or limit again replaces the previous value;
+ * {@link #where} conditions add up. A {@link QueryEngine} decides how to run it.
+ * Without an order, results come in whatever order the chosen plan produces them.
+ */
+public final class Query {
+
+    private static final Query ALL = new Query(null, null, Integer.MIN_VALUE, Integer.MAX_VALUE, null,
+            Collections.emptyList(), null, false, -1);
+
+    private final String isbn;
+    private final Genre genre;
+    private final int fromYear;
+    private final int toYear;
+    private final String authorPrefix;
+    private final List<Condition> predicates;
+    private final SortKey orderBy;
+    private final boolean descending;
+    private final int limit;
+
+    private Query(String isbn, Genre genre, int fromYear, int toYear, String authorPrefix,
+                  List<Condition> predicates, SortKey orderBy, boolean descending, int limit) {
+        this.isbn = isbn;
+        this.genre = genre;
+        this.fromYear = fromYear;
+        this.toYear = toYear;
+        this.authorPrefix = authorPrefix;
+        this.predicates = predicates;
+        this.orderBy = orderBy;
+        this.descending = descending;
+        this.limit = limit;
+    }
+
+    /**
+     * @return the query matching every book, to add conditions to.
+     */
+    public static Query all() {
+        return ALL;
+    }
+
+    /**
+     * @param isbn A valid 5-digit ISBN.
+     * @return a copy of this query that keeps only the book with that ISBN.
+     */
+    public Query isbn(String isbn) {
+        if (!BookValidator.isValidIsbn(isbn)) {
+            throw new IllegalArgumentException("ISBN must be exactly " + BookValidator.ISBN_LENGTH + " digits.");
+        }
+        return new Query(isbn, genre, fromYear, toYear, authorPrefix, predicates, orderBy, descending, limit);
+    }
+
+    /**
+     * @return a copy of this query that keeps only the books of the genre.
+     */
+    public Query genre(Genre genre) {
+        if (genre == null) {
+            throw new IllegalArgumentException("Genre cannot be null.");
+        }
+        return new Query(isbn, genre, fromYear, toYear, authorPrefix, predicates, orderBy, descending, limit);
+    }
+
+    /**
+     * @param genre The genre's display name, ignoring case.
+     * @return a copy of this query that keeps only the books of the genre.
+     */
+    public Query genre(String genre) {
+        Genre resolved = Genre.fromName(genre);
+        if (resolved == null) {
+            throw new IllegalArgumentException("Invalid genre. It must be one of: " + Genre.allowedNames());
+        }
+        return genre(resolved);
+    }
+
+    /**
+     * @param fromYear The first publication year, inclusive.
+     * @param toYear   The last publication year, inclusive.
+     * @return a copy of this query that keeps only the books published within the range.
+     */
+    public Query yearBetween(int fromYear, int toYear) {
+        if (fromYear > toYear) {
+            throw new IllegalArgumentException("The first year must not be after the last year.");
+        }
+        return new Query(isbn, genre, fromYear, toYear, authorPrefix, predicates, orderBy, descending, limit);
+    }
+
+    /**
+     * @param prefix The start of the author name, ignoring case; not empty.
+     * @return a copy of this query that keeps only the books whose author name starts with the prefix.
+     */
+    public Query authorStartsWith(String prefix) {
+        if (prefix == null || prefix.isEmpty()) {
+            throw new IllegalArgumentException("Author prefix must not be null or empty.");
+        }
+        return new Query(isbn, genre, fromYear, toYear, prefix, predicates, orderBy, descending, limit);
+    }
+
+    /**
+     * Adds any other condition. The planner knows nothing about it, so it is checked last, and only on
+     * the books that pass every other condition.
+     *
+     * @param description How the condition appears in {@link #toString()} and in plans.
+     * @param filter      The condition; may run on several threads at once.
+     * @return a copy of this query with the condition added.
+     */
+    public Query where(String description, Predicate<Book> filter) {
+        if (description == null || filter == null) {
+            throw new IllegalArgumentException("Description and filter cannot be null.");
+        }
+        List<Condition> more = new ArrayList<>(predicates);
+        more.add(new Condition(Condition.Kind.PREDICATE, description, filter));
+        return new Query(isbn, genre, fromYear, toYear, authorPrefix, Collections.unmodifiableList(more),
+                orderBy, descending, limit);
+    }
+
+    /**
+     * @return a copy of this query that sorts its results by the key, smallest first.
+     */
+    public Query orderBy(SortKey key) {
+        return orderBy(key, false);
+    }
+
+    /**
+     * @param key        The sort key.
+     * @param descending Whether the largest values come first.
+     * @return a copy of this query that sorts its results by the key.
+     */
+    public Query orderBy(SortKey key, boolean descending) {
+        if (key == null) {
+            throw new IllegalArgumentException("Sort key cannot be null.");
+        }
+        return new Query(isbn, genre, fromYear, toYear, authorPrefix, predicates, key, descending, limit);
+    }
+
+    /**
+     * @param limit The maximum number of books to return.
+     * @return a copy of this query that returns at most that many books; the first ones in its order.
+     */
+    public Query limit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must not be negative.");
+        }
+        return new Query(isbn, genre, fromYear, toYear, authorPrefix, predicates, orderBy, descending, limit);
+    }
+
+    String getIsbn() {
+        return isbn;
+    }
+
+    Genre getGenre() {
+        return genre;
+    }
+
+    boolean hasYearRange() {
+        return fromYear != Integer.MIN_VALUE || toYear != Integer.MAX_VALUE;
+    }
+
+    int getFromYear() {
+        return fromYear;
+    }
+
+    int getToYear() {
+        return toYear;
+    }
+
+    String getAuthorPrefix() {
+        return authorPrefix;
+    }
+
+    SortKey getOrderBy() {
+        return orderBy;
+    }
+
+    boolean isDescending() {
+        return descending;
+    }
+
+    boolean hasLimit() {
+        return limit >= 0;
+    }
+
+    int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return every condition of the query: ISBN, genre, year range and author prefix first, then the others.
+     */
+    List<Condition> conditions() {
+        List<Condition> conditions = new ArrayList<>(predicates.size() + 4);
+        if (isbn != null) {
+            String wanted = isbn;
+            conditions.add(new Condition(Condition.Kind.ISBN, "isbn = '" + wanted + "'",
+                    book -> book.getISBN().equals(wanted)));
+        }
+        if (genre != null) {
+            Genre wanted = genre;
+            conditions.add(new Condition(Condition.Kind.GENRE, "genre = '" + wanted + "'",
+                    book -> book.getGenreType() == wanted));
+        }
+        if (hasYearRange()) {
+            int first = fromYear;
+            int last = toYear;
+            conditions.add(new Condition(Condition.Kind.YEAR, "year BETWEEN " + first + " AND " + last,
+                    book -> book.getPublicationYear() >= first && book.getPublicationYear() <= last));
+        }
+        if (authorPrefix != null) {
+            String wanted = authorPrefix;
+            conditions.add(new Condition(Condition.Kind.AUTHOR_PREFIX, "author STARTS WITH '" + wanted + "'",
+                    book -> book.getAuthor().regionMatches(true, 0, wanted, 0, wanted.length())));
+        }
+        conditions.addAll(predicates);
+        return conditions;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("SELECT *");
+        List<Condition> conditions = conditions();
+        for (int i = 0; i < conditions.size(); i++) {
+            text.append(i == 0 ? " WHERE " : " AND ").append(conditions.get(i).getDescription());
+        }
+        if (orderBy != null) {
+            text.append(" ORDER BY ").append(orderBy.name().toLowerCase(Locale.ROOT)).append(descending ? " DESC" : "");
+        }
+        if (hasLimit()) {
+            text.append(" LIMIT ").append(limit);
+        }
+        return text.toString();
+    }
+}
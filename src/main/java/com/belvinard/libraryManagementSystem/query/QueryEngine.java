@@ -0,0 +1,434 @@
+package com.belvinard.libraryManagementSystem.query;
+
+import com.belvinard.libraryManagementSystem.data.LibraryData;
+import com.belvinard.libraryManagementSystem.index.AuthorIndex;
+import com.belvinard.libraryManagementSystem.index.GenreYearIndex;
+import com.belvinard.libraryManagementSystem.model.Book;
+import com.belvinard.libraryManagementSystem.model.Isbn;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Plans and runs {@link Query queries}.
+ * <p>
+ * The planner estimates, from the book counts the indexes keep, how many candidates each usable access
+ * path would produce and what it would cost: an ISBN lookup, the genre and year bitmaps, the author prefix
+ * range, or a full scan. It picks the cheapest, then checks the remaining conditions on each candidate
+ * most selective first, so most candidates are rejected by the first test; conditions given as plain
+ * predicates come last, and only run on books that passed everything else.
+ * <p>
+ * Index paths visit candidates in ISBN order, so a query ordered by ISBN, or not ordered at all, stops as
+ * soon as it has its limit. Other ordered queries with a limit keep only the best books so far in a bounded
+ * heap, instead of sorting every match. A full scan runs as a {@link LibraryData#scan}, each segment
+ * keeping its own best books, merged pairwise.
+ */
+public class QueryEngine {
+
+    // Costs are in genre or year tests of a full scan, about 5 ns each. Taking the next book of a scan costs 3;
+    // fetching a candidate by ISBN costs 10 times as much: the ISBN string is built and hashed, and the book
+    // is a cache miss away.
+    private static final double SCAN_COST = 3;
+    private static final double FETCH_COST = 30;
+
+    // Cost of one pass over a bitmap of the whole ISBN space (12.5 KB), e.g. cloning or OR-ing it
+    private static final double BITMAP_COST = Isbn.CAPACITY / 128.0;
+
+    // Cost of decoding one id of the author postings and setting its bit
+    private static final double POSTING_COST = 3;
+
+    // Cost of one comparison while ordering results; titles and authors compare ignoring case
+    private static final double COMPARE_COST = 10;
+
+    // Cost of a case-insensitive author prefix test; genre, year and ISBN tests cost 1
+    private static final double AUTHOR_TEST_COST = 3;
+
+    // Assumed cost of a plain predicate, and share of books it keeps, since nothing is known about it
+    private static final double PREDICATE_COST = 5;
+    private static final double PREDICATE_SELECTIVITY = 0.5;
+
+    private final LibraryData libraryData;
+    private final GenreYearIndex genreYearIndex;
+    private final AuthorIndex authorIndex;
+
+    /**
+     * Creates an engine with its own indexes, attached to the catalog at once.
+     */
+    public QueryEngine(LibraryData libraryData) {
+        this(libraryData, new GenreYearIndex(), new AuthorIndex());
+        libraryData.attach(genreYearIndex);
+        libraryData.attach(authorIndex);
+    }
+
+    /**
+     * Creates an engine over indexes shared with other users. They must be attached to the catalog
+     * ({@link LibraryData#attach}) before the first query is planned.
+     */
+    public QueryEngine(LibraryData libraryData, GenreYearIndex genreYearIndex, AuthorIndex authorIndex) {
+        if (libraryData == null || genreYearIndex == null || authorIndex == null) {
+            throw new IllegalArgumentException("LibraryData and indexes cannot be null.");
+        }
+        this.libraryData = libraryData;
+        this.genreYearIndex = genreYearIndex;
+        this.authorIndex = authorIndex;
+    }
+
+    /**
+     * Chooses how to run a query from the current index statistics.
+     *
+     * @param query The query to plan.
+     * @return the cheapest plan found.
+     */
+    public QueryPlan plan(Query query) {
+        if (query == null) {
+            throw new IllegalArgumentException("Query cannot be null.");
+        }
+        int catalogSize = genreYearIndex.size();
+        double books = Math.max(catalogSize, 1);
+        List<Condition> conditions = query.conditions();
+        double[] selectivities = new double[conditions.size()];
+        double matches = catalogSize;
+        for (int i = 0; i < selectivities.length; i++) {
+            selectivities[i] = selectivity(conditions.get(i), query, books);
+            matches *= selectivities[i];
+        }
+
+        List<QueryPlan.Candidate> candidates = new ArrayList<>();
+        if (query.getIsbn() != null) {
+            candidates.add(candidate(QueryPlan.AccessPath.ISBN, Math.min(1, catalogSize), 0,
+                    query, conditions, selectivities, matches));
+        }
+        if (query.getGenre() != null) {
+            candidates.add(candidate(QueryPlan.AccessPath.GENRE, genreYearIndex.countGenre(query.getGenre()),
+                    BITMAP_COST, query, conditions, selectivities, matches));
+        }
+        if (query.hasYearRange()) {
+            int yearBooks = genreYearIndex.countYears(query.getFromYear(), query.getToYear());
+            int bitmaps = genreYearIndex.yearBitmaps(query.getFromYear(), query.getToYear());
+            candidates.add(candidate(QueryPlan.AccessPath.YEAR, yearBooks, (bitmaps + 1) * BITMAP_COST,
+                    query, conditions, selectivities, matches));
+            if (query.getGenre() != null) {
+                // Genre and year are assumed independent
+                double rows = genreYearIndex.countGenre(query.getGenre()) * (double) yearBooks / books;
+                candidates.add(candidate(QueryPlan.AccessPath.GENRE_AND_YEAR, rows, (bitmaps + 2) * BITMAP_COST,
+                        query, conditions, selectivities, matches));
+            }
+        }
+        if (query.getAuthorPrefix() != null) {
+            int authorBooks = authorIndex.countPrefix(query.getAuthorPrefix());
+            candidates.add(candidate(QueryPlan.AccessPath.AUTHOR_PREFIX, authorBooks,
+                    authorBooks * POSTING_COST + BITMAP_COST, query, conditions, selectivities, matches));
+        }
+        QueryPlan.Candidate chosen = candidate(QueryPlan.AccessPath.FULL_SCAN, catalogSize, 0,
+                query, conditions, selectivities, matches);
+        candidates.add(chosen);
+        for (QueryPlan.Candidate candidate : candidates) {
+            if (candidate.cost < chosen.cost) {
+                chosen = candidate;
+            }
+        }
+
+        int[] order = arrange(chosen.path, conditions, selectivities);
+        List<Condition> filters = new ArrayList<>(order.length);
+        double[] ordered = new double[order.length];
+        int residuals = 0;
+        for (int i = 0; i < order.length; i++) {
+            filters.add(conditions.get(order[i]));
+            ordered[i] = selectivities[order[i]];
+            if (!covers(chosen.path, filters.get(i).getKind())) {
+                residuals++;
+            }
+        }
+        return new QueryPlan(query, chosen, Collections.unmodifiableList(filters), ordered, residuals, matches,
+                catalogSize, ordering(chosen.path, query), Collections.unmodifiableList(candidates));
+    }
+
+    /**
+     * @return the plan {@link #plan} chooses for the query, described by {@link QueryPlan#explain()}.
+     */
+    public String explain(Query query) {
+        return plan(query).explain();
+    }
+
+    /**
+     * Plans and runs a query.
+     *
+     * @param query The query to run.
+     * @return the matching books, in the query's order, at most its limit.
+     */
+    public List<Book> execute(Query query) {
+        return execute(plan(query));
+    }
+
+    /**
+     * Runs a plan made by {@link #plan}.
+     *
+     * @param plan The plan to run.
+     * @return the matching books, in the query's order, at most its limit.
+     */
+    public List<Book> execute(QueryPlan plan) {
+        if (plan == null) {
+            throw new IllegalArgumentException("Plan cannot be null.");
+        }
+        Query query = plan.getQuery();
+        if (query.hasLimit() && query.getLimit() == 0) {
+            return new ArrayList<>();
+        }
+        Condition[] filters = plan.getFilters().toArray(new Condition[0]);
+        int limit = query.hasLimit() ? query.getLimit() : -1;
+        // Plans that produce books in the wanted order need no sorting
+        Comparator<Book> order = plan.getOrdering() == QueryPlan.Ordering.TOP_K
+                || plan.getOrdering() == QueryPlan.Ordering.SORT
+                ? query.getOrderBy().comparator(query.isDescending()) : null;
+        switch (plan.getAccessPath()) {
+            case FULL_SCAN:
+                return libraryData.scan(segment -> {
+                    Results results = new Results(order, limit);
+                    for (Book book : segment) {
+                        if (matches(filters, book)) {
+                            results.add(book);
+                            if (order == null && results.isFull()) {
+                                break;
+                            }
+                        }
+                    }
+                    return results.toList();
+                }, (first, second) -> merge(first, second, order, limit));
+            case ISBN:
+                Book book = libraryData.getBookByISBN(query.getIsbn());
+                List<Book> found = new ArrayList<>(1);
+                if (book != null && matches(filters, book)) {
+                    found.add(book);
+                }
+                return found;
+            default:
+                return fetch(candidates(plan.getAccessPath(), query), filters, order, limit,
+                        query.getOrderBy() == SortKey.ISBN && query.isDescending());
+        }
+    }
+
+    // Fetches the candidates of an index path in ISBN order, or reverse ISBN order
+    private List<Book> fetch(BitSet ids, Condition[] filters, Comparator<Book> order, int limit, boolean reverse) {
+        Results results = new Results(order, limit);
+        int id = reverse ? ids.previousSetBit(Isbn.CAPACITY - 1) : ids.nextSetBit(0);
+        while (id >= 0) {
+            // The bitmap may already be outdated: the book is checked against every condition as it is now
+            Book book = libraryData.getBookByISBN(Isbn.toString(id));
+            if (book != null && matches(filters, book)) {
+                results.add(book);
+                if (order == null && results.isFull()) {
+                    break;
+                }
+            }
+            id = reverse ? ids.previousSetBit(id - 1) : ids.nextSetBit(id + 1);
+        }
+        return results.toList();
+    }
+
+    private BitSet candidates(QueryPlan.AccessPath path, Query query) {
+        switch (path) {
+            case GENRE:
+                return genreYearIndex.match(query.getGenre());
+            case YEAR:
+                return genreYearIndex.match(null, query.getFromYear(), query.getToYear());
+            case GENRE_AND_YEAR:
+                return genreYearIndex.match(query.getGenre(), query.getFromYear(), query.getToYear());
+            case AUTHOR_PREFIX:
+                return authorIndex.matchPrefix(query.getAuthorPrefix());
+            default:
+                throw new IllegalStateException("Not an index path: " + path);
+        }
+    }
+
+    private static boolean matches(Condition[] filters, Book book) {
+        for (Condition filter : filters) {
+            if (!filter.test(book)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private double selectivity(Condition condition, Query query, double books) {
+        switch (condition.getKind()) {
+            case ISBN:
+                return Math.min(1, 1 / books);
+            case GENRE:
+                return genreYearIndex.countGenre(query.getGenre()) / books;
+            case YEAR:
+                return genreYearIndex.countYears(query.getFromYear(), query.getToYear()) / books;
+            case AUTHOR_PREFIX:
+                return authorIndex.countPrefix(query.getAuthorPrefix()) / books;
+            default:
+                return PREDICATE_SELECTIVITY;
+        }
+    }
+
+    // Builds the estimates of an access path: the cost of reading the index, then of checking each candidate,
+    // fetched by ISBN unless scanned, up to the limit when the path can stop early, then of ordering the matches
+    private static QueryPlan.Candidate candidate(QueryPlan.AccessPath path, double rows, double indexCost, Query query,
+                                                 List<Condition> conditions, double[] selectivities, double matches) {
+        QueryPlan.Ordering ordering = ordering(path, query);
+        double checked = rows;
+        if (ordering == QueryPlan.Ordering.INDEX_ORDER && query.hasLimit() && matches > 0) {
+            // Matches are assumed spread evenly over the candidates
+            checked = Math.min(rows, query.getLimit() * rows / Math.min(matches, rows));
+        }
+        double perCandidate = path == QueryPlan.AccessPath.FULL_SCAN ? SCAN_COST : FETCH_COST;
+        double passing = 1;
+        for (int i : arrange(path, conditions, selectivities)) {
+            perCandidate += passing * testCost(conditions.get(i).getKind());
+            if (!covers(path, conditions.get(i).getKind())) {
+                passing *= selectivities[i];
+            }
+        }
+        return new QueryPlan.Candidate(path, rows,
+                indexCost + checked * perCandidate + orderingCost(ordering, query, matches));
+    }
+
+    // Orders the conditions for checking: the ones the path does not answer first, those that reject the
+    // most books per unit of cost first, plain predicates last; the ones the path answers are only rechecked
+    private static int[] arrange(QueryPlan.AccessPath path, List<Condition> conditions, double[] selectivities) {
+        List<Integer> order = new ArrayList<>(conditions.size());
+        for (int i = 0; i < conditions.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.<Integer>comparingInt(i -> group(path, conditions.get(i).getKind()))
+                .thenComparingDouble(i -> conditions.get(i).getKind() == Condition.Kind.PREDICATE ? 0
+                        : testCost(conditions.get(i).getKind()) / Math.max(1 - selectivities[i], 1e-9)));
+        int[] arranged = new int[order.size()];
+        for (int i = 0; i < arranged.length; i++) {
+            arranged[i] = order.get(i);
+        }
+        return arranged;
+    }
+
+    private static int group(QueryPlan.AccessPath path, Condition.Kind kind) {
+        if (covers(path, kind)) {
+            return 2;
+        }
+        return kind == Condition.Kind.PREDICATE ? 1 : 0;
+    }
+
+    private static double testCost(Condition.Kind kind) {
+        switch (kind) {
+            case AUTHOR_PREFIX:
+                return AUTHOR_TEST_COST;
+            case PREDICATE:
+                return PREDICATE_COST;
+            default:
+                return 1;
+        }
+    }
+
+    private static QueryPlan.Ordering ordering(QueryPlan.AccessPath path, Query query) {
+        boolean isbnOrder = path != QueryPlan.AccessPath.FULL_SCAN
+                && (query.getOrderBy() == null || query.getOrderBy() == SortKey.ISBN);
+        if (isbnOrder && (query.hasLimit() || query.getOrderBy() != null)) {
+            return QueryPlan.Ordering.INDEX_ORDER;
+        }
+        if (query.getOrderBy() == null) {
+            return QueryPlan.Ordering.NONE;
+        }
+        return query.hasLimit() ? QueryPlan.Ordering.TOP_K : QueryPlan.Ordering.SORT;
+    }
+
+    private static double orderingCost(QueryPlan.Ordering ordering, Query query, double matches) {
+        switch (ordering) {
+            case TOP_K:
+                return matches * log2(Math.min(query.getLimit(), matches) + 1) * COMPARE_COST;
+            case SORT:
+                return matches * log2(matches + 1) * COMPARE_COST;
+            default:
+                return 0;
+        }
+    }
+
+    private static double log2(double value) {
+        return Math.log(value) / Math.log(2);
+    }
+
+    private static boolean covers(QueryPlan.AccessPath path, Condition.Kind kind) {
+        switch (path) {
+            case ISBN:
+                return kind == Condition.Kind.ISBN;
+            case GENRE:
+                return kind == Condition.Kind.GENRE;
+            case YEAR:
+                return kind == Condition.Kind.YEAR;
+            case GENRE_AND_YEAR:
+                return kind == Condition.Kind.GENRE || kind == Condition.Kind.YEAR;
+            case AUTHOR_PREFIX:
+                return kind == Condition.Kind.AUTHOR_PREFIX;
+            default:
+                return false;
+        }
+    }
+
+    // Merges the results of two adjacent groups of segments: in order and cut at the limit when ordered,
+    // otherwise the first group's books first
+    private static List<Book> merge(List<Book> first, List<Book> second, Comparator<Book> order, int limit) {
+        int size = first.size() + second.size();
+        List<Book> merged = new ArrayList<>(limit < 0 ? size : Math.min(size, limit));
+        int i = 0;
+        int j = 0;
+        while ((i < first.size() || j < second.size()) && (limit < 0 || merged.size() < limit)) {
+            if (j == second.size()
+                    || i < first.size() && (order == null || order.compare(first.get(i), second.get(j)) <= 0)) {
+                merged.add(first.get(i++));
+            } else {
+                merged.add(second.get(j++));
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Collects the matches of a query: all of them, the first LIMIT ones found when no sorting is needed,
+     * or the best LIMIT ones in a heap that evicts its worst book, so memory stays bounded by the limit.
+     */
+    private static final class Results {
+        private final Comparator<Book> order;
+        private final int limit;
+        private final List<Book> books = new ArrayList<>();
+        private final PriorityQueue<Book> heap;
+
+        private Results(Comparator<Book> order, int limit) {
+            this.order = order;
+            this.limit = limit;
+            // The heap's head is the worst book kept, the one to evict for a better one
+            this.heap = order != null && limit >= 0 ? new PriorityQueue<>(Math.min(limit, 1024) + 1, order.reversed()) : null;
+        }
+
+        private void add(Book book) {
+            if (heap == null) {
+                books.add(book);
+            } else if (heap.size() < limit) {
+                heap.add(book);
+            } else if (order.compare(book, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(book);
+            }
+        }
+
+        private boolean isFull() {
+            return limit >= 0 && books.size() >= limit;
+        }
+
+        private List<Book> toList() {
+            if (heap != null) {
+                List<Book> best = new ArrayList<>(heap);
+                best.sort(order);
+                return best;
+            }
+            if (order != null) {
+                books.sort(order);
+            }
+            return books;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.belvinard.libraryManagementSystem.query;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * How a {@link QueryEngine} runs a {@link Query}: the access path that produces the candidate books,
+ * the conditions checked on each candidate, in the order they are checked, and how the results are
+ * ordered and limited. It also keeps the estimates the planner chose it by, for {@link #explain()}.
+ * <p>
+ * Costs are in units of one genre or year test on a book during a full scan.
+ */
+public final class QueryPlan {
+
+    /**
+     * Where the candidate books come from.
+     */
+    public enum AccessPath {
+        ISBN("ISBN lookup"),
+        GENRE("genre bitmap"),
+        YEAR("year bitmaps"),
+        GENRE_AND_YEAR("genre AND year bitmaps"),
+        AUTHOR_PREFIX("author prefix range"),
+        FULL_SCAN("full scan");
+
+        private final String description;
+
+        AccessPath(String description) {
+            this.description = description;
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+
+    /**
+     * How the results are put in order and cut at the limit.
+     */
+    public enum Ordering {
+        NONE("none"),
+        INDEX_ORDER("ISBN order of the index, stopping at the limit"),
+        TOP_K("bounded heap of the first LIMIT books"),
+        SORT("sort of every match");
+
+        private final String description;
+
+        Ordering(String description) {
+            this.description = description;
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+
+    /**
+     * An access path the planner considered, with its estimates.
+     */
+    static final class Candidate {
+        final AccessPath path;
+        final double rows;
+        final double cost;
+
+        Candidate(AccessPath path, double rows, double cost) {
+            this.path = path;
+            this.rows = rows;
+            this.cost = cost;
+        }
+    }
+
+    private final Query query;
+    private final Candidate chosen;
+    private final List<Condition> filters;
+    private final double[] selectivities;
+    private final int residuals;
+    private final double estimatedMatches;
+    private final int catalogSize;
+    private final Ordering ordering;
+    private final List<Candidate> candidates;
+
+    QueryPlan(Query query, Candidate chosen, List<Condition> filters, double[] selectivities, int residuals,
+              double estimatedMatches, int catalogSize, Ordering ordering, List<Candidate> candidates) {
+        this.query = query;
+        this.chosen = chosen;
+        this.filters = filters;
+        this.selectivities = selectivities;
+        this.residuals = residuals;
+        this.estimatedMatches = estimatedMatches;
+        this.catalogSize = catalogSize;
+        this.ordering = ordering;
+        this.candidates = candidates;
+    }
+
+    public Query getQuery() {
+        return query;
+    }
+
+    public AccessPath getAccessPath() {
+        return chosen.path;
+    }
+
+    /**
+     * @return the estimated number of candidate books the access path produces.
+     */
+    public double getEstimatedRows() {
+        return chosen.rows;
+    }
+
+    /**
+     * @return the estimated number of books matching every condition, before the limit.
+     */
+    public double getEstimatedMatches() {
+        return estimatedMatches;
+    }
+
+    /**
+     * @return the estimated cost of the plan, in genre or year tests of a full scan.
+     */
+    public double getCost() {
+        return chosen.cost;
+    }
+
+    public Ordering getOrdering() {
+        return ordering;
+    }
+
+    /**
+     * @return every condition, in the order they are checked on a candidate.
+     */
+    List<Condition> getFilters() {
+        return filters;
+    }
+
+    /**
+     * Describes the plan, one step per line:
+     * <pre>
+     * Query:    SELECT * WHERE genre = 'Java' AND author STARTS WITH 'jo' ORDER BY year DESC LIMIT 10
+     * Access:   author prefix range, ~4,216 of 100,000 books, cost 150,270
+     * Filter:   genre = 'Java' (selectivity 0.249)
+     * Recheck:  author STARTS WITH 'jo'
+     * Order:    bounded heap of the first LIMIT books on year DESC
+     * Matches:  ~1,049, limit 10
+     * Rejected: genre bitmap (~24,886 books, cost 881,940), full scan (~100,000 books, cost 474,750)
+     * </pre>
+     */
+    public String explain() {
+        StringBuilder text = new StringBuilder();
+        text.append("Query:    ").append(query).append('\n');
+        text.append("Access:   ").append(chosen.path).append(String.format(", ~%,.0f of %,d books, cost %,.0f",
+                chosen.rows, catalogSize, chosen.cost)).append('\n');
+        if (residuals > 0) {
+            text.append("Filter:   ");
+            for (int i = 0; i < residuals; i++) {
+                text.append(i == 0 ? "" : ", then ").append(filters.get(i).getDescription());
+                if (filters.get(i).getKind() != Condition.Kind.PREDICATE) {
+                    text.append(String.format(" (selectivity %.3f)", selectivities[i]));
+                }
+            }
+            text.append('\n');
+        }
+        if (residuals < filters.size()) {
+            // Conditions the access path answers, checked again on the fetched book in case it just changed
+            text.append("Recheck:  ");
+            for (int i = residuals; i < filters.size(); i++) {
+                text.append(i == residuals ? "" : ", ").append(filters.get(i).getDescription());
+            }
+            text.append('\n');
+        }
+        text.append("Order:    ").append(ordering);
+        if (query.getOrderBy() != null) {
+            text.append(" on ").append(query.getOrderBy().name().toLowerCase(Locale.ROOT))
+                    .append(query.isDescending() ? " DESC" : "");
+        }
+        text.append('\n');
+        text.append(String.format("Matches:  ~%,.0f", estimatedMatches));
+        if (query.hasLimit()) {
+            text.append(", limit ").append(query.getLimit());
+        }
+        text.append('\n');
+        StringBuilder rejected = new StringBuilder();
+        for (Candidate candidate : candidates) {
+            if (candidate != chosen) {
+                rejected.append(rejected.length() == 0 ? "" : ", ").append(candidate.path)
+                        .append(String.format(" (~%,.0f books, cost %,.0f)", candidate.rows, candidate.cost));
+            }
+        }
+        if (rejected.length() > 0) {
+            text.append("Rejected: ").append(rejected).append('\n');
+        }
+        return text.toString();
+    }
+
+    @Override
+    public String toString() {
+        return explain();
+    }
+}
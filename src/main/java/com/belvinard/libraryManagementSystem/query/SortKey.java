@@ -0,0 +1,32 @@
+package com.belvinard.libraryManagementSystem.query;
+
+import com.belvinard.libraryManagementSystem.model.Book;
+
+import java.util.Comparator;
+
+/**
+ * The orders a {@link Query} can sort its results in.
+ * Ties are broken by ISBN, which is unique, so every order is total and a limited query always
+ * returns the same books whichever plan runs it.
+ */
+public enum SortKey {
+    // ISBNs all have 5 digits, so comparing them as strings compares their numeric values
+    ISBN(Comparator.comparing(Book::getISBN)),
+    TITLE(Comparator.comparing(Book::getTitle, String.CASE_INSENSITIVE_ORDER).thenComparing(Book::getISBN)),
+    AUTHOR(Comparator.comparing(Book::getAuthor, String.CASE_INSENSITIVE_ORDER).thenComparing(Book::getISBN)),
+    YEAR(Comparator.comparingInt(Book::getPublicationYear).thenComparing(Book::getISBN));
+
+    private final Comparator<Book> ascending;
+
+    SortKey(Comparator<Book> ascending) {
+        this.ascending = ascending;
+    }
+
+    /**
+     * @param descending Whether the largest values come first.
+     * @return the comparator for this order, ties broken by ISBN in the same direction.
+     */
+    public Comparator<Book> comparator(boolean descending) {
+        return descending ? ascending.reversed() : ascending;
+    }
+}
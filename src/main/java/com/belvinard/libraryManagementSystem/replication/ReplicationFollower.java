@@ -0,0 +1,363 @@
+package com.belvinard.libraryManagementSystem.replication;
+
+import com.belvinard.libraryManagementSystem.data.BookStore;
+import com.belvinard.libraryManagementSystem.data.ConcurrentBookStore;
+import com.belvinard.libraryManagementSystem.data.LibraryData;
+import com.belvinard.libraryManagementSystem.metrics.LatencyHistogram;
+import com.belvinard.libraryManagementSystem.model.Book;
+import com.belvinard.libraryManagementSystem.model.Isbn;
+import com.belvinard.libraryManagementSystem.persistence.BookCodec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * A read-only copy of a catalog kept up to date by a {@link ReplicationPrimary}. A background thread
+ * connects to the primary, loads the snapshot it sends if needed, then applies the changes in sequence
+ * order, one frame at a time, acknowledging each frame. If the connection drops, it reconnects (after
+ * 100 ms, doubling up to 2 s) and resumes from the last change it applied.
+ * <p>
+ * Lookups are served from the local catalog and may run on any thread while changes are applied.
+ * A snapshot is loaded into a new catalog that then replaces the current one, so the object returned
+ * by {@link #getLibraryData()} changes after a full resynchronization.
+ */
+public class ReplicationFollower implements Closeable {
+
+    private static final long MIN_BACKOFF_MILLIS = 100;
+    private static final long MAX_BACKOFF_MILLIS = 2000;
+
+    private final InetSocketAddress primary;
+    private final Supplier<BookStore> stores;
+    private final Thread thread;
+    private volatile SocketChannel channel;
+    private volatile boolean closed;
+
+    private volatile LibraryData catalog;
+    // The primary's log this follower applies, 0 until the first snapshot
+    private long logId;
+    private volatile long applied;
+    private volatile long primarySequence;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition progressed = lock.newCondition();
+
+    private final LatencyHistogram lag = new LatencyHistogram();
+    private volatile long frames;
+    private volatile long records;
+    private volatile long bytes;
+    private volatile long snapshots;
+    private volatile long connects;
+    private volatile String lastFailure;
+
+    /**
+     * Creates a follower whose catalog uses {@link ConcurrentBookStore}s.
+     */
+    public ReplicationFollower(InetSocketAddress primary) {
+        this(primary, ConcurrentBookStore::new);
+    }
+
+    /**
+     * Creates a follower; call {@link #start()} to connect.
+     *
+     * @param primary The address of the primary.
+     * @param stores  Creates the store of the local catalog, and of each new one loaded from a snapshot.
+     *                It must allow reads concurrent with writes.
+     */
+    public ReplicationFollower(InetSocketAddress primary, Supplier<BookStore> stores) {
+        if (primary == null || stores == null) {
+            throw new IllegalArgumentException("Primary address and stores cannot be null.");
+        }
+        this.primary = primary;
+        this.stores = stores;
+        this.catalog = new LibraryData(stores.get());
+        this.thread = new Thread(this::run, "replication-follower");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Starts following the primary in the background.
+     */
+    public void start() {
+        thread.start();
+    }
+
+    public boolean bookExists(String isbn) {
+        return catalog.bookExists(isbn);
+    }
+
+    public Book getBookByISBN(String isbn) {
+        return catalog.getBookByISBN(isbn);
+    }
+
+    public int size() {
+        return catalog.size();
+    }
+
+    /**
+     * @return the local catalog; it must not be changed except by the follower.
+     */
+    public LibraryData getLibraryData() {
+        return catalog;
+    }
+
+    /**
+     * @return the sequence number of the last change applied.
+     */
+    public long getApplied() {
+        return applied;
+    }
+
+    /**
+     * @return the primary's last sequence number, as of the last frame received.
+     */
+    public long getPrimarySequence() {
+        return primarySequence;
+    }
+
+    /**
+     * @return the number of changes the primary had made, as of the last frame, that are not applied here yet.
+     */
+    public long getLag() {
+        return primarySequence - applied;
+    }
+
+    /**
+     * @return for every frame of changes applied, the nanoseconds from the first change's commit on the
+     * primary until it was applied here.
+     */
+    public LatencyHistogram getLagHistogram() {
+        return lag;
+    }
+
+    /**
+     * @return the number of frames received, snapshots and heartbeats included.
+     */
+    public long getFrames() {
+        return frames;
+    }
+
+    /**
+     * @return the number of changes applied, not counting snapshots.
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return the number of snapshots loaded.
+     */
+    public long getSnapshots() {
+        return snapshots;
+    }
+
+    /**
+     * @return the number of connections made to the primary.
+     */
+    public long getConnects() {
+        return connects;
+    }
+
+    public boolean isConnected() {
+        SocketChannel current = channel;
+        return current != null && current.isOpen();
+    }
+
+    /**
+     * @return why the last connection ended, or null.
+     */
+    public String getLastFailure() {
+        return lastFailure;
+    }
+
+    /**
+     * Waits until the change with the given sequence number has been applied.
+     *
+     * @return whether it was applied within the timeout.
+     */
+    public boolean awaitApplied(long sequence, Duration timeout) throws InterruptedException {
+        long nanos = timeout.toNanos();
+        lock.lock();
+        try {
+            while (applied < sequence) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = progressed.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops the current connection; the follower reconnects and resumes where it stopped.
+     */
+    public void disconnect() {
+        SocketChannel current = channel;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                // Closing anyway
+            }
+        }
+    }
+
+    /**
+     * Stops following the primary. The local catalog stays readable.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        disconnect();
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        long backoff = MIN_BACKOFF_MILLIS;
+        while (!closed) {
+            long framesBefore = frames;
+            try (SocketChannel connection = SocketChannel.open(primary)) {
+                connection.socket().setTcpNoDelay(true);
+                channel = connection;
+                if (closed) {
+                    break;
+                }
+                connects++;
+                follow(connection);
+            } catch (IOException | RuntimeException e) {
+                if (closed) {
+                    break;
+                }
+                lastFailure = e.toString();
+                if (e instanceof RuntimeException) {
+                    // The change could not be applied: this copy has diverged, start again from a snapshot
+                    logId = 0;
+                }
+            }
+            if (frames > framesBefore) {
+                // The connection worked for a while: retry soon
+                backoff = MIN_BACKOFF_MILLIS;
+            }
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                break;
+            }
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+        }
+    }
+
+    // Reads and applies frames until the connection fails or is closed
+    private void follow(SocketChannel connection) throws IOException {
+        ByteBuffer out = ReplicationProtocol.begin(ByteBuffer.allocate(64), ReplicationProtocol.HELLO, 16);
+        out.putLong(logId).putLong(applied);
+        ReplicationProtocol.send(connection, out);
+        ByteBuffer in = ByteBuffer.allocate(64 * 1024);
+        while (!closed) {
+            ByteBuffer frame = ReplicationProtocol.receive(connection, in);
+            if (frame.capacity() <= 1 << 20) {
+                in = frame;
+            }
+            bytes += 4 + frame.limit();
+            frames++;
+            byte type = frame.get();
+            if (type == ReplicationProtocol.SNAPSHOT) {
+                loadSnapshot(frame);
+            } else if (type == ReplicationProtocol.RECORDS) {
+                applyRecords(frame);
+            } else if (type == ReplicationProtocol.HEARTBEAT) {
+                primarySequence = Math.max(primarySequence, frame.getLong());
+                continue;
+            } else {
+                throw new IOException("Unexpected replication frame type " + type + ".");
+            }
+            out = ReplicationProtocol.begin(out, ReplicationProtocol.ACK, 8);
+            out.putLong(applied);
+            ReplicationProtocol.send(connection, out);
+        }
+    }
+
+    private void loadSnapshot(ByteBuffer frame) {
+        long log = frame.getLong();
+        long sequence = frame.getLong();
+        int count = frame.getInt();
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            books.add(BookCodec.decode(frame));
+        }
+        LibraryData loaded = new LibraryData(stores.get());
+        loaded.addBooks(books);
+        catalog = loaded;
+        logId = log;
+        primarySequence = sequence;
+        snapshots++;
+        progress(sequence);
+    }
+
+    private void applyRecords(ByteBuffer frame) throws IOException {
+        long first = frame.getLong();
+        int count = frame.getInt();
+        long firstCommitMicros = frame.getLong();
+        long sequence = frame.getLong();
+        if (first != applied + 1) {
+            throw new IOException("Expected change " + (applied + 1) + " but received " + first + ".");
+        }
+        LibraryData target = catalog;
+        // Adds and updates that keep the ISBN are applied in runs, each one batch of the catalog
+        List<Book> run = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            byte type = frame.get();
+            String oldIsbn = type == ReplicationProtocol.UPDATE ? Isbn.toString(frame.getInt()) : null;
+            Book book = BookCodec.decode(frame);
+            if (oldIsbn == null || oldIsbn.equals(book.getISBN())) {
+                run.add(book);
+                continue;
+            }
+            if (!run.isEmpty()) {
+                target.upsertAll(run);
+                run.clear();
+            }
+            if (!target.updateBook(oldIsbn, book)) {
+                throw new IllegalStateException("No book with ISBN " + oldIsbn + " to update.");
+            }
+        }
+        if (!run.isEmpty()) {
+            target.upsertAll(run);
+        }
+        lag.record(TimeUnit.MICROSECONDS.toNanos(ReplicationProtocol.clockMicros() - firstCommitMicros));
+        records += count;
+        primarySequence = Math.max(sequence, first + count - 1);
+        progress(first + count - 1);
+    }
+
+    private void progress(long sequence) {
+        lock.lock();
+        try {
+            applied = sequence;
+            progressed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,458 @@
+package com.belvinard.libraryManagementSystem.replication;
+
+import com.belvinard.libraryManagementSystem.data.LibraryData;
+import com.belvinard.libraryManagementSystem.events.ChangeEvent;
+import com.belvinard.libraryManagementSystem.events.ChangeStream;
+import com.belvinard.libraryManagementSystem.events.ChangeSubscriber;
+import com.belvinard.libraryManagementSystem.events.OverflowPolicy;
+import com.belvinard.libraryManagementSystem.model.Book;
+import com.belvinard.libraryManagementSystem.model.Isbn;
+import com.belvinard.libraryManagementSystem.persistence.BookCodec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The primary side of log-shipping replication, built on a {@link ChangeStream} of the catalog: its sequence
+ * numbers number the changes, and its buffer holds the latest ones for followers to catch up from.
+ * Each follower connected over TCP has its own subscription, whose thread ships the changes as
+ * {@link ReplicationProtocol#RECORDS} frames, as many as the subscription delivers (at most {@value #MAX_BATCH})
+ * per frame, plus a thread that reads its acknowledgements and one that sends a heartbeat after a second
+ * without frames.
+ * <p>
+ * A follower tells where it stopped when it connects. If it followed this primary and the changes
+ * since are still in the stream's buffer, it resumes from there; otherwise (a new follower, a primary restarted
+ * since, or a follower more than a buffer behind) it first receives a snapshot of the whole catalog, taken
+ * while writes are paused. A follower that falls a buffer behind later on gets a new snapshot the same way.
+ * <p>
+ * Subscriptions use {@link OverflowPolicy#DROP}: writers never wait for a follower.
+ */
+public class ReplicationPrimary implements Closeable {
+
+    public static final int DEFAULT_RETAINED = 1 << 16;
+    public static final int MAX_BATCH = 1024;
+
+    private static final long HEARTBEAT_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final LibraryData libraryData;
+    private final ChangeStream changes;
+    // Identifies the sequence numbers of this primary's stream, which start again at 1 on every start
+    private final long logId = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+    private final ServerSocketChannel server;
+    private final Thread acceptor;
+
+    private volatile boolean closed;
+
+    private final List<Link> links = new CopyOnWriteArrayList<>();
+
+    /**
+     * Replicates a catalog, keeping the latest {@value #DEFAULT_RETAINED} changes for followers to catch up from.
+     *
+     * @see #ReplicationPrimary(LibraryData, InetSocketAddress, int)
+     */
+    public ReplicationPrimary(LibraryData libraryData, InetSocketAddress address) throws IOException {
+        this(libraryData, address, DEFAULT_RETAINED);
+    }
+
+    /**
+     * Follows the changes of the catalog and binds the address; call {@link #start()} to accept followers.
+     *
+     * @param libraryData The catalog to replicate; the primary follows it through a new {@link ChangeStream}.
+     * @param address     The address followers connect to; port 0 picks a free port.
+     * @param retained    The number of changes kept for followers to catch up from, a power of two.
+     * @throws IOException if the address cannot be bound.
+     */
+    public ReplicationPrimary(LibraryData libraryData, InetSocketAddress address, int retained) throws IOException {
+        if (libraryData == null || address == null) {
+            throw new IllegalArgumentException("LibraryData and address cannot be null.");
+        }
+        if (retained < 2 || Integer.bitCount(retained) != 1) {
+            throw new IllegalArgumentException("The number of retained changes must be a power of two.");
+        }
+        this.libraryData = libraryData;
+        this.server = ServerSocketChannel.open().bind(address);
+        this.changes = new ChangeStream(libraryData, retained);
+        this.acceptor = new Thread(this::accept, "replication-acceptor");
+        this.acceptor.setDaemon(true);
+    }
+
+    /**
+     * Starts accepting followers.
+     */
+    public void start() {
+        acceptor.start();
+    }
+
+    /**
+     * @return the port followers connect to.
+     */
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    /**
+     * @return the sequence number of the last change, or 0 if there was none.
+     */
+    public long getSequence() {
+        return changes.getSequence();
+    }
+
+    /**
+     * @return the connected followers.
+     */
+    public List<Link> getLinks() {
+        return List.copyOf(links);
+    }
+
+    /**
+     * Stops following the catalog, closes the server and every follower connection.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        server.close();
+        for (Link link : links) {
+            link.close();
+        }
+        changes.close();
+        try {
+            acceptor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static int encodedSize(ChangeEvent event) {
+        int size = 1 + BookCodec.encodedSize(event.getAfter());
+        return event.getType() == ChangeEvent.Type.UPDATED ? size + 4 : size;
+    }
+
+    // A type byte, for an update the ISBN it replaces, then the book
+    private static void encode(ChangeEvent event, ByteBuffer out) {
+        if (event.getType() == ChangeEvent.Type.ADDED) {
+            out.put(ReplicationProtocol.ADD);
+        } else {
+            out.put(ReplicationProtocol.UPDATE).putInt(Isbn.toInt(event.getIsbn()));
+        }
+        BookCodec.encode(event.getAfter(), out);
+    }
+
+    private void accept() {
+        while (!closed) {
+            try {
+                SocketChannel channel = server.accept();
+                channel.socket().setTcpNoDelay(true);
+                Link link = new Link(channel);
+                links.add(link);
+                link.sender.start();
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("Replication: could not accept a follower: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * One connected follower: what it has acknowledged and what has been sent to it.
+     * Frames are sent with the link's monitor held, by its subscription's thread or, for the first
+     * snapshot and the heartbeats, by its sender thread.
+     */
+    public final class Link implements Closeable {
+
+        private final SocketChannel channel;
+        private final SocketAddress address;
+        private final Thread sender;
+        private final Thread receiver;
+        private ByteBuffer out = ByteBuffer.allocate(64 * 1024);
+        private volatile ChangeStream.Subscription subscription;
+        private volatile long lastFrameNanos;
+
+        private volatile long acked;
+        private volatile long sent;
+        private volatile long frames;
+        private volatile long recordsSent;
+        private volatile long bytes;
+        private volatile long snapshots;
+
+        private Link(SocketChannel channel) throws IOException {
+            this.channel = channel;
+            this.address = channel.getRemoteAddress();
+            this.sender = new Thread(this::send, "replication-sender-" + address);
+            this.receiver = new Thread(this::receive, "replication-acks-" + address);
+            sender.setDaemon(true);
+            receiver.setDaemon(true);
+        }
+
+        public SocketAddress getAddress() {
+            return address;
+        }
+
+        /**
+         * @return the sequence number of the last change the follower has applied.
+         */
+        public long getAcked() {
+            return acked;
+        }
+
+        /**
+         * @return the sequence number of the last change sent to the follower.
+         */
+        public long getSent() {
+            return sent;
+        }
+
+        /**
+         * @return the number of changes the follower has not applied yet.
+         */
+        public long getLag() {
+            return getSequence() - acked;
+        }
+
+        /**
+         * @return the number of frames sent, snapshots and heartbeats included.
+         */
+        public long getFrames() {
+            return frames;
+        }
+
+        /**
+         * @return the number of changes sent, not counting snapshots.
+         */
+        public long getRecords() {
+            return recordsSent;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * @return the number of full snapshots sent.
+         */
+        public long getSnapshots() {
+            return snapshots;
+        }
+
+        public boolean isConnected() {
+            return channel.isOpen();
+        }
+
+        // Ships the changes the follower has not been sent yet, as one frame
+        private synchronized void ship(List<ChangeEvent> events) {
+            // After a snapshot, the subscription resumes with changes the snapshot already holds
+            int first = 0;
+            while (first < events.size() && events.get(first).getSequence() <= sent) {
+                first++;
+            }
+            if (first == events.size() || closed || !channel.isOpen()) {
+                return;
+            }
+            int count = events.size() - first;
+            int bodyBytes = 8 + 4 + 8 + 8;
+            for (int i = first; i < events.size(); i++) {
+                bodyBytes += encodedSize(events.get(i));
+            }
+            long next = events.get(first).getSequence();
+            ByteBuffer frame = ReplicationProtocol.begin(out, ReplicationProtocol.RECORDS, bodyBytes);
+            frame.putLong(next).putInt(count)
+                    .putLong(ReplicationProtocol.toMicros(events.get(first).getPublishedNanos()))
+                    .putLong(changes.getSequence());
+            for (int i = first; i < events.size(); i++) {
+                encode(events.get(i), frame);
+            }
+            try {
+                sendFrame(frame);
+            } catch (IOException e) {
+                lost(e);
+                return;
+            }
+            sent = next + count - 1;
+            recordsSent += count;
+        }
+
+        // The follower fell a whole buffer behind: it gets a new snapshot
+        private synchronized void resync() {
+            if (closed || !channel.isOpen()) {
+                return;
+            }
+            try {
+                sendSnapshot();
+            } catch (IOException e) {
+                lost(e);
+            }
+        }
+
+        /**
+         * Closes the connection and waits for the link's threads to stop.
+         */
+        @Override
+        public void close() {
+            disconnect();
+            for (Thread thread : new Thread[]{sender, receiver}) {
+                if (thread != Thread.currentThread() && thread.isAlive()) {
+                    try {
+                        thread.join();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        }
+
+        // Closes the connection and the subscription, which makes every thread of the link stop;
+        // they call it themselves, so it only waits for the subscription's thread when called from elsewhere
+        private void disconnect() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Closing anyway
+            }
+            LockSupport.unpark(sender);
+            ChangeStream.Subscription current = subscription;
+            if (current != null) {
+                current.close();
+            }
+            links.remove(this);
+        }
+
+        private void lost(IOException e) {
+            if (!closed && channel.isOpen()) {
+                System.err.println("Replication: lost follower " + address + ": " + e.getMessage());
+            }
+            disconnect();
+        }
+
+        private void send() {
+            try {
+                ByteBuffer hello = ReplicationProtocol.receive(channel, ByteBuffer.allocate(64));
+                if (hello.get() != ReplicationProtocol.HELLO) {
+                    throw new IOException("Expected a HELLO frame.");
+                }
+                long followerLog = hello.getLong();
+                long applied = hello.getLong();
+                // Holding the monitor until the snapshot is sent keeps the subscription from shipping before it
+                synchronized (this) {
+                    boolean resume = followerLog == logId && applied <= changes.getSequence()
+                            && applied + 1 >= changes.getOldestAvailable();
+                    if (resume) {
+                        // Changes overwritten meanwhile are reported as dropped, which sends a snapshot
+                        sent = applied;
+                        subscribe(applied);
+                    } else {
+                        sendSnapshot();
+                    }
+                    acked = sent;
+                }
+                receiver.start();
+                sendHeartbeats();
+            } catch (IOException e) {
+                if (!closed && channel.isOpen()) {
+                    System.err.println("Replication: lost follower " + address + ": " + e.getMessage());
+                }
+            } finally {
+                disconnect();
+            }
+        }
+
+        // Sends a heartbeat after every second without a frame, until the connection or the primary is closed
+        private void sendHeartbeats() throws IOException {
+            while (!closed && channel.isOpen()) {
+                long idle = System.nanoTime() - lastFrameNanos;
+                if (idle < HEARTBEAT_NANOS) {
+                    LockSupport.parkNanos(this, HEARTBEAT_NANOS - idle);
+                    continue;
+                }
+                synchronized (this) {
+                    if (System.nanoTime() - lastFrameNanos >= HEARTBEAT_NANOS && channel.isOpen()) {
+                        ByteBuffer frame = ReplicationProtocol.begin(out, ReplicationProtocol.HEARTBEAT, 16);
+                        frame.putLong(changes.getSequence()).putLong(ReplicationProtocol.clockMicros());
+                        sendFrame(frame);
+                    }
+                }
+            }
+        }
+
+        // Sends the whole catalog as of a moment between two writes, subscribing at that moment if the link
+        // has no subscription yet; called with the monitor held
+        private void sendSnapshot() throws IOException {
+            long[] at = new long[1];
+            List<Book> books = libraryData.withWritesPaused(current -> {
+                at[0] = changes.getSequence();
+                if (subscription == null) {
+                    subscribe(at[0]);
+                }
+                return List.copyOf(current);
+            });
+            int bodyBytes = 8 + 8 + 4;
+            for (Book book : books) {
+                bodyBytes += BookCodec.encodedSize(book);
+            }
+            ByteBuffer frame = ReplicationProtocol.begin(out, ReplicationProtocol.SNAPSHOT, bodyBytes);
+            frame.putLong(logId).putLong(at[0]).putInt(books.size());
+            for (Book book : books) {
+                BookCodec.encode(book, frame);
+            }
+            sendFrame(frame);
+            sent = at[0];
+            snapshots++;
+        }
+
+        // Follows the changes after the given one; called with the monitor held
+        private void subscribe(long after) {
+            ChangeSubscriber subscriber = new ChangeSubscriber() {
+                @Override
+                public void onEvents(List<ChangeEvent> events) {
+                    ship(events);
+                }
+
+                @Override
+                public void onDropped(long firstSequence, long count) {
+                    resync();
+                }
+            };
+            // Woken for every write, so a change is shipped as soon as it is made
+            subscription = changes.subscribe("replication-" + address, subscriber, OverflowPolicy.DROP, MAX_BATCH,
+                    after, 1);
+        }
+
+        // Called with the monitor held
+        private void sendFrame(ByteBuffer frame) throws IOException {
+            // Keep the buffer begin grew, but not a snapshot-sized one
+            out = frame.capacity() <= 1 << 20 ? frame : out;
+            bytes += frame.position();
+            ReplicationProtocol.send(channel, frame);
+            frames++;
+            lastFrameNanos = System.nanoTime();
+        }
+
+        private void receive() {
+            ByteBuffer in = ByteBuffer.allocate(64);
+            try {
+                while (!closed && channel.isOpen()) {
+                    ByteBuffer frame = ReplicationProtocol.receive(channel, in);
+                    if (frame.get() == ReplicationProtocol.ACK) {
+                        acked = frame.getLong();
+                    }
+                }
+            } catch (IOException e) {
+                // The sender notices the closed connection too
+            } finally {
+                disconnect();
+            }
+        }
+    }
+}
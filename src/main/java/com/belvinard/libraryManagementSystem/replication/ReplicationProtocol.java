@@ -0,0 +1,126 @@
+package com.belvinard.libraryManagementSystem.replication;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.time.Instant;
+
+/**
+ * The frames exchanged between a {@link ReplicationPrimary} and its followers over one TCP connection.
+ * Every frame is {@code [length][type][body]}, the length counting the type and body:
+ * <pre>
+ * HELLO     follower -> primary  log id, last applied sequence
+ * SNAPSHOT  primary -> follower  log id, sequence, book count, books
+ * RECORDS   primary -> follower  first sequence, record count, commit time of the first record,
+ *                                primary sequence, records
+ * HEARTBEAT primary -> follower  primary sequence, time
+ * ACK       follower -> primary  last applied sequence
+ * </pre>
+ * A record is a {@code BookCodec}-encoded book preceded by {@link #ADD}, or by {@link #UPDATE} and the
+ * old ISBN as an int. Times are microseconds since the epoch, see {@link #clockMicros()}.
+ */
+final class ReplicationProtocol {
+
+    static final byte HELLO = 1;
+    static final byte SNAPSHOT = 2;
+    static final byte RECORDS = 3;
+    static final byte HEARTBEAT = 4;
+    static final byte ACK = 5;
+
+    static final byte ADD = 1;
+    static final byte UPDATE = 2;
+
+    private static final int HEADER = 4 + 1;
+    private static final int MAX_FRAME = 1 << 30;
+
+    // The wall clock read once, so that clockMicros costs a nanoTime read and stays monotonic
+    private static final long CLOCK_OFFSET_MICROS = calibrate();
+
+    private ReplicationProtocol() {
+    }
+
+    /**
+     * @return the current time in microseconds since the epoch, as precise as the wall clock it was
+     * calibrated against once. Two processes on one machine read the same clock.
+     */
+    static long clockMicros() {
+        return toMicros(System.nanoTime());
+    }
+
+    /**
+     * @return the time of a {@link System#nanoTime()} reading in microseconds since the epoch.
+     */
+    static long toMicros(long nanoTime) {
+        return CLOCK_OFFSET_MICROS + nanoTime / 1000;
+    }
+
+    // Reads the wall clock between two nanoTime readings, keeping the tightest of several tries
+    private static long calibrate() {
+        long offset = 0;
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 100; i++) {
+            long before = System.nanoTime();
+            Instant now = Instant.now();
+            long after = System.nanoTime();
+            if (after - before < best) {
+                best = after - before;
+                offset = now.getEpochSecond() * 1_000_000 + now.getNano() / 1000 - (before + after) / 2 / 1000;
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * Clears the buffer and reserves room for the frame header, growing the buffer if needed.
+     *
+     * @return the buffer to write the body into, positioned after the header.
+     */
+    static ByteBuffer begin(ByteBuffer buffer, byte type, int bodyBytes) {
+        ByteBuffer frame = buffer.capacity() >= HEADER + bodyBytes
+                ? buffer.clear()
+                : ByteBuffer.allocate(Math.max(HEADER + bodyBytes, buffer.capacity() * 2));
+        frame.putInt(0).put(type);
+        return frame;
+    }
+
+    /**
+     * Fills in the length of a frame started by {@link #begin} and writes it whole.
+     */
+    static void send(SocketChannel channel, ByteBuffer frame) throws IOException {
+        frame.putInt(0, frame.position() - 4);
+        frame.flip();
+        while (frame.hasRemaining()) {
+            channel.write(frame);
+        }
+    }
+
+    /**
+     * Reads the next frame, blocking until it has fully arrived.
+     *
+     * @param buffer A buffer to read into; a larger one is returned if it is too small.
+     * @return the frame, positioned at its type.
+     * @throws EOFException if the connection was closed.
+     */
+    static ByteBuffer receive(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.clear().limit(4);
+        readFully(channel, buffer);
+        int length = buffer.getInt(0);
+        if (length < 1 || length > MAX_FRAME) {
+            throw new IOException("Invalid replication frame length: " + length);
+        }
+        ByteBuffer frame = buffer.capacity() >= length
+                ? buffer.clear().limit(length)
+                : ByteBuffer.allocate(Math.max(length, buffer.capacity() * 2)).limit(length);
+        readFully(channel, frame);
+        return frame.flip();
+    }
+
+    private static void readFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Connection closed.");
+            }
+        }
+    }
+}
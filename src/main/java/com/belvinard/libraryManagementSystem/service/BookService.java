@@ -1,12 +1,40 @@
 package com.belvinard.libraryManagementSystem.service;
 
+import com.belvinard.libraryManagementSystem.data.BatchReport;
+import com.belvinard.libraryManagementSystem.data.CatalogStatistics;
 import com.belvinard.libraryManagementSystem.data.LibraryData;
+import com.belvinard.libraryManagementSystem.index.AuthorIndex;
+import com.belvinard.libraryManagementSystem.index.FullTextIndex;
+import com.belvinard.libraryManagementSystem.index.GenreYearIndex;
+import com.belvinard.libraryManagementSystem.index.PrefixIndex;
+import com.belvinard.libraryManagementSystem.io.CatalogExporter;
+import com.belvinard.libraryManagementSystem.io.CatalogFormat;
+import com.belvinard.libraryManagementSystem.io.CatalogImporter;
+import com.belvinard.libraryManagementSystem.io.ExportFilter;
+import com.belvinard.libraryManagementSystem.io.ExportReport;
+import com.belvinard.libraryManagementSystem.io.ImportReport;
+import com.belvinard.libraryManagementSystem.metrics.MetricsRegistry;
+import com.belvinard.libraryManagementSystem.metrics.OperationMetrics;
 import com.belvinard.libraryManagementSystem.model.Book;
+import com.belvinard.libraryManagementSystem.model.Genre;
+import com.belvinard.libraryManagementSystem.model.Isbn;
+import com.belvinard.libraryManagementSystem.query.Query;
+import com.belvinard.libraryManagementSystem.query.QueryEngine;
 import org.junit.platform.commons.logging.Logger;
 import org.junit.platform.commons.logging.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
 /**
  * Service class for managing book-related operations.
  * This class serves as an intermediary layer between
@@ -19,6 +47,37 @@ public class BookService {
     private final LibraryData libraryData;
     private Book[] bookCollection;
 
+    // Word index over titles and authors, kept up to date by LibraryData
+    private final FullTextIndex fullTextIndex = new FullTextIndex();
+
+    // Genre and publication year bitmaps, kept up to date by LibraryData
+    private final GenreYearIndex genreYearIndex = new GenreYearIndex();
+
+    // Sorted author names, for author prefix queries, kept up to date by LibraryData
+    private final AuthorIndex authorIndex = new AuthorIndex();
+
+    // Sorted word starts of titles and authors, for autocompletion, kept up to date by LibraryData
+    private final PrefixIndex prefixIndex = new PrefixIndex();
+
+    // Plans ad-hoc queries over the genre, year and author indexes
+    private final QueryEngine queryEngine;
+
+    // Streams exports through direct buffers it keeps for the next export
+    private final CatalogExporter exporter;
+
+    // Whether the indexes are attached; they are built on the first search, not at startup
+    private volatile boolean indexesAttached;
+
+    // Latency and error counts of the core operations
+    private final MetricsRegistry metrics;
+    private final OperationMetrics addBookMetrics;
+    private final OperationMetrics updateBookMetrics;
+    private final OperationMetrics bookExistsMetrics;
+    private final OperationMetrics getBookMetrics;
+    private final OperationMetrics addAllMetrics;
+    private final OperationMetrics upsertAllMetrics;
+    private final OperationMetrics updateWhereMetrics;
+
     /**
      * Constructor-based dependency injection.
      * The libraryData dependency is automatically injected by Spring.
@@ -27,12 +86,35 @@ public class BookService {
      */
     @Autowired
     public BookService(LibraryData libraryData) {
+        this(libraryData, new MetricsRegistry());
+    }
+
+    /**
+     * Creates a BookService that records its operations in the given registry.
+     *
+     * @param libraryData A LibraryData object to handle book storage and retrieval.
+     * @param metrics     The registry for the operation metrics, e.g. {@link MetricsRegistry#disabled()}.
+     */
+    public BookService(LibraryData libraryData, MetricsRegistry metrics) {
 
         if (libraryData == null) {
             throw new IllegalArgumentException("LibraryData cannot be null.");
         }
+        if (metrics == null) {
+            throw new IllegalArgumentException("MetricsRegistry cannot be null.");
+        }
 
         this.libraryData = libraryData;
+        this.exporter = new CatalogExporter(libraryData);
+        this.queryEngine = new QueryEngine(libraryData, genreYearIndex, authorIndex);
+        this.metrics = metrics;
+        this.addBookMetrics = metrics.operation("addBook");
+        this.updateBookMetrics = metrics.operation("updateBook");
+        this.bookExistsMetrics = metrics.lookup("bookExists");
+        this.getBookMetrics = metrics.lookup("getBookByISBN");
+        this.addAllMetrics = metrics.operation("addAll");
+        this.upsertAllMetrics = metrics.operation("upsertAll");
+        this.updateWhereMetrics = metrics.operation("updateWhere");
     }
 
     /**
@@ -41,13 +123,174 @@ public class BookService {
      * @param book The Book object to add to the library.
      */
     public void addBook(Book book) {
+        long start = addBookMetrics.start();
+        try {
+            libraryData.addBook(book);  // Delegate book addition to the data layer
+            addBookMetrics.success(start);
+        } catch (RuntimeException e) {
+            addBookMetrics.failure(start);
+            throw e;
+        }
+    }
+
+    /**
+     * Adds a new book unless its ISBN is already taken, without throwing for the duplicate.
+     * Unlike checking {@link #bookExists} first, this cannot race with another thread adding the same ISBN.
+     *
+     * @param book The Book object to add to the library.
+     * @return false if a book with the same ISBN already exists.
+     */
+    public boolean addBookIfAbsent(Book book) {
+        long start = addBookMetrics.start();
+        try {
+            boolean added = libraryData.addBookIfAbsent(book);
+            if (added) {
+                addBookMetrics.success(start);
+            } else {
+                addBookMetrics.failure(start);
+            }
+            return added;
+        } catch (RuntimeException e) {
+            addBookMetrics.failure(start);
+            throw e;
+        }
+    }
 
-        libraryData.addBook(book);  // Delegate book addition to the data layer
+    /**
+     * Updates the book stored under the given ISBN.
+     *
+     * @param isbn        The ISBN of the book to update.
+     * @param updatedBook The Book holding the new details.
+     * @return true if the book was updated, false if no book has that ISBN.
+     */
+    public boolean updateBook(String isbn, Book updatedBook) {
+        long start = updateBookMetrics.start();
+        try {
+            boolean updated = libraryData.updateBook(isbn, updatedBook);
+            updateBookMetrics.success(start);
+            return updated;
+        } catch (RuntimeException e) {
+            updateBookMetrics.failure(start);
+            throw e;
+        }
+    }
 
+    /**
+     * Adds a batch of books in one atomic write, with one index and log update for the whole batch.
+     * Null books and ISBNs already taken are reported instead of failing the batch.
+     *
+     * @param books The books to add.
+     * @return the outcome of each book.
+     */
+    public BatchReport addAll(List<Book> books) {
+        long start = addAllMetrics.start();
+        try {
+            BatchReport report = libraryData.addAll(books);
+            addAllMetrics.success(start);
+            return report;
+        } catch (RuntimeException e) {
+            addAllMetrics.failure(start);
+            throw e;
+        }
     }
 
-    public void updateBook(String isbn, Book updatedBook) {
-        libraryData.updateBook(isbn, updatedBook);
+    /**
+     * Adds or replaces a batch of books keyed by ISBN, in one atomic write.
+     *
+     * @param books The books to store; a book replaces the stored book with the same ISBN, if any.
+     * @return the outcome of each book.
+     */
+    public BatchReport upsertAll(List<Book> books) {
+        long start = upsertAllMetrics.start();
+        try {
+            BatchReport report = libraryData.upsertAll(books);
+            upsertAllMetrics.success(start);
+            return report;
+        } catch (RuntimeException e) {
+            upsertAllMetrics.failure(start);
+            throw e;
+        }
+    }
+
+    /**
+     * Changes every book matching a filter in one atomic write. The filter and the change
+     * may run on several threads at once.
+     *
+     * @param filter Selects the books to change.
+     * @param change Returns the new version of a selected book; it must keep the ISBN.
+     * @return the outcome of each selected book.
+     */
+    public BatchReport updateWhere(Predicate<Book> filter, UnaryOperator<Book> change) {
+        long start = updateWhereMetrics.start();
+        try {
+            BatchReport report = libraryData.updateWhere(filter, change);
+            updateWhereMetrics.success(start);
+            return report;
+        } catch (RuntimeException e) {
+            updateWhereMetrics.failure(start);
+            throw e;
+        }
+    }
+
+    /**
+     * Moves every book of an author to another genre, e.g. after a catalog reclassification.
+     *
+     * @param author The author, ignoring case.
+     * @param genre  The new genre.
+     * @return the outcome of each book of the author.
+     */
+    public BatchReport changeGenreOfAuthor(String author, String genre) {
+        if (author == null || author.trim().isEmpty()) {
+            throw new IllegalArgumentException("Author must not be null or empty.");
+        }
+        String name = requireGenre(genre).getDisplayName();
+        String wanted = author.trim();
+        return updateWhere(book -> book.getAuthor().equalsIgnoreCase(wanted), book -> book.withGenre(name));
+    }
+
+    /**
+     * Finds the books matching any condition with a full scan, run in parallel over the catalog's
+     * segments on multi-core machines. Prefer the indexed searches when they fit.
+     *
+     * @param filter Selects the books; may run on several threads at once.
+     * @return the matching books.
+     */
+    public List<Book> findBooksWhere(Predicate<Book> filter) {
+        return libraryData.filter(filter);
+    }
+
+    /**
+     * Counts the books matching any condition with a full, parallel scan.
+     *
+     * @param filter Selects the books; may run on several threads at once.
+     * @return the number of matching books.
+     */
+    public long countBooksWhere(Predicate<Book> filter) {
+        return libraryData.count(filter);
+    }
+
+    /**
+     * Runs an ad-hoc query, e.g. Java books from 1990 to 2005 by authors starting with "jo", newest first.
+     * The planner picks the most selective index for it, or a full scan when no index helps.
+     *
+     * @param query The query to run.
+     * @return the matching books, in the query's order, at most its limit.
+     */
+    public List<Book> query(Query query) {
+        attachIndexes();
+        return queryEngine.execute(query);
+    }
+
+    /**
+     * Describes how {@link #query} would run a query: the access path, the filters in the order they are
+     * checked, the ordering and the estimates behind the choice.
+     *
+     * @param query The query to explain.
+     * @return the plan, one step per line.
+     */
+    public String explain(Query query) {
+        attachIndexes();
+        return queryEngine.explain(query);
     }
 
     /*public boolean bookExists(String isbn) {
@@ -56,24 +299,280 @@ public class BookService {
 
     // Method to check if a book exists by ISBN (delegating to LibraryData)
     public boolean bookExists(String isbn) {
-        return libraryData.bookExists(isbn);
+        long start = bookExistsMetrics.start();
+        try {
+            boolean exists = libraryData.bookExists(isbn);
+            bookExistsMetrics.success(start);
+            return exists;
+        } catch (RuntimeException e) {
+            bookExistsMetrics.failure(start);
+            throw e;
+        }
     }
 
 
     // Method to get a book by ISBN
     public Book getBookByISBN(String isbn) {
-        if (isbn == null || isbn.trim().isEmpty()) {
-            throw new IllegalArgumentException("ISBN must not be null or empty.");
+        long start = getBookMetrics.start();
+        try {
+            if (isbn == null || isbn.trim().isEmpty()) {
+                throw new IllegalArgumentException("ISBN must not be null or empty.");
+            }
+
+            // Delegate to the ISBN index of the data layer (null if not found)
+            Book book = libraryData.getBookByISBN(isbn);
+            getBookMetrics.success(start);
+            return book;
+        } catch (RuntimeException e) {
+            getBookMetrics.failure(start);
+            throw e;
         }
+    }
+
+    /**
+     * @return the latency and error metrics of addBook, updateBook, bookExists, getBookByISBN and the batch writes,
+     * and any gauges registered by the components behind the service.
+     */
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return the number of books in the library.
+     */
+    public int countBooks() {
+        return libraryData.size();
+    }
 
-        // Use libraryData's bookCollection to search for the book
-        for (Book book : libraryData.getBookCollection()) {
-            if (book.getISBN().equals(isbn)) {
-                return book; // Book found
+    /**
+     * @return the number of books of each genre, including empty genres. Like the other counts below,
+     * it is kept up to date by LibraryData with every change, so no book is read.
+     */
+    public Map<Genre, Integer> countBooksPerGenre() {
+        return libraryData.getStatistics().genreCounts();
+    }
+
+    /**
+     * @return the number of books published in each decade that has books, keyed by its first year.
+     */
+    public SortedMap<Integer, Integer> countBooksPerDecade() {
+        return libraryData.getStatistics().decadeCounts();
+    }
+
+    /**
+     * @return the number of books published in the given year.
+     */
+    public int countBooksPublishedIn(int year) {
+        return libraryData.getStatistics().countYear(year);
+    }
+
+    /**
+     * Lists the authors with the most books, from a sketch: the counts may be slightly too high, never too low.
+     *
+     * @param limit The number of authors, from 1 to 64.
+     * @return the top authors, most books first.
+     */
+    public List<CatalogStatistics.AuthorCount> topAuthors(int limit) {
+        return libraryData.getStatistics().topAuthors(limit);
+    }
+
+    /**
+     * Returns one page of the books, in insertion order.
+     *
+     * @param offset The number of books to skip.
+     * @param limit  The maximum number of books to return.
+     * @return the books of the page; empty if {@code offset} is past the end.
+     */
+    public List<Book> listBooks(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit must not be negative.");
+        }
+        int to = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+        return libraryData.getBooks(offset, to);
+    }
+
+    /**
+     * Searches books by the words of their title and author.
+     * Words are combined with AND, or with OR when the query contains {@code OR}.
+     * The first search (or genre/year lookup) builds the indexes over the current catalog.
+     *
+     * @param query The words to look for, e.g. "effective java" or "python OR javascript".
+     * @param limit The maximum number of books to return.
+     * @return the best matching books, most relevant first.
+     */
+    public List<Book> searchBooks(String query, int limit) {
+        attachIndexes();
+        List<Book> books = new ArrayList<>();
+        for (FullTextIndex.Hit hit : fullTextIndex.search(query, limit)) {
+            Book book = libraryData.getBookByISBN(hit.getIsbn());
+            if (book != null) {
+                books.add(book);
+            }
+        }
+        return books;
+    }
+
+    /**
+     * Completes a partly typed title or author name: finds the books with a word of the title or author
+     * starting with the prefix, ignoring case, e.g. "jav" or "advanced j" for "Advanced Java".
+     *
+     * @param prefix The start of a word, possibly followed by more words.
+     * @param limit  The maximum number of books to return.
+     * @return the matching books, in alphabetical order of the matching text.
+     */
+    public List<Book> suggestBooks(String prefix, int limit) {
+        if (prefix == null || prefix.isBlank()) {
+            throw new IllegalArgumentException("Prefix cannot be empty.");
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive.");
+        }
+        attachIndexes();
+        List<Book> books = new ArrayList<>();
+        for (String isbn : prefixIndex.complete(prefix.strip(), limit)) {
+            Book book = libraryData.getBookByISBN(isbn);
+            if (book != null) {
+                books.add(book);
+            }
+        }
+        return books;
+    }
+
+    /**
+     * Lists the books of a genre, in ISBN order.
+     *
+     * @param genre The genre name, e.g. "Java" (case-insensitive).
+     * @return the books of that genre.
+     */
+    public List<Book> findBooksByGenre(String genre) {
+        Genre resolved = requireGenre(genre);
+        attachIndexes();
+        return booksOf(genreYearIndex.match(resolved));
+    }
+
+    /**
+     * Lists the books published within a year range, in ISBN order.
+     *
+     * @param fromYear The first publication year, inclusive.
+     * @param toYear   The last publication year, inclusive.
+     * @return the books published in that range.
+     */
+    public List<Book> findBooksByYear(int fromYear, int toYear) {
+        attachIndexes();
+        return booksOf(genreYearIndex.match(null, fromYear, toYear));
+    }
+
+    /**
+     * Lists the books of a genre published within a year range, e.g. "Java books from 2015 to 2020",
+     * in ISBN order. The genre and year bitmaps are intersected; no book outside the answer is read.
+     *
+     * @param genre    The genre name, or null for any genre.
+     * @param fromYear The first publication year, inclusive.
+     * @param toYear   The last publication year, inclusive.
+     * @return the matching books.
+     */
+    public List<Book> findBooks(String genre, int fromYear, int toYear) {
+        Genre resolved = genre == null ? null : requireGenre(genre);
+        attachIndexes();
+        return booksOf(genreYearIndex.match(resolved, fromYear, toYear));
+    }
+
+    /**
+     * Imports a CSV or JSONL catalog file. Invalid or duplicate records are written to
+     * {@code <source>.rejects} with their line numbers instead of stopping the import.
+     *
+     * @param source The catalog file to import.
+     * @return the import report.
+     * @throws IOException if the files cannot be read or written.
+     */
+    public ImportReport importCatalog(Path source) throws IOException {
+        return importCatalog(source, source.resolveSibling(source.getFileName() + ".rejects"));
+    }
+
+    /**
+     * Imports a CSV or JSONL catalog file, writing rejected records to the given file.
+     *
+     * @param source     The catalog file to import.
+     * @param rejectFile The file receiving rejected records.
+     * @return the import report.
+     * @throws IOException if the files cannot be read or written.
+     */
+    public ImportReport importCatalog(Path source, Path rejectFile) throws IOException {
+        if (source == null || rejectFile == null) {
+            throw new IllegalArgumentException("Source and reject file must not be null.");
+        }
+        return new CatalogImporter(libraryData).importFile(source, rejectFile);
+    }
+
+    /**
+     * Exports the whole catalog to a CSV or JSONL file, picked from the file extension
+     * as for imports; the file is overwritten.
+     *
+     * @param target The file to write.
+     * @return the export report.
+     * @throws IOException if the file cannot be written.
+     */
+    public ExportReport exportCatalog(Path target) throws IOException {
+        return exportCatalog(target, null, Integer.MIN_VALUE, Integer.MAX_VALUE, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Exports one page of the books of a genre published within a year range. The filter is applied
+     * while the catalog is streamed to the file, without collecting the matching books first.
+     * Pass 0 as the cursor for the first page, then the report's {@link ExportReport#getNextCursor()}
+     * until {@link ExportReport#hasMore()} is false.
+     *
+     * @param target   The CSV or JSONL file to write; overwritten.
+     * @param genre    The genre name, or null for any genre.
+     * @param fromYear The first publication year, inclusive.
+     * @param toYear   The last publication year, inclusive.
+     * @param cursor   Where the page starts.
+     * @param limit    The maximum number of books in the page.
+     * @return the export report.
+     * @throws IOException if the file cannot be written.
+     */
+    public ExportReport exportCatalog(Path target, String genre, int fromYear, int toYear, int cursor, int limit)
+            throws IOException {
+        if (target == null) {
+            throw new IllegalArgumentException("Target must not be null.");
+        }
+        ExportFilter filter = ExportFilter.of(genre == null ? null : requireGenre(genre), fromYear, toYear);
+        return exporter.exportFile(target, CatalogFormat.fromPath(target), filter, cursor, limit);
+    }
+
+    // Attaches the indexes on first use: they replay the current catalog, then follow every change
+    private void attachIndexes() {
+        if (!indexesAttached) {
+            synchronized (this) {
+                if (!indexesAttached) {
+                    libraryData.attach(fullTextIndex);
+                    libraryData.attach(genreYearIndex);
+                    libraryData.attach(authorIndex);
+                    libraryData.attach(prefixIndex);
+                    indexesAttached = true;
+                }
             }
         }
+    }
+
+    private static Genre requireGenre(String genre) {
+        Genre resolved = Genre.fromName(genre);
+        if (resolved == null) {
+            throw new IllegalArgumentException("Invalid genre. It must be one of: " + Genre.allowedNames());
+        }
+        return resolved;
+    }
 
-        return null; // Book not found
+    // Resolves a bitmap of numeric ISBNs to the stored books
+    private List<Book> booksOf(BitSet isbns) {
+        List<Book> books = new ArrayList<>(isbns.cardinality());
+        for (int id = isbns.nextSetBit(0); id >= 0; id = isbns.nextSetBit(id + 1)) {
+            Book book = libraryData.getBookByISBN(Isbn.toString(id));
+            if (book != null) {
+                books.add(book);
+            }
+        }
+        return books;
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,50 @@
+package com.belvinard.libraryManagementSystem.console;
+
+import com.belvinard.libraryManagementSystem.data.LibraryData;
+import com.belvinard.libraryManagementSystem.data.ListBookStore;
+import com.belvinard.libraryManagementSystem.model.Book;
+import com.belvinard.libraryManagementSystem.service.BookService;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BatchCommandRunnerTest {
+
+    @Test
+    void unexpectedFailureFailsOnlyItsCommand() throws IOException {
+        // A store that breaks on one ISBN, as a store or log failure would
+        ListBookStore store = new ListBookStore() {
+            @Override
+            public Book get(String isbn) {
+                if (isbn.equals("99999")) {
+                    throw new IllegalStateException("store failure");
+                }
+                return super.get(isbn);
+            }
+        };
+        BatchCommandRunner runner = new BatchCommandRunner(new BookService(new LibraryData(store)));
+        String script = String.join("\n",
+                "add|Effective Java|Joshua Bloch|Java|12345|2018",
+                "get|99999",
+                "exists|12345",
+                "get|abcde|extra",
+                "get|12345");
+        StringWriter out = new StringWriter();
+
+        runner.run(new BufferedReader(new StringReader(script)), out);
+
+        assertEquals(String.join("\n",
+                "OK",
+                "ERROR|Internal error: java.lang.IllegalStateException: store failure",
+                "true",
+                "ERROR|'get' expects 1 arguments.",
+                "OK|Effective Java|Joshua Bloch|Java|12345|2018") + "\n", out.toString());
+        assertEquals(5, runner.getCommands());
+        assertEquals(2, runner.getErrors());
+    }
+}
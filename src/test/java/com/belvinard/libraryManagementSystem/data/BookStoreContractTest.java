@@ -0,0 +1,96 @@
+package com.belvinard.libraryManagementSystem.data;
+
+import com.belvinard.libraryManagementSystem.model.Book;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Named;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that every {@link BookStore} answers lookups by a string that is not a valid ISBN
+ * the same way: no book, whatever the store keys its books by.
+ */
+class BookStoreContractTest {
+
+    // Not ISBNs, though a digit-by-digit conversion maps the first two onto stored books:
+    // "1234a" onto 12389 and "123456" onto its first five digits
+    private static final List<String> INVALID_ISBNS =
+            List.of("1234a", "123456", "12345 ", "1234", "abc", "", "zzzzz", "-1234");
+
+    private static final Book FIRST = new Book("Effective Java", "Joshua Bloch", "Java", "12345", 2018);
+    private static final Book SECOND = new Book("Clean Code", "Robert Martin", "Software Development", "12389", 2008);
+
+    @TempDir
+    Path directory;
+
+    private BookStore store;
+
+    static Stream<Named<StoreFactory>> stores() {
+        return Stream.of(
+                Named.of("list", directory -> new ListBookStore()),
+                Named.of("compact", directory -> new CompactBookStore()),
+                Named.of("concurrent", directory -> new ConcurrentBookStore()),
+                Named.of("versioned", directory -> new VersionedBookStore()),
+                Named.of("partitioned", directory -> new PartitionedBookStore(4)),
+                Named.of("offheap", directory -> OffHeapBookStore.inDirectMemory()),
+                Named.of("tiered", directory -> TieredBookStore.withMaxEntries(directory.resolve("books.dat"), 1)));
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        if (store instanceof Closeable) {
+            ((Closeable) store).close();
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("stores")
+    void invalidIsbnFindsNoBook(StoreFactory factory) throws IOException {
+        store = filled(factory);
+        for (String isbn : INVALID_ISBNS) {
+            assertNull(store.get(isbn), "get(\"" + isbn + "\")");
+            assertFalse(store.contains(isbn), "contains(\"" + isbn + "\")");
+        }
+        assertTrue(store.contains("12345"));
+        assertEquals(SECOND.getTitle(), store.get("12389").getTitle());
+    }
+
+    @ParameterizedTest
+    @MethodSource("stores")
+    void invalidIsbnReplacesNoBook(StoreFactory factory) throws IOException {
+        store = filled(factory);
+        for (String isbn : INVALID_ISBNS) {
+            Book replacement = new Book("Replaced Title", "Someone Else", "Python", "54321", 2020);
+            assertThrows(IllegalArgumentException.class, () -> store.replace(isbn, replacement), "replace(\"" + isbn + "\")");
+        }
+        assertEquals(2, store.size());
+        assertEquals(FIRST.getTitle(), store.get("12345").getTitle());
+        assertEquals(SECOND.getTitle(), store.get("12389").getTitle());
+        assertFalse(store.contains("54321"));
+    }
+
+    private BookStore filled(StoreFactory factory) throws IOException {
+        BookStore created = factory.create(directory);
+        assertTrue(created.add(FIRST));
+        assertTrue(created.add(SECOND));
+        return created;
+    }
+
+    @FunctionalInterface
+    interface StoreFactory {
+        BookStore create(Path directory) throws IOException;
+    }
+}
@@ -0,0 +1,141 @@
+package com.belvinard.libraryManagementSystem.data;
+
+import com.belvinard.libraryManagementSystem.model.Book;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that {@link LibraryData} over a {@link PartitionedBookStore} only serializes writes that share a
+ * partition. A listener holds one add in the middle of its write, with its partition's lock held, and the
+ * test looks at which other writes can complete meanwhile.
+ */
+class PartitionedWritesTest {
+
+    private static final String HELD = "10000";
+
+    // How long a write that should go through may take, and how long one that should wait is watched
+    private static final long COMPLETES_SECONDS = 10;
+    private static final long WAITS_MILLIS = 300;
+
+    private final ExecutorService writers = Executors.newCachedThreadPool();
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void stop() {
+        release.countDown();
+        writers.shutdownNow();
+    }
+
+    @Test
+    void writesToOtherPartitionsDoNotWait() throws Exception {
+        PartitionedBookStore store = new PartitionedBookStore(4);
+        LibraryData libraryData = new LibraryData(store);
+        String other = isbnIn(store, false, HELD);
+        String updated = isbnIn(store, false, HELD, other);
+        libraryData.addBook(book(updated));
+        Future<?> held = holdAdd(libraryData);
+
+        writers.submit(() -> libraryData.addBook(book(other))).get(COMPLETES_SECONDS, TimeUnit.SECONDS);
+        assertTrue(writers.submit(() -> libraryData.updateBook(updated, book(updated).withTitle("Updated Title")))
+                .get(COMPLETES_SECONDS, TimeUnit.SECONDS));
+        assertFalse(held.isDone());
+
+        release.countDown();
+        held.get(COMPLETES_SECONDS, TimeUnit.SECONDS);
+        assertEquals(3, libraryData.size());
+        assertEquals("Updated Title", libraryData.getBookByISBN(updated).getTitle());
+    }
+
+    @Test
+    void writesToTheSamePartitionWait() throws Exception {
+        PartitionedBookStore store = new PartitionedBookStore(4);
+        LibraryData libraryData = new LibraryData(store);
+        Future<?> held = holdAdd(libraryData);
+
+        assertWaitsForHeldAdd(held, writers.submit(() -> libraryData.addBook(book(isbnIn(store, true, HELD)))));
+        assertEquals(2, libraryData.size());
+    }
+
+    @Test
+    void isbnChangeIntoTheHeldPartitionWaits() throws Exception {
+        PartitionedBookStore store = new PartitionedBookStore(4);
+        LibraryData libraryData = new LibraryData(store);
+        String from = isbnIn(store, false, HELD);
+        String to = isbnIn(store, true, HELD);
+        libraryData.addBook(book(from));
+        Future<?> held = holdAdd(libraryData);
+
+        assertWaitsForHeldAdd(held, writers.submit(() -> libraryData.updateBook(from, book(to))));
+        assertEquals(to, libraryData.getBookByISBN(to).getISBN());
+    }
+
+    @Test
+    void withOneWriteLockEveryWriteWaits() throws Exception {
+        LibraryData libraryData = new LibraryData(new ConcurrentBookStore());
+        Future<?> held = holdAdd(libraryData);
+
+        assertWaitsForHeldAdd(held, writers.submit(() -> libraryData.addBook(book("54321"))));
+        assertEquals(2, libraryData.size());
+    }
+
+    // Starts adding the HELD book and returns once a listener holds that add in the middle of its write
+    private Future<?> holdAdd(LibraryData libraryData) throws InterruptedException {
+        libraryData.addListener(new CatalogListener() {
+            @Override
+            public void bookAdded(Book book) {
+                if (book.getISBN().equals(HELD)) {
+                    entered.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+
+            @Override
+            public void bookUpdated(String isbn, Book before, Book after) {
+            }
+        });
+        Future<?> held = writers.submit(() -> libraryData.addBook(book(HELD)));
+        assertTrue(entered.await(COMPLETES_SECONDS, TimeUnit.SECONDS));
+        return held;
+    }
+
+    // The write does not complete while the held add is in progress, and does once it is released
+    private void assertWaitsForHeldAdd(Future<?> held, Future<?> write) throws Exception {
+        assertThrows(TimeoutException.class, () -> write.get(WAITS_MILLIS, TimeUnit.MILLISECONDS));
+        release.countDown();
+        held.get(COMPLETES_SECONDS, TimeUnit.SECONDS);
+        write.get(COMPLETES_SECONDS, TimeUnit.SECONDS);
+    }
+
+    // The first ISBN after the given ones that is (or is not) in the partition of the first of them
+    private static String isbnIn(PartitionedBookStore store, boolean samePartition, String... taken) {
+        int partition = store.partitionIndex(taken[0]);
+        for (int candidate = Integer.parseInt(taken[taken.length - 1]) + 1; candidate < 100_000; candidate++) {
+            String isbn = String.format("%05d", candidate);
+            if ((store.partitionIndex(isbn) == partition) == samePartition) {
+                return isbn;
+            }
+        }
+        throw new IllegalStateException("No ISBN found.");
+    }
+
+    private static Book book(String isbn) {
+        return new Book("Book " + isbn, "Jane Doe", "Java", isbn, 2020);
+    }
+}
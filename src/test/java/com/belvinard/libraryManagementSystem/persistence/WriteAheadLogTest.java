@@ -0,0 +1,79 @@
+package com.belvinard.libraryManagementSystem.persistence;
+
+import com.belvinard.libraryManagementSystem.model.Book;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void bookTooLongToEncodeLeavesNothingInTheLog() throws IOException {
+        Book tooLong = new Book("A".repeat(70_000), "Joshua Bloch", "Java", "10001", 2018);
+        Book valid = new Book("Effective Java", "Joshua Bloch", "Java", "10002", 2018);
+        Book updated = new Book("Effective Java Third Edition", "Joshua Bloch", "Java", "10002", 2018);
+
+        try (WriteAheadLog wal = new WriteAheadLog(directory, 0, false)) {
+            assertThrows(IllegalArgumentException.class, () -> wal.appendAdd(tooLong));
+            assertEquals(0, wal.appendAdd(valid));
+            assertThrows(IllegalArgumentException.class, () -> wal.appendUpdate("10002", tooLong));
+            assertEquals(1, wal.appendUpdate("10002", updated));
+            wal.awaitDurable(1);
+        }
+
+        List<String> replayed = new ArrayList<>();
+        long next = replay(replayed);
+        assertEquals(2, next);
+        assertEquals(List.of("added 10002 Effective Java", "updated 10002 Effective Java Third Edition"), replayed);
+    }
+
+    @Test
+    void tornTailWithHugeLengthIsCutOff() throws IOException {
+        try (WriteAheadLog wal = new WriteAheadLog(directory, 0, false)) {
+            wal.appendAdd(new Book("Effective Java", "Joshua Bloch", "Java", "10002", 2018));
+            wal.awaitDurable(0);
+        }
+        Path segment;
+        try (var segments = Files.list(directory)) {
+            segment = segments.findFirst().orElseThrow();
+        }
+        long goodSize = Files.size(segment);
+        // A record header whose length wraps around to a negative int once the header size is added
+        try (FileChannel file = FileChannel.open(segment, StandardOpenOption.APPEND)) {
+            file.write(ByteBuffer.allocate(12).putInt(Integer.MAX_VALUE - 2).putInt(0).putInt(0).flip());
+        }
+
+        List<String> replayed = new ArrayList<>();
+        assertEquals(1, replay(replayed));
+        assertEquals(List.of("added 10002 Effective Java"), replayed);
+        assertEquals(goodSize, Files.size(segment));
+    }
+
+    private long replay(List<String> replayed) throws IOException {
+        return WriteAheadLog.replay(directory, 0, new WriteAheadLog.RecordHandler() {
+            @Override
+            public void added(Book book) {
+                replayed.add("added " + book.getISBN() + " " + book.getTitle());
+            }
+
+            @Override
+            public void updated(String isbn, Book book) {
+                replayed.add("updated " + isbn + " " + book.getTitle());
+            }
+        });
+    }
+}